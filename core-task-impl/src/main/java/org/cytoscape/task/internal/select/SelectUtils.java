@@ -24,24 +24,38 @@ package org.cytoscape.task.internal.select;
  * #L%
  */
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 import org.cytoscape.model.CyEdge;
 import org.cytoscape.model.CyNetwork;
 import org.cytoscape.model.CyNode;
 import org.cytoscape.model.CyIdentifiable;
+import org.cytoscape.model.CyTable;
+import org.cytoscape.model.internal.bulk.BulkValueSetter;
 
 final class SelectUtils {
 
 	void setSelectedNodes(final CyNetwork network, final Collection<CyNode> nodes, final boolean select) {
-		setSelected(network,nodes, select);
+		setSelected(network, network.getDefaultNodeTable(), nodes, select);
 	}
 
 	void setSelectedEdges(final CyNetwork network, final Collection<CyEdge> edges, final boolean select) {
-		setSelected(network,edges, select);
+		setSelected(network, network.getDefaultEdgeTable(), edges, select);
 	}
 
-	private void setSelected(final CyNetwork network, final Collection<? extends CyIdentifiable> objects, final boolean select) {
+	private void setSelected(final CyNetwork network, final CyTable table,
+	                         final Collection<? extends CyIdentifiable> objects, final boolean select) {
+		// The tables of model-impl set all rows while locked only once.
+		if (table instanceof BulkValueSetter) {
+			final List<Long> suids = new ArrayList<Long>(objects.size());
+			for (final CyIdentifiable nodeOrEdge : objects)
+				suids.add(nodeOrEdge.getSUID());
+
+			((BulkValueSetter) table).setValues(suids, CyNetwork.SELECTED, select);
+			return;
+		}
 
 		for (final CyIdentifiable nodeOrEdge : objects)
 			network.getRow(nodeOrEdge).set(CyNetwork.SELECTED, select);
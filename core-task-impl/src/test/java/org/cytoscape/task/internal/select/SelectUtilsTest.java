@@ -0,0 +1,81 @@
+package org.cytoscape.task.internal.select;
+
+/*
+ * #%L
+ * Cytoscape Core Task Impl (core-task-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2010 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.NetworkTestSupport;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SelectUtilsTest {
+	private final NetworkTestSupport support = new NetworkTestSupport();
+
+	private CyNetwork net;
+	private CyNode n1;
+	private CyNode n2;
+	private CyNode n3;
+	private CyEdge e1;
+
+	@Before
+	public void setUp() throws Exception {
+		net = support.getNetwork();
+		n1 = net.addNode();
+		n2 = net.addNode();
+		n3 = net.addNode();
+		e1 = net.addEdge(n1, n2, true);
+	}
+
+	@Test
+	public void testSetSelectedNodes() {
+		final List<CyNode> nodes = Arrays.asList(n1, n3);
+		new SelectUtils().setSelectedNodes(net, nodes, true);
+
+		assertTrue(net.getRow(n1).get(CyNetwork.SELECTED, Boolean.class));
+		assertFalse(net.getRow(n2).get(CyNetwork.SELECTED, Boolean.class));
+		assertTrue(net.getRow(n3).get(CyNetwork.SELECTED, Boolean.class));
+		assertEquals(2, net.getDefaultNodeTable().countMatchingRows(CyNetwork.SELECTED, true));
+
+		new SelectUtils().setSelectedNodes(net, nodes, false);
+		assertEquals(0, net.getDefaultNodeTable().countMatchingRows(CyNetwork.SELECTED, true));
+	}
+
+	@Test
+	public void testSetSelectedEdges() {
+		new SelectUtils().setSelectedEdges(net, Arrays.asList(e1), true);
+
+		assertTrue(net.getRow(e1).get(CyNetwork.SELECTED, Boolean.class));
+		assertEquals(0, net.getDefaultNodeTable().countMatchingRows(CyNetwork.SELECTED, true));
+	}
+}
@@ -28,22 +28,33 @@ import java.awt.Color;
 import java.awt.Component;
 import java.awt.Dimension;
 import java.awt.Graphics;
+import java.awt.Graphics2D;
 import java.awt.GraphicsConfiguration;
 import java.awt.Rectangle;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseMotionAdapter;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
 import java.awt.image.VolatileImage;
 import java.awt.print.Printable;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import javax.swing.Icon;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 
 import org.cytoscape.application.NetworkViewRenderer;
 import org.cytoscape.ding.GraphView;
 import org.cytoscape.ding.impl.events.ViewportChangeListener;
+import org.cytoscape.graph.render.immed.GraphGraphics;
+import org.cytoscape.graph.render.stateful.GraphLOD;
 import org.cytoscape.model.CyNetwork;
 import org.cytoscape.service.util.CyServiceRegistrar;
 import org.cytoscape.view.model.View;
@@ -68,6 +79,12 @@ public final class BirdsEyeView extends Component implements RenderingEngine<CyN
 	// Ratio of the graph image to panel size 
 	private static final double SCALE_FACTOR = 0.97;
 
+	// Minimum time, in milliseconds, between two renderings of the overview
+	// while the network is being edited.
+	private static final int REFRESH_DELAY = 500;
+
+	private static final Color TRANSPARENT = new Color(0, 0, 0, 0);
+
 	private final double[] m_extents = new double[4];
 
 	// This is the view model of this presentation (rendering engine).  Shared with main view.
@@ -77,10 +94,19 @@ public final class BirdsEyeView extends Component implements RenderingEngine<CyN
 	private final ViewportChangeListener m_vLis;
 	private final CyServiceRegistrar registrar;
 
+	// The overview as shown: the cached network raster between the
+	// background and foreground canvases.
 	private VolatileImage networkImage;
-	
-	private boolean imageUpdated;
-	private boolean boundChanged;
+	private boolean composeNeeded;
+
+	// The nodes and edges as last rendered by the render worker.  The
+	// transform below is the one it was rendered with.
+	private BufferedImage networkRaster;
+
+	private final Timer refreshTimer;
+	private ExecutorService renderExecutor;
+	private OverviewFrame renderingFrame;
+	private boolean renderAgain;
 	
 	private double m_myXCenter;
 	private double m_myYCenter;
@@ -114,6 +140,13 @@ public final class BirdsEyeView extends Component implements RenderingEngine<CyN
 		m_cLis = new InnerContentChangeListener();
 		m_vLis = new InnerViewportChangeListener();
 
+		refreshTimer = new Timer(REFRESH_DELAY, new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				startRendering();
+			}
+		});
+		refreshTimer.setRepeats(false);
+
 		addMouseListener(new InnerMouseListener());
 		addMouseMotionListener(new InnerMouseMotionListener());
 		setPreferredSize(MIN_SIZE);
@@ -137,9 +170,6 @@ public final class BirdsEyeView extends Component implements RenderingEngine<CyN
 		// Create default empty graphics object
 		imageWidth = MIN_SIZE.width;
 		imageHeight = MIN_SIZE.height;
-		
-		boundChanged = true;
-		imageUpdated = true;		
 	}
 
 	private void updateBounds() {
@@ -188,9 +218,117 @@ public final class BirdsEyeView extends Component implements RenderingEngine<CyN
 		if(imageWidth != width || imageHeight != height) {
 			imageWidth = width;
 			imageHeight = height;
-			imageUpdated = true;
+			requestRendering(true);
+		}
+	}
+
+	/**
+	 * Renders the overview again, either right away or once REFRESH_DELAY has
+	 * passed since the timer was started, so that a stream of changes renders
+	 * it at most once per REFRESH_DELAY.  Until then the cached raster is shown.
+	 */
+	private void requestRendering(final boolean now) {
+		if (renderingFrame != null) {
+			renderAgain = true;
+		} else if (now) {
+			refreshTimer.stop();
+			startRendering();
+		} else if (!refreshTimer.isRunning()) {
+			refreshTimer.start();
+		}
+	}
+
+	private void startRendering() {
+		if (renderingFrame != null) {
+			renderAgain = true;
+			return;
+		}
+
+		final double[] extents = new double[4];
+		final double xCenter;
+		final double yCenter;
+		final double scaleFactor;
+
+		if (viewModel.getExtents(extents)) {
+			// Adjust for foreground/background components
+			getCanvas(DGraphView.Canvas.FOREGROUND_CANVAS).adjustBounds(extents);
+			getCanvas(DGraphView.Canvas.BACKGROUND_CANVAS).adjustBounds(extents);
+
+			xCenter = (extents[0] + extents[2]) / 2.0d;
+			yCenter = (extents[1] + extents[3]) / 2.0d;
+			scaleFactor = SCALE_FACTOR * 
+			              Math.min(((double) imageWidth) / (extents[2] - extents[0]), 
+			                       ((double) imageHeight) / (extents[3] - extents[1]));
+		} else {
+			xCenter = 0.0d;
+			yCenter = 0.0d;
+			scaleFactor = 1.0d;
 		}
-		boundChanged = true;
+
+		if (renderExecutor == null)
+			renderExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+				public Thread newThread(final Runnable r) {
+					final Thread thread = new Thread(r, "BirdsEyeView-" + viewModel.getSUID());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+
+		renderAgain = false;
+		renderingFrame = new OverviewFrame(Math.max(1, imageWidth), Math.max(1, imageHeight), extents,
+		                                   xCenter, yCenter, scaleFactor, viewModel.getGraphLOD());
+		renderExecutor.execute(renderingFrame);
+	}
+
+	/**
+	 * Called on the EDT once the render worker is done with frame.
+	 */
+	private void showFrame(final OverviewFrame frame, final BufferedImage raster) {
+		if (frame != renderingFrame)
+			return;
+
+		renderingFrame = null;
+
+		if (raster != null) {
+			networkRaster = raster;
+			System.arraycopy(frame.extents, 0, m_extents, 0, m_extents.length);
+			m_myXCenter = frame.xCenter;
+			m_myYCenter = frame.yCenter;
+			m_myScaleFactor = frame.scaleFactor;
+			composeNeeded = true;
+			repaint();
+		}
+
+		if (renderAgain)
+			requestRendering(false);
+	}
+
+	private ArbitraryGraphicsCanvas getCanvas(final DGraphView.Canvas canvas) {
+		return (ArbitraryGraphicsCanvas) viewModel.getCanvas(canvas);
+	}
+
+	/**
+	 * Draws the canvases around the cached network raster.  Annotations are
+	 * Swing components, so this has to stay on the EDT.
+	 */
+	private void composeImage() {
+		final int width = networkImage.getWidth();
+		final int height = networkImage.getHeight();
+
+		final Graphics2D g = networkImage.createGraphics();
+		g.setPaint(viewModel.getBackgroundPaint());
+		g.fillRect(0, 0, width, height);
+		g.dispose();
+
+		getCanvas(DGraphView.Canvas.BACKGROUND_CANVAS).drawCanvas(networkImage, m_extents[0], m_extents[1],
+				m_myXCenter, m_myYCenter, m_myScaleFactor);
+
+		final Graphics2D g2 = networkImage.createGraphics();
+		g2.drawImage(networkRaster, 0, 0, null);
+		g2.dispose();
+
+		getCanvas(DGraphView.Canvas.FOREGROUND_CANVAS).drawCanvas(networkImage, m_extents[0], m_extents[1],
+				m_myXCenter, m_myYCenter, m_myScaleFactor);
 	}
 
 	
@@ -199,49 +337,37 @@ public final class BirdsEyeView extends Component implements RenderingEngine<CyN
 	 */
 	@Override public void update(Graphics g) {
 		viewModel.m_networkCanvas.ensureInitialized();
-		
-		ArbitraryGraphicsCanvas foregroundCanvas = 
-		    (ArbitraryGraphicsCanvas) viewModel.getCanvas(DGraphView.Canvas.FOREGROUND_CANVAS);
-		ArbitraryGraphicsCanvas backgroundCanvas = 
-		    (ArbitraryGraphicsCanvas) viewModel.getCanvas(DGraphView.Canvas.BACKGROUND_CANVAS);
 
 		updateBounds();
 
-		if (imageUpdated || boundChanged) {
-			if (viewModel.getExtents(m_extents)) {				
-
-				// Adjust for foreground/background components
-				foregroundCanvas.adjustBounds(m_extents);
-				backgroundCanvas.adjustBounds(m_extents);
-
-				m_myXCenter = (m_extents[0] + m_extents[2]) / 2.0d;
-				m_myYCenter = (m_extents[1] + m_extents[3]) / 2.0d;
-				m_myScaleFactor = SCALE_FACTOR * 
-				                  Math.min(((double) getWidth()) / (m_extents[2] - m_extents[0]), 
-				                           ((double) getHeight()) / (m_extents[3] - m_extents[1]));
-			} else {				
-				m_myXCenter = 0.0d;
-				m_myYCenter = 0.0d;
-				m_myScaleFactor = 1.0d;
-			}
+		if (networkRaster == null) {
+			if (renderingFrame == null)
+				requestRendering(true);
 
-			// System.out.println("BirdsEyeView: extent[0] = "+m_extents[0]+" extent[1] = "+m_extents[1]+" extent[2] = "+m_extents[2]+" extent[3] = "+m_extents[3]);
-			// System.out.println("BirdsEyeView: component = "+getWidth()+"x"+getHeight());
-			// System.out.println("BirdsEyeView: image = "+imageWidth+"x"+imageHeight);
+			g.setColor(getBackground());
+			g.fillRect(0, 0, getWidth(), getHeight());
+			return;
+		}
 
-			// Create "background" network image.
-			if (imageUpdated) {
-				// Need to create new image.  This is VERY expensive operation.
-				final GraphicsConfiguration gc = getGraphicsConfiguration();
-				networkImage = gc.createCompatibleVolatileImage(imageWidth, imageHeight, VolatileImage.OPAQUE);
+		// Render network graphics.
+		final int width = networkRaster.getWidth();
+		final int height = networkRaster.getHeight();
+		final GraphicsConfiguration gc = getGraphicsConfiguration();
+		final int valid = (networkImage == null) ? VolatileImage.IMAGE_INCOMPATIBLE : networkImage.validate(gc);
+
+		if (valid == VolatileImage.IMAGE_INCOMPATIBLE || networkImage.getWidth() != width
+		    || networkImage.getHeight() != height) {
+			networkImage = gc.createCompatibleVolatileImage(width, height, VolatileImage.OPAQUE);
+			composeNeeded = true;
+		} else if (valid == VolatileImage.IMAGE_RESTORED) {
+			composeNeeded = true;
+		}
 
-				// Now draw the network
-				viewModel.drawSnapshot(networkImage, viewModel.getGraphLOD(), viewModel.getBackgroundPaint(),
-						m_extents[0], m_extents[1], m_myXCenter, m_myYCenter, m_myScaleFactor);
-			}
+		if (composeNeeded) {
+			composeImage();
+			composeNeeded = false;
 		}
 
-		// Render network graphics.
 		g.drawImage(networkImage, 0, 0, null);
 
 		// Compute view area
@@ -258,8 +384,6 @@ public final class BirdsEyeView extends Component implements RenderingEngine<CyN
 		g.setColor(VIEW_WINDOW_COLOR);
 		g.fillRect(x, y, rectWidth, rectHeight);
 		// System.out.println("Viewable rectangle: "+x+", "+y+" "+rectWidth+"x"+rectHeight);
-		
-		boundChanged = false; imageUpdated = false;
 	}
 
 	
@@ -272,8 +396,77 @@ public final class BirdsEyeView extends Component implements RenderingEngine<CyN
 		 * Will be called when something is changed in the main view.
 		 */
 		public void contentChanged() {
-			imageUpdated = true;
-			repaint();
+			if (!SwingUtilities.isEventDispatchThread()) {
+				SwingUtilities.invokeLater(new Runnable() {
+					public void run() {
+						contentChanged();
+					}
+				});
+				return;
+			}
+
+			// A rendering in progress is shown when it is done, and the
+			// overview is rendered again once REFRESH_DELAY has passed, so
+			// that a stream of edits does not stop every rendering of it.
+			requestRendering(false);
+		}
+	}
+
+	/**
+	 * Renders the nodes and edges on the render worker, so that editing the
+	 * main view does not pay for a second full rendering on the EDT.
+	 */
+	private final class OverviewFrame implements Runnable {
+		final int width;
+		final int height;
+		final double[] extents;
+		final double xCenter;
+		final double yCenter;
+		final double scaleFactor;
+		private final GraphLOD lod;
+		private volatile boolean cancelled;
+		private volatile GraphGraphics grafx;
+
+		OverviewFrame(final int width, final int height, final double[] extents, final double xCenter,
+				final double yCenter, final double scaleFactor, final GraphLOD lod) {
+			this.width = width;
+			this.height = height;
+			this.extents = extents;
+			this.xCenter = xCenter;
+			this.yCenter = yCenter;
+			this.scaleFactor = scaleFactor;
+			this.lod = lod;
+		}
+
+		void cancel() {
+			cancelled = true;
+			final GraphGraphics g = grafx;
+			if (g != null)
+				g.cancel();
+		}
+
+		public void run() {
+			BufferedImage raster = null;
+
+			if (!cancelled) {
+				final BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+				final GraphGraphics g = new GraphGraphics(img, false, true);
+				grafx = g;
+				if (cancelled)
+					g.cancel();
+
+				viewModel.drawNetworkSnapshot(g, lod, TRANSPARENT, xCenter, yCenter, scaleFactor);
+
+				if (!g.isCancelled())
+					raster = img;
+			}
+
+			final BufferedImage frameRaster = raster;
+			SwingUtilities.invokeLater(new Runnable() {
+				public void run() {
+					showFrame(OverviewFrame.this, frameRaster);
+				}
+			});
 		}
 	}
 
@@ -386,6 +579,14 @@ public final class BirdsEyeView extends Component implements RenderingEngine<CyN
 	
 	@Override
 	public void dispose() {
+		refreshTimer.stop();
+
+		if (renderingFrame != null)
+			renderingFrame.cancel();
+
+		if (renderExecutor != null)
+			renderExecutor.shutdown();
+
 		registrar.unregisterAllServices(this);
 	}
 	
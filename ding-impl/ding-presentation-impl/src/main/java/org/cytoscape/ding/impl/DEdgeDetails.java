@@ -44,7 +44,6 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.WeakHashMap;
 
 import org.cytoscape.ding.DArrowShape;
 import org.cytoscape.ding.DVisualLexicon;
@@ -52,6 +51,7 @@ import org.cytoscape.ding.EdgeView;
 import org.cytoscape.graph.render.immed.EdgeAnchors;
 import org.cytoscape.graph.render.immed.GraphGraphics;
 import org.cytoscape.graph.render.stateful.EdgeDetails;
+import org.cytoscape.graph.render.stateful.EdgeGeometryCache;
 import org.cytoscape.model.CyEdge;
 import org.cytoscape.model.CyNetwork;
 import org.cytoscape.model.CyNode;
@@ -72,35 +72,39 @@ final class DEdgeDetails extends EdgeDetails {
 	private static final float DEFAULT_ARROW_SIZE = 6.0f;
 
 	private final DGraphView dGraphView;
-	private final Object m_deletedEntry = new Object();
 	
 	private final Map<VisualProperty<?>, Object> defaultValues; 
 
-	// Mapped Values
-	// If value found in these map objects, the value will be used by the renderer.
+	// Mapped Values, indexed by DEdgeView.m_ordinal
+	// If a value is set in these columns, the value will be used by the renderer.
 	// Otherwise, default value will be used.
-	Map<CyEdge, Object> m_colorsLowDetail = new WeakHashMap<CyEdge, Object>();
-	Map<CyEdge, Object> m_selectedColorsLowDetail = new WeakHashMap<CyEdge, Object>();
-	Map<CyEdge, Float> m_segmentThicknesses = new WeakHashMap<CyEdge, Float>();
-	Map<CyEdge, Stroke> m_segmentStrokes = new WeakHashMap<CyEdge, Stroke>();
-	Map<CyEdge, Byte> m_sourceArrows = new WeakHashMap<CyEdge, Byte>();
-	Map<CyEdge, Paint> m_sourceArrowPaints = new WeakHashMap<CyEdge, Paint>();
-	Map<CyEdge, Paint> m_sourceArrowSelectedPaints = new WeakHashMap<CyEdge, Paint>();
-	Map<CyEdge, Byte> m_targetArrows = new WeakHashMap<CyEdge, Byte>();
-	Map<CyEdge, Paint> m_targetArrowPaints = new WeakHashMap<CyEdge, Paint>();
-	Map<CyEdge, Paint> m_targetArrowSelectedPaints = new WeakHashMap<CyEdge, Paint>();
-	Map<CyEdge, Integer> m_labelCounts = new WeakHashMap<CyEdge, Integer>();
-	Map<CyEdge, String> m_labelTexts = new WeakHashMap<CyEdge, String>();
-	Map<CyEdge, Font> m_labelFonts = new WeakHashMap<CyEdge, Font>();
-	Map<CyEdge, Paint> m_labelPaints = new WeakHashMap<CyEdge, Paint>();
-	Map<CyEdge, Double> m_labelWidths = new WeakHashMap<CyEdge, Double>();
-	Map<CyEdge, Paint> m_unselectedPaints = new WeakHashMap<CyEdge, Paint>();
-	Map<CyEdge, Paint> m_selectedPaints = new WeakHashMap<CyEdge, Paint>();
-	Map<CyEdge, Integer> m_lineCurved = new WeakHashMap<CyEdge, Integer>();
-	Map<CyEdge, Bend> m_edgeBends = new WeakHashMap<CyEdge, Bend>();
-	Map<CyEdge, String> m_edgeTooltips = new WeakHashMap<CyEdge, String>();
-	Map<CyEdge, Integer> m_edgeTansparencies = new WeakHashMap<CyEdge, Integer>();
-	Map<CyEdge, Integer> m_edgeLabelTansparencies = new WeakHashMap<CyEdge, Integer>();
+	private final ViewPropertyStore m_store = new ViewPropertyStore();
+	final ViewPropertyStore.InternedColumn<Color> m_colorsLowDetail = m_store.internedColumn();
+	final ViewPropertyStore.InternedColumn<Color> m_selectedColorsLowDetail = m_store.internedColumn();
+	final ViewPropertyStore.FloatColumn m_segmentThicknesses = m_store.floatColumn();
+	final ViewPropertyStore.InternedColumn<Stroke> m_segmentStrokes = m_store.internedColumn();
+	final ViewPropertyStore.ByteColumn m_sourceArrows = m_store.byteColumn();
+	final ViewPropertyStore.InternedColumn<Paint> m_sourceArrowPaints = m_store.internedColumn();
+	final ViewPropertyStore.InternedColumn<Paint> m_sourceArrowSelectedPaints = m_store.internedColumn();
+	final ViewPropertyStore.ByteColumn m_targetArrows = m_store.byteColumn();
+	final ViewPropertyStore.InternedColumn<Paint> m_targetArrowPaints = m_store.internedColumn();
+	final ViewPropertyStore.InternedColumn<Paint> m_targetArrowSelectedPaints = m_store.internedColumn();
+	final ViewPropertyStore.IntColumn m_labelCounts = m_store.intColumn();
+	final ViewPropertyStore.ObjectColumn<String> m_labelTexts = m_store.objectColumn();
+	final ViewPropertyStore.InternedColumn<Font> m_labelFonts = m_store.internedColumn();
+	final ViewPropertyStore.InternedColumn<Paint> m_labelPaints = m_store.internedColumn();
+	final ViewPropertyStore.DoubleColumn m_labelWidths = m_store.doubleColumn();
+	final ViewPropertyStore.InternedColumn<Paint> m_unselectedPaints = m_store.internedColumn();
+	final ViewPropertyStore.InternedColumn<Paint> m_selectedPaints = m_store.internedColumn();
+	final ViewPropertyStore.IntColumn m_lineCurved = m_store.intColumn();
+	final ViewPropertyStore.ObjectColumn<Bend> m_edgeBends = m_store.objectColumn();
+	final ViewPropertyStore.ObjectColumn<String> m_edgeTooltips = m_store.objectColumn();
+	final ViewPropertyStore.IntColumn m_edgeTansparencies = m_store.intColumn();
+	final ViewPropertyStore.IntColumn m_edgeLabelTansparencies = m_store.intColumn();
+
+	// Endpoints and paths of edges, reused while their nodes, anchors and
+	// arrows do not change.
+	private final EdgeGeometryCache m_geometryCache = new EdgeGeometryCache();
 
 	// Default Values
 	Byte m_sourceArrowDefault;
@@ -137,60 +141,34 @@ final class DEdgeDetails extends EdgeDetails {
 		if (isCleared)
 			return;
 
-		m_segmentThicknesses = new WeakHashMap<CyEdge, Float>();
-		m_segmentStrokes = new WeakHashMap<CyEdge, Stroke>();
-		m_sourceArrows = new WeakHashMap<CyEdge, Byte>();
-		m_sourceArrowPaints = new WeakHashMap<CyEdge, Paint>();
-		m_targetArrows = new WeakHashMap<CyEdge, Byte>();
-		m_targetArrowPaints = new WeakHashMap<CyEdge, Paint>();
-		m_targetArrowSelectedPaints = new WeakHashMap<CyEdge, Paint>();
-		m_labelCounts = new WeakHashMap<CyEdge, Integer>();
-		m_labelTexts = new WeakHashMap<CyEdge, String>();
-		m_labelFonts = new WeakHashMap<CyEdge, Font>();
-		m_labelPaints = new WeakHashMap<CyEdge, Paint>();
-		m_labelWidths = new WeakHashMap<CyEdge, Double>();
-		m_unselectedPaints = new WeakHashMap<CyEdge, Paint>();
-		m_selectedPaints = new WeakHashMap<CyEdge, Paint>();
-		m_colorsLowDetail = new WeakHashMap<CyEdge, Object>();
-		m_selectedColorsLowDetail = new WeakHashMap<CyEdge, Object>();
-		m_lineCurved = new WeakHashMap<CyEdge, Integer>();
-		m_edgeBends = new WeakHashMap<CyEdge, Bend>();
-		m_edgeTooltips = new WeakHashMap<CyEdge, String>();
-		m_edgeTansparencies = new WeakHashMap<CyEdge, Integer>();
-		m_edgeLabelTansparencies = new WeakHashMap<CyEdge, Integer>();
+		m_store.clear();
+		m_geometryCache.clear();
+		dGraphView.edgesChanged();
 
 		isCleared = true;
 	}
 
-	void unregisterEdge(final CyEdge edgeIdx) {
-		final Object colorDetail = m_colorsLowDetail.get(edgeIdx);
-		if ((colorDetail != null) && (colorDetail != m_deletedEntry))
-			m_colorsLowDetail.put(edgeIdx, m_deletedEntry);
-
-		final Object selectedColorDetail = m_selectedColorsLowDetail.get(edgeIdx);
-		if ((selectedColorDetail != null) && (selectedColorDetail != m_deletedEntry))
-			m_selectedColorsLowDetail.put(edgeIdx, m_deletedEntry);
-
-		m_segmentThicknesses.remove(edgeIdx);
-		m_segmentStrokes.remove(edgeIdx);
-		m_sourceArrows.remove(edgeIdx);
-		m_sourceArrowPaints.remove(edgeIdx);
-		m_targetArrows.remove(edgeIdx);
-		m_targetArrowPaints.remove(edgeIdx);
-		m_targetArrowSelectedPaints.remove(edgeIdx);
-		m_labelCounts.remove(edgeIdx);
-		m_labelTexts.remove(edgeIdx);
-		m_labelFonts.remove(edgeIdx);
-		m_labelPaints.remove(edgeIdx);
-		m_labelWidths.remove(edgeIdx);
-		m_selectedPaints.remove(edgeIdx);
-		m_unselectedPaints.remove(edgeIdx);
-		m_lineCurved.remove(edgeIdx);
-		m_edgeBends.remove(edgeIdx);
-		selected.remove(edgeIdx);
-		m_edgeTooltips.remove(edgeIdx);
-		m_edgeTansparencies.remove(edgeIdx);
-		m_edgeLabelTansparencies.remove(edgeIdx);
+	/**
+	 * Gives the view a slot in the store.  Must be called before any of its
+	 * values are overridden.
+	 */
+	void registerEdge(final DEdgeView edgeView) {
+		edgeView.m_ordinal = m_store.register();
+	}
+
+	void unregisterEdge(final DEdgeView edgeView) {
+		m_store.unregister(edgeView.m_ordinal);
+		m_geometryCache.remove(edgeView.getModel().getSUID());
+		edgeView.m_ordinal = -1;
+		selected.remove(edgeView.getModel());
+	}
+
+	/**
+	 * Returns the store ordinal of the edge, or -1 if it has no view.
+	 */
+	private int ordinal(final CyEdge edge) {
+		final DEdgeView dev = dGraphView.getDEdgeView(edge);
+		return dev == null ? -1 : dev.m_ordinal;
 	}
 
 	@Override
@@ -209,15 +187,15 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_STROKE_UNSELECTED_PAINT))
 			return (Color) dev.getVisualProperty(DVisualLexicon.EDGE_STROKE_UNSELECTED_PAINT);
 
-		final Object o = m_colorsLowDetail.get(edge);
+		final Color c = m_colorsLowDetail.get(dev.m_ordinal);
 
-		if ((o == null) || (o == m_deletedEntry))
+		if (c == null)
 			if (m_colorLowDetailDefault == null)
 				return super.getColorLowDetail(edge);
 			else
 				return (Color) m_colorLowDetailDefault;
 
-		return (Color) o;
+		return c;
 	}
 
 	private Color getSelectedColorLowDetail(final CyEdge edge) {
@@ -226,15 +204,15 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_STROKE_SELECTED_PAINT))
 			return (Color) dev.getVisualProperty(DVisualLexicon.EDGE_STROKE_SELECTED_PAINT);
 
-		final Object o = m_selectedColorsLowDetail.get(edge);
+		final Color c = m_selectedColorsLowDetail.get(dev.m_ordinal);
 
-		if ((o == null) || (o == m_deletedEntry))
+		if (c == null)
 			if (m_selectedColorLowDetailDefault == null)
 				return super.getColorLowDetail(edge);
 			else
 				return (Color) m_selectedColorLowDetailDefault;
 
-		return (Color) o;
+		return c;
 	}
 
 	void setSelectedColorLowDetailDefault(Color c) {
@@ -259,18 +237,19 @@ final class DEdgeDetails extends EdgeDetails {
 			return DArrowShape.parseArrowText(shapeID).getRendererTypeID();
 		}
 
-		final Byte arrow = m_sourceArrows.get(edge);
-		if (arrow == null)
+		final int i = dev.m_ordinal;
+		if (!m_sourceArrows.isSet(i))
 			if (m_sourceArrowDefault == null)
 				return super.getSourceArrowShape(edge);
 			else
 				return m_sourceArrowDefault.byteValue();
 
-		return arrow;
+		return m_sourceArrows.get(i);
 	}
 
 	void setSourceArrowDefault(byte arrow) {
 		m_sourceArrowDefault = arrow;
+		dGraphView.edgesChanged();
 		// FIXME
 //		defaultValues.put(DVisualLexicon.EDGE_SOURCE_ARROW_SHAPE, m_selectedPaintDefault);
 	}
@@ -281,9 +260,9 @@ final class DEdgeDetails extends EdgeDetails {
 	 */
 	void overrideSourceArrow(final CyEdge edge, final byte arrowType) {
 		if ((arrowType >= 0) || (arrowType == super.getSourceArrowShape(edge)))
-			m_sourceArrows.remove(edge);
+			m_sourceArrows.unset(ordinal(edge));
 		else {
-			m_sourceArrows.put(edge, arrowType);
+			m_sourceArrows.set(ordinal(edge), arrowType);
 			isCleared = false;
 		}
 	}
@@ -304,7 +283,7 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_SOURCE_ARROW_UNSELECTED_PAINT))
 			return dev.getVisualProperty(DVisualLexicon.EDGE_SOURCE_ARROW_UNSELECTED_PAINT);
 
-		final Paint paint = m_sourceArrowPaints.get(edge);
+		final Paint paint = m_sourceArrowPaints.get(dev.m_ordinal);
 		if (paint == null) {
 			if (m_sourceArrowPaintDefault == null)
 				return DVisualLexicon.EDGE_SOURCE_ARROW_UNSELECTED_PAINT.getDefault();
@@ -324,18 +303,18 @@ final class DEdgeDetails extends EdgeDetails {
 	 */
 	void overrideSourceArrowPaint(final CyEdge edge, final Paint paint) {
 		if ((paint == null) || paint.equals(super.getSourceArrowPaint(edge)))
-			m_sourceArrowPaints.remove(edge);
+			m_sourceArrowPaints.unset(ordinal(edge));
 		else {
-			m_sourceArrowPaints.put(edge, paint);
+			m_sourceArrowPaints.set(ordinal(edge), paint);
 			isCleared = false;
 		}
 	}
 
 	void overrideSourceArrowSelectedPaint(final CyEdge edge, final Paint paint) {
 		if ((paint == null) || paint.equals(super.getSourceArrowPaint(edge)))
-			this.m_sourceArrowSelectedPaints.remove(edge);
+			m_sourceArrowSelectedPaints.unset(ordinal(edge));
 		else {
-			m_sourceArrowSelectedPaints.put(edge, paint);
+			m_sourceArrowSelectedPaints.set(ordinal(edge), paint);
 			isCleared = false;
 		}
 	}
@@ -350,18 +329,19 @@ final class DEdgeDetails extends EdgeDetails {
 			return DArrowShape.parseArrowText(shapeID).getRendererTypeID();
 		}
 
-		final Byte arrow = m_targetArrows.get(edge);
-		if (arrow == null)
+		final int i = dev.m_ordinal;
+		if (!m_targetArrows.isSet(i))
 			if (m_targetArrowDefault == null)
 				return super.getTargetArrowShape(edge);
 			else
 				return m_targetArrowDefault.byteValue();
 
-		return arrow;
+		return m_targetArrows.get(i);
 	}
 
 	void setTargetArrowDefault(final byte arrow) {
 		m_targetArrowDefault = arrow;
+		dGraphView.edgesChanged();
 	}
 
 	/*
@@ -370,9 +350,9 @@ final class DEdgeDetails extends EdgeDetails {
 	 */
 	void overrideTargetArrow(final CyEdge edge, final byte arrowType) {
 		if ((arrowType >= 0) || (arrowType == super.getTargetArrowShape(edge)))
-			m_targetArrows.remove(edge);
+			m_targetArrows.unset(ordinal(edge));
 		else {
-			m_targetArrows.put(edge, arrowType);
+			m_targetArrows.set(ordinal(edge), arrowType);
 			isCleared = false;
 		}
 	}
@@ -396,7 +376,7 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_TARGET_ARROW_UNSELECTED_PAINT))
 			return dev.getVisualProperty(DVisualLexicon.EDGE_TARGET_ARROW_UNSELECTED_PAINT);
 
-		final Paint paint = m_targetArrowPaints.get(edge);
+		final Paint paint = m_targetArrowPaints.get(dev.m_ordinal);
 
 		if (paint == null) {
 			if (m_targetArrowPaintDefault == null)
@@ -417,9 +397,9 @@ final class DEdgeDetails extends EdgeDetails {
 	 */
 	void overrideTargetArrowPaint(final CyEdge edge, final Paint paint) {
 		if (paint == null)
-			m_targetArrowPaints.remove(edge);
+			m_targetArrowPaints.unset(ordinal(edge));
 		else {
-			m_targetArrowPaints.put(edge, paint);
+			m_targetArrowPaints.set(ordinal(edge), paint);
 			isCleared = false;
 		}
 	}
@@ -429,9 +409,9 @@ final class DEdgeDetails extends EdgeDetails {
 	 */
 	void overrideTargetArrowSelectedPaint(final CyEdge edge, final Paint paint) {
 		if ((paint == null) || paint.equals(super.getTargetArrowPaint(edge)))
-			this.m_targetArrowSelectedPaints.remove(edge);
+			m_targetArrowSelectedPaints.unset(ordinal(edge));
 		else {
-			m_targetArrowSelectedPaints.put(edge, paint);
+			m_targetArrowSelectedPaints.set(ordinal(edge), paint);
 			isCleared = false;
 		}
 	}
@@ -445,13 +425,13 @@ final class DEdgeDetails extends EdgeDetails {
 		if (edv.isValueLocked(DVisualLexicon.EDGE_WIDTH)) {
 			w = edv.getVisualProperty(DVisualLexicon.EDGE_WIDTH).floatValue();
 		} else {
-			w = m_segmentThicknesses.get(edge);
-			if (w == null) {
-				if (m_segmentThicknessDefault == null)
-					w = super.getWidth(edge);
-				else
-					w = m_segmentThicknessDefault.floatValue();
-			}
+			final int i = edv.m_ordinal;
+			if (m_segmentThicknesses.isSet(i))
+				w = m_segmentThicknesses.get(i);
+			else if (m_segmentThicknessDefault == null)
+				w = super.getWidth(edge);
+			else
+				w = m_segmentThicknessDefault.floatValue();
 		}
 
 		return w;
@@ -459,6 +439,7 @@ final class DEdgeDetails extends EdgeDetails {
 
 	void setSegmentThicknessDefault(float thick) {
 		m_segmentThicknessDefault = (double) thick;
+		dGraphView.edgesChanged();
 		defaultValues.put(DVisualLexicon.EDGE_WIDTH, m_segmentThicknessDefault);
 	}
 
@@ -468,9 +449,9 @@ final class DEdgeDetails extends EdgeDetails {
 	 */
 	void overrideSegmentThickness(final CyEdge edge, final float thickness) {
 		if ((thickness < 0.0f) || (thickness == super.getWidth(edge)))
-			m_segmentThicknesses.remove(edge);
+			m_segmentThicknesses.unset(ordinal(edge));
 		else {
-			m_segmentThicknesses.put(edge, thickness);
+			m_segmentThicknesses.set(ordinal(edge), thickness);
 			isCleared = false;
 		}
 	}
@@ -485,7 +466,7 @@ final class DEdgeDetails extends EdgeDetails {
 			final LineType lineType = dev.getVisualProperty(DVisualLexicon.EDGE_LINE_TYPE);
 			stroke = DLineType.getDLineType(lineType).getStroke(getWidth(edge));
 		} else {
-			stroke = m_segmentStrokes.get(edge);
+			stroke = m_segmentStrokes.get(dev.m_ordinal);
 			
 			if (stroke == null) {
 				if (m_segmentStrokeDefault == null)
@@ -508,9 +489,9 @@ final class DEdgeDetails extends EdgeDetails {
 	 */
 	void overrideSegmentStroke(final CyEdge edge, final Stroke stroke) {
 		if ((stroke == null) || stroke.equals(super.getStroke(edge)))
-			m_segmentStrokes.remove(edge);
+			m_segmentStrokes.unset(ordinal(edge));
 		else {
-			m_segmentStrokes.put(edge, stroke);
+			m_segmentStrokes.set(ordinal(edge), stroke);
 			isCleared = false;
 		}
 	}
@@ -548,7 +529,7 @@ final class DEdgeDetails extends EdgeDetails {
 		} else if (dev.isValueLocked(DVisualLexicon.EDGE_UNSELECTED_PAINT)) {
 			paint = dev.getVisualProperty(DVisualLexicon.EDGE_UNSELECTED_PAINT);
 		} else {
-			paint = m_unselectedPaints.get(edge);
+			paint = m_unselectedPaints.get(dev.m_ordinal);
 
 			if (paint == null) {
 				if (m_unselectedPaintDefault == null)
@@ -571,7 +552,7 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_SELECTED_PAINT))
 			return dev.getVisualProperty(DVisualLexicon.EDGE_SELECTED_PAINT);
 
-		final Paint paint = m_selectedPaints.get(edge);
+		final Paint paint = m_selectedPaints.get(dev.m_ordinal);
 
 		if (paint == null) {
 			if (m_selectedPaintDefault == null)
@@ -598,16 +579,18 @@ final class DEdgeDetails extends EdgeDetails {
 	}
 
 	void setUnselectedPaint(final CyEdge edge, final Paint paint) {
-		m_unselectedPaints.put(edge, paint);
+		final int i = ordinal(edge);
+		m_unselectedPaints.set(i, paint);
 		if (paint instanceof Color)
-			m_colorsLowDetail.put(edge, paint);
+			m_colorsLowDetail.set(i, (Color) paint);
 		isCleared = false;
 	}
 
 	void setSelectedPaint(final CyEdge edge, final Paint paint) {
-		m_selectedPaints.put(edge, paint);
+		final int i = ordinal(edge);
+		m_selectedPaints.set(i, paint);
 		if (paint instanceof Color)
-			m_selectedColorsLowDetail.put(edge, paint);
+			m_selectedColorsLowDetail.set(i, (Color) paint);
 
 		isCleared = false;
 	}
@@ -619,15 +602,15 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_LABEL) && !dev.getVisualProperty(DVisualLexicon.EDGE_LABEL).isEmpty())
 			return 1;
 		
-		final Integer i = m_labelCounts.get(edge);
-		if (i == null) {
+		final int i = dev.m_ordinal;
+		if (!m_labelCounts.isSet(i)) {
 			if (m_labelCountDefault == null)
 				return super.getLabelCount(edge);
 			else
-				m_labelCountDefault.intValue();
+				return m_labelCountDefault.intValue();
 		}
 
-		return i;
+		return m_labelCounts.get(i);
 	}
 
 	void setLabelCountDefault(int count) {
@@ -639,9 +622,9 @@ final class DEdgeDetails extends EdgeDetails {
 	 */
 	void overrideLabelCount(final CyEdge edge, final int labelCount) {
 		if ((labelCount < 0) || (labelCount == super.getLabelCount(edge))) {
-			m_labelCounts.remove(edge);
+			m_labelCounts.unset(ordinal(edge));
 		} else {
-			m_labelCounts.put(edge, labelCount);
+			m_labelCounts.set(ordinal(edge), labelCount);
 			isCleared = false;
 		}
 	}
@@ -653,7 +636,7 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_LABEL))
 			return dev.getVisualProperty(DVisualLexicon.EDGE_LABEL);
 
-		final String text = m_labelTexts.get(edge);
+		final String text = m_labelTexts.get(dev.m_ordinal);
 		if (text == null)
 			if (m_labelTextDefault == null)
 				return super.getLabelText(edge, labelInx);
@@ -675,9 +658,9 @@ final class DEdgeDetails extends EdgeDetails {
 		// final long key = (((long) edge) << 32) | ((long) labelInx);
 
 		if ((text == null) || text.equals(super.getLabelText(edge, labelInx)))
-			m_labelTexts.remove(edge);
+			m_labelTexts.unset(ordinal(edge));
 		else {
-			m_labelTexts.put(edge, text);
+			m_labelTexts.set(ordinal(edge), text);
 			isCleared = false;
 		}
 	}
@@ -688,7 +671,7 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_TOOLTIP))
 			return dev.getVisualProperty(DVisualLexicon.EDGE_TOOLTIP);
 
-		final String text = m_edgeTooltips.get(edge);
+		final String text = m_edgeTooltips.get(dev.m_ordinal);
 		if (text == null)
 			if (m_edgeTooltipDefault == null)
 				return DVisualLexicon.EDGE_TOOLTIP.getDefault();
@@ -705,9 +688,9 @@ final class DEdgeDetails extends EdgeDetails {
 
 	void overrideTooltipText(final CyEdge edge, final String text) {
 		if ((text == null) || text.equals(""))
-			m_edgeTooltips.remove(edge);
+			m_edgeTooltips.unset(ordinal(edge));
 		else {
-			m_edgeTooltips.put(edge, text);
+			m_edgeTooltips.set(ordinal(edge), text);
 			isCleared = false;
 		}
 	}
@@ -718,15 +701,14 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_TRANSPARENCY))
 			return dev.getVisualProperty(DVisualLexicon.EDGE_TRANSPARENCY);
 
-		Integer trans = m_edgeTansparencies.get(edge);
-		if (trans == null) {
-			if (transparencyDefault == null)
-				trans = DVisualLexicon.EDGE_TRANSPARENCY.getDefault();
-			else
-				trans = transparencyDefault;
-		}
-		
-		return trans;
+		final int i = dev.m_ordinal;
+		if (m_edgeTansparencies.isSet(i))
+			return m_edgeTansparencies.get(i);
+
+		if (transparencyDefault == null)
+			return DVisualLexicon.EDGE_TRANSPARENCY.getDefault();
+		else
+			return transparencyDefault;
 	}
 
 	void setTransparencyDefault(Integer transparency) {
@@ -736,9 +718,9 @@ final class DEdgeDetails extends EdgeDetails {
 
 	void overrideTransparency(final CyEdge edge, final Integer transparency) {
 		if (transparency == null)
-			m_edgeTansparencies.remove(edge);
+			m_edgeTansparencies.unset(ordinal(edge));
 		else {
-			m_edgeTansparencies.put(edge, transparency);
+			m_edgeTansparencies.set(ordinal(edge), transparency);
 			isCleared = false;
 		}
 	}
@@ -749,15 +731,14 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_LABEL_TRANSPARENCY))
 			return dev.getVisualProperty(DVisualLexicon.EDGE_LABEL_TRANSPARENCY);
 
-		Integer trans = m_edgeLabelTansparencies.get(edge);
-		if (trans == null) {
-			if (labelTransparencyDefault == null)
-				trans = DVisualLexicon.EDGE_LABEL_TRANSPARENCY.getDefault();
-			else
-				trans = labelTransparencyDefault;
-		}
-		
-		return trans;
+		final int i = dev.m_ordinal;
+		if (m_edgeLabelTansparencies.isSet(i))
+			return m_edgeLabelTansparencies.get(i);
+
+		if (labelTransparencyDefault == null)
+			return DVisualLexicon.EDGE_LABEL_TRANSPARENCY.getDefault();
+		else
+			return labelTransparencyDefault;
 	}
 
 	void setLabelTransparencyDefault(Integer transparency) {
@@ -767,9 +748,9 @@ final class DEdgeDetails extends EdgeDetails {
 
 	void overrideLabelTransparency(final CyEdge edge, final Integer transparency) {
 		if (transparency == null)
-			m_edgeLabelTansparencies.remove(edge);
+			m_edgeLabelTansparencies.unset(ordinal(edge));
 		else {
-			m_edgeLabelTansparencies.put(edge, transparency);
+			m_edgeLabelTansparencies.set(ordinal(edge), transparency);
 			isCleared = false;
 		}
 	}
@@ -787,7 +768,7 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_LABEL_FONT_FACE)) {
 			font = dev.getVisualProperty(DVisualLexicon.EDGE_LABEL_FONT_FACE);
 		} else {
-			font = m_labelFonts.get(edge);
+			font = m_labelFonts.get(dev.m_ordinal);
 	
 			if (font == null)
 				font = m_labelFontDefault != null ? m_labelFontDefault : super.getLabelFont(edge, labelInx);
@@ -811,9 +792,9 @@ final class DEdgeDetails extends EdgeDetails {
 		// final long key = (((long) edge) << 32) | ((long) labelInx);
 
 		if ((font == null) || font.equals(super.getLabelFont(edge, labelInx)))
-			m_labelFonts.remove(edge);
+			m_labelFonts.unset(ordinal(edge));
 		else {
-			m_labelFonts.put(edge, font);
+			m_labelFonts.set(ordinal(edge), font);
 			isCleared = false;
 		}
 	}
@@ -832,7 +813,7 @@ final class DEdgeDetails extends EdgeDetails {
 			// Check bypass
 			paint = dev.getVisualProperty(DVisualLexicon.EDGE_LABEL_COLOR);
 		} else {
-			paint = m_labelPaints.get(edge);
+			paint = m_labelPaints.get(dev.m_ordinal);
 
 			if (paint == null)
 				paint = m_labelPaintDefault != null ? m_labelPaintDefault : super.getLabelPaint(edge, labelInx);
@@ -855,9 +836,9 @@ final class DEdgeDetails extends EdgeDetails {
 	void overrideLabelPaint(final CyEdge edge, final int labelInx, final Paint paint) {
 
 		if ((paint == null) || paint.equals(super.getLabelPaint(edge, labelInx)))
-			m_labelPaints.remove(edge);
+			m_labelPaints.unset(ordinal(edge));
 		else {
-			m_labelPaints.put(edge, paint);
+			m_labelPaints.set(ordinal(edge), paint);
 			isCleared = false;
 		}
 	}
@@ -868,15 +849,20 @@ final class DEdgeDetails extends EdgeDetails {
 		final DEdgeView dev = dGraphView.getDEdgeView(edge);
 		// TODO: Edge Label width?
 
-		final Double width = m_labelWidths.get(edge);
-		if (width == null) {
+		final int i = dev.m_ordinal;
+		if (!m_labelWidths.isSet(i)) {
 			if (m_labelWidthDefault == null)
 				return super.getLabelWidth(edge);
 			else
 				return m_labelWidthDefault.doubleValue();
 		}
 
-		return width;
+		return m_labelWidths.get(i);
+	}
+
+	@Override
+	public EdgeGeometryCache getGeometryCache() {
+		return m_geometryCache;
 	}
 
 	void setLabelWidthDefault(double width) {
@@ -889,9 +875,9 @@ final class DEdgeDetails extends EdgeDetails {
 	 */
 	void overrideLabelWidth(final CyEdge edge, final double width) {
 		if ((width < 0.0) || (width == super.getLabelWidth(edge)))
-			m_labelWidths.remove(edge);
+			m_labelWidths.unset(ordinal(edge));
 		else {
-			m_labelWidths.put(edge, width);
+			m_labelWidths.set(ordinal(edge), width);
 			isCleared = false;
 		}
 	}
@@ -925,10 +911,10 @@ final class DEdgeDetails extends EdgeDetails {
 
 	void overrideLineCurved(final CyEdge edge, final int type) {
 		if (EdgeView.STRAIGHT_LINES == type || EdgeView.CURVED_LINES == type) {
-			m_lineCurved.put(edge, type);
+			m_lineCurved.set(ordinal(edge), type);
 			isCleared = false;
 		} else {
-			m_lineCurved.remove(edge);
+			m_lineCurved.unset(ordinal(edge));
 		}
 	}
 
@@ -944,14 +930,14 @@ final class DEdgeDetails extends EdgeDetails {
 			}
 		}
 
-		final Integer lineType = m_lineCurved.get(edge);
-		if (lineType == null)
+		final int i = dev.m_ordinal;
+		if (!m_lineCurved.isSet(i))
 			if (m_lineCurvedDefault == null)
 				return EdgeView.STRAIGHT_LINES;
 			else
 				return m_lineCurvedDefault;
 
-		return lineType;
+		return m_lineCurved.get(i);
 	}
 
 	void setLineCurvedDefault(int lineType) {
@@ -974,11 +960,11 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_BEND))
 			return dev.getVisualProperty(DVisualLexicon.EDGE_BEND);
 
-		Bend bend = m_edgeBends.get(edge);
+		Bend bend = m_edgeBends.get(dev.m_ordinal);
 
 		if (bend == null && forceCreate) {
 			bend = new BendImpl();
-			m_edgeBends.put(edge, bend);
+			m_edgeBends.set(dev.m_ordinal, bend);
 		}
 
 		if (bend == null) {
@@ -993,15 +979,16 @@ final class DEdgeDetails extends EdgeDetails {
 
 	void setEdgeBendDefault(final Bend bend) {
 		this.m_edgeBendDefault = bend;
+		dGraphView.edgesChanged();
 		defaultValues.put(DVisualLexicon.EDGE_BEND, m_edgeBendDefault);
 	}
 
-	// Used by bends
+	// Used by bends.  Synchronized, because tiles may be rendered concurrently.
 	private final MinLongHeap m_heap = new MinLongHeap();
 	private final float[] m_extentsBuff = new float[4];
 
 	@Override
-	public EdgeAnchors getAnchors(final CyEdge edge) {
+	public synchronized EdgeAnchors getAnchors(final CyEdge edge) {
 		final DEdgeView edgeView = (DEdgeView) dGraphView.getDEdgeView(edge);
 		final EdgeAnchors returnThis = edgeView;
 
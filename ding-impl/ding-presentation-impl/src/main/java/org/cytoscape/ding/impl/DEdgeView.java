@@ -61,6 +61,9 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 	private Integer fontSize;
 	private LineType lineType;
 	private boolean selected;
+
+	// Slot of this view in the DEdgeDetails store, or -1 once removed.
+	int m_ordinal = -1;
 	
 	DEdgeView(final DGraphView graphView, final CyEdge model, final HandleFactory handleFactory, final VisualLexicon lexicon) {
 		super(model, lexicon);
@@ -88,8 +91,10 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 
 	@Override
 	public void setStrokeWidth(final float width) {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			graphView.m_edgeDetails.overrideSegmentThickness(model, width);
+			graphView.edgeChanged(model.getSUID());
 			graphView.m_contentChanged = true;
 		}
 	}
@@ -97,6 +102,7 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 
 	@Override
 	public void setStroke(Stroke stroke) {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			graphView.m_edgeDetails.overrideSegmentStroke(model, stroke);
 			graphView.m_contentChanged = true;
@@ -107,6 +113,7 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 	@Override
 	public void setLineCurved(int lineType) {
 		if ((lineType == EdgeView.CURVED_LINES) || (lineType == EdgeView.STRAIGHT_LINES)) {
+			graphView.cancelBackgroundFrame();
 			synchronized (graphView.m_lock) {
 				graphView.m_edgeDetails.overrideLineCurved(model, lineType);
 				graphView.m_contentChanged = true;
@@ -118,6 +125,7 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 
 	@Override
 	public void setUnselectedPaint(final Paint paint) {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			if (paint == null)
 				throw new NullPointerException("paint is null");
@@ -126,7 +134,7 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 			
 			if (!isSelected()) {
 				graphView.m_edgeDetails.setUnselectedPaint(model, transpColor);
-				graphView.m_contentChanged = true;
+				graphView.edgeDamaged(model.getSUID());
 			}
 		}
 	}
@@ -134,6 +142,7 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 
 	@Override
 	public void setSelectedPaint(final Paint paint) {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			if (paint == null)
 				throw new NullPointerException("paint is null");
@@ -142,13 +151,14 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 			
 			if (isSelected()) {
 				graphView.m_edgeDetails.setSelectedPaint(model, transpColor);
-				graphView.m_contentChanged = true;
+				graphView.edgeDamaged(model.getSUID());
 			}
 		}
 	}
 
 	@Override
 	public void setSourceEdgeEndSelectedPaint(Paint paint) {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			if (paint == null)
 				throw new NullPointerException("paint is null");
@@ -156,13 +166,14 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 			final Paint transpColor = getTransparentColor(paint, graphView.m_edgeDetails.getTransparency(model));
 			if (isSelected()) {
 				graphView.m_edgeDetails.overrideSourceArrowSelectedPaint(model, transpColor);
-				graphView.m_contentChanged = true;
+				graphView.edgeDamaged(model.getSUID());
 			}
 		}
 	}
 
 	@Override
 	public void setTargetEdgeEndSelectedPaint(Paint paint) {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			if (paint == null)
 				throw new NullPointerException("paint is null");
@@ -170,13 +181,14 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 			final Paint transpColor = getTransparentColor(paint, graphView.m_edgeDetails.getTransparency(model));
 			if (isSelected()) {
 				graphView.m_edgeDetails.overrideTargetArrowSelectedPaint(model, transpColor);
-				graphView.m_contentChanged = true;
+				graphView.edgeDamaged(model.getSUID());
 			}
 		}
 	}
 
 	@Override
 	public void setSourceEdgeEndPaint(final Paint paint) {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			if (paint == null)
 				throw new NullPointerException("paint is null");
@@ -185,13 +197,14 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 			
 			if (!isSelected()) {
 				graphView.m_edgeDetails.overrideSourceArrowPaint(model, transpColor);
-				graphView.m_contentChanged = true;
+				graphView.edgeDamaged(model.getSUID());
 			}
 		}
 	}
 
 	@Override
 	public void setTargetEdgeEndPaint(Paint paint) {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			if (paint == null)
 				throw new NullPointerException("paint is null");
@@ -200,19 +213,15 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 			graphView.m_edgeDetails.overrideTargetArrowPaint(model, transpColor);
 			
 			if (!isSelected()) {
-				graphView.m_contentChanged = true;
+				graphView.edgeDamaged(model.getSUID());
 			}
 		}
 	}
 
 	private final void select() {
-		final boolean somethingChanged;
-
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
-			somethingChanged = selectInternal(false);
-
-			if (somethingChanged)
-				graphView.m_contentChanged = true;
+			selectInternal(false);
 		}
 	}
 
@@ -224,6 +233,7 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 		selected = true;
 		graphView.m_edgeDetails.select(model);		
 		graphView.m_selectedEdges.insert(model.getSUID());
+		graphView.edgeDamaged(model.getSUID());
 
 		List<Handle> handles = graphView.m_edgeDetails.getBend(model).getAllHandles();
 		for (int j = 0; j < handles.size(); j++) {
@@ -244,13 +254,9 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 	}
 
 	public void unselect() {
-		final boolean somethingChanged;
-
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
-			somethingChanged = unselectInternal();
-
-			if (somethingChanged)
-				graphView.m_contentChanged = true;
+			unselectInternal();
 		}
 	}
 
@@ -262,6 +268,7 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 		selected = false;
 		graphView.m_edgeDetails.unselect(model);
 		graphView.m_selectedEdges.delete(model.getSUID());
+		graphView.edgeDamaged(model.getSUID());
 
 		final int numHandles = graphView.m_edgeDetails.getBend(model).getAllHandles().size();
 		for (int j = 0; j < numHandles; j++) {
@@ -289,8 +296,10 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 	
 	@Override
 	public void setSourceEdgeEnd(final int rendererTypeID) {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			graphView.m_edgeDetails.overrideSourceArrow(model, (byte) rendererTypeID);
+			graphView.edgeChanged(model.getSUID());
 		}
 
 		graphView.m_contentChanged = true;
@@ -298,8 +307,10 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 
 	@Override
 	public void setTargetEdgeEnd(final int rendererTypeID) {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			graphView.m_edgeDetails.overrideTargetArrow(model, (byte) rendererTypeID);
+			graphView.edgeChanged(model.getSUID());
 		}
 
 		graphView.m_contentChanged = true;
@@ -309,12 +320,13 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 
 	@Override
 	public void setToolTip(String tip) {
-		graphView.m_edgeDetails.m_edgeTooltips.put(model, tip);
+		graphView.m_edgeDetails.m_edgeTooltips.set(m_ordinal, tip);
 	}
 
 
 	@Override
 	public Paint getTextPaint() {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			return graphView.m_edgeDetails.getLabelPaint(model, 0);
 		}
@@ -322,6 +334,7 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 
 	@Override
 	public void setTextPaint(Paint textPaint) {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			graphView.m_edgeDetails.overrideLabelPaint(model, 0, textPaint);
 			graphView.m_contentChanged = true;
@@ -330,6 +343,7 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 
 	@Override
 	public String getText() {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			return graphView.m_edgeDetails.getLabelText(model, 0);
 		}
@@ -337,6 +351,7 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 
 	@Override
 	public void setText(final String text) {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			graphView.m_edgeDetails.overrideLabelText(model, 0, text);
 
@@ -351,6 +366,7 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 
 	@Override
 	public Font getFont() {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			return graphView.m_edgeDetails.getLabelFont(model, 0);
 		}
@@ -358,6 +374,7 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 	
 	@Override
 	public void setFont(final Font font) {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			graphView.m_edgeDetails.overrideLabelFont(model, 0, font);
 			graphView.m_contentChanged = true;
@@ -368,6 +385,7 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 		final Bend bend = graphView.m_edgeDetails.getBend(model);
 		final HandleImpl handle = (HandleImpl) bend.getAllHandles().get(inx);
 		handle.defineHandle(graphView.getViewModel(), this, x, y);
+		graphView.edgeChanged(model.getSUID());
 
 		if (graphView.m_spacialA.delete((model.getSUID() << 6) | inx))
 			graphView.m_spacialA.insert((model.getSUID() << 6) | inx,
@@ -384,6 +402,7 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 	 * @return new handle index.
 	 */
 	protected int addHandlePoint(final Point2D pt) {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			
 			// Obtain existing Bend object
@@ -441,10 +460,12 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 	 * @param handleLocation
 	 */
 	private void addHandleInternal(final int insertInx, final Point2D handleLocation) {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			final Bend bend = graphView.m_edgeDetails.getBend(model);			
 			final Handle handle = handleFacgtory.createHandle(graphView, this, handleLocation.getX(), handleLocation.getY());
 			bend.insertHandleAt(insertInx, handle);
+			graphView.edgeChanged(model.getSUID());
 
 			if (selected) {
 				for (int j = bend.getAllHandles().size() - 1; j > insertInx; j--) {
@@ -471,9 +492,11 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 	}
 
 	void removeHandle(int inx) {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			final Bend bend = graphView.m_edgeDetails.getBend(model);
 			bend.removeHandleAt(inx);
+			graphView.edgeChanged(model.getSUID());
 			//m_anchors.remove(inx);
 
 			if (selected) {
@@ -539,6 +562,7 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 	}
 
 	public void setLabelWidth(double width) {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			graphView.m_edgeDetails.overrideLabelWidth(model, width);
 			graphView.m_contentChanged = true;
@@ -548,6 +572,7 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 
 	@Override
 	public void setTransparency(final int trans) {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			Integer transparency;
 			if (trans < 0 || trans > 255) {
@@ -569,6 +594,7 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 	
 	@Override
 	public void setLabelTransparency(final int trans) {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			Integer transparency;
 			if (trans < 0 || trans > 255) {
@@ -587,14 +613,17 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 	
 	@Override
 	public void setBend(final Bend bend) {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
-			graphView.m_edgeDetails.m_edgeBends.put(model, bend);
+			graphView.m_edgeDetails.m_edgeBends.set(m_ordinal, bend);
+			graphView.edgeChanged(model.getSUID());
 		}
 		graphView.m_contentChanged = true;
 	}
 	
 	@Override
 	public Bend getBend() {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			return graphView.m_edgeDetails.getBend(model);
 		}
@@ -59,6 +59,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import javax.imageio.ImageIO;
 import javax.swing.Icon;
 import javax.swing.JLayeredPane;
+import javax.swing.SwingUtilities;
 
 import org.cytoscape.application.NetworkViewRenderer;
 import org.cytoscape.application.swing.CyEdgeViewContextMenuFactory;
@@ -87,6 +88,7 @@ import org.cytoscape.ding.impl.events.ViewportChangeListener;
 import org.cytoscape.ding.impl.events.ViewportChangeListenerChain;
 import org.cytoscape.ding.impl.visualproperty.CustomGraphicsVisualProperty;
 import org.cytoscape.event.CyEventHelper;
+import org.cytoscape.graph.render.immed.EdgeAnchors;
 import org.cytoscape.graph.render.immed.GraphGraphics;
 import org.cytoscape.graph.render.stateful.GraphLOD;
 import org.cytoscape.graph.render.stateful.GraphRenderer;
@@ -214,6 +216,38 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 	 * DEdgeView, and InnerCanvas.
 	 */
 	SpacialIndex2D m_spacialA;
+
+	/**
+	 * Nodes created by the constructor, which are put into m_spacial with one
+	 * bulk load once all of them exist.  Null after construction.
+	 */
+	private LongStack m_pendingNodes;
+
+	/**
+	 * Number of times a node has been moved or resized since m_spacial was
+	 * last packed.  See updateView().
+	 */
+	private int m_spacialMoves;
+
+	/**
+	 * RTree used for querying the bounding boxes of edges, which include their
+	 * anchors and arrows.  Brought up to date by getEdgePositions().
+	 */
+	private final SpacialIndex2D m_spacialE;
+
+	/**
+	 * Edges, and nodes whose adjacent edges, have changed shape since
+	 * m_spacialE was last brought up to date.
+	 */
+	private final LongHash m_dirtyEdges = new LongHash();
+	private final LongHash m_dirtyEdgeNodes = new LongHash();
+
+	/**
+	 * True if every entry of m_spacialE has to be recomputed, for instance
+	 * because a default edge width has changed.
+	 */
+	private boolean m_edgePositionsStale = true;
+	private final float[] m_edgeExtentsBuff = new float[4];
 	
 	final DNodeDetails m_nodeDetails;
 	final DEdgeDetails m_edgeDetails;
@@ -295,6 +329,15 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 	 */
 	volatile boolean m_viewportChanged = false;
 
+	/**
+	 * The parts of the network whose appearance has changed without anything
+	 * moving or changing size, such as nodes and edges that were selected.
+	 * Unless m_contentChanged or m_viewportChanged is also set, the canvas only
+	 * renders these parts again.  Guarded by m_lock.
+	 */
+	final DirtyRegion m_dirtyRegion = new DirtyRegion();
+	private final float[] m_dirtyExtentsBuff = new float[4];
+
 	/**
 	 * List of listeners.
 	 */
@@ -441,6 +484,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 
 		m_spacial = spacialFactory.createSpacialIndex2D();
 		m_spacialA = spacialFactory.createSpacialIndex2D();
+		m_spacialE = spacialFactory.createSpacialIndex2D();
 		m_nodeDetails = new DNodeDetails(this);
 		m_edgeDetails = new DEdgeDetails(this);
 		nodeViewDefaultSupport = new NodeViewDefaultSupport(m_nodeDetails, m_lock);
@@ -467,9 +511,30 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 		this.title = model.getRow(model).get(CyNetwork.NAME, String.class);
 
 		// Create view model / presentations for the graph
+		m_pendingNodes = new LongStack();
+
 		for (final CyNode nn : model.getNodeList())
 			addNodeView(nn);
 
+		cancelBackgroundFrame();
+		synchronized (m_lock) {
+			final int count = m_pendingNodes.size();
+			final long[] nodeInxs = new long[count];
+			final float[] extents = new float[count * 4];
+			final LongEnumerator pending = m_pendingNodes.elements();
+
+			for (int i = 0; i < count; i++) {
+				nodeInxs[i] = pending.nextLong();
+				extents[i * 4] = m_defaultNodeXMin;
+				extents[(i * 4) + 1] = m_defaultNodeYMin;
+				extents[(i * 4) + 2] = m_defaultNodeXMax;
+				extents[(i * 4) + 3] = m_defaultNodeYMax;
+			}
+
+			m_spacial.bulkLoad(nodeInxs, extents, count);
+			m_pendingNodes = null;
+		}
+
 		for (final CyEdge ee : model.getEdgeList())
 			addEdgeView(ee);
 
@@ -519,6 +584,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 	 */
 	@Override
 	public void enableNodeSelection() {
+		cancelBackgroundFrame();
 		synchronized (m_lock) {
 			m_nodeSelection = true;
 		}
@@ -531,6 +597,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 	public void disableNodeSelection() {
 		final long[] unselectedNodes;
 
+		cancelBackgroundFrame();
 		synchronized (m_lock) {
 			m_nodeSelection = false;
 			unselectedNodes = getSelectedNodeIndices();
@@ -562,6 +629,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 	 */
 	@Override
 	public void enableEdgeSelection() {
+		cancelBackgroundFrame();
 		synchronized (m_lock) {
 			m_edgeSelection = true;
 		}
@@ -574,6 +642,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 	public void disableEdgeSelection() {
 		final long[] unselectedEdges;
 
+		cancelBackgroundFrame();
 		synchronized (m_lock) {
 			m_edgeSelection = false;
 			unselectedEdges = getSelectedEdgeIndices();
@@ -610,6 +679,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 	 */
 	@Override
 	public long[] getSelectedNodeIndices() {
+		cancelBackgroundFrame();
 		synchronized (m_lock) {
 			// all nodes from the btree
 			final LongEnumerator elms = m_selectedNodes.searchRange(
@@ -632,6 +702,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 	 */
 	@Override
 	public List<CyNode> getSelectedNodes() {
+		cancelBackgroundFrame();
 		synchronized (m_lock) {
 			// all nodes from the btree
 			final LongEnumerator elms = m_selectedNodes.searchRange(Integer.MIN_VALUE, Integer.MAX_VALUE, false);
@@ -653,6 +724,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 	 */
 	@Override
 	public long[] getSelectedEdgeIndices() {
+		cancelBackgroundFrame();
 		synchronized (m_lock) {
 			final LongEnumerator elms = m_selectedEdges.searchRange(Integer.MIN_VALUE, Integer.MAX_VALUE, false);
 			final long[] returnThis = new long[elms.numRemaining()];
@@ -671,6 +743,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 	 */
 	@Override
 	public List<CyEdge> getSelectedEdges() {
+		cancelBackgroundFrame();
 		synchronized (m_lock) {
 			final LongEnumerator elms = m_selectedEdges.searchRange(Integer.MIN_VALUE, Integer.MAX_VALUE, false);
 			final ArrayList<CyEdge> returnThis = new ArrayList<CyEdge>();
@@ -714,6 +787,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 	 */
 	@Override
 	public void setBackgroundPaint(Paint paint) {
+		cancelBackgroundFrame();
 		synchronized (m_lock) {
 			if (paint instanceof Color) {
 				m_backgroundCanvas.setBackground((Color) paint);
@@ -734,6 +808,20 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 		return m_backgroundCanvas.getBackground();
 	}
 
+	/**
+	 * Stops the frame that the canvas renders in the background while holding
+	 * m_lock, if any, so that the EDT does not wait for the whole frame before
+	 * it gets m_lock.  Called before synchronizing on m_lock.  Other threads
+	 * wait for the frame instead; the canvas renders a stopped frame again on
+	 * the next repaint.
+	 */
+	final void cancelBackgroundFrame() {
+		final InnerCanvas canvas = m_networkCanvas;
+
+		if ((canvas != null) && SwingUtilities.isEventDispatchThread())
+			canvas.cancelBackgroundFrame();
+	}
+
 	/**
 	 * Returns the InnerCanvas object. The InnerCanvas object is the actual
 	 * component that the network is rendered on.
@@ -758,6 +846,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 	public NodeView addNodeView(final CyNode node) {
 		final DNodeView newView;
 
+		cancelBackgroundFrame();
 		synchronized (m_lock) {
 			newView = addNodeViewInternal(node);
 
@@ -778,6 +867,147 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 		return newView;
 	}
 
+	/**
+	 * Changes the extents of a node that is in m_spacial.  Should synchronize
+	 * around m_lock.
+	 */
+	final void moveNode(final long nodeInx, final float xMin, final float yMin, final float xMax,
+			final float yMax) {
+		m_spacial.delete(nodeInx);
+		m_spacial.insert(nodeInx, xMin, yMin, xMax, yMax);
+		m_spacialMoves++;
+		m_dirtyEdgeNodes.put(nodeInx);
+	}
+
+	/**
+	 * Adds a node to m_dirtyRegion, if it is visible.  Should synchronize
+	 * around m_lock.
+	 */
+	final void nodeDamaged(final long nodeInx) {
+		if (m_spacial.exists(nodeInx, m_dirtyExtentsBuff, 0))
+			m_dirtyRegion.add(m_dirtyExtentsBuff[0], m_dirtyExtentsBuff[1], m_dirtyExtentsBuff[2],
+			                  m_dirtyExtentsBuff[3]);
+	}
+
+	/**
+	 * Adds an edge, including its arrows and anchors, to m_dirtyRegion, if it
+	 * is visible.  Should synchronize around m_lock.
+	 */
+	final void edgeDamaged(final long edgeInx) {
+		if (getEdgePositions().exists(edgeInx, m_dirtyExtentsBuff, 0))
+			m_dirtyRegion.add(m_dirtyExtentsBuff[0], m_dirtyExtentsBuff[1], m_dirtyExtentsBuff[2],
+			                  m_dirtyExtentsBuff[3]);
+	}
+
+	/**
+	 * Marks the bounding box of an edge in m_spacialE as out of date, for
+	 * instance because its width or bend has changed.  Should synchronize
+	 * around m_lock.
+	 */
+	final void edgeChanged(final long edgeInx) {
+		m_dirtyEdges.put(edgeInx);
+	}
+
+	/**
+	 * Marks all bounding boxes in m_spacialE as out of date.  Should
+	 * synchronize around m_lock.
+	 */
+	final void edgesChanged() {
+		m_edgePositionsStale = true;
+	}
+
+	/*
+	 * An edge was added, removed, hidden or shown.  The automatic anchors of
+	 * the other edges between its nodes may change as well.
+	 */
+	private void edgeTopologyChanged(final CyEdge edge) {
+		m_dirtyEdges.put(edge.getSUID());
+		m_dirtyEdgeNodes.put(edge.getSource().getSUID());
+		m_dirtyEdgeNodes.put(edge.getTarget().getSUID());
+	}
+
+	/**
+	 * Returns the index of the bounding boxes of the visible edges, keyed by
+	 * edge SUID, after bringing it up to date.  Should synchronize around m_lock.
+	 */
+	final SpacialIndex2D getEdgePositions() {
+		if (m_edgePositionsStale || (m_dirtyEdgeNodes.size() > (m_drawPersp.getNodeCount() / 4))) {
+			final List<CyEdge> edges = m_drawPersp.getEdgeList();
+			final long[] edgeInxs = new long[edges.size()];
+			final float[] extents = new float[edges.size() * 4];
+			int count = 0;
+
+			for (final CyEdge edge : edges) {
+				if (computeEdgeExtents(edge, extents, count * 4))
+					edgeInxs[count++] = edge.getSUID();
+			}
+
+			m_spacialE.bulkLoad(edgeInxs, extents, count);
+			m_edgePositionsStale = false;
+		} else {
+			final LongEnumerator nodes = m_dirtyEdgeNodes.elements();
+
+			while (nodes.numRemaining() > 0) {
+				final CyNode node = m_drawPersp.getNode(nodes.nextLong());
+
+				if (node != null) {
+					for (final CyEdge edge : m_drawPersp.getAdjacentEdgeList(node, CyEdge.Type.ANY))
+						m_dirtyEdges.put(edge.getSUID());
+				}
+			}
+
+			final LongEnumerator edges = m_dirtyEdges.elements();
+			final float[] extents = new float[4];
+
+			while (edges.numRemaining() > 0) {
+				final long edgeInx = edges.nextLong();
+				final CyEdge edge = m_drawPersp.getEdge(edgeInx);
+				m_spacialE.delete(edgeInx);
+
+				if ((edge != null) && computeEdgeExtents(edge, extents, 0))
+					m_spacialE.insert(edgeInx, extents[0], extents[1], extents[2], extents[3]);
+			}
+		}
+
+		m_dirtyEdges.empty();
+		m_dirtyEdgeNodes.empty();
+
+		return m_spacialE;
+	}
+
+	/*
+	 * Computes a box around the nodes, anchors and arrows of an edge.  Returns
+	 * false if one of its nodes is not in m_spacial.
+	 */
+	private boolean computeEdgeExtents(final CyEdge edge, final float[] extents, final int offset) {
+		if (!m_spacial.exists(edge.getSource().getSUID(), extents, offset)
+		    || !m_spacial.exists(edge.getTarget().getSUID(), m_edgeExtentsBuff, 0))
+			return false;
+
+		float xMin = Math.min(extents[offset], m_edgeExtentsBuff[0]);
+		float yMin = Math.min(extents[offset + 1], m_edgeExtentsBuff[1]);
+		float xMax = Math.max(extents[offset + 2], m_edgeExtentsBuff[2]);
+		float yMax = Math.max(extents[offset + 3], m_edgeExtentsBuff[3]);
+		final EdgeAnchors anchors = m_edgeDetails.getAnchors(edge);
+
+		for (int i = 0; i < anchors.numAnchors(); i++) {
+			anchors.getAnchor(i, m_edgeExtentsBuff, 0);
+			xMin = Math.min(xMin, m_edgeExtentsBuff[0]);
+			yMin = Math.min(yMin, m_edgeExtentsBuff[1]);
+			xMax = Math.max(xMax, m_edgeExtentsBuff[0]);
+			yMax = Math.max(yMax, m_edgeExtentsBuff[1]);
+		}
+
+		final float pad = (m_edgeDetails.getWidth(edge) / 2.0f)
+				+ Math.max(m_edgeDetails.getSourceArrowSize(edge), m_edgeDetails.getTargetArrowSize(edge));
+		extents[offset] = xMin - pad;
+		extents[offset + 1] = yMin - pad;
+		extents[offset + 2] = xMax + pad;
+		extents[offset + 3] = yMax + pad;
+
+		return true;
+	}
+
 	/**
 	 * Should synchronize around m_lock.
 	 */
@@ -791,6 +1021,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 		m_drawPersp.addNode(node);
 
 		final DNodeView dNodeView = new DNodeView(lexicon, this, node, vmm, netViewMgr);
+		m_nodeDetails.registerNode(dNodeView);
 		
 		// WARNING: DO not call the following in view creation.  This is VERY slow.
 		//Boolean selected = getModel().getRow(node).get(CyNetwork.SELECTED, Boolean.class);
@@ -798,7 +1029,11 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 		//	dNodeView.select();
 
 		nodeViewMap.put(node, dNodeView);
-		m_spacial.insert(nodeInx, m_defaultNodeXMin, m_defaultNodeYMin, m_defaultNodeXMax, m_defaultNodeYMax);
+
+		if (m_pendingNodes != null)
+			m_pendingNodes.push(nodeInx);
+		else
+			m_spacial.insert(nodeInx, m_defaultNodeXMin, m_defaultNodeYMin, m_defaultNodeXMax, m_defaultNodeYMax);
 		
 		cyEventHelper.addEventPayload((CyNetworkView) this, (View<CyNode>) dNodeView, AddedNodeViewsEvent.class);
 		return dNodeView;
@@ -821,6 +1056,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 		final NodeView targetNode;
 		final DEdgeView dEdgeView;
 		
+		cancelBackgroundFrame();
 		synchronized (m_lock) {
 			final EdgeView oldView = edgeViewMap.get(edge);
 
@@ -833,6 +1069,8 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 			m_drawPersp.addEdge(edge);
 
 			dEdgeView = new DEdgeView(this, edge, handleFactory, lexicon);
+			m_edgeDetails.registerEdge(dEdgeView);
+			edgeTopologyChanged(edge);
 
 			edgeViewMap.put(edge, dEdgeView);
 			m_contentChanged = true;
@@ -916,6 +1154,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 		}
 		cyEventHelper.addEventPayload((CyNetworkView) this, (View<CyNode>) returnThis, AboutToRemoveNodeViewsEvent.class);
 		
+		cancelBackgroundFrame();
 		synchronized (m_lock) {
 			// We have to query edges in the m_structPersp, not m_drawPersp
 			// because what if the node is hidden?
@@ -937,7 +1176,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 			// If this node was hidden, it won't be in m_drawPersp.
 			m_drawPersp.removeNodes(Collections.singletonList(nnode));
 			// m_structPersp.removeNode(nodeInx);
-			m_nodeDetails.unregisterNode(nnode);
+			m_nodeDetails.unregisterNode(returnThis);
 
 			// If this node was hidden, it won't be in m_spacial.
 			m_spacial.delete(nodeInx);
@@ -1009,6 +1248,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 		}
 		cyEventHelper.addEventPayload((CyNetworkView) this, (View<CyEdge>) view, AboutToRemoveEdgeViewsEvent.class);
 		
+		cancelBackgroundFrame();
 		synchronized (m_lock) {
 			returnThis = removeEdgeViewInternal(edge);
 
@@ -1045,7 +1285,8 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 		// Now we can remove it
 		edgeViewMap.remove(edge);
 		m_drawPersp.removeEdges(Collections.singletonList(edge)); 
-		m_edgeDetails.unregisterEdge(edge);
+		m_edgeDetails.unregisterEdge(returnThis);
+		edgeTopologyChanged(edge);
 
 		return returnThis;
 	}
@@ -1070,6 +1311,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 	 */
 	@Override
 	public void setZoom(final double zoom) {
+		cancelBackgroundFrame();
 		synchronized (m_lock) {
 			m_networkCanvas.m_scaleFactor = checkZoom(zoom, m_networkCanvas.m_scaleFactor);
 			m_viewportChanged = true;
@@ -1079,6 +1321,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 	private void fitContent(final boolean updateView) {
 		cyEventHelper.flushPayloadEvents();
 
+		cancelBackgroundFrame();
 		synchronized (m_lock) {
 			if (m_spacial.queryOverlap(Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY,
 			                           Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY,
@@ -1138,6 +1381,17 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 		
 		//final long start = System.currentTimeMillis();
 		cyEventHelper.flushPayloadEvents();
+
+		// A layout moves most nodes one at a time, which leaves m_spacial
+		// loosely packed; repack it before the repaint queries it.
+		cancelBackgroundFrame();
+		synchronized (m_lock) {
+			if (m_spacialMoves > (m_spacial.size() / 2)) {
+				m_spacial.rebuild();
+				m_spacialMoves = 0;
+			}
+		}
+
 		m_networkCanvas.repaint();
 		
 		//Check if image size has changed if so, visual property needs to be changed as well
@@ -1160,6 +1414,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 	 */
 	@Override
 	public Iterator<NodeView> getNodeViewsIterator() {
+		cancelBackgroundFrame();
 		synchronized (m_lock) {
 			return nodeViewMap.values().iterator();
 		}
@@ -1173,6 +1428,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 	 */
 	@Override
 	public int getNodeViewCount() {
+		cancelBackgroundFrame();
 		synchronized (m_lock) {
 			return nodeViewMap.size();
 		}
@@ -1186,6 +1442,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 	 */
 	@Override
 	public int getEdgeViewCount() {
+		cancelBackgroundFrame();
 		synchronized (m_lock) {
 			return edgeViewMap.size();
 		}
@@ -1194,7 +1451,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 	@Override
 	public DNodeView getDNodeView(final CyNode node) {
 		// TODO: remove cast!
-		if (node != null && nodeViewMap.containsKey(node))
+		if (node != null)
 			return (DNodeView)nodeViewMap.get(node);
 		else
 			return null;
@@ -1207,6 +1464,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 
 	@Override
 	public List<EdgeView> getEdgeViewsList() {
+		cancelBackgroundFrame();
 		synchronized (m_lock) {
 			final ArrayList<EdgeView> returnThis = new ArrayList<EdgeView>( edgeViewMap.size());
 			final Iterator<EdgeView> values = edgeViewMap.values().iterator();
@@ -1233,6 +1491,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 	 */
 	@Override
 	public List<EdgeView> getEdgeViewsList(CyNode oneNode, CyNode otherNode) {
+		cancelBackgroundFrame();
 		synchronized (m_lock) {
 			List<CyEdge> edges = model.getConnectingEdgeList(oneNode,
 					otherNode, CyEdge.Type.ANY);
@@ -1273,6 +1532,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 			boolean includeUndirected) {
 		CyNode n1;
 		CyNode n2;
+		cancelBackgroundFrame();
 		synchronized (m_lock) {
 			n1 = model.getNode(oneNodeInx);
 			n2 = model.getNode(otherNodeInx);
@@ -1323,6 +1583,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 			final DEdgeView eView = (DEdgeView) obj;
 			final CyEdge edge;
 
+			cancelBackgroundFrame();
 			synchronized (m_lock) {
 				edge = eView.getCyEdge();
 
@@ -1330,6 +1591,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 					return false;
 
 				eView.unselectInternal();
+				edgeTopologyChanged(edge);
 				m_contentChanged = true;
 			}
 
@@ -1347,6 +1609,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 			long nodeInx;
 			CyNode nnode;
 
+			cancelBackgroundFrame();
 			synchronized (m_lock) {
 				final DNodeView nView = (DNodeView) obj;
 				nodeInx = nView.getCyNode().getSUID();
@@ -1395,6 +1658,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 	}
 
 	final boolean isHidden(final DEdgeView edgeView) {
+		cancelBackgroundFrame();
 		synchronized (m_lock) {
 			final long edgeIndex = edgeView.getCyEdge().getSUID();
 			return !m_drawPersp.containsEdge(m_drawPersp.getEdge(edgeIndex));
@@ -1402,6 +1666,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 	}
 
 	final boolean isHidden(final DNodeView nodeView) {
+		cancelBackgroundFrame();
 		synchronized (m_lock) {
 			final long nodeIndex = nodeView.getCyNode().getSUID();
 			return !m_drawPersp.containsNode(m_drawPersp.getNode(nodeIndex));
@@ -1424,6 +1689,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 			long nodeInx;
 			final DNodeView nView = (DNodeView) obj;
 
+			cancelBackgroundFrame();
 			synchronized (m_lock) {
 				nodeInx = nView.getCyNode().getSUID();
 				CyNode nnode = model.getNode(nodeInx);
@@ -1451,6 +1717,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 			CyNode targetNode;
 			CyEdge newEdge;
 
+			cancelBackgroundFrame();
 			synchronized (m_lock) {
 				final CyEdge edge = model.getEdge(((DEdgeView) obj).getCyEdge().getSUID());
 
@@ -1478,6 +1745,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 				if (!m_drawPersp.addEdge(newEdge))
 					return false;
 
+				edgeTopologyChanged(newEdge);
 				m_contentChanged = true;
 			}
 
@@ -1535,6 +1803,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 	
 	@Override
 	public void setCenter(double x, double y) {
+		m_networkCanvas.cancelBackgroundFrame();
 		synchronized (m_lock) {
 			m_networkCanvas.m_xCenter = x;
 			m_networkCanvas.m_yCenter = y;
@@ -1549,6 +1818,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 
 	
 	public Point2D getCenter() {
+		cancelBackgroundFrame();
 		synchronized (m_lock) {
 			return new Point2D.Double(m_networkCanvas.m_xCenter, m_networkCanvas.m_yCenter);
 		}
@@ -1558,6 +1828,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 	public void fitSelected() {
 		cyEventHelper.flushPayloadEvents();
 		
+		cancelBackgroundFrame();
 		synchronized (m_lock) {
 			LongEnumerator selectedElms = m_selectedNodes.searchRange(Integer.MIN_VALUE, Integer.MAX_VALUE, false);
 
@@ -1626,6 +1897,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 	 *         currently selected edges.
 	 */
 	private LongEnumerator getSelectedEdgeNodes() {
+		cancelBackgroundFrame();
 		synchronized (m_lock) {
 			final LongEnumerator selectedEdges = m_selectedEdges.searchRange(Integer.MIN_VALUE,Integer.MAX_VALUE,false);
 
@@ -1669,6 +1941,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 
 	@Override
 	public void setGraphLOD(GraphLOD lod) {
+		cancelBackgroundFrame();
 		synchronized (m_lock) {
 			m_networkCanvas.m_lod[0] = lod;
 			m_contentChanged = true;
@@ -1686,6 +1959,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 
 	@Override
 	public void setPrintingTextAsShape(boolean textAsShape) {
+		cancelBackgroundFrame();
 		synchronized (m_lock) {
 			m_printLOD.setPrintingTextAsShape(textAsShape);
 		}
@@ -1724,39 +1998,43 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 	public void getNodesIntersectingRectangle(double xMinimum, double yMinimum, double xMaximum,
 	                                          double yMaximum, boolean treatNodeShapesAsRectangle,
 	                                          LongStack returnVal) {
-		synchronized (m_lock) {
-			final float xMin = (float) xMinimum;
-			final float yMin = (float) yMinimum;
-			final float xMax = (float) xMaximum;
-			final float yMax = (float) yMaximum;
-			final SpacialEntry2DEnumerator under = m_spacial.queryOverlap(xMin, yMin, xMax, yMax,
-			                                                              null, 0, false);
-			final int totalHits = under.numRemaining();
-
-			if (treatNodeShapesAsRectangle) {
-				for (int i = 0; i < totalHits; i++)
-					returnVal.push(under.nextLong());
-			} else {
-				final double x = xMin;
-				final double y = yMin;
-				final double w = ((double) xMax) - xMin;
-				final double h = ((double) yMax) - yMin;
-
-				for (int i = 0; i < totalHits; i++) {
-					final long node = under.nextExtents(m_extentsBuff, 0);
-					final CyNode cyNode = model.getNode(node); 
-
-					// The only way that the node can miss the intersection
-					// query is
-					// if it intersects one of the four query rectangle's
-					// corners.
-					if (((m_extentsBuff[0] < xMin) && (m_extentsBuff[1] < yMin))
-					    || ((m_extentsBuff[0] < xMin) && (m_extentsBuff[3] > yMax))
-					    || ((m_extentsBuff[2] > xMax) && (m_extentsBuff[3] > yMax))
-					    || ((m_extentsBuff[2] > xMax) && (m_extentsBuff[1] < yMin))) {
+		// The query runs on a snapshot, so it doesn't hold up node moves.
+		final float xMin = (float) xMinimum;
+		final float yMin = (float) yMinimum;
+		final float xMax = (float) xMaximum;
+		final float yMax = (float) yMaximum;
+		final SpacialEntry2DEnumerator under = getSpacialSnapshot().queryOverlap(xMin, yMin, xMax,
+		                                                                         yMax, null, 0,
+		                                                                         false);
+		final int totalHits = under.numRemaining();
+
+		if (treatNodeShapesAsRectangle) {
+			for (int i = 0; i < totalHits; i++)
+				returnVal.push(under.nextLong());
+		} else {
+			final double x = xMin;
+			final double y = yMin;
+			final double w = ((double) xMax) - xMin;
+			final double h = ((double) yMax) - yMin;
+			final float[] extentsBuff = new float[4];
+
+			for (int i = 0; i < totalHits; i++) {
+				final long node = under.nextExtents(extentsBuff, 0);
+
+				// The only way that the node can miss the intersection
+				// query is
+				// if it intersects one of the four query rectangle's
+				// corners.
+				if (((extentsBuff[0] < xMin) && (extentsBuff[1] < yMin))
+				    || ((extentsBuff[0] < xMin) && (extentsBuff[3] > yMax))
+				    || ((extentsBuff[2] > xMax) && (extentsBuff[3] > yMax))
+				    || ((extentsBuff[2] > xMax) && (extentsBuff[1] < yMin))) {
+					cancelBackgroundFrame();
+					synchronized (m_lock) {
+						final CyNode cyNode = model.getNode(node);
 						m_networkCanvas.m_grafx.getNodeShape(m_nodeDetails.getShape(cyNode),
-						                                     m_extentsBuff[0], m_extentsBuff[1],
-						                                     m_extentsBuff[2], m_extentsBuff[3],
+						                                     extentsBuff[0], extentsBuff[1],
+						                                     extentsBuff[2], extentsBuff[3],
 						                                     m_path);
 
 						if ((w > 0) && (h > 0)) {
@@ -1766,13 +2044,24 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 							if (m_path.contains(x, y))
 								returnVal.push(node);
 						}
-					} else
-						returnVal.push(node);
-				}
+					}
+				} else
+					returnVal.push(node);
 			}
 		}
 	}
 
+	/**
+	 * Returns a snapshot of the node positions that can be queried without
+	 * holding m_lock.  Nodes moved after this call are not reflected in it.
+	 */
+	SpacialIndex2D getSpacialSnapshot() {
+		cancelBackgroundFrame();
+		synchronized (m_lock) {
+			return m_spacial.snapshot();
+		}
+	}
+
 	/**
 	 * DOCUMENT ME!
 	 *
@@ -1789,6 +2078,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 	 */
 	public void queryDrawnEdges(int xMin, int yMin, int xMax, int yMax,
 			LongStack returnVal) {
+		cancelBackgroundFrame();
 		synchronized (m_lock) {
 			m_networkCanvas.computeEdgesIntersecting(xMin, yMin, xMax, yMax,
 					returnVal);
@@ -1799,21 +2089,21 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 	 * Extents of the nodes.
 	 */
 	public boolean getExtents(double[] extentsBuff) {
-		synchronized (m_lock) {
-			if (m_spacial.queryOverlap(Float.NEGATIVE_INFINITY,
-					Float.NEGATIVE_INFINITY, Float.POSITIVE_INFINITY,
-					Float.POSITIVE_INFINITY, m_extentsBuff, 0, false)
-					.numRemaining() == 0) {
-				return false;
-			}
+		final float[] extents = new float[4];
 
-			extentsBuff[0] = m_extentsBuff[0];
-			extentsBuff[1] = m_extentsBuff[1];
-			extentsBuff[2] = m_extentsBuff[2];
-			extentsBuff[3] = m_extentsBuff[3];
-
-			return true;
+		if (getSpacialSnapshot().queryOverlap(Float.NEGATIVE_INFINITY,
+				Float.NEGATIVE_INFINITY, Float.POSITIVE_INFINITY,
+				Float.POSITIVE_INFINITY, extents, 0, false)
+				.numRemaining() == 0) {
+			return false;
 		}
+
+		extentsBuff[0] = extents[0];
+		extentsBuff[1] = extents[1];
+		extentsBuff[2] = extents[2];
+		extentsBuff[3] = extents[3];
+
+		return true;
 	}
 
 	/**
@@ -1824,6 +2114,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 	 */
 	@Override
 	public void xformComponentToNodeCoords(double[] coords) {
+		cancelBackgroundFrame();
 		synchronized (m_lock) {
 			m_networkCanvas.m_grafx.xformImageToNodeCoords(coords);
 		}
@@ -1836,6 +2127,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 	 *            DOCUMENT ME!
 	 */
 	public void xformNodeToComponentCoords(double[] coords) {
+		cancelBackgroundFrame();
 		synchronized (m_lock) {
 			m_networkCanvas.m_grafx.xformNodetoImageCoords(coords);
 		}
@@ -1864,6 +2156,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 		// First paint the background
 		m_backgroundCanvas.drawCanvas(img, xMin, yMin, xCenter, yCenter, scaleFactor);
 
+		cancelBackgroundFrame();
 		synchronized (m_lock) {
 			GraphRenderer.renderGraph(m_drawPersp, m_spacial, lod, m_nodeDetails,
 			                          m_edgeDetails, m_hash, new GraphGraphics(img, false, false),
@@ -1874,6 +2167,85 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 		m_foregroundCanvas.drawCanvas(img, xMin, yMin, xCenter, yCenter, scaleFactor);
 	}
 
+	/**
+	 * Renders only the nodes and edges, without the background and foreground
+	 * canvases.  Unlike drawSnapshot(), this may be called from any thread;
+	 * rendering stops early once grafx is cancelled.  A network that lod
+	 * renders in full detail is rendered under m_lock, as it is small enough
+	 * for that to be quick.  Any other network is rendered in low detail, and
+	 * m_lock is held only while the node positions, the edges and their colors
+	 * are copied, which takes time in proportion to the number of nodes and
+	 * edges.
+	 */
+	void drawNetworkSnapshot(GraphGraphics grafx, GraphLOD lod, Paint bgPaint, double xCenter,
+	                         double yCenter, double scaleFactor) {
+		final SpacialIndex2D nodePositions;
+		final long[] nodeInxs;
+		final Color[] nodeColors;
+		final long[] edgeNodeInxs; // Source and target of each edge.
+		final Color[] edgeColors;
+
+		cancelBackgroundFrame();
+		synchronized (m_lock) {
+			if (lod.detail(m_drawPersp.getNodeCount(), m_drawPersp.getEdgeCount())) {
+				GraphRenderer.renderGraph(m_drawPersp, m_spacial, getEdgePositions(), lod,
+				                          m_nodeDetails, m_edgeDetails, m_hash, grafx,
+				                          bgPaint, xCenter, yCenter, scaleFactor, null);
+				return;
+			}
+
+			nodePositions = m_spacial.snapshot();
+
+			final List<CyNode> nodes = m_drawPersp.getNodeList();
+			nodeInxs = new long[nodes.size()];
+			nodeColors = new Color[nodes.size()];
+
+			for (int i = 0; i < nodeInxs.length; i++) {
+				final CyNode node = nodes.get(i);
+				nodeInxs[i] = node.getSUID();
+				nodeColors[i] = m_nodeDetails.getColorLowDetail(node);
+			}
+
+			final List<CyEdge> edges = m_drawPersp.getEdgeList();
+			edgeNodeInxs = new long[2 * edges.size()];
+			edgeColors = new Color[edges.size()];
+
+			for (int i = 0; i < edgeColors.length; i++) {
+				final CyEdge edge = edges.get(i);
+				edgeNodeInxs[2 * i] = edge.getSource().getSUID();
+				edgeNodeInxs[(2 * i) + 1] = edge.getTarget().getSUID();
+				edgeColors[i] = m_edgeDetails.getColorLowDetail(edge);
+			}
+		}
+
+		grafx.clear(bgPaint, xCenter, yCenter, scaleFactor);
+
+		final float[] srcExtents = new float[4];
+		final float[] trgExtents = new float[4];
+
+		for (int i = 0; i < edgeColors.length; i++) {
+			if (grafx.isCancelled())
+				return;
+
+			if (nodePositions.exists(edgeNodeInxs[2 * i], srcExtents, 0)
+			    && nodePositions.exists(edgeNodeInxs[(2 * i) + 1], trgExtents, 0))
+				grafx.drawEdgeLow((srcExtents[0] + srcExtents[2]) / 2,
+				                  (srcExtents[1] + srcExtents[3]) / 2,
+				                  (trgExtents[0] + trgExtents[2]) / 2,
+				                  (trgExtents[1] + trgExtents[3]) / 2, edgeColors[i]);
+		}
+
+		for (int i = 0; i < nodeInxs.length; i++) {
+			if (grafx.isCancelled())
+				return;
+
+			if (nodePositions.exists(nodeInxs[i], srcExtents, 0)
+			    && (srcExtents[0] != srcExtents[2]) && (srcExtents[1] != srcExtents[3]))
+				grafx.drawNodeLow(srcExtents[0], srcExtents[1], srcExtents[2], srcExtents[3],
+				                  nodeColors[i]);
+		}
+	}
+
 	/**
 	 * DOCUMENT ME!
 	 *
@@ -2500,6 +2872,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 	@Override
 	@SuppressWarnings({ "rawtypes", "unchecked" })
 	public Collection<View<? extends CyIdentifiable>> getAllViews() {
+		cancelBackgroundFrame();
 		synchronized (m_lock) {
 			final List views = new ArrayList(nodeViewMap.size() + edgeViewMap.size() + 1);
 			Collection nodeViews = nodeViewMap.values();
@@ -32,10 +32,8 @@ import java.awt.TexturePaint;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.WeakHashMap;
 
 import org.cytoscape.ding.DNodeShape;
 import org.cytoscape.ding.DVisualLexicon;
@@ -59,35 +57,33 @@ class DNodeDetails extends NodeDetails {
 
 	// Parent Network View
 	private final DGraphView dGraphView;
-	private final Object m_deletedEntry = new Object();
 	
 	private final Map<VisualProperty<?>, Object> defaultValues;
 
-	// Mapped Values
-	Map<CyNode, Object> m_colorsLowDetail = new WeakHashMap<CyNode, Object>();
-	Map<CyNode, Object> m_selectedColorsLowDetail = new WeakHashMap<CyNode, Object>();
-	Map<CyNode, NodeShape> m_shapes = new WeakHashMap<CyNode, NodeShape>();
-	Map<CyNode, Paint> m_unselectedPaints = new WeakHashMap<CyNode, Paint>();
-	Map<CyNode, Paint> m_selectedPaints = new WeakHashMap<CyNode, Paint>();
-	Map<CyNode, Float> m_borderWidths = new WeakHashMap<CyNode, Float>();
-	Map<CyNode, Stroke> m_borderStrokes = new WeakHashMap<CyNode, Stroke>();
-	Map<CyNode, Paint> m_borderPaints = new WeakHashMap<CyNode, Paint>();
-	Map<CyNode, Integer> m_labelCounts = new WeakHashMap<CyNode, Integer>();
-	Map<CyNode, String> m_labelTexts = new WeakHashMap<CyNode, String>();
-	Map<CyNode, String> m_tooltipTexts = new WeakHashMap<CyNode, String>();
-	Map<CyNode, Font> m_labelFonts = new WeakHashMap<CyNode, Font>();
-	Map<CyNode, Paint> m_labelPaints = new WeakHashMap<CyNode, Paint>();
-	Map<CyNode, Double> m_labelWidths = new WeakHashMap<CyNode, Double>();
-	Map<CyNode, Integer> m_labelTextAnchors = new WeakHashMap<CyNode, Integer>();
-	Map<CyNode, Integer> m_labelNodeAnchors = new WeakHashMap<CyNode, Integer>();
-	Map<CyNode, Integer> m_labelJustifys = new WeakHashMap<CyNode, Integer>();
-	Map<CyNode, Double> m_labelOffsetXs = new WeakHashMap<CyNode, Double>();
-	Map<CyNode, Double> m_labelOffsetYs = new WeakHashMap<CyNode, Double>();
-	Map<CyNode, Double> m_width = new WeakHashMap<CyNode, Double>();
-	Map<CyNode, List<CustomGraphicLayer>> m_customGraphics = new WeakHashMap<CyNode, List<CustomGraphicLayer>>();
-	Map<CyNode, Integer> m_nodeTansparencies = new WeakHashMap<CyNode, Integer>();
-	Map<CyNode, Integer> m_nodeBorderTansparencies = new WeakHashMap<CyNode, Integer>();
-	Map<CyNode, Integer> m_nodeLabelTansparencies = new WeakHashMap<CyNode, Integer>();
+	// Mapped Values, indexed by DNodeView.m_ordinal
+	private final ViewPropertyStore m_store = new ViewPropertyStore();
+	final ViewPropertyStore.InternedColumn<Color> m_colorsLowDetail = m_store.internedColumn();
+	final ViewPropertyStore.InternedColumn<Color> m_selectedColorsLowDetail = m_store.internedColumn();
+	final ViewPropertyStore.InternedColumn<NodeShape> m_shapes = m_store.internedColumn();
+	final ViewPropertyStore.InternedColumn<Paint> m_unselectedPaints = m_store.internedColumn();
+	final ViewPropertyStore.InternedColumn<Paint> m_selectedPaints = m_store.internedColumn();
+	final ViewPropertyStore.FloatColumn m_borderWidths = m_store.floatColumn();
+	final ViewPropertyStore.InternedColumn<Stroke> m_borderStrokes = m_store.internedColumn();
+	final ViewPropertyStore.InternedColumn<Paint> m_borderPaints = m_store.internedColumn();
+	final ViewPropertyStore.IntColumn m_labelCounts = m_store.intColumn();
+	final ViewPropertyStore.ObjectColumn<String> m_labelTexts = m_store.objectColumn();
+	final ViewPropertyStore.ObjectColumn<String> m_tooltipTexts = m_store.objectColumn();
+	final ViewPropertyStore.InternedColumn<Font> m_labelFonts = m_store.internedColumn();
+	final ViewPropertyStore.InternedColumn<Paint> m_labelPaints = m_store.internedColumn();
+	final ViewPropertyStore.DoubleColumn m_labelWidths = m_store.doubleColumn();
+	final ViewPropertyStore.IntColumn m_labelTextAnchors = m_store.intColumn();
+	final ViewPropertyStore.IntColumn m_labelNodeAnchors = m_store.intColumn();
+	final ViewPropertyStore.IntColumn m_labelJustifys = m_store.intColumn();
+	final ViewPropertyStore.DoubleColumn m_labelOffsetXs = m_store.doubleColumn();
+	final ViewPropertyStore.DoubleColumn m_labelOffsetYs = m_store.doubleColumn();
+	final ViewPropertyStore.IntColumn m_nodeTansparencies = m_store.intColumn();
+	final ViewPropertyStore.IntColumn m_nodeBorderTansparencies = m_store.intColumn();
+	final ViewPropertyStore.IntColumn m_nodeLabelTansparencies = m_store.intColumn();
 
 	private final Set<CyNode> selected = new HashSet<CyNode>();
 
@@ -126,30 +122,7 @@ class DNodeDetails extends NodeDetails {
 		if (isCleared)
 			return;
 
-		m_colorsLowDetail = new WeakHashMap<CyNode, Object>();
-		m_selectedColorsLowDetail = new WeakHashMap<CyNode, Object>();
-		m_shapes = new WeakHashMap<CyNode, NodeShape>();
-		m_unselectedPaints = new WeakHashMap<CyNode, Paint>();
-		m_borderWidths = new WeakHashMap<CyNode, Float>();
-		m_borderStrokes = new WeakHashMap<CyNode, Stroke>();
-		m_borderPaints = new WeakHashMap<CyNode, Paint>();
-		m_labelCounts = new WeakHashMap<CyNode, Integer>();
-		m_labelTexts = new WeakHashMap<CyNode, String>();
-		m_tooltipTexts = new WeakHashMap<CyNode, String>();
-		m_labelFonts = new WeakHashMap<CyNode, Font>();
-		m_labelPaints = new WeakHashMap<CyNode, Paint>();
-		m_labelWidths = new WeakHashMap<CyNode, Double>();
-		m_labelTextAnchors = new WeakHashMap<CyNode, Integer>();
-		m_labelNodeAnchors = new WeakHashMap<CyNode, Integer>();
-		m_labelJustifys = new WeakHashMap<CyNode, Integer>();
-		m_labelOffsetXs = new WeakHashMap<CyNode, Double>();
-		m_labelOffsetYs = new WeakHashMap<CyNode, Double>();
-		m_width = new WeakHashMap<CyNode, Double>();
-		m_selectedPaints = new WeakHashMap<CyNode, Paint>();
-		m_customGraphics = new WeakHashMap<CyNode, List<CustomGraphicLayer>>();
-		this.m_nodeTansparencies = new WeakHashMap<CyNode, Integer>();
-		this.m_nodeBorderTansparencies = new WeakHashMap<CyNode, Integer>();
-		this.m_nodeLabelTansparencies = new WeakHashMap<CyNode, Integer>();
+		m_store.clear();
 
 		// Clear all Custom Graphics
 		for (final View<CyNode> nv : dGraphView.getNodeViews())
@@ -158,36 +131,26 @@ class DNodeDetails extends NodeDetails {
 		isCleared = true;
 	}
 
-	void unregisterNode(final CyNode nodeIdx) {
-		final Object o = m_colorsLowDetail.get(nodeIdx);
-		if ((o != null) && (o != m_deletedEntry))
-			m_colorsLowDetail.put(nodeIdx, m_deletedEntry);
-
-		final Object os = m_selectedColorsLowDetail.get(nodeIdx);
-		if ((os != null) && (os != m_deletedEntry))
-			m_selectedColorsLowDetail.put(nodeIdx, m_deletedEntry);
-
-		m_shapes.remove(nodeIdx);
-		m_unselectedPaints.remove(nodeIdx);
-		m_borderWidths.remove(nodeIdx);
-		m_borderStrokes.remove(nodeIdx);
-		m_borderPaints.remove(nodeIdx);
-		m_labelWidths.remove(nodeIdx);
-		m_labelTextAnchors.remove(nodeIdx);
-		m_labelNodeAnchors.remove(nodeIdx);
-		m_labelJustifys.remove(nodeIdx);
-		m_labelOffsetXs.remove(nodeIdx);
-		m_labelOffsetYs.remove(nodeIdx);
-		m_selectedPaints.remove(nodeIdx);
-		m_tooltipTexts.remove(nodeIdx);
-		selected.remove(nodeIdx);
-		m_labelCounts.remove(nodeIdx);
-		m_labelTexts.remove(nodeIdx);
-		m_labelFonts.remove(nodeIdx);
-		m_labelPaints.remove(nodeIdx);
-		m_nodeTansparencies.remove(nodeIdx);
-		m_nodeBorderTansparencies.remove(nodeIdx);
-		m_nodeLabelTansparencies.remove(nodeIdx);
+	/**
+	 * Gives the view a slot in the store.  Must be called before any of its
+	 * values are overridden.
+	 */
+	void registerNode(final DNodeView nodeView) {
+		nodeView.m_ordinal = m_store.register();
+	}
+
+	void unregisterNode(final DNodeView nodeView) {
+		m_store.unregister(nodeView.m_ordinal);
+		nodeView.m_ordinal = -1;
+		selected.remove(nodeView.getModel());
+	}
+
+	/**
+	 * Returns the store ordinal of the node, or -1 if it has no view.
+	 */
+	private int ordinal(final CyNode node) {
+		final DNodeView dnv = dGraphView.getDNodeView(node);
+		return dnv == null ? -1 : dnv.m_ordinal;
 	}
 
 	@Override
@@ -207,15 +170,15 @@ class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_FILL_COLOR))
 			return (Color) dnv.getVisualProperty(DVisualLexicon.NODE_FILL_COLOR);
 
-		final Object o = m_colorsLowDetail.get(node);
+		final int i = dnv.m_ordinal;
 
-		if ((o == null) || (o == m_deletedEntry))
+		if (!m_colorsLowDetail.isSet(i))
 			if (m_colorLowDetailDefault == null)
 				return super.getColorLowDetail(node);
 			else
 				return m_colorLowDetailDefault;
 
-		return (Color) o;
+		return m_colorsLowDetail.get(i);
 	}
 
 	void setColorLowDetailDefault(Color c) {
@@ -230,15 +193,15 @@ class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_SELECTED_PAINT))
 			return (Color) dnv.getVisualProperty(DVisualLexicon.NODE_SELECTED_PAINT);
 
-		final Object o = m_selectedColorsLowDetail.get(node);
+		final int i = dnv.m_ordinal;
 
-		if ((o == null) || (o == m_deletedEntry))
+		if (!m_selectedColorsLowDetail.isSet(i))
 			if (m_selectedColorLowDetailDefault == null)
 				return (Color) DNodeView.DEFAULT_NODE_SELECTED_PAINT;
 			else
 				return m_selectedColorLowDetailDefault;
 
-		return (Color) o;
+		return m_selectedColorsLowDetail.get(i);
 	}
 
 	void setSelectedColorLowDetailDefault(Color c) {
@@ -252,7 +215,7 @@ class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_SELECTED_PAINT))
 			return dnv.getVisualProperty(DVisualLexicon.NODE_SELECTED_PAINT);
 
-		final Paint o = m_selectedPaints.get(node);
+		final Paint o = m_selectedPaints.get(dnv.m_ordinal);
 
 		if (o == null)
 			if (m_selectedPaintDefault == null)
@@ -275,7 +238,7 @@ class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_SHAPE))
 			return DNodeShape.getDShape(dnv.getVisualProperty(DVisualLexicon.NODE_SHAPE)).getNativeShape();
 
-		final NodeShape originaShape = m_shapes.get(node);
+		final NodeShape originaShape = m_shapes.get(dnv.m_ordinal);
 
 		if (originaShape == null) {
 			if (m_shapeDefault == null)
@@ -298,9 +261,9 @@ class DNodeDetails extends NodeDetails {
 	 */
 	void overrideShape(CyNode node, NodeShape shape) {
 		if (shape == null)
-			m_shapes.remove(node);
+			m_shapes.unset(ordinal(node));
 		else {
-			m_shapes.put(node, shape);
+			m_shapes.set(ordinal(node), shape);
 			isCleared = false;
 		}
 	}
@@ -320,7 +283,7 @@ class DNodeDetails extends NodeDetails {
 		if (dev.isValueLocked(DVisualLexicon.NODE_FILL_COLOR)) {
 			paint = dev.getVisualProperty(DVisualLexicon.NODE_FILL_COLOR);
 		} else {
-			paint = m_unselectedPaints.get(node);
+			paint = m_unselectedPaints.get(dev.m_ordinal);
 
 			if (paint == null) {
 				// Mapped Value does not exist; use default
@@ -344,16 +307,18 @@ class DNodeDetails extends NodeDetails {
 	}
 
 	void setUnselectedPaint(final CyNode node, final Paint paint) {
-		m_unselectedPaints.put(node, paint);
+		final int i = ordinal(node);
+		m_unselectedPaints.set(i, paint);
 		if (paint instanceof Color)
-			m_colorsLowDetail.put(node, paint);
+			m_colorsLowDetail.set(i, (Color) paint);
 		isCleared = false;
 	}
 
 	void setSelectedPaint(final CyNode node, final Paint paint) {
-		m_selectedPaints.put(node, paint);
+		final int i = ordinal(node);
+		m_selectedPaints.set(i, paint);
 		if (paint instanceof Color)
-			m_selectedColorsLowDetail.put(node, paint);
+			m_selectedColorsLowDetail.set(i, (Color) paint);
 
 		isCleared = false;
 	}
@@ -384,15 +349,15 @@ class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_BORDER_WIDTH))
 			return dnv.getVisualProperty(DVisualLexicon.NODE_BORDER_WIDTH).floatValue();
 
-		final Float o = m_borderWidths.get(node);
+		final int i = dnv.m_ordinal;
 		
-		if (o == null)
+		if (!m_borderWidths.isSet(i))
 			if (m_borderWidthDefault == null)
 				return DVisualLexicon.NODE_BORDER_WIDTH.getDefault().floatValue();
 			else
 				return m_borderWidthDefault.floatValue();
 
-		return o;
+		return m_borderWidths.get(i);
 	}
 
 	void setBorderWidthDefault(float width) {
@@ -405,9 +370,9 @@ class DNodeDetails extends NodeDetails {
 	 */
 	void overrideBorderWidth(final CyNode node, final float width) {
 		if ((width < 0.0f) || (width == super.getBorderWidth(node)))
-			m_borderWidths.remove(node);
+			m_borderWidths.unset(ordinal(node));
 		else {
-			m_borderWidths.put(node, width);
+			m_borderWidths.set(ordinal(node), width);
 			isCleared = false;
 		}
 	}
@@ -422,7 +387,7 @@ class DNodeDetails extends NodeDetails {
 			return DLineType.getDLineType(lockedLineType).getStroke(borderWidth);
 		}
 
-		final Stroke stroke = m_borderStrokes.get(node);
+		final Stroke stroke = m_borderStrokes.get(dnv.m_ordinal);
 		
 		if (stroke == null) {
 			if (m_borderStrokeDefault == null) {
@@ -444,9 +409,9 @@ class DNodeDetails extends NodeDetails {
 	
 	void overrideBorderStroke(final CyNode node, final Stroke stroke) {
 		if (stroke == null)
-			m_borderStrokes.remove(node);
+			m_borderStrokes.unset(ordinal(node));
 		else {
-			m_borderStrokes.put(node, stroke);
+			m_borderStrokes.set(ordinal(node), stroke);
 			isCleared = false;
 		}
 	}
@@ -468,7 +433,7 @@ class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_BORDER_PAINT)) {
 			paint = dnv.getVisualProperty(DVisualLexicon.NODE_BORDER_PAINT);
 		} else {
-			paint = m_borderPaints.get(node);
+			paint = m_borderPaints.get(dnv.m_ordinal);
 
 			if (paint == null)
 				paint = m_borderPaintDefault != null ? m_borderPaintDefault : super.getBorderPaint(node);
@@ -490,9 +455,9 @@ class DNodeDetails extends NodeDetails {
 	 */
 	void overrideBorderPaint(final CyNode node, final Paint paint) {
 		if ((paint == null) || paint.equals(super.getBorderPaint(node)))
-			m_borderPaints.remove(node);
+			m_borderPaints.unset(ordinal(node));
 		else {
-			m_borderPaints.put(node, paint);
+			m_borderPaints.set(ordinal(node), paint);
 			isCleared = false;
 		}
 	}
@@ -504,15 +469,15 @@ class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_LABEL) && !dnv.getVisualProperty(DVisualLexicon.NODE_LABEL).isEmpty())
 			return 1;
 		
-		final Integer o = m_labelCounts.get(node);
+		final int i = dnv.m_ordinal;
 
-		if (o == null)
+		if (!m_labelCounts.isSet(i))
 			if (m_labelCountDefault == null)
 				return super.getLabelCount(node);
 			else
 				return m_labelCountDefault.intValue();
 
-		return o;
+		return m_labelCounts.get(i);
 	}
 
 	void setLabelCountDefault(int lc) {
@@ -524,9 +489,9 @@ class DNodeDetails extends NodeDetails {
 	 */
 	void overrideLabelCount(final CyNode node, final int labelCount) {
 		if ((labelCount < 0) || (labelCount == super.getLabelCount(node)))
-			m_labelCounts.remove(node);
+			m_labelCounts.unset(ordinal(node));
 		else {
-			m_labelCounts.put(node, labelCount);
+			m_labelCounts.set(ordinal(node), labelCount);
 			isCleared = false;
 		}
 	}
@@ -539,7 +504,7 @@ class DNodeDetails extends NodeDetails {
 			return dnv.getVisualProperty(DVisualLexicon.NODE_LABEL);
 
 		// final long key = (((long) node) << 32) | ((long) labelInx);
-		final String o = m_labelTexts.get(node);
+		final String o = m_labelTexts.get(dnv.m_ordinal);
 
 		if (o == null)
 			if (m_labelTextDefault == null)
@@ -562,9 +527,9 @@ class DNodeDetails extends NodeDetails {
 		// final long key = (((long) node) << 32) | ((long) labelInx);
 
 		if ((text == null) || text.equals(super.getLabelText(node, labelInx)))
-			m_labelTexts.remove(node);
+			m_labelTexts.unset(ordinal(node));
 		else {
-			m_labelTexts.put(node, text);
+			m_labelTexts.set(ordinal(node), text);
 			isCleared = false;
 		}
 	}
@@ -575,7 +540,7 @@ class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_TOOLTIP))
 			return dnv.getVisualProperty(DVisualLexicon.NODE_TOOLTIP);
 
-		final String o = m_tooltipTexts.get(node);
+		final String o = m_tooltipTexts.get(dnv.m_ordinal);
 
 		if (o == null)
 			if (m_tooltipTextDefault == null)
@@ -597,9 +562,9 @@ class DNodeDetails extends NodeDetails {
 	void overrideTooltipText(final CyNode node, final String text) {
 
 		if ((text == null) || text.equals(""))
-			m_tooltipTexts.remove(node);
+			m_tooltipTexts.unset(ordinal(node));
 		else {
-			m_tooltipTexts.put(node, text);
+			m_tooltipTexts.set(ordinal(node), text);
 			isCleared = false;
 		}
 	}
@@ -617,7 +582,7 @@ class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_LABEL_FONT_FACE)) {
 			font = dnv.getVisualProperty(DVisualLexicon.NODE_LABEL_FONT_FACE);
 		} else {
-			font = m_labelFonts.get(node);
+			font = m_labelFonts.get(dnv.m_ordinal);
 	
 			if (font == null) {
 				font = m_labelFontDefault != null ? 
@@ -644,9 +609,9 @@ class DNodeDetails extends NodeDetails {
 	 */
 	void overrideLabelFont(final CyNode node, final Font font) {
 		if (font == null) {
-			m_labelFonts.remove(node);
+			m_labelFonts.unset(ordinal(node));
 		} else {
-			m_labelFonts.put(node, font);
+			m_labelFonts.set(ordinal(node), font);
 			isCleared = false;
 		}
 	}
@@ -665,7 +630,7 @@ class DNodeDetails extends NodeDetails {
 			// Check bypass
 			paint = dnv.getVisualProperty(DVisualLexicon.NODE_LABEL_COLOR);
 		} else {
-			paint = m_labelPaints.get(node);
+			paint = m_labelPaints.get(dnv.m_ordinal);
 
 			if (paint == null)
 				paint = m_labelPaintDefault != null ? m_labelPaintDefault : DVisualLexicon.NODE_LABEL_COLOR.getDefault();
@@ -687,9 +652,9 @@ class DNodeDetails extends NodeDetails {
 	 */
 	void overrideLabelPaint(CyNode node, int labelInx, Paint paint) {
 		if (paint == null)
-			m_labelPaints.remove(node);
+			m_labelPaints.unset(ordinal(node));
 		else {
-			m_labelPaints.put(node, paint);
+			m_labelPaints.set(ordinal(node), paint);
 			isCleared = false;
 		}
 	}
@@ -716,15 +681,15 @@ class DNodeDetails extends NodeDetails {
 			return convertG2ND(anchor.getConversionConstant());
 		}
 
-		final Integer p = m_labelTextAnchors.get(node);
+		final int i = dnv.m_ordinal;
 
-		if (p == null)
+		if (!m_labelTextAnchors.isSet(i))
 			if (m_labelTextAnchorDefault == null)
 				return super.getLabelTextAnchor(node, labelInx);
 			else
 				return m_labelTextAnchorDefault.byteValue();
 
-		return convertG2ND(p);
+		return convertG2ND(m_labelTextAnchors.get(i));
 	}
 
 	void setLabelTextAnchorDefault(int anchor) {
@@ -733,9 +698,9 @@ class DNodeDetails extends NodeDetails {
 
 	void overrideLabelTextAnchor(final CyNode node, final int inx, final int anchor) {
 		if (convertG2ND(anchor) == super.getLabelTextAnchor(node, inx))
-			m_labelTextAnchors.remove(node);
+			m_labelTextAnchors.unset(ordinal(node));
 		else {
-			m_labelTextAnchors.put(node, Integer.valueOf(anchor));
+			m_labelTextAnchors.set(ordinal(node), anchor);
 			isCleared = false;
 		}
 	}
@@ -750,15 +715,15 @@ class DNodeDetails extends NodeDetails {
 			return convertG2ND(anchor.getConversionConstant());
 		}
 
-		final Integer o = m_labelNodeAnchors.get(node);
+		final int i = dnv.m_ordinal;
 
-		if (o == null)
+		if (!m_labelNodeAnchors.isSet(i))
 			if (m_labelNodeAnchorDefault == null)
 				return super.getLabelNodeAnchor(node, labelInx);
 			else
 				return m_labelNodeAnchorDefault.byteValue();
 
-		return convertG2ND(o);
+		return convertG2ND(m_labelNodeAnchors.get(i));
 	}
 
 	void setLabelNodeAnchorDefault(int anchor) {
@@ -767,9 +732,9 @@ class DNodeDetails extends NodeDetails {
 
 	void overrideLabelNodeAnchor(final CyNode node, final int inx, final int anchor) {
 		if (convertG2ND(anchor) == super.getLabelNodeAnchor(node, inx))
-			m_labelNodeAnchors.remove(node);
+			m_labelNodeAnchors.unset(ordinal(node));
 		else {
-			m_labelNodeAnchors.put(node, Integer.valueOf(anchor));
+			m_labelNodeAnchors.set(ordinal(node), anchor);
 			isCleared = false;
 		}
 	}
@@ -783,15 +748,15 @@ class DNodeDetails extends NodeDetails {
 			return (float) lp.getOffsetX();
 		}
 
-		final Object o = m_labelOffsetXs.get(node);
+		final int i = dnv.m_ordinal;
 
-		if (o == null)
+		if (!m_labelOffsetXs.isSet(i))
 			if (m_labelOffsetVectorXDefault == null)
 				return super.getLabelOffsetVectorX(node, labelInx);
 			else
 				return m_labelOffsetVectorXDefault.floatValue();
 
-		return ((Double) o).floatValue();
+		return (float) m_labelOffsetXs.get(i);
 	}
 
 	void setLabelOffsetVectorXDefault(double x) {
@@ -800,9 +765,9 @@ class DNodeDetails extends NodeDetails {
 
 	void overrideLabelOffsetVectorX(final CyNode node, final int inx, final double x) {
 		if (((float) x) == super.getLabelOffsetVectorX(node, inx))
-			m_labelOffsetXs.remove(node);
+			m_labelOffsetXs.unset(ordinal(node));
 		else {
-			m_labelOffsetXs.put(node, new Double(x));
+			m_labelOffsetXs.set(ordinal(node), x);
 			isCleared = false;
 		}
 	}
@@ -816,15 +781,15 @@ class DNodeDetails extends NodeDetails {
 			return (float) lp.getOffsetY();
 		}
 
-		final Object o = m_labelOffsetYs.get(node);
+		final int i = dnv.m_ordinal;
 
-		if (o == null)
+		if (!m_labelOffsetYs.isSet(i))
 			if (m_labelOffsetVectorYDefault == null)
 				return super.getLabelOffsetVectorY(node, labelInx);
 			else
 				return m_labelOffsetVectorYDefault.floatValue();
 
-		return ((Double) o).floatValue();
+		return (float) m_labelOffsetYs.get(i);
 	}
 
 	void setLabelOffsetVectorYDefault(double y) {
@@ -833,9 +798,9 @@ class DNodeDetails extends NodeDetails {
 
 	void overrideLabelOffsetVectorY(final CyNode node, final int inx, final double y) {
 		if (((float) y) == super.getLabelOffsetVectorY(node, inx))
-			m_labelOffsetYs.remove(node);
+			m_labelOffsetYs.unset(ordinal(node));
 		else {
-			m_labelOffsetYs.put(node, new Double(y));
+			m_labelOffsetYs.set(ordinal(node), y);
 			isCleared = false;
 		}
 	}
@@ -850,15 +815,15 @@ class DNodeDetails extends NodeDetails {
 			return convertG2ND(justify.getConversionConstant());
 		}
 
-		Integer o = m_labelJustifys.get(node);
+		final int i = dnv.m_ordinal;
 
-		if (o == null)
+		if (!m_labelJustifys.isSet(i))
 			if (m_labelJustifyDefault == null)
 				return super.getLabelJustify(node, labelInx);
 			else
 				return m_labelJustifyDefault.byteValue();
 
-		return convertG2ND(o);
+		return convertG2ND(m_labelJustifys.get(i));
 	}
 
 	void setLabelJustifyDefault(int justify) {
@@ -867,24 +832,24 @@ class DNodeDetails extends NodeDetails {
 
 	void overrideLabelJustify(final CyNode node, final int inx, final int justify) {
 		if (convertG2ND(justify) == super.getLabelJustify(node, inx))
-			m_labelJustifys.remove(node);
+			m_labelJustifys.unset(ordinal(node));
 		else {
-			m_labelJustifys.put(node, Integer.valueOf(justify));
+			m_labelJustifys.set(ordinal(node), justify);
 			isCleared = false;
 		}
 	}
 
 	@Override
 	public double getLabelWidth(CyNode node) {
-		final Double o = m_labelWidths.get(node);
+		final int i = ordinal(node);
 
-		if (o == null)
+		if (!m_labelWidths.isSet(i))
 			if (m_labelWidthDefault == null)
 				return super.getLabelWidth(node);
 			else
 				return m_labelWidthDefault.doubleValue();
 
-		return o;
+		return m_labelWidths.get(i);
 	}
 
 	void setLabelWidthDefault(double width) {
@@ -897,9 +862,9 @@ class DNodeDetails extends NodeDetails {
 	 */
 	void overrideLabelWidth(final CyNode node, final double width) {
 		if ((width < 0.0) || (width == super.getLabelWidth(node)))
-			m_labelWidths.remove(node);
+			m_labelWidths.unset(ordinal(node));
 		else {
-			m_labelWidths.put(node, width);
+			m_labelWidths.set(ordinal(node), width);
 			isCleared = false;
 		}
 	}
@@ -912,12 +877,11 @@ class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_TRANSPARENCY))
 			return dnv.getVisualProperty(DVisualLexicon.NODE_TRANSPARENCY);
 
-		Integer trans = m_nodeTansparencies.get(node);
-		if (trans == null) {
-			trans = transparencyDefault != null ? transparencyDefault : DVisualLexicon.NODE_TRANSPARENCY.getDefault();
-		}
-		
-		return trans;
+		final int i = dnv.m_ordinal;
+		if (m_nodeTansparencies.isSet(i))
+			return m_nodeTansparencies.get(i);
+
+		return transparencyDefault != null ? transparencyDefault : DVisualLexicon.NODE_TRANSPARENCY.getDefault();
 	}
 
 	void setTransparencyDefault(Integer transparency) {
@@ -927,9 +891,9 @@ class DNodeDetails extends NodeDetails {
 
 	void overrideTransparency(final CyNode node, final Integer transparency) {
 		if (transparency == null)
-			m_nodeTansparencies.remove(node);
+			m_nodeTansparencies.unset(ordinal(node));
 		else {
-			m_nodeTansparencies.put(node, transparency);
+			m_nodeTansparencies.set(ordinal(node), transparency);
 			isCleared = false;
 		}
 	}
@@ -940,13 +904,12 @@ class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_LABEL_TRANSPARENCY))
 			return dnv.getVisualProperty(DVisualLexicon.NODE_LABEL_TRANSPARENCY);
 
-		Integer trans = m_nodeLabelTansparencies.get(node);
-		if (trans == null) {
-			trans = transparencyLabelDefault != null ? 
-					transparencyLabelDefault : DVisualLexicon.NODE_LABEL_TRANSPARENCY.getDefault();
-		}
-		
-		return trans;
+		final int i = dnv.m_ordinal;
+		if (m_nodeLabelTansparencies.isSet(i))
+			return m_nodeLabelTansparencies.get(i);
+
+		return transparencyLabelDefault != null ? 
+				transparencyLabelDefault : DVisualLexicon.NODE_LABEL_TRANSPARENCY.getDefault();
 	}
 
 	void setLabelTransparencyDefault(Integer transparency) {
@@ -956,9 +919,9 @@ class DNodeDetails extends NodeDetails {
 
 	void overrideLabelTransparency(final CyNode node, final Integer transparency) {
 		if (transparency == null)
-			m_nodeLabelTansparencies.remove(node);
+			m_nodeLabelTansparencies.unset(ordinal(node));
 		else {
-			m_nodeLabelTansparencies.put(node, transparency);
+			m_nodeLabelTansparencies.set(ordinal(node), transparency);
 			isCleared = false;
 		}
 	}
@@ -969,13 +932,12 @@ class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_BORDER_TRANSPARENCY))
 			return dnv.getVisualProperty(DVisualLexicon.NODE_BORDER_TRANSPARENCY);
 
-		Integer trans = m_nodeBorderTansparencies.get(node);
-		if (trans == null) {
-			trans = transparencyBorderDefault != null ? 
-					transparencyBorderDefault : DVisualLexicon.NODE_BORDER_TRANSPARENCY.getDefault();
-		}
-		
-		return trans;
+		final int i = dnv.m_ordinal;
+		if (m_nodeBorderTansparencies.isSet(i))
+			return m_nodeBorderTansparencies.get(i);
+
+		return transparencyBorderDefault != null ? 
+				transparencyBorderDefault : DVisualLexicon.NODE_BORDER_TRANSPARENCY.getDefault();
 	}
 
 	void setBorderTransparencyDefault(Integer transparency) {
@@ -985,15 +947,18 @@ class DNodeDetails extends NodeDetails {
 
 	void overrideBorderTransparency(final CyNode node, final Integer transparency) {
 		if (transparency == null)
-			m_nodeBorderTansparencies.remove(node);
+			m_nodeBorderTansparencies.unset(ordinal(node));
 		else {
-			m_nodeBorderTansparencies.put(node, transparency);
+			m_nodeBorderTansparencies.set(ordinal(node), transparency);
 			isCleared = false;
 		}
 	}
 
 	@Override
 	public TexturePaint getNestedNetworkTexturePaint(final CyNode node) {
+		if (node.getNetworkPointer() == null)
+			return null;
+
 		final DNodeView dNodeView = (DNodeView) dGraphView.getDNodeView(node);
 		return dNodeView.getNestedNetworkTexturePaint();
 	}
@@ -141,6 +141,9 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 	float m_hiddenXMax = Float.MAX_VALUE;
 	float m_hiddenYMax = Float.MAX_VALUE;
 
+	// Slot of this view in the DNodeDetails store, or -1 once removed.
+	int m_ordinal = -1;
+
 	// Nested Network View
 	private DGraphView nestedNetworkView;
 
@@ -208,6 +211,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 
 	@Override
 	public void setSelectedPaint(final Paint paint) {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			if (paint == null)
 				throw new NullPointerException("paint is null");
@@ -216,12 +220,13 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 			graphView.m_nodeDetails.setSelectedPaint(model, transpColor);
 			
 			if (isSelected())
-				graphView.m_contentChanged = true;
+				graphView.nodeDamaged(modelIdx);
 		}
 	}
 
 	@Override
 	public void setUnselectedPaint(final Paint paint) {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			if (paint == null)
 				throw new NullPointerException("paint is null");
@@ -230,12 +235,13 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 			graphView.m_nodeDetails.setUnselectedPaint(model, transpColor);
 			
 			if (!isSelected())
-				graphView.m_contentChanged = true;
+				graphView.nodeDamaged(modelIdx);
 		}
 	}
 
 	@Override
 	public void setBorderPaint(Paint paint) {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			final Paint transColor = getTransparentColor(paint, graphView.m_nodeDetails.getBorderTransparency(model));
 			graphView.m_nodeDetails.overrideBorderPaint(model, transColor);
@@ -246,6 +252,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 
 	@Override
 	public void setBorderWidth(float width) {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			graphView.m_nodeDetails.overrideBorderWidth(model, width);
 			graphView.m_contentChanged = true;
@@ -254,6 +261,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 
 	@Override
 	public void setBorder(final Stroke stroke) {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			graphView.m_nodeDetails.overrideBorderStroke(model, stroke);
 			graphView.m_contentChanged = true;
@@ -295,6 +303,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 
 	@Override
 	public void setTransparency(int trans) {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			Integer transparency;
 			if (trans < 0 || trans > 255) {
@@ -314,6 +323,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 	}
 	
 	public void setBorderTransparency(final int trans) {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			final Integer transparency;
 			if (trans < 0 || trans > 255) {
@@ -345,6 +355,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 
 		resizeCustomGraphics(width/getWidth(), 1.0);
 
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			if (!graphView.m_spacial.exists(modelIdx, graphView.m_extentsBuff, 0))
 				return false;
@@ -357,8 +368,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 			if (!(xMax > xMin))
 				throw new IllegalArgumentException("width is too small");
 
-			graphView.m_spacial.delete(modelIdx);
-			graphView.m_spacial.insert(modelIdx, xMin, graphView.m_extentsBuff[1], xMax,
+			graphView.moveNode(modelIdx, xMin, graphView.m_extentsBuff[1], xMax,
 					graphView.m_extentsBuff[3]);
 			graphView.m_contentChanged = true;
 
@@ -368,6 +378,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 
 	@Override
 	public double getWidth() {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			if (!graphView.m_spacial.exists(modelIdx, graphView.m_extentsBuff, 0))
 				return -1.0d;
@@ -387,6 +398,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 
 		resizeCustomGraphics(1.0, height/getHeight());
 		
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			if (!graphView.m_spacial.exists(modelIdx, graphView.m_extentsBuff, 0))
 				return false;
@@ -400,8 +412,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 				throw new IllegalArgumentException("height is too small max:" + yMax + " min:" + yMin + " center:"
 						+ yCenter + " height:" + height);
 
-			graphView.m_spacial.delete(modelIdx);
-			graphView.m_spacial.insert(modelIdx, graphView.m_extentsBuff[0], yMin, graphView.m_extentsBuff[2], yMax);
+			graphView.moveNode(modelIdx, graphView.m_extentsBuff[0], yMin, graphView.m_extentsBuff[2], yMax);
 			graphView.m_contentChanged = true;
 
 			return true;
@@ -410,6 +421,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 
 	@Override
 	public double getHeight() {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			if (!graphView.m_spacial.exists(modelIdx, graphView.m_extentsBuff, 0))
 				return -1.0d;
@@ -421,6 +433,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 
 	@Override
 	public void setOffset(double x, double y) {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			if (!graphView.m_spacial.exists(modelIdx, graphView.m_extentsBuff, 0))
 				return;
@@ -438,8 +451,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 			if (!(yMax > yMin))
 				throw new IllegalStateException("height of node has degenerated to zero after " + "rounding");
 
-			graphView.m_spacial.delete(modelIdx);
-			graphView.m_spacial.insert(modelIdx, xMin, yMin, xMax, yMax);
+			graphView.moveNode(modelIdx, xMin, yMin, xMax, yMax);
 			graphView.m_contentChanged = true;
 			setVisualProperty(BasicVisualLexicon.NODE_X_LOCATION,x);
 			setVisualProperty(BasicVisualLexicon.NODE_Y_LOCATION,y);
@@ -448,6 +460,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 
 	@Override
 	public Point2D getOffset() {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			if (!graphView.m_spacial.exists(modelIdx, graphView.m_extentsBuff, 0))
 				return null;
@@ -464,6 +477,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 		
 		final double wDiv2;
 		
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			final boolean nodeVisible = graphView.m_spacial.exists(modelIdx, graphView.m_extentsBuff, 0);
 
@@ -480,8 +494,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 
 			// If the node is visible, set the extents.
 			if (nodeVisible) {
-				graphView.m_spacial.delete(modelIdx);
-				graphView.m_spacial.insert(modelIdx, xMin, graphView.m_extentsBuff[1], xMax, graphView.m_extentsBuff[3]);
+				graphView.moveNode(modelIdx, xMin, graphView.m_extentsBuff[1], xMax, graphView.m_extentsBuff[3]);
 				graphView.m_contentChanged = true;
 
 				// If the node is NOT visible (hidden), then update the hidden
@@ -497,6 +510,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 	}
 
 	public double getXPosition() {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			if (graphView.m_spacial.exists(modelIdx, graphView.m_extentsBuff, 0))
 				return (((double) graphView.m_extentsBuff[0]) + graphView.m_extentsBuff[2]) / 2.0d;
@@ -508,6 +522,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 	public void setYPosition(final double yPos) {
 		final double hDiv2;
 		
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			
 			final boolean nodeVisible = graphView.m_spacial.exists(modelIdx, graphView.m_extentsBuff, 0);
@@ -525,8 +540,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 
 			// If the node is visible, set the extents.
 			if (nodeVisible) {
-				graphView.m_spacial.delete(modelIdx);
-				graphView.m_spacial.insert(modelIdx, graphView.m_extentsBuff[0], yMin, graphView.m_extentsBuff[2], yMax);
+				graphView.moveNode(modelIdx, graphView.m_extentsBuff[0], yMin, graphView.m_extentsBuff[2], yMax);
 				graphView.m_contentChanged = true;
 
 				// If the node is NOT visible (hidden), then update the hidden
@@ -540,6 +554,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 	}
 
 	public double getYPosition() {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			if (graphView.m_spacial.exists(modelIdx, graphView.m_extentsBuff, 0))
 				return ((graphView.m_extentsBuff[1]) + graphView.m_extentsBuff[3]) / 2.0d;
@@ -550,13 +565,9 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 
 	@Override
 	public void select() {
-		final boolean somethingChanged;
-
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
-			somethingChanged = selectInternal();
-
-			if (somethingChanged)
-				graphView.m_contentChanged = true;
+			selectInternal();
 		}
 	}
 
@@ -572,19 +583,16 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 		selected = true;
 		graphView.m_nodeDetails.select(model);
 		graphView.m_selectedNodes.insert(modelIdx);
+		graphView.nodeDamaged(modelIdx);
 
 		return true;
 	}
 
 	@Override
 	public void unselect() {
-		final boolean somethingChanged;
-
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
-			somethingChanged = unselectInternal();
-
-			if (somethingChanged)
-				graphView.m_contentChanged = true;
+			unselectInternal();
 		}
 	}
 
@@ -596,6 +604,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 		selected = false;
 		graphView.m_nodeDetails.unselect(model);
 		graphView.m_selectedNodes.delete(modelIdx);
+		graphView.nodeDamaged(modelIdx);
 
 		return true;
 	}
@@ -622,6 +631,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 	
 	@Override
 	public void setShape(final NodeShape shape) {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			graphView.m_nodeDetails.overrideShape(model, shape);
 			graphView.m_contentChanged = true;
@@ -630,6 +640,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 
 	@Override
 	public void setToolTip(final String tip) {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			graphView.m_nodeDetails.overrideTooltipText(model, tip);
 			graphView.m_contentChanged = true;
@@ -638,6 +649,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 
 	@Override
 	public String getToolTip() {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			return graphView.m_nodeDetails.getTooltipText(model);
 		}
@@ -645,6 +657,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 
 	@Override
 	public Paint getTextPaint() {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			return graphView.m_nodeDetails.getLabelPaint(model, 0);
 		}
@@ -652,6 +665,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 
 	@Override
 	public void setTextPaint(Paint textPaint) {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			
 			if(textPaint != null) {
@@ -663,6 +677,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 	}
 	
 	public void setLabelTransparency(Integer trans) {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			Integer transparency;
 			if (trans < 0 || trans > 255) {
@@ -681,6 +696,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 
 	@Override
 	public String getText() {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			return graphView.m_nodeDetails.getLabelText(model, 0);
 		}
@@ -705,6 +721,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 	 */
 	@Override
 	public Font getFont() {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			return graphView.m_nodeDetails.getLabelFont(model, 0);
 		}
@@ -715,6 +732,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 	 */
 	@Override
 	public void setFont(Font font) {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			graphView.m_nodeDetails.overrideLabelFont(model, font);
 			graphView.m_contentChanged = true;
@@ -844,6 +862,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 	}
 
 	private void ensureContentChanged() {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			graphView.m_contentChanged = true;
 		}
@@ -905,12 +924,14 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 
 
 	public double getLabelWidth() {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			return graphView.m_nodeDetails.getLabelWidth(model);
 		}
 	}
 
 	public void setLabelWidth(double width) {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			graphView.m_nodeDetails.overrideLabelWidth(model, width);
 			graphView.m_contentChanged = true;
@@ -918,6 +939,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 	}
 
 	TexturePaint getNestedNetworkTexturePaint() {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			++nestedNetworkPaintingDepth;
 
@@ -1008,6 +1030,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 	}
 
 	private void updateLabelPosition() {
+		graphView.cancelBackgroundFrame();
 		synchronized (graphView.m_lock) {
 			graphView.m_nodeDetails
 					.overrideLabelTextAnchor(model, 0, labelPosition.getAnchor().getConversionConstant());
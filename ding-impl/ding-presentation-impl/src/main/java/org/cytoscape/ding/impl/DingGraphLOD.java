@@ -45,6 +45,9 @@ public class DingGraphLOD extends GraphLOD implements PropertyUpdatedListener {
 	protected int nodeLabelThreshold;
 	protected int edgeArrowThreshold;
 	protected int edgeLabelThreshold;
+	protected int densityMapThreshold;
+	protected boolean backgroundRendering;
+	protected int renderThreadCount;
 
 	private final Properties props;
 	private final CyProperty<Properties> cyProp;
@@ -69,6 +72,9 @@ public class DingGraphLOD extends GraphLOD implements PropertyUpdatedListener {
 		nodeLabelThreshold = parseInt(props.getProperty("render.nodeLabelThreshold"), 200);
 		edgeArrowThreshold = parseInt(props.getProperty("render.edgeArrowThreshold"), 600);
 		edgeLabelThreshold = parseInt(props.getProperty("render.edgeLabelThreshold"), 200);
+		densityMapThreshold = parseInt(props.getProperty("render.densityMapThreshold"), 250000);
+		backgroundRendering = Boolean.parseBoolean(props.getProperty("render.backgroundRendering", "false"));
+		renderThreadCount = Math.max(1, parseInt(props.getProperty("render.threadCount"), 1));
 
 	}
 
@@ -336,6 +342,25 @@ public class DingGraphLOD extends GraphLOD implements PropertyUpdatedListener {
 		return false;
 	}
 
+	/**
+	 * Determines whether or not to render a density map instead of drawing
+	 * nodes and edges one by one. This method returns true if and only if the
+	 * sum of rendered nodes and rendered edges is at least
+	 * render.densityMapThreshold; a threshold of zero or less turns density
+	 * maps off.
+	 * 
+	 * @param renderNodeCount
+	 *            the number of nodes that are about to be rendered.
+	 * @param renderEdgeCount
+	 *            the number of edges that are about to be rendered.
+	 * @return true if and only if a density map is to be rendered.
+	 * @see #detail(int, int)
+	 */
+	@Override
+	public boolean densityMap(final int renderNodeCount, final int renderEdgeCount) {
+		return (densityMapThreshold > 0) && ((renderNodeCount + renderEdgeCount) >= densityMapThreshold);
+	}
+
 	public double getNestedNetworkImageScaleFactor() {
 		final String scaleFactor = props.getProperty("nestedNetwork.imageScaleFactor", "1.0");
 		try {
@@ -346,4 +371,13 @@ public class DingGraphLOD extends GraphLOD implements PropertyUpdatedListener {
 		}
 	}
 
+	@Override
+	public boolean renderInBackground() {
+		return backgroundRendering;
+	}
+
+	@Override
+	public int renderThreadCount() {
+		return renderThreadCount;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,108 @@
+package org.cytoscape.ding.impl;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+/**
+ * The parts of a network, in node coordinates, that look different since the
+ * last frame, so that only they need to be rendered again.  At most
+ * MAX_RECTANGLES rectangles are kept; when there would be more, they are
+ * replaced by the rectangle that contains them all.  Not thread safe.
+ */
+final class DirtyRegion {
+
+	static final int MAX_RECTANGLES = 32;
+
+	private final float[] m_extents = new float[MAX_RECTANGLES * 4];
+	private int m_count;
+
+	/**
+	 * Adds a rectangle to this region.
+	 */
+	void add(final float xMin, final float yMin, final float xMax, final float yMax) {
+		if (m_count == MAX_RECTANGLES) {
+			getBounds(m_extents, 0);
+			m_count = 1;
+		}
+
+		final int offset = m_count * 4;
+		m_extents[offset] = xMin;
+		m_extents[offset + 1] = yMin;
+		m_extents[offset + 2] = xMax;
+		m_extents[offset + 3] = yMax;
+		m_count++;
+	}
+
+	/**
+	 * Returns the number of rectangles in this region.
+	 */
+	int size() {
+		return m_count;
+	}
+
+	boolean isEmpty() {
+		return m_count == 0;
+	}
+
+	/**
+	 * Copies the extents of rectangle i into extentsArr, starting at offset.
+	 */
+	void get(final int i, final float[] extentsArr, final int offset) {
+		if ((i < 0) || (i >= m_count))
+			throw new IndexOutOfBoundsException("no rectangle " + i);
+
+		System.arraycopy(m_extents, i * 4, extentsArr, offset, 4);
+	}
+
+	/**
+	 * Copies the extents of the rectangle that contains the whole region
+	 * into extentsArr, starting at offset.  The region must not be empty.
+	 */
+	void getBounds(final float[] extentsArr, final int offset) {
+		if (m_count == 0)
+			throw new IllegalStateException("region is empty");
+
+		float xMin = Float.POSITIVE_INFINITY;
+		float yMin = Float.POSITIVE_INFINITY;
+		float xMax = Float.NEGATIVE_INFINITY;
+		float yMax = Float.NEGATIVE_INFINITY;
+
+		for (int i = 0; i < (m_count * 4); i += 4) {
+			xMin = Math.min(xMin, m_extents[i]);
+			yMin = Math.min(yMin, m_extents[i + 1]);
+			xMax = Math.max(xMax, m_extents[i + 2]);
+			yMax = Math.max(yMax, m_extents[i + 3]);
+		}
+
+		extentsArr[offset] = xMin;
+		extentsArr[offset + 1] = yMin;
+		extentsArr[offset + 2] = xMax;
+		extentsArr[offset + 3] = yMax;
+	}
+
+	void clear() {
+		m_count = 0;
+	}
+}
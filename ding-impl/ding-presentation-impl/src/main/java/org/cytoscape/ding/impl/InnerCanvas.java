@@ -25,6 +25,7 @@ package org.cytoscape.ding.impl;
  */
 
 
+import java.awt.AlphaComposite;
 import java.awt.Color;
 import java.awt.Component;
 import java.awt.FontMetrics;
@@ -33,6 +34,7 @@ import java.awt.Graphics2D;
 import java.awt.Image;
 import java.awt.Point;
 import java.awt.Rectangle;
+import java.awt.Shape;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.awt.event.MouseEvent;
@@ -45,8 +47,12 @@ import java.awt.geom.GeneralPath;
 import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
 import java.awt.image.BufferedImage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
 
 import org.cytoscape.ding.EdgeView;
 import org.cytoscape.ding.GraphViewChangeListener;
@@ -60,6 +66,7 @@ import org.cytoscape.ding.impl.events.ViewportChangeListener;
 import org.cytoscape.graph.render.export.ImageImposter;
 import org.cytoscape.graph.render.immed.EdgeAnchors;
 import org.cytoscape.graph.render.immed.GraphGraphics;
+import org.cytoscape.graph.render.stateful.EdgeGeometryCache;
 import org.cytoscape.graph.render.stateful.GraphLOD;
 import org.cytoscape.graph.render.stateful.GraphRenderer;
 import org.cytoscape.model.CyEdge;
@@ -90,7 +97,6 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 	final float[] m_floatBuff1 = new float[2];
 	final float[] m_floatBuff2 = new float[2];
 	final Line2D.Float m_line = new Line2D.Float();
-	final GeneralPath m_path = new GeneralPath();
 	final GeneralPath m_path2 = new GeneralPath();
 	final LongStack m_stack = new LongStack();
 	final LongStack m_stack2 = new LongStack();
@@ -130,6 +136,30 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 
 	private AddEdgeStateMonitor addEdgeMode;
 
+	// Background rendering, see GraphLOD.renderInBackground().  The frame being
+	// rendered, if any, is "m_pendingFrame"; "m_frontFrame" describes the
+	// viewport of the image in "m_img" and is only accessed from the EDT.
+	private ExecutorService m_renderExecutor;
+	private volatile BackgroundFrame m_pendingFrame;
+	private BackgroundFrame m_frontFrame;
+	private final AtomicReference<Image> m_backImg = new AtomicReference<Image>();
+	private final LongHash m_backgroundHash = new LongHash();
+
+	// How far the borders, labels and custom graphics of the nodes of the last
+	// frame reach beyond their nodes, in node coordinates, or -1 if that is
+	// not known yet; see renderDirtyRegion().  Reset along with
+	// m_lastRenderDetail by every new frame.
+	private float m_frameNodeMargin = -1.0f;
+
+	// The level of detail and the crossing edges of the image being printed
+	// in parts, if any; see renderGraphPart().  Guarded by m_lock.
+	private GraphRenderer.ImagePlan m_printPlan;
+
+	// Renders the tiles of a frame, see GraphLOD.renderThreadCount().  Guarded
+	// by m_lock.
+	private ExecutorService m_tileExecutor;
+	private int m_tileThreadCount;
+
 	InnerCanvas(Object lock, DGraphView view, UndoSupport undo) {
 		super();
 		m_lock = lock;
@@ -166,8 +196,12 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 			final Image img = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
 			GraphGraphics grafx = new GraphGraphics(img, false, true);
 
+			cancelBackgroundFrame();
 			synchronized (m_lock) {
-				m_img = img;
+				// A frame rendered in the background stays on screen, scaled to
+				// the new size, until the next one is ready.
+				if (m_frontFrame == null)
+					m_img = img;
 				m_grafx = grafx;
 				m_view.m_viewportChanged = true;
 			}
@@ -190,22 +224,72 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 
 		m_fontMetrics = g.getFontMetrics();
 
-		synchronized (m_lock) {
-			if (m_view.m_contentChanged || m_view.m_viewportChanged) {
-				renderGraph(m_grafx,/* setLastRenderDetail = */ true, m_lod[0]);
-				contentChanged = m_view.m_contentChanged;
-				m_view.m_contentChanged = false;
-				viewportChanged = m_view.m_viewportChanged;
-				xCenter = m_xCenter;
-				yCenter = m_yCenter;
-				scaleFactor = m_scaleFactor;
-				m_view.m_viewportChanged = false;
+		final boolean renderInBackground = m_lod[0].renderInBackground();
+		boolean upToDate = false;
+
+		if (renderInBackground) {
+			final BackgroundFrame pendingFrame = m_pendingFrame;
+
+			// Stop the frame in flight before waiting for the lock it holds.  A
+			// frame in flight may not show the dirty region either.  If nothing
+			// has changed, the frame in flight is left alone, and the lock it
+			// holds is not waited for.
+			if (m_view.m_contentChanged || m_view.m_viewportChanged || !m_view.m_dirtyRegion.isEmpty())
+				cancelBackgroundFrame();
+			else if ((pendingFrame != null) && !pendingFrame.isCancelled())
+				upToDate = true;
+		} else if (m_frontFrame != null) {
+			// Switching back from background rendering, "m_img" may hold an image
+			// rendered in the background rather than the one "m_grafx" draws on.
+			cancelBackgroundFrame();
+			m_frontFrame = null;
+			m_img = m_grafx.image;
+			m_view.m_contentChanged = true;
+		}
+
+		if (!upToDate) {
+			synchronized (m_lock) {
+				boolean regionChanged = !m_view.m_dirtyRegion.isEmpty();
+
+				// A frame stopped so that another thread could get the lock is
+				// rendered again, although nothing has changed.
+				final boolean frameCancelled = renderInBackground && (m_pendingFrame != null)
+				                               && m_pendingFrame.isCancelled();
+
+				if (regionChanged && !m_view.m_contentChanged && !m_view.m_viewportChanged
+				    && renderDirtyRegion(renderInBackground)) {
+					contentChanged = true;
+					regionChanged = false;
+				}
+
+				m_view.m_dirtyRegion.clear();
+
+				if (m_view.m_contentChanged || m_view.m_viewportChanged || regionChanged || frameCancelled) {
+					if (renderInBackground) {
+						// Keep the transform used for hit testing in line with the
+						// viewport, even though the frame is drawn later.
+						m_grafx.setTransform(m_xCenter, m_yCenter, m_scaleFactor);
+						startBackgroundFrame();
+					} else {
+						renderGraph(m_grafx,/* setLastRenderDetail = */ true, m_lod[0]);
+					}
+					contentChanged = m_view.m_contentChanged || regionChanged;
+					m_view.m_contentChanged = false;
+					viewportChanged = m_view.m_viewportChanged;
+					xCenter = m_xCenter;
+					yCenter = m_yCenter;
+					scaleFactor = m_scaleFactor;
+					m_view.m_viewportChanged = false;
+				}
 			}
 		}
 
 		// if canvas is visible, draw it (could be made invisible via DingCanvas api)
 		if (m_isVisible) {
-			g.drawImage(m_img, 0, 0, null);
+			if (renderInBackground)
+				drawFrontFrame((Graphics2D) g);
+			else
+				g.drawImage(m_img, 0, 0, null);
 		}
 
 		if ((m_selectionRect != null) && (this.isSelecting())) {
@@ -236,12 +320,39 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 	}
 
 
+	/**
+	 * If g is clipped to a part of this canvas, only the nodes and edges that
+	 * reach into that part are rendered, so that a large image can be printed
+	 * in parts without rendering all of it every time.
+	 */
 	@Override
 	public void print(Graphics g) {
+		final Rectangle bounds = new Rectangle(0, 0, getWidth(), getHeight());
+		final Rectangle clip = g.getClipBounds();
+		final Rectangle part = (clip == null) ? bounds : clip.intersection(bounds);
+
+		if (part.isEmpty())
+			return;
+
 		isPrinting = true;
-		renderGraph(new GraphGraphics(
-				new ImageImposter(g, getWidth(), getHeight()), /* debug = */ false, /* clear = */ false), 
-				/* setLastRenderDetail = */ false, m_view.m_printLOD);
+
+		if (part.equals(bounds)) {
+			renderGraph(new GraphGraphics(
+					new ImageImposter(g, getWidth(), getHeight()), /* debug = */ false, /* clear = */ false), 
+					/* setLastRenderDetail = */ false, m_view.m_printLOD);
+		} else {
+			final Graphics partGraphics = g.create();
+			partGraphics.translate(part.x, part.y);
+
+			try {
+				renderGraphPart(new GraphGraphics(new ImageImposter(partGraphics, part.width, part.height),
+				                                  /* debug = */ false, /* clear = */ false),
+				                m_view.m_printLOD, part.x, part.y);
+			} finally {
+				partGraphics.dispose();
+			}
+		}
+
 		isPrinting = false;
 	}
 
@@ -288,7 +399,9 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 	public void mouseMoved(MouseEvent e) {
 		if (addEdgeMode.addingEdge())
 			addEdgeMode.drawRubberBand(e);
-		else {
+		else if (!isRenderingInBackground()) {
+			// Looking up the tool tip would stop the frame rendered in the
+			// background every time the mouse moves.
 			final String tooltipText = getToolTipText(e.getPoint());
 			final Component[] components = this.getParent().getComponents();
 			for (Component comp : components) {
@@ -427,7 +540,6 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 		}
 
 		m_button1NodeDrag = true;
-		m_view.m_contentChanged = true;	
 		return chosenNodeSelected;
 	}
 	
@@ -475,6 +587,7 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 			final int chosenInx = m_view.getDEdgeView(chosenEdge).addHandlePoint(newHandlePoint);
 			
 			m_view.m_selectedAnchors.insert(((chosenEdge) << 6) | chosenInx);
+			m_view.m_contentChanged = true;
 		}
 
 		final boolean wasSelected = m_view.getDEdgeView(chosenEdge).isSelected();
@@ -504,7 +617,6 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 		}
 
 		m_button1NodeDrag = true;
-		m_view.m_contentChanged = true;
 		return chosenEdgeSelected;
 	}
 	
@@ -550,8 +662,6 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 		for (int i = 0; i < selectedNodes.length; i++)
 			((DNodeView) m_view.getDNodeView(selectedNodes[i])) .selectInternal();
 
-		if (selectedNodes.length > 0)
-			m_view.m_contentChanged = true;	
 		return selectedNodes;
 	}
 	
@@ -615,8 +725,6 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 		for (int i = 0; i < selectedEdges.length; i++)
 			((DEdgeView) m_view.getDEdgeView(selectedEdges[i])).selectInternal(false);
 
-		if (selectedEdges.length > 0)
-			m_view.m_contentChanged = true;
 		return selectedEdges;
 	}
 
@@ -641,9 +749,10 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 		return null;
 	}
 
-	// Puts [last drawn] edges intersecting onto stack; as RootGraph indices.
-	// Depends on the state of several member variables, such as m_hash.
-	// Clobbers m_stack and m_ptBuff.
+	// Puts edges intersecting onto stack; as RootGraph indices.
+	// Candidates are taken from the edge index of the view, and tested with
+	// the level of detail of the last render.
+	// Clobbers m_ptBuff.
 	// The rectangle extents are in component coordinate space.
 	// IMPORTANT: Code that calls this method should be holding m_lock.
 	final void computeEdgesIntersecting(final int xMini, final int yMini, final int xMaxi,
@@ -660,132 +769,86 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 
 		final double xMax = m_ptBuff[0];
 		final double yMax = m_ptBuff[1];
-		LongEnumerator edgeNodesEnum = m_hash.elements(); // Positive.
-		m_stack.empty();
-
-		final int edgeNodesCount = edgeNodesEnum.numRemaining();
-
-		for (int i = 0; i < edgeNodesCount; i++)
-			m_stack.push(edgeNodesEnum.nextLong());
-
-		m_hash.empty();
-		edgeNodesEnum = m_stack.elements();
 		stack.empty();
 
 		final CyNetwork graph = m_view.m_drawPersp;
+		final LongEnumerator edgeHits = m_view.getEdgePositions().queryOverlap((float) xMin,
+		                                                                      (float) yMin,
+		                                                                      (float) xMax,
+		                                                                      (float) yMax,
+		                                                                      null, 0, false);
+
+		while (edgeHits.numRemaining() > 0) {
+			final long edgeInx = edgeHits.nextLong();
+			final CyEdge edge = graph.getEdge(edgeInx);
+
+			if (edge == null)
+				continue;
+
+			final CyNode srcNodeObj = edge.getSource();
+			final CyNode trgNodeObj = edge.getTarget();
+
+			if (!m_view.m_spacial.exists(srcNodeObj.getSUID(), m_view.m_extentsBuff, 0)
+			    || !m_view.m_spacial.exists(trgNodeObj.getSUID(), m_extentsBuff2, 0))
+				continue; // Will happen if e.g. node was removed.
+
+			if ((m_lastRenderDetail & GraphRenderer.LOD_HIGH_DETAIL) == 0) {
+				// We won't need to look up arrows and their sizes.
+				final float srcNodeX = (m_view.m_extentsBuff[0] + m_view.m_extentsBuff[2]) / 2;
+				final float srcNodeY = (m_view.m_extentsBuff[1] + m_view.m_extentsBuff[3]) / 2;
+				final float trgNodeX = (m_extentsBuff2[0] + m_extentsBuff2[2]) / 2;
+				final float trgNodeY = (m_extentsBuff2[1] + m_extentsBuff2[3]) / 2;
+				m_line.setLine(srcNodeX, srcNodeY, trgNodeX, trgNodeY);
+
+				if (m_line.intersects(xMin, yMin, xMax - xMin, yMax - yMin))
+					stack.push(edgeInx);
+			} else { // Last render high detail.
+				final double segThicknessDiv2 = m_view.m_edgeDetails.getWidth(edge) / 2.0d;
+				final byte srcShape = m_view.m_nodeDetails.getShape(srcNodeObj);
+				final byte trgShape = m_view.m_nodeDetails.getShape(trgNodeObj);
+				final byte srcArrow;
+				final byte trgArrow;
+				final float srcArrowSize;
+				final float trgArrowSize;
+
+				if ((m_lastRenderDetail & GraphRenderer.LOD_EDGE_ARROWS) == 0) {
+					srcArrow = trgArrow = GraphGraphics.ARROW_NONE;
+					srcArrowSize = trgArrowSize = 0.0f;
+				} else {
+					srcArrow = m_view.m_edgeDetails.getSourceArrowShape(edge);
+					trgArrow = m_view.m_edgeDetails.getTargetArrowShape(edge);
+					srcArrowSize = ((srcArrow == GraphGraphics.ARROW_NONE) 
+					                ? 0.0f
+					                : m_view.m_edgeDetails.getSourceArrowSize(edge));
+					trgArrowSize = ((trgArrow == GraphGraphics.ARROW_NONE) 
+					                ? 0.0f
+					                : m_view.m_edgeDetails.getTargetArrowSize(edge));
+				}
 
-		if ((m_lastRenderDetail & GraphRenderer.LOD_HIGH_DETAIL) == 0) {
-			// We won't need to look up arrows and their sizes.
-			for (int i = 0; i < edgeNodesCount; i++) {
-				final long node = edgeNodesEnum.nextLong(); // Positive.
-				final CyNode nodeObj = graph.getNode(node);
-
-				if (!m_view.m_spacial.exists(node, m_view.m_extentsBuff, 0))
-					continue; // Will happen if e.g. node was removed. 
-
-				final float nodeX = (m_view.m_extentsBuff[0] + m_view.m_extentsBuff[2]) / 2;
-				final float nodeY = (m_view.m_extentsBuff[1] + m_view.m_extentsBuff[3]) / 2;
-				final Iterable<CyEdge> touchingEdges = graph.getAdjacentEdgeIterable(nodeObj, CyEdge.Type.ANY);
-
-				for ( CyEdge e : touchingEdges ) {      
-					final long edge = e.getSUID(); 
-					final long otherNode = node ^ e.getSource().getSUID().longValue() ^ e.getTarget().getSUID().longValue(); 
-
-					if (m_hash.get(otherNode) < 0) {
-						m_view.m_spacial.exists(otherNode, m_view.m_extentsBuff, 0);
-
-						final float otherNodeX = (m_view.m_extentsBuff[0] + m_view.m_extentsBuff[2]) / 2;
-						final float otherNodeY = (m_view.m_extentsBuff[1] + m_view.m_extentsBuff[3]) / 2;
-						m_line.setLine(nodeX, nodeY, otherNodeX, otherNodeY);
+				final EdgeAnchors anchors = (((m_lastRenderDetail
+				                              & GraphRenderer.LOD_EDGE_ANCHORS) == 0)
+				                             ? null : m_view.m_edgeDetails.getAnchors(edge));
 
-						if (m_line.intersects(xMin, yMin, xMax - xMin, yMax - yMin))
-							stack.push(edge);
-					}
-				}
+				final EdgeGeometryCache geometryCache = m_view.m_edgeDetails.getGeometryCache();
 
-				m_hash.put(node);
-			}
-		} else { // Last render high detail.
-			for (int i = 0; i < edgeNodesCount; i++) {
-				final long node = edgeNodesEnum.nextLong(); // Positive.
-				final CyNode nodeObj = graph.getNode(node);
-
-				if (!m_view.m_spacial.exists(node, m_view.m_extentsBuff, 0))
-					continue; /* Will happen if e.g. node was removed. */
-
-				final byte nodeShape = m_view.m_nodeDetails.getShape(nodeObj);
-				final Iterable<CyEdge> touchingEdges = graph.getAdjacentEdgeIterable(nodeObj, CyEdge.Type.ANY);
- 
-				for ( CyEdge edge : touchingEdges ) {      
-//					final int edge = e.getIndex(); // Positive.
-					final double segThicknessDiv2 = m_view.m_edgeDetails.getWidth(edge) / 2.0d;
-					final long otherNode = node ^ edge.getSource().getSUID().longValue() ^ edge.getTarget().getSUID().longValue();
-					final CyNode otherNodeObj = graph.getNode(otherNode);
-
-					if (m_hash.get(otherNode) < 0) {
-						m_view.m_spacial.exists(otherNode, m_extentsBuff2, 0);
-
-						final byte otherNodeShape = m_view.m_nodeDetails.getShape(otherNodeObj);
-						final byte srcShape;
-						final byte trgShape;
-						final float[] srcExtents;
-						final float[] trgExtents;
-
-						if (node == edge.getSource().getSUID().longValue()) {
-							srcShape = nodeShape;
-							trgShape = otherNodeShape;
-							srcExtents = m_view.m_extentsBuff;
-							trgExtents = m_extentsBuff2;
-						} else { // node == graph.edgeTarget(edge).
-							srcShape = otherNodeShape;
-							trgShape = nodeShape;
-							srcExtents = m_extentsBuff2;
-							trgExtents = m_view.m_extentsBuff;
-						}
+				if (!geometryCache.computeEdgeEndpoints(edgeInx, m_grafx, m_view.m_extentsBuff,
+				                                        srcShape, srcArrow, srcArrowSize, anchors,
+				                                        m_extentsBuff2, trgShape, trgArrow,
+				                                        trgArrowSize, m_floatBuff1,
+				                                        m_floatBuff2))
+					continue;
 
-						final byte srcArrow;
-						final byte trgArrow;
-						final float srcArrowSize;
-						final float trgArrowSize;
+				final Shape edgePath = geometryCache.getEdgePath(edgeInx, m_grafx);
 
-						if ((m_lastRenderDetail & GraphRenderer.LOD_EDGE_ARROWS) == 0) {
-							srcArrow = trgArrow = GraphGraphics.ARROW_NONE;
-							srcArrowSize = trgArrowSize = 0.0f;
-						} else {
-							srcArrow = m_view.m_edgeDetails.getSourceArrowShape(edge);
-							trgArrow = m_view.m_edgeDetails.getTargetArrowShape(edge);
-							srcArrowSize = ((srcArrow == GraphGraphics.ARROW_NONE) 
-							                ? 0.0f
-							                : m_view.m_edgeDetails.getSourceArrowSize(edge));
-							trgArrowSize = ((trgArrow == GraphGraphics.ARROW_NONE) 
-							                ? 0.0f
-							                : m_view.m_edgeDetails.getTargetArrowSize(edge));
-						}
+				if (edgePath == null)
+					continue;
 
-						final EdgeAnchors anchors = (((m_lastRenderDetail
-						                              & GraphRenderer.LOD_EDGE_ANCHORS) == 0)
-						                             ? null : m_view.m_edgeDetails.getAnchors(edge));
-
-						if (!GraphRenderer.computeEdgeEndpoints(m_grafx, srcExtents, srcShape,
-						                                        srcArrow, srcArrowSize, anchors,
-						                                        trgExtents, trgShape, trgArrow,
-						                                        trgArrowSize, m_floatBuff1,
-						                                        m_floatBuff2))
-							continue;
-
-						m_grafx.getEdgePath(srcArrow, srcArrowSize, trgArrow, trgArrowSize,
-						                    m_floatBuff1[0], m_floatBuff1[1], anchors,
-						                    m_floatBuff2[0], m_floatBuff2[1], m_path);
-						GraphRenderer.computeClosedPath(m_path.getPathIterator(null), m_path2);
-
-						if (m_path2.intersects(xMin - segThicknessDiv2, yMin - segThicknessDiv2,
-						                       (xMax - xMin) + (segThicknessDiv2 * 2),
-						                       (yMax - yMin) + (segThicknessDiv2 * 2)))
-							stack.push(edge.getSUID().longValue());
-					}
-				}
+				GraphRenderer.computeClosedPath(edgePath.getPathIterator(null), m_path2);
 
-				m_hash.put(node);
+				if (m_path2.intersects(xMin - segThicknessDiv2, yMin - segThicknessDiv2,
+				                       (xMax - xMin) + (segThicknessDiv2 * 2),
+				                       (yMax - yMin) + (segThicknessDiv2 * 2)))
+					stack.push(edgeInx);
 			}
 		}
 	}
@@ -799,6 +862,7 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 		else
 			factor = 0.9; // scroll down, zoom out
 
+		cancelBackgroundFrame();
 		synchronized (m_lock) {
 			m_scaleFactor = m_scaleFactor * factor;
 		}
@@ -881,15 +945,448 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 		final Color backgroundColor = new Color(m_backgroundColor.getRed(), m_backgroundColor.getGreen(),
 							m_backgroundColor.getBlue(), alpha);
 
+		cancelBackgroundFrame();
 		synchronized (m_lock) {
 			final int lastRenderDetail = GraphRenderer.renderGraph(m_view.m_drawPersp,
-									       m_view.m_spacial, lod,
+									       m_view.m_spacial,
+									       m_view.getEdgePositions(), lod,
 									       m_view.m_nodeDetails,
 									       m_view.m_edgeDetails, m_hash,
 									       graphics, backgroundColor, m_xCenter,
-									       m_yCenter, m_scaleFactor);
-			if (setLastRenderDetail)
+									       m_yCenter, m_scaleFactor,
+									       getTileExecutor(lod));
+			if (setLastRenderDetail) {
 				m_lastRenderDetail = lastRenderDetail;
+				m_frameNodeMargin = -1.0f;
+			}
+		}
+	}
+
+	/**
+	 * Renders the part of the canvas at (partX, partY) that is as large as the
+	 * image of graphics.  See GraphRenderer.renderGraph().  An image printed in
+	 * parts is expected to start with its top left part, which determines the
+	 * level of detail and the crossing edges of the whole image; the other
+	 * parts reuse them, until the bottom right part has been printed.
+	 */
+	private void renderGraphPart(GraphGraphics graphics, final GraphLOD lod, final int partX,
+	                             final int partY) {
+		final int alpha = (m_isOpaque) ? 255 : 0;
+		final Color backgroundColor = new Color(m_backgroundColor.getRed(), m_backgroundColor.getGreen(),
+							m_backgroundColor.getBlue(), alpha);
+		final int width = getWidth();
+		final int height = getHeight();
+
+		cancelBackgroundFrame();
+		synchronized (m_lock) {
+			if (((partX == 0) && (partY == 0)) || (m_printPlan == null)
+			    || !m_printPlan.isFor(m_xCenter, m_yCenter, m_scaleFactor, width, height))
+				m_printPlan = GraphRenderer.planImage(m_view.m_drawPersp, m_view.m_spacial,
+				                                      m_view.getEdgePositions(), lod, m_xCenter,
+				                                      m_yCenter, m_scaleFactor, width, height);
+
+			GraphRenderer.renderGraph(m_view.m_drawPersp, m_view.m_spacial, m_view.m_nodeDetails,
+			                          m_view.m_edgeDetails, m_hash, graphics, backgroundColor,
+			                          m_printPlan, partX, partY);
+
+			if (((partX + graphics.image.getWidth(null)) >= width)
+			    && ((partY + graphics.image.getHeight(null)) >= height))
+				m_printPlan = null;
+		}
+	}
+
+	/**
+	 * Renders the rectangles of m_view.m_dirtyRegion again, on top of the
+	 * last frame of the current viewport and at the level of detail of that
+	 * frame.  Each rectangle is rendered into an image of its own, with a
+	 * margin as wide as the borders, labels and custom graphics of nodes reach,
+	 * so that only the nodes and edges near it are rendered; only the
+	 * rectangle itself is then copied into the frame.  Must be called while
+	 * holding m_lock.
+	 * @return false if there is no complete frame of the current viewport, or
+	 *   if the region covers so much of it that rendering a whole frame is
+	 *   cheaper; nothing is rendered then.
+	 */
+	private boolean renderDirtyRegion(final boolean renderInBackground) {
+		final int width = m_grafx.image.getWidth(null);
+		final int height = m_grafx.image.getHeight(null);
+
+		if (renderInBackground) {
+			final BackgroundFrame front = m_frontFrame;
+
+			if ((m_pendingFrame != null) || (front == null) || (front.width != width)
+			    || (front.height != height) || (front.xCenter != m_xCenter)
+			    || (front.yCenter != m_yCenter) || (front.scaleFactor != m_scaleFactor))
+				return false;
+		} else if ((m_img != m_grafx.image) || !m_grafx.isInitialized()) {
+			return false;
+		}
+
+		if (!(m_img instanceof BufferedImage))
+			return false;
+
+		final DirtyRegion region = m_view.m_dirtyRegion;
+		final int count = region.size();
+		final float[] extents = new float[4];
+
+		// The margin of the nodes of the frame is measured once per frame, over
+		// its whole viewport.  The nodes in the region may have changed since,
+		// so their margin is measured each time.
+		if (m_frameNodeMargin < 0.0f) {
+			final double halfWidth = (0.5d * width) / m_scaleFactor;
+			final double halfHeight = (0.5d * height) / m_scaleFactor;
+			m_frameNodeMargin = GraphRenderer.computeNodeMargin(m_view.m_drawPersp, m_view.m_spacial,
+			                                                    m_view.m_nodeDetails, m_grafx,
+			                                                    (float) (m_xCenter - halfWidth),
+			                                                    (float) (m_yCenter - halfHeight),
+			                                                    (float) (m_xCenter + halfWidth),
+			                                                    (float) (m_yCenter + halfHeight),
+			                                                    m_scaleFactor, m_lastRenderDetail);
+		}
+
+		for (int i = 0; i < count; i++) {
+			region.get(i, extents, 0);
+			m_frameNodeMargin = Math.max(m_frameNodeMargin,
+			                             GraphRenderer.computeNodeMargin(m_view.m_drawPersp,
+			                                                             m_view.m_spacial,
+			                                                             m_view.m_nodeDetails, m_grafx,
+			                                                             extents[0], extents[1],
+			                                                             extents[2], extents[3],
+			                                                             m_scaleFactor,
+			                                                             m_lastRenderDetail));
+		}
+
+		// For every rectangle, the pixels to copy and the pixels to render.
+		final int[] rects = new int[count * 8];
+		long renderArea = 0;
+
+		for (int i = 0; i < count; i++) {
+			region.get(i, extents, 0);
+			toImageRect(extents, 0.0d, width, height, rects, i * 8);
+			toImageRect(extents, m_frameNodeMargin, width, height, rects, (i * 8) + 4);
+
+			if ((rects[i * 8] < rects[(i * 8) + 2]) && (rects[(i * 8) + 1] < rects[(i * 8) + 3]))
+				renderArea += ((long) (rects[(i * 8) + 6] - rects[(i * 8) + 4]))
+				              * (rects[(i * 8) + 7] - rects[(i * 8) + 5]);
+		}
+
+		if ((renderArea * 2) > (((long) width) * height))
+			return false;
+
+		final int alpha = (m_isOpaque) ? 255 : 0;
+		final Color backgroundColor = new Color(m_backgroundColor.getRed(), m_backgroundColor.getGreen(),
+							m_backgroundColor.getBlue(), alpha);
+		final GraphLOD lod = new FrameLOD(m_lod[0], m_lastRenderDetail);
+		final Graphics2D g = (Graphics2D) m_img.getGraphics();
+		g.setComposite(AlphaComposite.Src);
+
+		for (int i = 0; i < rects.length; i += 8) {
+			final int x0 = rects[i];
+			final int y0 = rects[i + 1];
+			final int x1 = rects[i + 2];
+			final int y1 = rects[i + 3];
+
+			if ((x0 >= x1) || (y0 >= y1)) // Not in the viewport.
+				continue;
+
+			final int renderX = rects[i + 4];
+			final int renderY = rects[i + 5];
+			final int renderWidth = rects[i + 6] - renderX;
+			final int renderHeight = rects[i + 7] - renderY;
+			final BufferedImage img = new BufferedImage(renderWidth, renderHeight,
+			                                            BufferedImage.TYPE_INT_ARGB);
+
+			// The center of img, such that its pixels line up with the frame's.
+			final double xCenter = m_xCenter
+			                       + ((renderX + (0.5d * renderWidth) - (0.5d * width)) / m_scaleFactor);
+			final double yCenter = m_yCenter
+			                       + ((renderY + (0.5d * renderHeight) - (0.5d * height)) / m_scaleFactor);
+			GraphRenderer.renderGraph(m_view.m_drawPersp, m_view.m_spacial,
+			                          m_view.getEdgePositions(), lod, m_view.m_nodeDetails,
+			                          m_view.m_edgeDetails, m_hash,
+			                          new GraphGraphics(img, false, true), backgroundColor,
+			                          xCenter, yCenter, m_scaleFactor, null);
+			g.drawImage(img, x0, y0, x1, y1, x0 - renderX, y0 - renderY, x1 - renderX,
+			            y1 - renderY, null);
+		}
+
+		g.dispose();
+
+		return true;
+	}
+
+	/*
+	 * Stores the pixels of the image that show extents, grown by margin in
+	 * node coordinates and two pixels for antialiasing, and clipped to the
+	 * image, into rect at offset as xMin, yMin, xMax and yMax (exclusive).
+	 */
+	private void toImageRect(final float[] extents, final double margin, final int width,
+	                         final int height, final int[] rect, final int offset) {
+		rect[offset] = Math.max(0, (int) Math.floor(((extents[0] - margin - m_xCenter) * m_scaleFactor)
+		                                            + (0.5d * width)) - 2);
+		rect[offset + 1] = Math.max(0, (int) Math.floor(((extents[1] - margin - m_yCenter) * m_scaleFactor)
+		                                                + (0.5d * height)) - 2);
+		rect[offset + 2] = Math.min(width, (int) Math.ceil(((extents[2] + margin - m_xCenter) * m_scaleFactor)
+		                                                   + (0.5d * width)) + 2);
+		rect[offset + 3] = Math.min(height, (int) Math.ceil(((extents[3] + margin - m_yCenter) * m_scaleFactor)
+		                                                    + (0.5d * height)) + 2);
+	}
+
+	/**
+	 * @return the executor on which the tiles of a frame are rendered, or null
+	 *   if "lod" renders frames on a single thread.  Must be called while
+	 *   holding m_lock.
+	 */
+	private ExecutorService getTileExecutor(final GraphLOD lod) {
+		final int threadCount = lod.renderThreadCount();
+
+		if (threadCount != m_tileThreadCount) {
+			if (m_tileExecutor != null)
+				m_tileExecutor.shutdown();
+
+			m_tileExecutor = (threadCount > 1) ? Executors.newFixedThreadPool(threadCount) : null;
+			m_tileThreadCount = threadCount;
+		}
+
+		return m_tileExecutor;
+	}
+
+	/**
+	 * Starts rendering the current viewport on the render worker.  The frame
+	 * replaces "m_img" once it is complete, unless another frame has been
+	 * started in the meantime.  Must be called on the EDT while holding m_lock.
+	 */
+	private void startBackgroundFrame() {
+		if (m_renderExecutor == null)
+			m_renderExecutor = Executors.newSingleThreadExecutor();
+
+		final int alpha = (m_isOpaque) ? 255 : 0;
+		final Color backgroundColor = new Color(m_backgroundColor.getRed(), m_backgroundColor.getGreen(),
+							m_backgroundColor.getBlue(), alpha);
+
+		final BackgroundFrame frame = new BackgroundFrame(m_grafx.image.getWidth(null),
+								  m_grafx.image.getHeight(null),
+								  m_xCenter, m_yCenter, m_scaleFactor,
+								  backgroundColor, m_lod[0]);
+		m_pendingFrame = frame;
+		m_renderExecutor.execute(frame);
+	}
+
+	/**
+	 * Cancels the frame being rendered in the background, if any, so that it
+	 * releases m_lock as soon as possible.  The frame is rendered again on the
+	 * next repaint.  Does nothing if the calling thread holds m_lock, as the
+	 * thread rendering the frame does.  Safe to call from any thread.
+	 */
+	void cancelBackgroundFrame() {
+		final BackgroundFrame frame = m_pendingFrame;
+		if ((frame != null) && !frame.isCancelled() && !Thread.holdsLock(m_lock)) {
+			frame.cancel();
+			repaint();
+		}
+	}
+
+	/**
+	 * @return true if a frame is being rendered in the background.
+	 */
+	boolean isRenderingInBackground() {
+		final BackgroundFrame frame = m_pendingFrame;
+		return (frame != null) && !frame.isCancelled();
+	}
+
+	/**
+	 * Draws the last complete frame.  If the viewport has changed since it was
+	 * rendered, the frame is scaled and moved to match the current viewport
+	 * until the new frame is ready.
+	 */
+	private void drawFrontFrame(final Graphics2D g) {
+		final BackgroundFrame front = m_frontFrame;
+		if (front == null) {
+			g.drawImage(m_img, 0, 0, null);
+			return;
+		}
+
+		final double halfWidth = 0.5d * getWidth();
+		final double halfHeight = 0.5d * getHeight();
+		final AffineTransform xform = new AffineTransform();
+		xform.translate(halfWidth + ((front.xCenter - m_xCenter) * m_scaleFactor),
+				halfHeight + ((front.yCenter - m_yCenter) * m_scaleFactor));
+		xform.scale(m_scaleFactor / front.scaleFactor, m_scaleFactor / front.scaleFactor);
+		xform.translate(-0.5d * front.width, -0.5d * front.height);
+
+		g.drawImage(m_img, xform, null);
+	}
+
+	/**
+	 * Called on the EDT once "frame" has been rendered into "img".
+	 */
+	private void showBackgroundFrame(final BackgroundFrame frame, final Image img, final int lastRenderDetail) {
+		if (frame != m_pendingFrame || frame.isCancelled() || m_view == null) {
+			m_backImg.set(img);
+			return;
+		}
+
+		m_pendingFrame = null;
+
+		// The previous front image is no longer drawn, so the worker may reuse it.
+		if (m_frontFrame != null)
+			m_backImg.set(m_img);
+
+		m_img = img;
+		m_frontFrame = frame;
+		m_lastRenderDetail = lastRenderDetail;
+		m_frameNodeMargin = -1.0f;
+		repaint();
+	}
+
+	/**
+	 * A frame rendered by the render worker.
+	 */
+	private final class BackgroundFrame implements Runnable {
+		final int width;
+		final int height;
+		final double xCenter;
+		final double yCenter;
+		final double scaleFactor;
+		private final Color backgroundColor;
+		private final GraphLOD lod;
+		private volatile boolean cancelled;
+		private volatile GraphGraphics grafx;
+
+		BackgroundFrame(final int width, final int height, final double xCenter, final double yCenter,
+				final double scaleFactor, final Color backgroundColor, final GraphLOD lod) {
+			this.width = width;
+			this.height = height;
+			this.xCenter = xCenter;
+			this.yCenter = yCenter;
+			this.scaleFactor = scaleFactor;
+			this.backgroundColor = backgroundColor;
+			this.lod = lod;
+		}
+
+		void cancel() {
+			cancelled = true;
+			final GraphGraphics g = grafx;
+			if (g != null)
+				g.cancel();
+		}
+
+		boolean isCancelled() {
+			return cancelled;
+		}
+
+		public void run() {
+			if (cancelled)
+				return;
+
+			Image img = m_backImg.getAndSet(null);
+			if (img == null || img.getWidth(null) != width || img.getHeight(null) != height)
+				img = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+
+			final GraphGraphics g = new GraphGraphics(img, false, true);
+			grafx = g;
+			if (cancelled)
+				g.cancel();
+
+			final int lastRenderDetail;
+			synchronized (m_lock) {
+				if (cancelled || m_view == null) {
+					m_backImg.set(img);
+					return;
+				}
+
+				lastRenderDetail = GraphRenderer.renderGraph(m_view.m_drawPersp,
+									     m_view.m_spacial,
+									     m_view.getEdgePositions(), lod,
+									     m_view.m_nodeDetails,
+									     m_view.m_edgeDetails, m_backgroundHash,
+									     g, backgroundColor, xCenter,
+									     yCenter, scaleFactor,
+									     getTileExecutor(lod));
+			}
+
+			final Image frameImg = img;
+			SwingUtilities.invokeLater(new Runnable() {
+				public void run() {
+					showBackgroundFrame(BackgroundFrame.this, frameImg, lastRenderDetail);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Renders at the level of detail of an earlier frame, whatever the number
+	 * of nodes and edges, so that a part of that frame rendered again matches
+	 * the rest of it.
+	 */
+	private static final class FrameLOD extends GraphLOD {
+		private final GraphLOD m_lod;
+		private final int m_lodBits;
+
+		FrameLOD(final GraphLOD lod, final int lodBits) {
+			m_lod = lod;
+			m_lodBits = lodBits;
+		}
+
+		@Override
+		public byte renderEdges(final int visibleNodeCount, final int totalNodeCount,
+		                        final int totalEdgeCount) {
+			return m_lod.renderEdges(visibleNodeCount, totalNodeCount, totalEdgeCount);
+		}
+
+		@Override
+		public boolean detail(final int renderNodeCount, final int renderEdgeCount) {
+			return (m_lodBits & GraphRenderer.LOD_HIGH_DETAIL) != 0;
+		}
+
+		@Override
+		public boolean densityMap(final int renderNodeCount, final int renderEdgeCount) {
+			return (m_lodBits & GraphRenderer.LOD_DENSITY_MAP) != 0;
+		}
+
+		@Override
+		public boolean nodeBorders(final int renderNodeCount, final int renderEdgeCount) {
+			return (m_lodBits & GraphRenderer.LOD_NODE_BORDERS) != 0;
+		}
+
+		@Override
+		public boolean nodeLabels(final int renderNodeCount, final int renderEdgeCount) {
+			return (m_lodBits & GraphRenderer.LOD_NODE_LABELS) != 0;
+		}
+
+		@Override
+		public boolean customGraphics(final int renderNodeCount, final int renderEdgeCount) {
+			return (m_lodBits & GraphRenderer.LOD_CUSTOM_GRAPHICS) != 0;
+		}
+
+		@Override
+		public boolean edgeArrows(final int renderNodeCount, final int renderEdgeCount) {
+			return (m_lodBits & GraphRenderer.LOD_EDGE_ARROWS) != 0;
+		}
+
+		@Override
+		public boolean dashedEdges(final int renderNodeCount, final int renderEdgeCount) {
+			return (m_lodBits & GraphRenderer.LOD_DASHED_EDGES) != 0;
+		}
+
+		@Override
+		public boolean edgeAnchors(final int renderNodeCount, final int renderEdgeCount) {
+			return (m_lodBits & GraphRenderer.LOD_EDGE_ANCHORS) != 0;
+		}
+
+		@Override
+		public boolean edgeLabels(final int renderNodeCount, final int renderEdgeCount) {
+			return (m_lodBits & GraphRenderer.LOD_EDGE_LABELS) != 0;
+		}
+
+		@Override
+		public boolean textAsShape(final int renderNodeCount, final int renderEdgeCount) {
+			return (m_lodBits & GraphRenderer.LOD_TEXT_AS_SHAPE) != 0;
+		}
+
+		@Override
+		public double getNestedNetworkImageScaleFactor() {
+			return m_lod.getNestedNetworkImageScaleFactor();
 		}
 	}
 
@@ -979,6 +1476,7 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 	}
 	
 	private void pan(double deltaX, double deltaY) {
+		cancelBackgroundFrame();
 		synchronized (m_lock) {
 			m_xCenter -= (deltaX / m_scaleFactor);
 			m_yCenter -= (deltaY / m_scaleFactor);
@@ -1022,6 +1520,7 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 			long chosenNodeSelected = 0;
 			long chosenEdgeSelected = 0;
 	
+			cancelBackgroundFrame();
 			synchronized (m_lock) {
 				if (m_view.m_nodeSelection) {
 					chosenNode = getChosenNode();
@@ -1045,9 +1544,6 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 				
 						unselectedNodes = getUnselectedNodes();
 						unselectedEdges = getUnselectedEdges();
-	
-					if ((unselectedNodes.length > 0) || (unselectedEdges.length > 0))
-						m_view.m_contentChanged = true;
 				}
 				
 	
@@ -1192,6 +1688,7 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 					long[] selectedNodes = null;
 					long[] selectedEdges = null;
 	
+					cancelBackgroundFrame();
 					synchronized (m_lock) {
 						if (m_view.m_nodeSelection || m_view.m_edgeSelection) {
 							if (m_view.m_nodeSelection)
@@ -1271,6 +1768,7 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 				if (m_undoable_edit == null) {
 					m_undoable_edit = new ViewChangeEdit(m_view, ViewChangeEdit.SavedObjs.SELECTED, "Move",m_undo);
 				}
+				cancelBackgroundFrame();
 				synchronized (m_lock) {
 					m_ptBuff[0] = m_lastXMousePos;
 					m_ptBuff[1] = m_lastYMousePos;
@@ -1381,6 +1879,7 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 			m_lastXMousePos = e.getX();
 			m_lastYMousePos = e.getY();
 	
+			cancelBackgroundFrame();
 			synchronized (m_lock) {
 				m_xCenter -= (deltaX / m_scaleFactor);
 				m_yCenter -= (deltaY / m_scaleFactor);
@@ -1398,6 +1897,7 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 			//System.out.println("MouseDragged ----> singleRightClick");
 			double deltaY = e.getY() - m_lastYMousePos;
 	
+			cancelBackgroundFrame();
 			synchronized (m_lock) {
 				m_lastXMousePos = e.getX();
 				m_lastYMousePos = e.getY();
@@ -1414,6 +1914,15 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 	}
 
 	public void dispose() {
+		cancelBackgroundFrame();
+		if (m_renderExecutor != null)
+			m_renderExecutor.shutdown();
+		synchronized (m_lock) {
+			if (m_tileExecutor != null)
+				m_tileExecutor.shutdown();
+			m_tileExecutor = null;
+			m_tileThreadCount = 0;
+		}
 		m_view = null;
 		m_undoable_edit = null;
 		addEdgeMode = null;
@@ -33,6 +33,8 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import org.cytoscape.graph.render.stateful.AdjacentEdgeCursor;
+import org.cytoscape.graph.render.stateful.AdjacentEdgeCursorProvider;
 import org.cytoscape.model.CyEdge;
 import org.cytoscape.model.CyIdentifiable;
 import org.cytoscape.model.CyNetwork;
@@ -47,7 +49,7 @@ import org.cytoscape.model.subnetwork.CySubNetwork;
 /**
  * This class is a CySubnetwork Implementation without tables
  */
-final class MinimalNetwork implements CySubNetwork {
+final class MinimalNetwork implements CySubNetwork, AdjacentEdgeCursorProvider {
 
 	// Unique ID for this
 	private final Long suid;
@@ -55,6 +57,10 @@ final class MinimalNetwork implements CySubNetwork {
 	private final Map<Long, NodePointer> nodePointers;
 	private final Map<Long, EdgePointer> edgePointers;
 
+	// Unboxed copy of nodePointers for the adjacent edge cursor, which the
+	// render threads read without locking.  Modified while holding this.
+	private final NodePointerIndex nodePointerIndex;
+
 	private final AtomicInteger nodeCount;
 	private final AtomicInteger edgeCount;
 
@@ -68,6 +74,7 @@ final class MinimalNetwork implements CySubNetwork {
 		firstNode = null;
 		nodePointers = new ConcurrentHashMap<Long, NodePointer>();
 		edgePointers = new ConcurrentHashMap<Long, EdgePointer>();
+		nodePointerIndex = new NodePointerIndex();
 	}
 
 	/**
@@ -258,12 +265,20 @@ final class MinimalNetwork implements CySubNetwork {
 
 		NodePointer n = new NodePointer(node);
 		nodePointers.put(node.getSUID(), n);
+		nodePointerIndex.put(n);
 		nodeCount.incrementAndGet();
 		firstNode = n.insert(firstNode);
 
 		return node;
 	}
 
+	private final NodePointer lookupNodePointer(final long nodeIndex) {
+		if (nodeIndex < 0)
+			return null;
+
+		return nodePointerIndex.get(nodeIndex);
+	}
+
 	private final boolean removeNodesInternal(final Collection<CyNode> nodes) {
 		if (nodes == null || nodes.isEmpty())
 			return false;
@@ -279,6 +294,7 @@ final class MinimalNetwork implements CySubNetwork {
 
 				final NodePointer node = (NodePointer) nodePointers.get(n.getSUID());
 				nodePointers.remove(n.getSUID());
+				nodePointerIndex.remove(node.index);
 				firstNode = node.remove(firstNode);
 
 				nodeCount.decrementAndGet();
@@ -494,6 +510,101 @@ final class MinimalNetwork implements CySubNetwork {
 		};
 	}
 
+	@Override
+	public AdjacentEdgeCursor createAdjacentEdgeCursor() {
+		return new EdgePointerCursor();
+	}
+
+	/**
+	 * Walks the out- and in-edge lists of a node directly, visiting the same
+	 * edges in the same order as edgesAdjacent() without allocating anything
+	 * per node.
+	 */
+	private final class EdgePointerCursor implements AdjacentEdgeCursor {
+		private NodePointer node;
+		private EdgePointer edge;
+		private EdgePointer nextEdge;
+		private boolean inList;
+		private boolean incoming;
+		private boolean outgoing;
+		private boolean undirected;
+
+		public boolean reset(final long nodeIndex, final CyEdge.Type edgeType) {
+			edge = null;
+			node = lookupNodePointer(nodeIndex);
+
+			if (node == null) {
+				nextEdge = null;
+				inList = true;
+				return false;
+			}
+
+			incoming = assessIncoming(edgeType);
+			outgoing = assessOutgoing(edgeType);
+			undirected = assessUndirected(edgeType);
+
+			if (outgoing || undirected) {
+				nextEdge = node.firstOutEdge;
+				inList = false;
+			} else {
+				nextEdge = node.firstInEdge;
+				inList = true;
+			}
+
+			return true;
+		}
+
+		public boolean next() {
+			if (!inList) {
+				while (nextEdge != null) {
+					final EdgePointer e = nextEdge;
+					nextEdge = e.nextOutEdge;
+
+					if ((outgoing && e.directed) || (undirected && !e.directed)) {
+						edge = e;
+						return true;
+					}
+				}
+
+				inList = true;
+				nextEdge = (incoming || undirected) ? node.firstInEdge : null;
+			}
+
+			while (nextEdge != null) {
+				final EdgePointer e = nextEdge;
+				nextEdge = e.nextInEdge;
+
+				// Self-edges have already been visited on the out-edge list.
+				if ((e.source == e.target) && ((outgoing && e.directed) || (undirected && !e.directed)))
+					continue;
+
+				if ((incoming && e.directed) || (undirected && !e.directed)) {
+					edge = e;
+					return true;
+				}
+			}
+
+			edge = null;
+			return false;
+		}
+
+		public CyEdge getEdge() {
+			return edge.cyEdge;
+		}
+
+		public long getEdgeSUID() {
+			return edge.index;
+		}
+
+		public long getSourceSUID() {
+			return edge.source.index;
+		}
+
+		public long getTargetSUID() {
+			return edge.target.index;
+		}
+	}
+
 	private final Iterator<EdgePointer> edgesConnecting(final NodePointer node0, final NodePointer node1, final CyEdge.Type et) {
 		assert (node0 != null);
 		assert (node1 != null);
@@ -627,6 +738,113 @@ final class MinimalNetwork implements CySubNetwork {
 	}
 
 
+	/**
+	 * An open addressing hash of node pointers, keyed by their final "index"
+	 * fields, that is read without locking.  Only one thread at a time may
+	 * modify it.  Removed pointers are replaced by REMOVED, so that probe
+	 * sequences stay intact.  The table is rebuilt once it is three quarters
+	 * full, and only published, through a volatile field, once it is filled.
+	 * A reader that races with a modification sees the entry either before or
+	 * after it, and never loops: every table keeps a quarter of its slots null.
+	 */
+	private static final class NodePointerIndex {
+		private static final Object REMOVED = new Object();
+		private static final int MIN_CAPACITY = 16;
+
+		private volatile Object[] table;
+
+		// Slots that are not null, including REMOVED ones.
+		private int usedSlots;
+		private int size;
+
+		NodePointerIndex() {
+			table = new Object[MIN_CAPACITY];
+		}
+
+		NodePointer get(final long index) {
+			final Object[] t = table;
+			final int mask = t.length - 1;
+
+			for (int i = hash(index) & mask; ; i = (i + 1) & mask) {
+				final Object o = t[i];
+				if (o == null)
+					return null;
+				if ((o != REMOVED) && (((NodePointer) o).index == index))
+					return (NodePointer) o;
+			}
+		}
+
+		/**
+		 * "np.index" must not be in this hash already.
+		 */
+		void put(final NodePointer np) {
+			if (((usedSlots + 1) * 4) > (table.length * 3))
+				rebuild();
+
+			final Object[] t = table;
+			final int mask = t.length - 1;
+
+			for (int i = hash(np.index) & mask; ; i = (i + 1) & mask) {
+				final Object o = t[i];
+				if ((o == null) || (o == REMOVED)) {
+					if (o == null)
+						usedSlots++;
+					t[i] = np;
+					size++;
+					return;
+				}
+			}
+		}
+
+		void remove(final long index) {
+			final Object[] t = table;
+			final int mask = t.length - 1;
+
+			for (int i = hash(index) & mask; ; i = (i + 1) & mask) {
+				final Object o = t[i];
+				if (o == null)
+					return;
+				if ((o != REMOVED) && (((NodePointer) o).index == index)) {
+					t[i] = REMOVED;
+					size--;
+					return;
+				}
+			}
+		}
+
+		/**
+		 * Copies the entries into a table that is at most half full, dropping
+		 * the REMOVED ones.
+		 */
+		private void rebuild() {
+			int capacity = MIN_CAPACITY;
+			while (capacity < ((size + 1) * 2))
+				capacity <<= 1;
+
+			final Object[] old = table;
+			final Object[] t = new Object[capacity];
+			final int mask = capacity - 1;
+
+			for (final Object o : old) {
+				if ((o == null) || (o == REMOVED))
+					continue;
+
+				int i = hash(((NodePointer) o).index) & mask;
+				while (t[i] != null)
+					i = (i + 1) & mask;
+				t[i] = o;
+			}
+
+			usedSlots = size;
+			table = t;
+		}
+
+		private static int hash(final long index) {
+			final int h = ((int) (index ^ (index >>> 32))) * 0x9E3779B9;
+			return h ^ (h >>> 16);
+		}
+	}
+
 	private final class NodePointer {
 		final CyNode cyNode;
 		final long index;
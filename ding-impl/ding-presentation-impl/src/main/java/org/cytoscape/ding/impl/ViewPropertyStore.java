@@ -0,0 +1,394 @@
+package org.cytoscape.ding.impl;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cytoscape.util.intr.IntStack;
+
+/**
+ * Dense storage of the per-view values kept by DNodeDetails and DEdgeDetails.
+ * Every registered view gets a small integer ordinal, and every property is a
+ * column indexed by that ordinal.  A column remembers which ordinals override
+ * the default; numbers are kept in primitive arrays and shared values such as
+ * paints, fonts and strokes are interned, so a column only holds an index per
+ * view.  Ordinals of removed views are reused.
+ * <p>
+ * Access to this class should be synchronized externally, like the details
+ * classes that own it.  Concurrent reads are safe as long as nothing writes.
+ */
+final class ViewPropertyStore {
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	private final List<Column> m_columns = new ArrayList<Column>();
+	private final IntStack m_freeOrdinals = new IntStack();
+	private int m_size; // One more than the largest ordinal ever handed out.
+	private int m_capacity = INITIAL_CAPACITY;
+
+	/**
+	 * Returns an ordinal for a new view.  No column overrides its values.
+	 */
+	int register() {
+		if (m_freeOrdinals.size() > 0)
+			return m_freeOrdinals.pop();
+
+		if (m_size == m_capacity) {
+			m_capacity = Math.max(INITIAL_CAPACITY, m_capacity + (m_capacity >> 1));
+
+			for (final Column column : m_columns)
+				column.ensureCapacity(m_capacity);
+		}
+
+		return m_size++;
+	}
+
+	/**
+	 * Drops all values of the view and makes its ordinal available again.
+	 * A negative ordinal is ignored.
+	 */
+	void unregister(final int ordinal) {
+		if (ordinal < 0)
+			return;
+
+		for (final Column column : m_columns)
+			column.unset(ordinal);
+
+		m_freeOrdinals.push(ordinal);
+	}
+
+	/**
+	 * Drops the values of all views.  Registered ordinals stay valid.
+	 */
+	void clear() {
+		for (final Column column : m_columns)
+			column.clear();
+	}
+
+	FloatColumn floatColumn() {
+		return add(new FloatColumn());
+	}
+
+	DoubleColumn doubleColumn() {
+		return add(new DoubleColumn());
+	}
+
+	IntColumn intColumn() {
+		return add(new IntColumn());
+	}
+
+	ByteColumn byteColumn() {
+		return add(new ByteColumn());
+	}
+
+	/**
+	 * A column for values that are mostly distinct per view, such as labels.
+	 */
+	<T> ObjectColumn<T> objectColumn() {
+		return add(new ObjectColumn<T>());
+	}
+
+	/**
+	 * A column for values that are shared by many views, such as paints.
+	 */
+	<T> InternedColumn<T> internedColumn() {
+		return add(new InternedColumn<T>());
+	}
+
+	private <C extends Column> C add(final C column) {
+		column.ensureCapacity(m_capacity);
+		m_columns.add(column);
+		return column;
+	}
+
+	/**
+	 * The values of one property.  Reading the value of an ordinal that isn't
+	 * set returns a meaningless value, so check isSet() first.
+	 */
+	static abstract class Column {
+		private long[] m_set = new long[0];
+		private int m_count;
+
+		/**
+		 * Returns true if the view overrides the default.  False for a
+		 * negative ordinal, which stands for a view that has been removed.
+		 */
+		final boolean isSet(final int ordinal) {
+			return ordinal >= 0 && (m_set[ordinal >>> 6] & (1L << ordinal)) != 0;
+		}
+
+		final void unset(final int ordinal) {
+			if (isSet(ordinal)) {
+				m_set[ordinal >>> 6] &= ~(1L << ordinal);
+				m_count--;
+				release(ordinal);
+			}
+		}
+
+		/**
+		 * Returns false if the value can't be stored for this ordinal.
+		 */
+		final boolean mark(final int ordinal) {
+			if (ordinal < 0)
+				return false;
+
+			if (!isSet(ordinal)) {
+				m_set[ordinal >>> 6] |= 1L << ordinal;
+				m_count++;
+			}
+
+			return true;
+		}
+
+		/**
+		 * The number of views that override the default.
+		 */
+		final int count() {
+			return m_count;
+		}
+
+		void clear() {
+			Arrays.fill(m_set, 0L);
+			m_count = 0;
+		}
+
+		void ensureCapacity(final int capacity) {
+			m_set = Arrays.copyOf(m_set, (capacity + 63) >>> 6);
+		}
+
+		/**
+		 * Drops references held for an ordinal that is no longer set.
+		 */
+		void release(final int ordinal) {
+		}
+	}
+
+	static final class FloatColumn extends Column {
+		private float[] m_values = new float[0];
+
+		float get(final int ordinal) {
+			return m_values[ordinal];
+		}
+
+		void set(final int ordinal, final float value) {
+			if (mark(ordinal))
+				m_values[ordinal] = value;
+		}
+
+		@Override
+		void ensureCapacity(final int capacity) {
+			super.ensureCapacity(capacity);
+			m_values = Arrays.copyOf(m_values, capacity);
+		}
+	}
+
+	static final class DoubleColumn extends Column {
+		private double[] m_values = new double[0];
+
+		double get(final int ordinal) {
+			return m_values[ordinal];
+		}
+
+		void set(final int ordinal, final double value) {
+			if (mark(ordinal))
+				m_values[ordinal] = value;
+		}
+
+		@Override
+		void ensureCapacity(final int capacity) {
+			super.ensureCapacity(capacity);
+			m_values = Arrays.copyOf(m_values, capacity);
+		}
+	}
+
+	static final class IntColumn extends Column {
+		private int[] m_values = new int[0];
+
+		int get(final int ordinal) {
+			return m_values[ordinal];
+		}
+
+		void set(final int ordinal, final int value) {
+			if (mark(ordinal))
+				m_values[ordinal] = value;
+		}
+
+		@Override
+		void ensureCapacity(final int capacity) {
+			super.ensureCapacity(capacity);
+			m_values = Arrays.copyOf(m_values, capacity);
+		}
+	}
+
+	static final class ByteColumn extends Column {
+		private byte[] m_values = new byte[0];
+
+		byte get(final int ordinal) {
+			return m_values[ordinal];
+		}
+
+		void set(final int ordinal, final byte value) {
+			if (mark(ordinal))
+				m_values[ordinal] = value;
+		}
+
+		@Override
+		void ensureCapacity(final int capacity) {
+			super.ensureCapacity(capacity);
+			m_values = Arrays.copyOf(m_values, capacity);
+		}
+	}
+
+	static final class ObjectColumn<T> extends Column {
+		private Object[] m_values = new Object[0];
+
+		/**
+		 * Returns null if the ordinal isn't set.
+		 */
+		@SuppressWarnings("unchecked")
+		T get(final int ordinal) {
+			return ordinal < 0 ? null : (T) m_values[ordinal];
+		}
+
+		/**
+		 * A null value unsets the ordinal.
+		 */
+		void set(final int ordinal, final T value) {
+			if (value == null)
+				unset(ordinal);
+			else if (mark(ordinal))
+				m_values[ordinal] = value;
+		}
+
+		@Override
+		void clear() {
+			super.clear();
+			Arrays.fill(m_values, null);
+		}
+
+		@Override
+		void ensureCapacity(final int capacity) {
+			super.ensureCapacity(capacity);
+			m_values = Arrays.copyOf(m_values, capacity);
+		}
+
+		@Override
+		void release(final int ordinal) {
+			m_values[ordinal] = null;
+		}
+	}
+
+	/**
+	 * Keeps every distinct value once, in a table, and an index into that
+	 * table per view.  Values that are no longer used are dropped from the
+	 * table once it gets much larger than the number of views that are set.
+	 */
+	static final class InternedColumn<T> extends Column {
+		private static final int MIN_COMPACT_SIZE = 256;
+
+		private int[] m_indices = new int[0];
+		private final List<T> m_table = new ArrayList<T>();
+		private final Map<T, Integer> m_tableIndices = new HashMap<T, Integer>();
+
+		/**
+		 * Returns null if the ordinal isn't set.
+		 */
+		T get(final int ordinal) {
+			return isSet(ordinal) ? m_table.get(m_indices[ordinal]) : null;
+		}
+
+		/**
+		 * A null value unsets the ordinal.
+		 */
+		void set(final int ordinal, final T value) {
+			if (value == null) {
+				unset(ordinal);
+			} else if (mark(ordinal)) {
+				Integer index = m_tableIndices.get(value);
+
+				if (index == null) {
+					if (m_table.size() >= Math.max(MIN_COMPACT_SIZE, 2 * count()))
+						compact(ordinal);
+
+					index = m_table.size();
+					m_table.add(value);
+					m_tableIndices.put(value, index);
+				}
+
+				m_indices[ordinal] = index;
+			}
+		}
+
+		/**
+		 * The number of distinct values in the table, including unused ones.
+		 */
+		int tableSize() {
+			return m_table.size();
+		}
+
+		@Override
+		void clear() {
+			super.clear();
+			m_table.clear();
+			m_tableIndices.clear();
+		}
+
+		@Override
+		void ensureCapacity(final int capacity) {
+			super.ensureCapacity(capacity);
+			m_indices = Arrays.copyOf(m_indices, capacity);
+		}
+
+		/**
+		 * Rebuilds the table from the values still in use, ignoring the one
+		 * at the ordinal that is about to be overwritten.
+		 */
+		private void compact(final int skippedOrdinal) {
+			final List<T> oldTable = new ArrayList<T>(m_table);
+			m_table.clear();
+			m_tableIndices.clear();
+
+			for (int i = 0; i < m_indices.length; i++) {
+				if (i == skippedOrdinal || !isSet(i))
+					continue;
+
+				final T value = oldTable.get(m_indices[i]);
+				Integer index = m_tableIndices.get(value);
+
+				if (index == null) {
+					index = m_table.size();
+					m_table.add(value);
+					m_tableIndices.put(value, index);
+				}
+
+				m_indices[i] = index;
+			}
+		}
+	}
+}
@@ -45,9 +45,10 @@ import java.awt.geom.AffineTransform;
 import java.awt.geom.Arc2D;
 import java.awt.geom.Ellipse2D;
 import java.awt.geom.GeneralPath;
-import java.awt.geom.Line2D;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.lang.ref.WeakReference;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -169,7 +170,12 @@ public final class GraphGraphics {
 	private static final Map<Float,Stroke> borderStrokes = new HashMap<Float,Stroke>();
 
 	static {		
-		nodeShapes = new HashMap<Byte,NodeShape>();
+		nodeShapes = createNodeShapes();
+		arrows = createArrows();
+	}
+
+	private static Map<Byte,NodeShape> createNodeShapes() {
+		final Map<Byte,NodeShape> nodeShapes = new HashMap<Byte,NodeShape>();
 
 		nodeShapes.put(SHAPE_RECTANGLE, new RectangleNodeShape()); 
 		nodeShapes.put(SHAPE_ELLIPSE, new EllipseNodeShape()); 
@@ -181,7 +187,11 @@ public final class GraphGraphics {
 		nodeShapes.put(SHAPE_TRIANGLE, new TriangleNodeShape()); 
 		nodeShapes.put(SHAPE_VEE, new VeeNodeShape());
 
-		arrows = new HashMap<Byte,Arrow>();
+		return nodeShapes;
+	}
+
+	private static Map<Byte,Arrow> createArrows() {
+		final Map<Byte,Arrow> arrows = new HashMap<Byte,Arrow>();
 
 		arrows.put(ARROW_NONE, new NoArrow() );
 		arrows.put(ARROW_DELTA, new DeltaArrow() );
@@ -191,10 +201,46 @@ public final class GraphGraphics {
 		arrows.put(ARROW_ARROWHEAD, new ArrowheadArrow() );
 		arrows.put(ARROW_HALF_TOP, new HalfTopArrow() );
 		arrows.put(ARROW_HALF_BOTTOM, new HalfBottomArrow() );
+
+		return arrows;
 	}
 
 	private static final float DEF_SHAPE_SIZE = 32;
 
+	/**
+	 * The maximum number of texts whose layout drawTextFull() keeps.
+	 */
+	public static final int TEXT_CACHE_SIZE = 10000;
+
+	// The number of stripes of the text caches; a few times the number of
+	// tiles that are usually rendered at once.
+	private static final int TEXT_CACHE_STRIPES = 16;
+
+	// Text outlines and bounds computed by drawTextFull().  They only depend
+	// on the font and the text, because the font render context of every
+	// instance is the same, so they are shared by all instances.
+	private static final StripedLRUCache<TextKey,TextShape> s_textShapes =
+		new StripedLRUCache<TextKey,TextShape>(TEXT_CACHE_SIZE, TEXT_CACHE_STRIPES);
+	private static final StripedLRUCache<TextKey,Rectangle2D> s_textBounds =
+		new StripedLRUCache<TextKey,Rectangle2D>(TEXT_CACHE_SIZE, TEXT_CACHE_STRIPES);
+
+	/**
+	 * The maximum number of bytes taken up by the pre-scaled images that
+	 * drawCustomGraphicImage() and drawCustomGraphicFull() keep.
+	 */
+	public static final long IMAGE_CACHE_BYTES = 64L * 1024L * 1024L;
+
+	// Custom graphic images scaled down to the resolution at which they are
+	// drawn, so that a frame copies them instead of scaling big bitmaps for
+	// every node.  Shared by all instances.
+	private static final LRUCache<ImageKey,BufferedImage> s_scaledImages =
+		new LRUCache<ImageKey,BufferedImage>(IMAGE_CACHE_BYTES,
+			new LRUCache.Weigher<BufferedImage>() {
+				public long weigh(final BufferedImage img) {
+					return 4L * img.getWidth() * img.getHeight();
+				}
+			});
+
 	/**
 	 * The image that was passed into the constructor.
 	 */
@@ -202,14 +248,16 @@ public final class GraphGraphics {
 	private final boolean m_debug;
 	private final AffineTransform m_currXform = new AffineTransform();
 	private final AffineTransform m_currNativeXform = new AffineTransform();
-	private final AffineTransform m_xformUtil = new AffineTransform();
 	private final Arc2D.Double m_arc2d = new Arc2D.Double();
 	private final Ellipse2D.Double m_ellp2d = new Ellipse2D.Double();
-	private final GeneralPath m_path2d = new GeneralPath();
 	private final GeneralPath m_path2dPrime = new GeneralPath();
-	private final Line2D.Double m_line2d = new Line2D.Double();
 	private final double[] m_ptsBuff = new double[4];
 
+	// Node shapes and arrows reuse the Shape objects they return, so each
+	// instance has its own, as instances may render on different threads.
+	private final Map<Byte,NodeShape> m_nodeShapes = createNodeShapes();
+	private final Map<Byte,Arrow> m_arrows = createArrows();
+
 	// package scoped for unit testing
 	final EdgeAnchors m_noAnchors = new EdgeAnchors() {
 		public final int numAnchors() { return 0; }
@@ -223,14 +271,27 @@ public final class GraphGraphics {
 	private boolean m_cleared;
 	private boolean m_clear;
 
+	// Pre-scaled images are only used when drawing into a bitmap; printing
+	// and vector export get the original images.
+	private final boolean m_scaleImages;
+	private int m_zoomBucket; // Set by clear(); see getZoomBucket().
+	private double m_zoomBucketScale;
+	private volatile boolean m_cancelled;
+
 	// This member variable only to be used from within defineCustomNodeShape().
 	private byte m_lastCustomShapeType = s_last_shape;
 
 	// This is only used by computeCubicPolyEdgePath().
 	private final float[] m_floatBuff = new float[2];
 
-	// This member variable shall only be used from within drawTextFull().
-	private char[] m_charBuff = new char[20];
+	// Receives the geometry of the edges that drawEdgeFull() draws.
+	private final PreparedEdge m_preparedEdge = new PreparedEdge();
+
+	// The key with which drawTextFull() looks up the text caches.  Like the
+	// other buffers, it relies on an instance being used by one thread at a
+	// time.
+	private final TextKey m_textKey = new TextKey();
+
 	private final FontRenderContext m_fontRenderContextFull = new FontRenderContext(null,true,true);
 
 	/**
@@ -271,6 +332,7 @@ public final class GraphGraphics {
 		m_clear = clear;
 		m_path2dPrime.setWindingRule(GeneralPath.WIND_EVEN_ODD);
 		m_cleared = false;
+		m_scaleImages = (image instanceof BufferedImage) || (image instanceof VolatileImage);
 	}
 
 	/**
@@ -379,6 +441,8 @@ public final class GraphGraphics {
 		setTransform(xCenter, yCenter, scaleFactor);
 		m_g2d.transform(m_currXform);
 		m_currNativeXform.setTransform(m_g2d.getTransform());
+		m_zoomBucket = getZoomBucket(Math.sqrt(Math.abs(m_currNativeXform.getDeterminant())));
+		m_zoomBucketScale = Math.pow(2.0d, m_zoomBucket / 2.0d);
 		m_cleared = true;
 	}
 
@@ -489,11 +553,12 @@ public final class GraphGraphics {
 		m_currXform.transform(m_ptsBuff, 0, m_ptsBuff, 0, 2);
 
 		// Here, double values outside of the range of ints will be cast to
-		// the nearest int without overflow.
-		final int xNot = (int) m_ptsBuff[0];
-		final int yNot = (int) m_ptsBuff[1];
-		final int xOne = (int) m_ptsBuff[2];
-		final int yOne = (int) m_ptsBuff[3];
+		// the nearest int without overflow.  Rounding down rather than towards
+		// zero keeps pixels in place when the image is rendered in tiles.
+		final int xNot = (int) Math.floor(m_ptsBuff[0]);
+		final int yNot = (int) Math.floor(m_ptsBuff[1]);
+		final int xOne = (int) Math.floor(m_ptsBuff[2]);
+		final int yOne = (int) Math.floor(m_ptsBuff[3]);
 		m_gMinimal.setColor(fillColor);
 		m_gMinimal.fillRect(xNot, yNot, Math.max(1, xOne - xNot), // Overflow will
 		                                Math.max(1, yOne - yNot)); // be problem.
@@ -882,9 +947,16 @@ public final class GraphGraphics {
 		}
 	}
 
+	private final NodeShape getNodeShape(final byte nodeShape) {
+		final NodeShape ns = m_nodeShapes.get(nodeShape);
+
+		// Custom node shapes are only kept in the shared map.
+		return (ns != null) ? ns : nodeShapes.get(nodeShape);
+	}
+
 	private final Shape getShape(final byte nodeShape, final float xMin,
 			final float yMin, final float xMax, final float yMax) {
-		NodeShape ns = nodeShapes.get(nodeShape);
+		NodeShape ns = getNodeShape(nodeShape);
 		if ( ns != null )
 			return ns.getShape(xMin,yMin,xMax,yMax);
 		else
@@ -975,10 +1047,10 @@ public final class GraphGraphics {
 		m_ptsBuff[3] = y1;
 		m_currXform.transform(m_ptsBuff, 0, m_ptsBuff, 0, 2);
 
-		final int xNot = (int) m_ptsBuff[0];
-		final int yNot = (int) m_ptsBuff[1];
-		final int xOne = (int) m_ptsBuff[2];
-		final int yOne = (int) m_ptsBuff[3];
+		final int xNot = (int) Math.floor(m_ptsBuff[0]);
+		final int yNot = (int) Math.floor(m_ptsBuff[1]);
+		final int xOne = (int) Math.floor(m_ptsBuff[2]);
+		final int yOne = (int) Math.floor(m_ptsBuff[3]);
 		m_gMinimal.setColor(edgeColor);
 		m_gMinimal.drawLine(xNot, yNot, xOne, yOne);
 	}
@@ -1115,8 +1187,6 @@ public final class GraphGraphics {
 			final Paint arrow1Paint, final float x0, final float y0,
 			EdgeAnchors anchors, final float x1, final float y1,
 			final float edgeThickness, final Stroke edgeStroke, final Paint edgePaint) {
-		final double curveFactor = CURVE_ELLIPTICAL;
-
 		if (anchors == null) {
 			anchors = m_noAnchors;
 		}
@@ -1126,37 +1196,152 @@ public final class GraphGraphics {
 					edgeStroke, edgeThickness, anchors);
 		}
 
+		if (prepareEdge(arrow0Type, arrow0Size, arrow1Type, arrow1Size, x0, y0,
+				anchors, x1, y1, m_preparedEdge)) {
+			drawEdgeFull(m_preparedEdge, arrow0Paint, arrow1Paint,
+					edgeThickness, edgeStroke, edgePaint);
+		}
+	}
+
+	/**
+	 * Draws an edge whose geometry was computed by prepareEdge(), exactly
+	 * like the drawEdgeFull() that takes the arguments of that prepareEdge()
+	 * call does.
+	 * 
+	 * @param edge
+	 *            the geometry of the edge, which is not modified.
+	 * @param arrow0Paint
+	 *            the paint to use when drawing the arrow at point (x0, y0).
+	 * @param arrow1Paint
+	 *            the paint to use when drawing the arrow at point (x1, y1).
+	 * @param edgeThickness
+	 *            the thickness of the edge segment.
+	 * @param edgeStroke
+	 *            the Stroke to use when drawing the edge segment.
+	 * @param edgePaint
+	 *            the paint to use when drawing the edge segment.
+	 * @exception IllegalArgumentException
+	 *                if edgeThickness is less than zero, or larger than the
+	 *                size of an arrow of the edge.
+	 */
+	public final void drawEdgeFull(final PreparedEdge edge,
+			final Paint arrow0Paint, final Paint arrow1Paint,
+			final float edgeThickness, final Stroke edgeStroke, final Paint edgePaint) {
+		if (m_debug) {
+			edgeFullDebug(edge.arrow0Type, edge.arrow0Size, edge.arrow1Type,
+					edge.arrow1Size, edgeStroke, edgeThickness, m_noAnchors);
+		}
+
+		if (edge.segment != null) {
+			m_g2d.setStroke(edgeStroke);
+			m_g2d.setPaint(edgePaint);
+			m_g2d.draw(edge.segment);
+		}
+
+		if (!edge.hasArrows) {
+			return;
+		}
+
+		// Only draw the edge caps if the stroke is a BasicStroke, which is to
+		// say, don't worry about how fancy strokes intersect the arrow. 
+		if (edge.hasCaps && (edgeStroke instanceof BasicStroke)) {
+			// The paint is already set to edge paint.
+			final Shape arrow0Cap = computeUntransformedArrowCap(edge.arrow0Type,
+					((double) edge.arrow0Size) / edgeThickness);
+
+			if (arrow0Cap != null) {
+				m_g2d.transform(edge.cap0Xform);
+				m_g2d.scale(edgeThickness, edgeThickness);
+				m_g2d.fill(arrow0Cap);
+				m_g2d.setTransform(m_currNativeXform);
+			}
+
+			final Shape arrow1Cap = computeUntransformedArrowCap(edge.arrow1Type,
+					((double) edge.arrow1Size) / edgeThickness);
+
+			if (arrow1Cap != null) {
+				m_g2d.transform(edge.cap1Xform);
+				m_g2d.scale(edgeThickness, edgeThickness);
+				m_g2d.fill(arrow1Cap);
+				m_g2d.setTransform(m_currNativeXform);
+			}
+		}
+
+		final Shape arrow0 = computeUntransformedArrow(edge.arrow0Type);
+
+		if (arrow0 != null) {
+			m_g2d.transform(edge.arrow0Xform);
+			m_g2d.scale(edge.arrow0Size, edge.arrow0Size);
+			m_g2d.setPaint(arrow0Paint);
+			m_g2d.fill(arrow0);
+			m_g2d.setTransform(m_currNativeXform);
+		}
+
+		final Shape arrow1 = computeUntransformedArrow(edge.arrow1Type);
+
+		if (arrow1 != null) {
+			m_g2d.transform(edge.arrow1Xform);
+			m_g2d.scale(edge.arrow1Size, edge.arrow1Size);
+			m_g2d.setPaint(arrow1Paint);
+			m_g2d.fill(arrow1);
+			m_g2d.setTransform(m_currNativeXform);
+		}
+	}
+
+	/**
+	 * Computes what drawEdgeFull() draws for an edge, so that it can be drawn
+	 * again with drawEdgeFull(PreparedEdge, ...) without being recomputed.
+	 * The arguments are those of drawEdgeFull(), and are subject to the same
+	 * criteria; the paints, thickness and stroke of the edge are given when
+	 * it is drawn.  This method may be called from any thread that has this
+	 * instance to itself.
+	 * 
+	 * @param rtrn
+	 *            receives the geometry of the edge.
+	 * @return true if and only if anything is drawn for the edge; if false
+	 *         is returned, rtrn must not be drawn.
+	 */
+	public final boolean prepareEdge(final byte arrow0Type,
+			final float arrow0Size, final byte arrow1Type,
+			final float arrow1Size, final float x0, final float y0,
+			EdgeAnchors anchors, final float x1, final float y1,
+			final PreparedEdge rtrn) {
+		final double curveFactor = CURVE_ELLIPTICAL;
+
+		if (anchors == null) {
+			anchors = m_noAnchors;
+		}
+
+		rtrn.arrow0Type = arrow0Type;
+		rtrn.arrow0Size = arrow0Size;
+		rtrn.arrow1Type = arrow1Type;
+		rtrn.arrow1Size = arrow1Size;
+
 		if (!computeCubicPolyEdgePath(arrow0Type,
 				(arrow0Type == ARROW_NONE) ? 0.0f : arrow0Size, arrow1Type,
 				(arrow1Type == ARROW_NONE) ? 0.0f : arrow1Size, x0, y0,
 				anchors, x1, y1, curveFactor)) {
 			// After filtering duplicate start and end points, there are less
 			// than 3 total.
-			if (m_edgePtsCount == 2) { // Draw an ordinary edge.
-				drawSimpleEdgeFull(arrow0Type, arrow0Size, arrow0Paint,
-						arrow1Type, arrow1Size, arrow1Paint,
-						(float) m_edgePtsBuff[0], (float) m_edgePtsBuff[1],
-						(float) m_edgePtsBuff[2], (float) m_edgePtsBuff[3],
-						edgeThickness, edgeStroke, edgePaint );
+			if (m_edgePtsCount == 2) { // An ordinary edge.
+				return prepareSimpleEdge(arrow0Type, arrow0Size, arrow1Type,
+						arrow1Size, (float) m_edgePtsBuff[0],
+						(float) m_edgePtsBuff[1], (float) m_edgePtsBuff[2],
+						(float) m_edgePtsBuff[3], rtrn);
 			}
 
-			return;
+			return false;
 		}
 
-		// Render the edge polypath.
-		final boolean simpleSegment = arrow0Type == ARROW_NONE && arrow1Type == ARROW_NONE;
-		m_g2d.setStroke(edgeStroke);
-
-		// Set m_path2d to contain the cubic curves computed in
-		// m_edgePtsBuff.
-		m_path2d.reset();
-		m_path2d.moveTo((float) m_edgePtsBuff[2], (float) m_edgePtsBuff[3]);
+		// The cubic curves computed in m_edgePtsBuff.
+		rtrn.curve.reset();
+		rtrn.curve.moveTo((float) m_edgePtsBuff[2], (float) m_edgePtsBuff[3]);
 
 		int inx = 4;
 		final int count = ((m_edgePtsCount - 1) * 6) - 2;
 
 		while (inx < count) {
-			m_path2d.curveTo((float) m_edgePtsBuff[inx++],
+			rtrn.curve.curveTo((float) m_edgePtsBuff[inx++],
 					(float) m_edgePtsBuff[inx++],
 					(float) m_edgePtsBuff[inx++],
 					(float) m_edgePtsBuff[inx++],
@@ -1164,11 +1349,11 @@ public final class GraphGraphics {
 					(float) m_edgePtsBuff[inx++]);
 		}
 
-		m_g2d.setPaint(edgePaint);
-		m_g2d.draw(m_path2d);
+		rtrn.segment = rtrn.curve;
+		rtrn.hasArrows = (arrow0Type != ARROW_NONE) || (arrow1Type != ARROW_NONE);
 
-		if (simpleSegment) {
-			return;
+		if (!rtrn.hasArrows) {
+			return true;
 		}
 
 		// We need to figure out the phase at the end of the cubic poly-path
@@ -1193,69 +1378,24 @@ public final class GraphGraphics {
 		final double cosTheta1 = dx1 / len1;
 		final double sinTheta1 = dy1 / len1;
 
-		// Only draw the edge caps if the stroke is a BasicStroke, which is to
-		// say, don't worry about how fancy strokes intersect the arrow. 
-		if ( edgeStroke instanceof BasicStroke ) {
-
-			// Render arrow cap at origin of poly path.
-			final Shape arrow0Cap = computeUntransformedArrowCap(arrow0Type,
-					((double) arrow0Size) / edgeThickness);
-
-			if (arrow0Cap != null) {
-				m_xformUtil.setTransform(cosTheta0, sinTheta0, -sinTheta0,
-						cosTheta0, m_edgePtsBuff[2], m_edgePtsBuff[3]);
-				m_g2d.transform(m_xformUtil);
-				m_g2d.scale(edgeThickness, edgeThickness);
-				// The paint is already set to edge paint.
-				m_g2d.fill(arrow0Cap);
-				m_g2d.setTransform(m_currNativeXform);
-			}
-	
-			// Render arrow cap at end of poly path.
-			final Shape arrow1Cap = computeUntransformedArrowCap(arrow1Type,
-					((double) arrow1Size) / edgeThickness);
-	
-			if (arrow1Cap != null) {
-				m_xformUtil.setTransform(cosTheta1, sinTheta1, -sinTheta1,
-						cosTheta1,
-						m_edgePtsBuff[((m_edgePtsCount - 1) * 6) - 4],
-						m_edgePtsBuff[((m_edgePtsCount - 1) * 6) - 3]);
-				m_g2d.transform(m_xformUtil);
-				m_g2d.scale(edgeThickness, edgeThickness);
-				// The paint is already set to edge paint.
-				m_g2d.fill(arrow1Cap);
-				m_g2d.setTransform(m_currNativeXform);
-			}
-		}
-
-		// Render arrow at origin of poly path.
-		final Shape arrow0 = computeUntransformedArrow(arrow0Type);
-
-		if (arrow0 != null) {
-			m_xformUtil.setTransform(cosTheta0, sinTheta0, -sinTheta0,
-					cosTheta0, m_edgePtsBuff[0], m_edgePtsBuff[1]);
-			m_g2d.transform(m_xformUtil);
-			m_g2d.scale(arrow0Size, arrow0Size);
-			m_g2d.setPaint(arrow0Paint);
-			m_g2d.fill(arrow0);
-			m_g2d.setTransform(m_currNativeXform);
-		}
-
-		// Render arrow at end of poly path.
-		final Shape arrow1 = computeUntransformedArrow(arrow1Type);
+		// The arrow caps go at the ends of the poly path.
+		rtrn.hasCaps = true;
+		rtrn.cap0Xform.setTransform(cosTheta0, sinTheta0, -sinTheta0,
+				cosTheta0, m_edgePtsBuff[2], m_edgePtsBuff[3]);
+		rtrn.cap1Xform.setTransform(cosTheta1, sinTheta1, -sinTheta1,
+				cosTheta1,
+				m_edgePtsBuff[((m_edgePtsCount - 1) * 6) - 4],
+				m_edgePtsBuff[((m_edgePtsCount - 1) * 6) - 3]);
 
-		if (arrow1 != null) {
-				
-			m_xformUtil.setTransform(cosTheta1, sinTheta1, -sinTheta1,
+		// The arrows go at the origin and at the end of the poly path.
+		rtrn.arrow0Xform.setTransform(cosTheta0, sinTheta0, -sinTheta0,
+				cosTheta0, m_edgePtsBuff[0], m_edgePtsBuff[1]);
+		rtrn.arrow1Xform.setTransform(cosTheta1, sinTheta1, -sinTheta1,
 				cosTheta1,
 				m_edgePtsBuff[((m_edgePtsCount - 1) * 6) - 2],
 				m_edgePtsBuff[((m_edgePtsCount - 1) * 6) - 1]);
-			m_g2d.transform(m_xformUtil);
-			m_g2d.scale(arrow1Size, arrow1Size);
-			m_g2d.setPaint(arrow1Paint);
-			m_g2d.fill(arrow1);
-			m_g2d.setTransform(m_currNativeXform);
-		}
+
+		return true;
 	}
 
 	@SuppressWarnings("fallthrough")
@@ -1292,13 +1432,10 @@ public final class GraphGraphics {
 		}
 	}
 
-	private final void drawSimpleEdgeFull(final byte arrow0Type,
-			final float arrow0Size, final Paint arrow0Paint,
-			final byte arrow1Type, final float arrow1Size,
-			final Paint arrow1Paint, final float x0, final float y0,
-			final float x1, final float y1, final float edgeThickness,
-			final Stroke edgeStroke,
-			final Paint edgePaint) {
+	private final boolean prepareSimpleEdge(final byte arrow0Type,
+			final float arrow0Size, final byte arrow1Type, final float arrow1Size,
+			final float x0, final float y0, final float x1, final float y1,
+			final PreparedEdge rtrn) {
 		final double len = Math.sqrt(((((double) x1) - x0) * (((double) x1) - x0))
 		                           + ((((double) y1) - y0) * (((double) y1) - y0)));
 
@@ -1306,15 +1443,14 @@ public final class GraphGraphics {
 		// all rendering. This check is now redundant because the code that
 		// calls us makes this check automatically.
 		if (len == 0.0d) 
-			return;
+			return false;
 
 		final double x0Adj;
 		final double y0Adj;
 		final double x1Adj;
 		final double y1Adj;
-		final byte simpleSegment;
 
-		// Render the line segment if necessary.
+		// The line segment, if necessary.
 
 		final double t0 = (getT(arrow0Type) * arrow0Size) / len;
 		x0Adj = (t0 * (((double) x1) - x0)) + x0;
@@ -1324,31 +1460,28 @@ public final class GraphGraphics {
 		x1Adj = (t1 * (((double) x0) - x1)) + x1;
 		y1Adj = (t1 * (((double) y0) - y1)) + y1;
 
+		rtrn.hasArrows = (arrow0Type != ARROW_NONE) || (arrow1Type != ARROW_NONE);
+
 		// If the vector point0->point1 is pointing opposite to
 		// adj0->adj1, then don't render the line segment.
 		// Dot product determines this.
 		if ((((((double) x1) - x0) * (x1Adj - x0Adj)) + 
 		     ((((double) y1) - y0) * (y1Adj - y0Adj))) > 0.0d) {
-				                
-			if (arrow0Type == ARROW_NONE && arrow1Type == ARROW_NONE) {
-				simpleSegment = 1; 
-			} else { 
-				simpleSegment = -1; 
-			}
+			rtrn.line.setLine(x0Adj, y0Adj, x1Adj, y1Adj);
+			rtrn.segment = rtrn.line;
 
-			m_g2d.setStroke(edgeStroke);
-			m_line2d.setLine(x0Adj, y0Adj, x1Adj, y1Adj);
-			m_g2d.setPaint(edgePaint);
-			m_g2d.draw(m_line2d);
-
-			if ( simpleSegment > 0 )
-				return;
+			if (!rtrn.hasArrows)
+				return true;
 
+			rtrn.hasCaps = true;
 		} else {
-			simpleSegment = 0; // Did not render segment.
-		}
+			// Without a segment, only arrows are drawn, and they need no caps.
+			if (!rtrn.hasArrows)
+				return false;
 
-		// End rendering of line segment.
+			rtrn.segment = null;
+			rtrn.hasCaps = false;
+		}
 
 		// Using x0, x1, y0, and y1 instead of the "adjusted" endpoints is
 		// accurate enough in computation of cosine and sine because the
@@ -1357,62 +1490,17 @@ public final class GraphGraphics {
 		// points are double.
 		final double cosTheta = (((double) x0) - x1) / len;
 		final double sinTheta = (((double) y0) - y1) / len;
-	
-		if ( simpleSegment < 0 && edgeStroke instanceof BasicStroke ) { 
-			// Arrow cap at point 0.
-			final Shape arrow0Cap = computeUntransformedArrowCap(arrow0Type,
-					((double) arrow0Size) / edgeThickness);
-
-			if (arrow0Cap != null) {
-				m_xformUtil.setTransform(cosTheta, sinTheta, -sinTheta,
-						cosTheta, x0Adj, y0Adj);
-				m_g2d.transform(m_xformUtil);
-				m_g2d.scale(edgeThickness, edgeThickness);
-				// The paint is already set to edge paint.
-				m_g2d.fill(arrow0Cap);
-				m_g2d.setTransform(m_currNativeXform);
-			}
-
-			// Arrow cap at point 1.
-			final Shape arrow1Cap = computeUntransformedArrowCap(arrow1Type,
-					((double) arrow1Size) / edgeThickness);
-
-			if (arrow1Cap != null) {
-				m_xformUtil.setTransform(-cosTheta, -sinTheta, sinTheta,
-						-cosTheta, x1Adj, y1Adj);
-				m_g2d.transform(m_xformUtil);
-				m_g2d.scale(edgeThickness, edgeThickness);
-				// The paint is already set to edge paint.
-				m_g2d.fill(arrow1Cap);
-				m_g2d.setTransform(m_currNativeXform);
-			}
-		}
-
-		// Render arrow at point 0.
-		final Shape arrow0 = computeUntransformedArrow(arrow0Type);
-
-		if (arrow0 != null) {
-			m_xformUtil.setTransform(cosTheta, sinTheta, -sinTheta,
-					cosTheta, x0, y0);
-			m_g2d.transform(m_xformUtil);
-			m_g2d.scale(arrow0Size, arrow0Size);
-			m_g2d.setPaint(arrow0Paint);
-			m_g2d.fill(arrow0);
-			m_g2d.setTransform(m_currNativeXform);
-		}
 
-		// Render arrow at point 1.
-		final Shape arrow1 = computeUntransformedArrow(arrow1Type);
+		rtrn.cap0Xform.setTransform(cosTheta, sinTheta, -sinTheta, cosTheta,
+				x0Adj, y0Adj);
+		rtrn.cap1Xform.setTransform(-cosTheta, -sinTheta, sinTheta, -cosTheta,
+				x1Adj, y1Adj);
+		rtrn.arrow0Xform.setTransform(cosTheta, sinTheta, -sinTheta, cosTheta,
+				x0, y0);
+		rtrn.arrow1Xform.setTransform(-cosTheta, -sinTheta, sinTheta, -cosTheta,
+				x1, y1);
 
-		if (arrow1 != null) {
-			m_xformUtil.setTransform(-cosTheta, -sinTheta, sinTheta,
-					-cosTheta, x1, y1);
-			m_g2d.transform(m_xformUtil);
-			m_g2d.scale(arrow1Size, arrow1Size);
-			m_g2d.setPaint(arrow1Paint);
-			m_g2d.fill(arrow1);
-			m_g2d.setTransform(m_currNativeXform);
-		}
+		return true;
 	}
 
 	/**
@@ -1527,7 +1615,7 @@ public final class GraphGraphics {
 	 * specified. 
 	 */
 	private final Shape computeUntransformedArrow(final byte arrowType) {
-		Arrow a = arrows.get(arrowType);
+		Arrow a = m_arrows.get(arrowType);
 		if ( a != null )
 			return a.getArrowShape();
 		else
@@ -1540,7 +1628,7 @@ public final class GraphGraphics {
 	 * only if a cap is necessary for the arrow type specified. 
 	 */
 	private final Shape computeUntransformedArrowCap(final byte arrowType, final double ratio) {
-		Arrow a = arrows.get(arrowType);
+		Arrow a = m_arrows.get(arrowType);
 		if ( a != null )
 			return a.getCapShape(ratio);
 		else
@@ -1805,7 +1893,7 @@ public final class GraphGraphics {
 			}
 		}
 
-		NodeShape ns = nodeShapes.get(nodeShape);
+		NodeShape ns = getNodeShape(nodeShape);
 		if (ns == null)
 			return false;
 		else
@@ -1963,27 +2051,31 @@ public final class GraphGraphics {
 
 		m_g2d.setPaint(paint);
 
-		if (drawTextAsShape) {
-			final GlyphVector glyphV;
+		// Only a key that goes into a cache is allocated.
+		m_textKey.set(font, text);
 
-			if (text.length() > m_charBuff.length) {
-				m_charBuff = new char[Math.max(m_charBuff.length * 2, text
-						.length())];
+		if (drawTextAsShape) {
+			TextShape textShape = s_textShapes.get(m_textKey);
+
+			if (textShape == null) {
+				final char[] charBuff = text.toCharArray();
+				final GlyphVector glyphV = font.layoutGlyphVector(getFontRenderContextFull(),
+						charBuff, 0, charBuff.length, Font.LAYOUT_NO_LIMIT_CONTEXT);
+				textShape = new TextShape(glyphV.getOutline(), glyphV.getLogicalBounds());
+				s_textShapes.put(new TextKey(font, text), textShape);
 			}
 
-			text.getChars(0, text.length(), m_charBuff, 0);
-			glyphV = font.layoutGlyphVector(getFontRenderContextFull(),
-					m_charBuff, 0, text.length(), Font.LAYOUT_NO_LIMIT_CONTEXT);
-
-			final Rectangle2D glyphBounds = glyphV.getLogicalBounds();
-			m_g2d.translate(-glyphBounds.getCenterX(), -glyphBounds
+			m_g2d.translate(-textShape.bounds.getCenterX(), -textShape.bounds
 					.getCenterY());
-			m_g2d.fill(glyphV.getOutline());
+			m_g2d.fill(textShape.outline);
 		} else {
-			// Note: A new Rectangle2D is being constructed by this method call.
-			// As far as I know this performance hit is unavoidable.
-			final Rectangle2D textBounds = font.getStringBounds(text,
-					getFontRenderContextFull());
+			Rectangle2D textBounds = s_textBounds.get(m_textKey);
+
+			if (textBounds == null) {
+				textBounds = font.getStringBounds(text, getFontRenderContextFull());
+				s_textBounds.put(new TextKey(font, text), textBounds);
+			}
+
 			m_g2d.translate(-textBounds.getCenterX(), -textBounds.getCenterY());
 			m_g2d.setFont(font);
 			m_g2d.drawString(text, 0.0f, 0.0f);
@@ -2016,7 +2108,10 @@ public final class GraphGraphics {
 		if(paint instanceof TexturePaint) {
 			final BufferedImage bImg = ((TexturePaint) paint).getImage();
 			Rectangle bounds = shape.getBounds2D().getBounds();
-			m_g2d.drawImage(bImg, bounds.x, bounds.y, bounds.width, bounds.height, null);
+			Image img = getScaledImage(bImg, bounds);
+			if (img == null)
+				img = scaleImage(bImg, bImg, bounds);
+			m_g2d.drawImage(img, bounds.x, bounds.y, bounds.width, bounds.height, null);
 		}
 		m_g2d.setTransform(m_currNativeXform);
 	}
@@ -2062,8 +2157,13 @@ public final class GraphGraphics {
 		} else if(cg instanceof ImageCustomGraphicLayer) {
 			m_g2d.translate(xOffset, yOffset);
 			Rectangle bounds = cg.getBounds2D().getBounds();
-			final BufferedImage bImg = ((ImageCustomGraphicLayer)cg).getPaint(bounds).getImage();
-			m_g2d.drawImage(bImg, bounds.x, bounds.y, bounds.width, bounds.height, null);
+			// The layer only needs to paint its image if it is not cached.
+			Image img = getScaledImage(cg, bounds);
+			if (img == null) {
+				final BufferedImage bImg = ((ImageCustomGraphicLayer)cg).getPaint(bounds).getImage();
+				img = scaleImage(cg, bImg, bounds);
+			}
+			m_g2d.drawImage(img, bounds.x, bounds.y, bounds.width, bounds.height, null);
 		} else {
 			Rectangle2D bounds = nodeShape.getBounds2D();
 			m_g2d.setPaint(cg.getPaint(bounds));
@@ -2101,7 +2201,10 @@ public final class GraphGraphics {
 		if(paint instanceof TexturePaint) {
 			final BufferedImage bImg = ((TexturePaint) paint).getImage();
 			Rectangle bounds = shape.getBounds();
-			m_g2d.drawImage(bImg, bounds.x, bounds.y, bounds.width, bounds.height, null);
+			Image img = getScaledImage(bImg, bounds);
+			if (img == null)
+				img = scaleImage(bImg, bImg, bounds);
+			m_g2d.drawImage(img, bounds.x, bounds.y, bounds.width, bounds.height, null);
 		} else {
 			m_g2d.setPaint(paint);
 			m_g2d.fill(shape);
@@ -2110,6 +2213,54 @@ public final class GraphGraphics {
 		m_g2d.setTransform(m_currNativeXform);
 	}
 
+	/**
+	 * Returns the zoom bucket of a scale factor: zoom levels that are less than
+	 * a factor of the square root of 2 apart share their pre-scaled images.
+	 * Images are scaled to 2^(bucket/2), which is never less than scaleFactor.
+	 */
+	static int getZoomBucket(final double scaleFactor) {
+		return (int) Math.ceil(2.0d * Math.log(scaleFactor) / Math.log(2.0d));
+	}
+
+	/*
+	 * Returns the pre-scaled image of source for the current zoom bucket, or
+	 * null if there is none.
+	 */
+	private Image getScaledImage(final Object source, final Rectangle bounds) {
+		if (!m_scaleImages)
+			return null;
+
+		return s_scaledImages.get(new ImageKey(source, bounds.width, bounds.height, m_zoomBucket));
+	}
+
+	/*
+	 * Scales img, the image of source, down to the resolution at which bounds
+	 * is drawn in the current zoom bucket, and keeps the result.  Returns img
+	 * itself if it has no more pixels than that.
+	 */
+	private Image scaleImage(final Object source, final BufferedImage img, final Rectangle bounds) {
+		if (!m_scaleImages)
+			return img;
+
+		final int width = (int) Math.ceil(bounds.width * m_zoomBucketScale);
+		final int height = (int) Math.ceil(bounds.height * m_zoomBucketScale);
+
+		if ((width <= 0) || (height <= 0)
+		    || (((long) width * height) >= ((long) img.getWidth() * img.getHeight())))
+			return img;
+
+		final BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+		final Graphics2D g = scaled.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+		                   RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+		g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+		g.drawImage(img, 0, 0, width, height, null);
+		g.dispose();
+		s_scaledImages.put(new ImageKey(source, bounds.width, bounds.height, m_zoomBucket), scaled);
+
+		return scaled;
+	}
+
 	/**
 	 * Create border stroke for given width value.
 	 * 
@@ -2117,12 +2268,15 @@ public final class GraphGraphics {
 	 * @return Actual node border stroke
 	 */
 	private final Stroke getStroke(final float borderWidth) {
-		Stroke s = borderStrokes.get(borderWidth);
-		if ( s == null ) {
-			s = new BasicStroke(borderWidth);
-			borderStrokes.put(borderWidth, s);
+		// Shared by all instances, which may render on different threads.
+		synchronized (borderStrokes) {
+			Stroke s = borderStrokes.get(borderWidth);
+			if ( s == null ) {
+				s = new BasicStroke(borderWidth);
+				borderStrokes.put(borderWidth, s);
+			}
+			return s; 
 		}
-		return s; 
 	}
 
 	private void checkDispatchThread() {
@@ -2143,4 +2297,112 @@ public final class GraphGraphics {
 	public boolean isInitialized() {
 		return m_cleared;
 	}
+
+	/**
+	 * Asks whoever is rendering a frame into this object to stop as soon as
+	 * possible, because the frame is no longer needed.  It is safe to call this
+	 * method from any thread.
+	 */
+	public void cancel() {
+		m_cancelled = true;
+	}
+
+	/**
+	 * @return true if cancel() has been called on this object.
+	 */
+	public boolean isCancelled() {
+		return m_cancelled;
+	}
+
+	/*
+	 * Identifies the layout of a text in drawTextFull().  A key is only
+	 * changed with set() while it is used to look up a cache, never once it
+	 * is in one.
+	 */
+	private static final class TextKey {
+		private Font font;
+		private String text;
+		private int hash;
+
+		TextKey() {
+		}
+
+		TextKey(final Font font, final String text) {
+			set(font, text);
+		}
+
+		void set(final Font font, final String text) {
+			this.font = font;
+			this.text = text;
+			hash = (31 * font.hashCode()) + text.hashCode();
+		}
+
+		@Override
+		public boolean equals(final Object o) {
+			if (!(o instanceof TextKey))
+				return false;
+
+			final TextKey other = (TextKey) o;
+
+			return text.equals(other.text) && font.equals(other.font);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+
+	/*
+	 * Identifies a pre-scaled image: the custom graphic layer or image it was
+	 * made from, the size at which it is drawn in node coordinates, and the
+	 * zoom bucket.  The source is only weakly referenced, so that the cache
+	 * does not keep images of graphics that are gone; such entries are never
+	 * used again and eventually dropped.
+	 */
+	private static final class ImageKey {
+		private final WeakReference<Object> source;
+		private final int sourceHash;
+		private final int width;
+		private final int height;
+		private final int zoomBucket;
+
+		ImageKey(final Object source, final int width, final int height, final int zoomBucket) {
+			this.source = new WeakReference<Object>(source);
+			this.sourceHash = System.identityHashCode(source);
+			this.width = width;
+			this.height = height;
+			this.zoomBucket = zoomBucket;
+		}
+
+		@Override
+		public boolean equals(final Object o) {
+			if (!(o instanceof ImageKey))
+				return false;
+
+			final ImageKey other = (ImageKey) o;
+			final Object src = source.get();
+
+			return (src != null) && (src == other.source.get()) && (width == other.width)
+			       && (height == other.height) && (zoomBucket == other.zoomBucket);
+		}
+
+		@Override
+		public int hashCode() {
+			return (31 * ((31 * ((31 * sourceHash) + width)) + height)) + zoomBucket;
+		}
+	}
+
+	/*
+	 * The outline of a text, which is never modified once created.
+	 */
+	private static final class TextShape {
+		final Shape outline;
+		final Rectangle2D bounds;
+
+		TextShape(final Shape outline, final Rectangle2D bounds) {
+			this.outline = outline;
+			this.bounds = bounds;
+		}
+	}
 }
@@ -0,0 +1,129 @@
+package org.cytoscape.graph.render.immed;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * A map that holds at most a fixed number of entries, or entries of at most
+ * a fixed total weight; once it is full, the least recently used entries are
+ * dropped to make room for a new one.  All methods are synchronized, so that
+ * a cache can be shared by tiles that are rendered concurrently.
+ */
+public final class LRUCache<K, V> {
+
+	/**
+	 * Tells how much of the capacity of a cache a value takes up, for
+	 * instance its size in bytes.
+	 */
+	public interface Weigher<V> {
+		/**
+		 * Returns the weight of value, which must not be negative and must not
+		 * change while the value is in a cache.
+		 */
+		long weigh(V value);
+	}
+
+	private final LinkedHashMap<K, V> m_map = new LinkedHashMap<K, V>(16, 0.75f, true);
+	private final long m_maxWeight;
+	private final Weigher<? super V> m_weigher;
+	private long m_weight;
+
+	/**
+	 * @param maxSize the maximum number of entries that are kept.
+	 */
+	public LRUCache(final int maxSize) {
+		this(maxSize, null);
+	}
+
+	/**
+	 * @param maxWeight the maximum total weight of the entries that are kept.
+	 * @param weigher computes the weight of values; if null, every value
+	 *   weighs 1.
+	 */
+	public LRUCache(final long maxWeight, final Weigher<? super V> weigher) {
+		if (maxWeight <= 0)
+			throw new IllegalArgumentException("maxWeight must be positive");
+
+		m_maxWeight = maxWeight;
+		m_weigher = weigher;
+	}
+
+	/**
+	 * Returns the value of key, or null if it is not in this cache.
+	 */
+	public synchronized V get(final K key) {
+		return m_map.get(key);
+	}
+
+	/**
+	 * Adds a value, dropping the least recently used entries if this cache is
+	 * full.  A value that weighs more than the whole cache is not kept.
+	 */
+	public synchronized void put(final K key, final V value) {
+		final long weight = weigh(value);
+		final V old = m_map.remove(key);
+
+		if (old != null)
+			m_weight -= weigh(old);
+
+		if (weight > m_maxWeight)
+			return;
+
+		m_map.put(key, value);
+		m_weight += weight;
+		final Iterator<V> eldest = m_map.values().iterator();
+
+		while (m_weight > m_maxWeight) {
+			m_weight -= weigh(eldest.next());
+			eldest.remove();
+		}
+	}
+
+	public synchronized int size() {
+		return m_map.size();
+	}
+
+	/**
+	 * Returns the total weight of the entries, which is their number if this
+	 * cache has no weigher.
+	 */
+	public synchronized long weight() {
+		return m_weight;
+	}
+
+	public synchronized void clear() {
+		m_map.clear();
+		m_weight = 0;
+	}
+
+	private long weigh(final V value) {
+		return (m_weigher == null) ? 1 : m_weigher.weigh(value);
+	}
+}
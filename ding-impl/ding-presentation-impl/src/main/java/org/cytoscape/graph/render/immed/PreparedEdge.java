@@ -0,0 +1,66 @@
+package org.cytoscape.graph.render.immed;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.GeneralPath;
+import java.awt.geom.Line2D;
+
+
+/**
+ * The geometry of an edge as GraphGraphics.drawEdgeFull() draws it: the
+ * segment between the arrows, and where the arrows and arrow caps go.  It is
+ * computed by GraphGraphics.prepareEdge() and can be drawn any number of times
+ * with GraphGraphics.drawEdgeFull(PreparedEdge, ...), which then neither
+ * computes curves nor arrow directions.  The geometry is in node coordinates,
+ * so it stays valid when the view is panned or zoomed.<p>
+ * Once prepared, an instance is only read when it is drawn, so it may be drawn
+ * by several threads at once.
+ */
+public final class PreparedEdge {
+	final GeneralPath curve = new GeneralPath();
+	final Line2D.Double line = new Line2D.Double();
+	final AffineTransform arrow0Xform = new AffineTransform();
+	final AffineTransform arrow1Xform = new AffineTransform();
+	final AffineTransform cap0Xform = new AffineTransform();
+	final AffineTransform cap1Xform = new AffineTransform();
+
+	byte arrow0Type;
+	float arrow0Size;
+	byte arrow1Type;
+	float arrow1Size;
+
+	// The segment between the arrows, which is either curve or line, or null
+	// if the arrows leave no room for it.
+	Shape segment;
+
+	// False if the edge has no arrows, in which case none of the transforms
+	// are set.
+	boolean hasArrows;
+
+	// Whether the caps that join the segment to the arrows are drawn.
+	boolean hasCaps;
+}
@@ -0,0 +1,103 @@
+package org.cytoscape.graph.render.immed;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+/**
+ * A cache of at most a fixed number of entries that is split into stripes,
+ * each an {@link LRUCache} holding an equal share of the entries, and picked
+ * by the hash code of a key.  Threads that look up different keys mostly lock
+ * different stripes, so tiles that are rendered concurrently rarely wait for
+ * each other.  The entry dropped when a stripe is full is the least recently
+ * used one of that stripe.
+ */
+public final class StripedLRUCache<K, V> {
+
+	private final LRUCache<K, V>[] m_stripes;
+
+	/**
+	 * @param maxSize the maximum number of entries that are kept.
+	 * @param stripeCount the number of stripes, which is rounded up to a
+	 *   power of two.
+	 */
+	@SuppressWarnings("unchecked")
+	public StripedLRUCache(final int maxSize, final int stripeCount) {
+		if (stripeCount <= 0)
+			throw new IllegalArgumentException("stripeCount must be positive");
+
+		int stripes = 1;
+
+		while (stripes < stripeCount)
+			stripes <<= 1;
+
+		if (maxSize < stripes)
+			throw new IllegalArgumentException("maxSize must be at least the number of stripes");
+
+		m_stripes = new LRUCache[stripes];
+
+		for (int i = 0; i < stripes; i++)
+			m_stripes[i] = new LRUCache<K, V>((maxSize / stripes)
+			                                  + ((i < (maxSize % stripes)) ? 1 : 0));
+	}
+
+	/**
+	 * Returns the value of key, or null if it is not in this cache.
+	 */
+	public V get(final K key) {
+		return stripe(key).get(key);
+	}
+
+	/**
+	 * Adds a value, dropping the least recently used entry of its stripe if
+	 * that stripe is full.
+	 */
+	public void put(final K key, final V value) {
+		stripe(key).put(key, value);
+	}
+
+	public int size() {
+		int size = 0;
+
+		for (final LRUCache<K, V> stripe : m_stripes)
+			size += stripe.size();
+
+		return size;
+	}
+
+	public void clear() {
+		for (final LRUCache<K, V> stripe : m_stripes)
+			stripe.clear();
+	}
+
+	private LRUCache<K, V> stripe(final K key) {
+		// Spread the high bits of the hash code, which HashMap does too, so
+		// that keys differing only there land in different stripes.
+		int hash = key.hashCode();
+		hash ^= (hash >>> 20) ^ (hash >>> 12);
+		hash ^= (hash >>> 7) ^ (hash >>> 4);
+
+		return m_stripes[hash & (m_stripes.length - 1)];
+	}
+}
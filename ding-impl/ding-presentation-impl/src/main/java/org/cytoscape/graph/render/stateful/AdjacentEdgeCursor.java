@@ -0,0 +1,71 @@
+package org.cytoscape.graph.render.stateful;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import org.cytoscape.model.CyEdge;
+
+
+/**
+ * A reusable cursor over the edges adjacent to a node.  Unlike
+ * CyNetwork.getAdjacentEdgeIterable() no objects are created while moving the
+ * cursor, and the SUIDs of an edge's endpoints are available as primitives.
+ * A cursor is not thread safe; every rendering pass should use its own.
+ */
+public interface AdjacentEdgeCursor {
+	/**
+	 * Positions this cursor before the first edge of the given type that touches
+	 * the given node.
+	 * @return false if the node is not part of the network, in which case
+	 *   next() will return false.
+	 */
+	public boolean reset(long node, CyEdge.Type edgeType);
+
+	/**
+	 * Advances this cursor to the next adjacent edge.
+	 * @return false if there are no more adjacent edges.
+	 */
+	public boolean next();
+
+	/**
+	 * @return the edge the cursor is positioned on.
+	 */
+	public CyEdge getEdge();
+
+	/**
+	 * @return the SUID of the edge the cursor is positioned on.
+	 */
+	public long getEdgeSUID();
+
+	/**
+	 * @return the SUID of the source node of the current edge.
+	 */
+	public long getSourceSUID();
+
+	/**
+	 * @return the SUID of the target node of the current edge.
+	 */
+	public long getTargetSUID();
+}
@@ -0,0 +1,422 @@
+package org.cytoscape.graph.render.stateful;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.cytoscape.graph.render.immed.GraphGraphics;
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.spacial.SpacialEntry2DEnumerator;
+import org.cytoscape.spacial.SpacialIndex2D;
+import org.cytoscape.util.intr.LongEnumerator;
+
+
+/**
+ * Counts the nodes and edges of a frame into a grid of cells of CELL_SIZE
+ * pixels, and shades every cell by its counts.  This is how
+ * GraphRenderer renders a frame at the LOD_DENSITY_MAP level of detail, where
+ * drawing every edge, even in low detail, would take long and just fill the
+ * image.  Edges are shaded in their average low detail color, and nodes over
+ * them in theirs.  The opacity of a cell depends only on its counts, so a
+ * cell looks the same whichever window it is rendered in.<p>
+ * The grid is built by tasks that each count a part of the nodes, with their
+ * edges, into a grid of their own; these grids are added up afterwards.
+ */
+final class DensityMap {
+
+	/**
+	 * The width and height, in pixels, of a cell of the grid.
+	 */
+	static final int CELL_SIZE = 2;
+
+	/**
+	 * The number of tasks that count nodes and edges if an executor is given.
+	 */
+	static final int TASK_COUNT = 4;
+
+	// A cell that n nodes or edges fall into has an opacity of
+	// 1 - exp(-n / SATURATION).
+	private static final double SATURATION = 3.0;
+	private static final int[] ALPHAS = new int[32];
+
+	static {
+		for (int i = 0; i < ALPHAS.length; i++)
+			ALPHAS[i] = (int) Math.round(255.0 * (1.0 - Math.exp(-i / SATURATION)));
+	}
+
+	private final int m_columns;
+	private final int m_rows;
+	private final double m_xMin;
+	private final double m_yMin;
+	private final double m_cellsPerUnit;
+	private final int[] m_nodeCounts;
+	private final int[] m_edgeCounts;
+
+	// Sums of the red, green and blue of the counted nodes and edges, followed
+	// by their number.
+	private final long[] m_nodeColor = new long[4];
+	private final long[] m_edgeColor = new long[4];
+
+	DensityMap(final int columns, final int rows, final double xMin, final double yMin,
+	           final double scaleFactor) {
+		m_columns = columns;
+		m_rows = rows;
+		m_xMin = xMin;
+		m_yMin = yMin;
+		m_cellsPerUnit = scaleFactor / CELL_SIZE;
+		m_nodeCounts = new int[columns * rows];
+		m_edgeCounts = new int[columns * rows];
+	}
+
+	/**
+	 * Renders the nodes in the window [xMin, yMin, xMax, yMax] and their edges
+	 * into grafx, which has been cleared with the scale scaleFactor.  All edges
+	 * are rendered if renderEdges is positive, and none if it is negative, as in
+	 * GraphRenderer.renderGraph().  If crossingEdges is not null, these edges
+	 * are rendered as well, although neither of their nodes is in the window.
+	 * If executor is not null, nodes are counted by TASK_COUNT tasks executed
+	 * by it; the calling thread waits for them.  Rendering stops early if grafx
+	 * is cancelled.
+	 */
+	static void render(final CyNetwork graph, final SpacialIndex2D nodePositions,
+	                   final NodeDetails nodeDetails, final EdgeDetails edgeDetails,
+	                   final GraphGraphics grafx, final float xMin, final float yMin,
+	                   final float xMax, final float yMax, final double scaleFactor,
+	                   final byte renderEdges, final LongEnumerator crossingEdges,
+	                   final ExecutorService executor) {
+		final SpacialEntry2DEnumerator nodeHits;
+
+		if (renderEdges > 0)
+			nodeHits = nodePositions.queryOverlap(Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY,
+			                                      Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY,
+			                                      null, 0, false);
+		else
+			nodeHits = nodePositions.queryOverlap(xMin, yMin, xMax, yMax, null, 0, false);
+
+		final int nodeCount = nodeHits.numRemaining();
+		final long[] nodes = new long[nodeCount];
+		final float[] extents = new float[nodeCount * 4];
+
+		for (int i = 0; i < nodeCount; i++)
+			nodes[i] = nodeHits.nextExtents(extents, i * 4);
+
+		final int columns = (grafx.image.getWidth(null) + CELL_SIZE - 1) / CELL_SIZE;
+		final int rows = (grafx.image.getHeight(null) + CELL_SIZE - 1) / CELL_SIZE;
+		final int taskCount = ((executor == null) || (nodeCount < TASK_COUNT)) ? 1 : TASK_COUNT;
+		final List<DensityMap> maps = new ArrayList<DensityMap>();
+		final List<Future<Object>> futures = new ArrayList<Future<Object>>();
+
+		for (int t = 0; t < taskCount; t++) {
+			final DensityMap map = new DensityMap(columns, rows, xMin, yMin, scaleFactor);
+			final int from = (int) (((long) nodeCount * t) / taskCount);
+			final int to = (int) (((long) nodeCount * (t + 1)) / taskCount);
+			maps.add(map);
+
+			final Runnable count = new Runnable() {
+					public void run() {
+						map.countNodes(graph, nodePositions, nodeDetails, edgeDetails, grafx,
+						               nodes, extents, from, to, xMin, yMin, xMax, yMax,
+						               renderEdges);
+					}
+				};
+
+			if (taskCount == 1) {
+				count.run();
+				break;
+			}
+
+			final FutureTask<Object> task = new FutureTask<Object>(count, null);
+
+			try {
+				executor.execute(task);
+			} catch (RejectedExecutionException e) {
+				task.run();
+			}
+
+			futures.add(task);
+		}
+
+		GraphRenderer.waitFor(futures);
+
+		final DensityMap map = maps.get(0);
+
+		for (int t = 1; t < maps.size(); t++)
+			map.add(maps.get(t));
+
+		if ((crossingEdges != null) && (renderEdges == 0))
+			map.countEdges(graph, nodePositions, edgeDetails, crossingEdges);
+
+		if (grafx.isCancelled())
+			return;
+
+		final Graphics2D g = (Graphics2D) grafx.image.getGraphics();
+		map.draw(g);
+		g.dispose();
+	}
+
+	/*
+	 * Counts the nodes from..to in nodes that overlap the window, and the edges
+	 * of all of them.  An edge is counted with its source, unless its source is
+	 * not among the nodes of the frame.
+	 */
+	private void countNodes(final CyNetwork graph, final SpacialIndex2D nodePositions,
+	                        final NodeDetails nodeDetails, final EdgeDetails edgeDetails,
+	                        final GraphGraphics grafx, final long[] nodes, final float[] extents,
+	                        final int from, final int to, final float xMin, final float yMin,
+	                        final float xMax, final float yMax, final byte renderEdges) {
+		final AdjacentEdgeCursor edgeCursor = GraphRenderer.createAdjacentEdgeCursor(graph);
+		final float[] extentsBuff = new float[4];
+
+		for (int i = from; i < to; i++) {
+			if (((i & 0xff) == 0) && grafx.isCancelled())
+				return;
+
+			final long node = nodes[i];
+			final float nodeXMin = extents[i * 4];
+			final float nodeYMin = extents[(i * 4) + 1];
+			final float nodeXMax = extents[(i * 4) + 2];
+			final float nodeYMax = extents[(i * 4) + 3];
+			final float nodeX = (nodeXMin + nodeXMax) / 2;
+			final float nodeY = (nodeYMin + nodeYMax) / 2;
+
+			if ((nodeXMin != nodeXMax) && (nodeYMin != nodeYMax)
+			    && (nodeXMin <= xMax) && (nodeXMax >= xMin) && (nodeYMin <= yMax)
+			    && (nodeYMax >= yMin)) {
+				final int cell = cellAt(nodeX, nodeY);
+
+				if (cell >= 0) {
+					m_nodeCounts[cell]++;
+					addColor(m_nodeColor, nodeDetails.getColorLowDetail(graph.getNode(node)));
+				}
+			}
+
+			if (renderEdges < 0)
+				continue;
+
+			edgeCursor.reset(node, CyEdge.Type.ANY);
+
+			while (edgeCursor.next()) {
+				final long source = edgeCursor.getSourceSUID();
+				final long otherNode = node ^ source ^ edgeCursor.getTargetSUID();
+
+				if ((source != node) && ((renderEdges > 0)
+				                         || overlaps(nodePositions, source, extentsBuff,
+				                                     xMin, yMin, xMax, yMax)))
+					continue; // Counted with its source.
+
+				if (!nodePositions.exists(otherNode, extentsBuff, 0))
+					throw new IllegalStateException("nodePositions not recognizing node that exists in graph");
+
+				if (addLine(nodeX, nodeY, (extentsBuff[0] + extentsBuff[2]) / 2,
+				            (extentsBuff[1] + extentsBuff[3]) / 2))
+					addColor(m_edgeColor, edgeDetails.getColorLowDetail(edgeCursor.getEdge()));
+			}
+		}
+	}
+
+	/*
+	 * Counts the given edges, whose nodes are not among the nodes of the frame.
+	 */
+	private void countEdges(final CyNetwork graph, final SpacialIndex2D nodePositions,
+	                        final EdgeDetails edgeDetails, final LongEnumerator edges) {
+		final float[] sourceExtents = new float[4];
+		final float[] targetExtents = new float[4];
+
+		while (edges.numRemaining() > 0) {
+			final CyEdge edge = graph.getEdge(edges.nextLong());
+
+			if ((edge == null)
+			    || !nodePositions.exists(edge.getSource().getSUID(), sourceExtents, 0)
+			    || !nodePositions.exists(edge.getTarget().getSUID(), targetExtents, 0))
+				continue;
+
+			if (addLine((sourceExtents[0] + sourceExtents[2]) / 2,
+			            (sourceExtents[1] + sourceExtents[3]) / 2,
+			            (targetExtents[0] + targetExtents[2]) / 2,
+			            (targetExtents[1] + targetExtents[3]) / 2))
+				addColor(m_edgeColor, edgeDetails.getColorLowDetail(edge));
+		}
+	}
+
+	private static boolean overlaps(final SpacialIndex2D nodePositions, final long node,
+	                                final float[] extentsBuff, final float xMin,
+	                                final float yMin, final float xMax, final float yMax) {
+		return nodePositions.exists(node, extentsBuff, 0) && (extentsBuff[0] <= xMax)
+		       && (extentsBuff[2] >= xMin) && (extentsBuff[1] <= yMax) && (extentsBuff[3] >= yMin);
+	}
+
+	/**
+	 * @return the index of the cell that contains the point (x, y) in node
+	 *   coordinates, or -1 if the point is outside of the grid.
+	 */
+	int cellAt(final double x, final double y) {
+		final double column = (x - m_xMin) * m_cellsPerUnit;
+		final double row = (y - m_yMin) * m_cellsPerUnit;
+
+		if ((column < 0) || (row < 0) || (column >= m_columns) || (row >= m_rows))
+			return -1;
+
+		return (((int) row) * m_columns) + (int) column;
+	}
+
+	/**
+	 * Counts the line from (x0, y0) to (x1, y1), in node coordinates, once
+	 * into every cell that it passes through.
+	 * @return true if and only if the line passes through the grid.
+	 */
+	boolean addLine(final double x0, final double y0, final double x1, final double y1) {
+		final double column0 = (x0 - m_xMin) * m_cellsPerUnit;
+		final double row0 = (y0 - m_yMin) * m_cellsPerUnit;
+		final double dColumn = (x1 - x0) * m_cellsPerUnit;
+		final double dRow = (y1 - y0) * m_cellsPerUnit;
+
+		// Clip the line to the grid (Liang-Barsky).
+		final double[] t = { 0.0, 1.0 };
+
+		if (!clip(-dColumn, column0, t) || !clip(dColumn, m_columns - column0, t)
+		    || !clip(-dRow, row0, t) || !clip(dRow, m_rows - row0, t))
+			return false;
+
+		final int steps = (int) Math.ceil(Math.max(Math.abs(dColumn), Math.abs(dRow)) * (t[1] - t[0]));
+		int lastCell = -1;
+
+		for (int i = 0; i <= steps; i++) {
+			final double s = (steps == 0) ? t[0] : (t[0] + (((t[1] - t[0]) * i) / steps));
+			final int column = Math.min(m_columns - 1, Math.max(0, (int) (column0 + (dColumn * s))));
+			final int row = Math.min(m_rows - 1, Math.max(0, (int) (row0 + (dRow * s))));
+			final int cell = (row * m_columns) + column;
+
+			if (cell != lastCell) {
+				m_edgeCounts[cell]++;
+				lastCell = cell;
+			}
+		}
+
+		return true;
+	}
+
+	private static boolean clip(final double p, final double q, final double[] t) {
+		if (p == 0.0)
+			return q >= 0.0;
+
+		final double r = q / p;
+
+		if (p < 0.0) {
+			if (r > t[1])
+				return false;
+
+			if (r > t[0])
+				t[0] = r;
+		} else {
+			if (r < t[0])
+				return false;
+
+			if (r < t[1])
+				t[1] = r;
+		}
+
+		return true;
+	}
+
+	private static void addColor(final long[] sum, final Color color) {
+		sum[0] += color.getRed();
+		sum[1] += color.getGreen();
+		sum[2] += color.getBlue();
+		sum[3]++;
+	}
+
+	/**
+	 * Adds the counts of another grid of the same size to this one.
+	 */
+	void add(final DensityMap map) {
+		for (int i = 0; i < m_nodeCounts.length; i++) {
+			m_nodeCounts[i] += map.m_nodeCounts[i];
+			m_edgeCounts[i] += map.m_edgeCounts[i];
+		}
+
+		for (int i = 0; i < 4; i++) {
+			m_nodeColor[i] += map.m_nodeColor[i];
+			m_edgeColor[i] += map.m_edgeColor[i];
+		}
+	}
+
+	int getNodeCount(final int cell) {
+		return m_nodeCounts[cell];
+	}
+
+	int getEdgeCount(final int cell) {
+		return m_edgeCounts[cell];
+	}
+
+	/**
+	 * Shades the edges, and then the nodes over them, into g, one cell per
+	 * CELL_SIZE by CELL_SIZE pixels.
+	 */
+	void draw(final Graphics2D g) {
+		final BufferedImage image = new BufferedImage(m_columns, m_rows,
+		                                              BufferedImage.TYPE_INT_ARGB);
+		final int[] pixels = new int[m_columns * m_rows];
+
+		if (shade(m_edgeCounts, m_edgeColor, pixels)) {
+			image.setRGB(0, 0, m_columns, m_rows, pixels, 0, m_columns);
+			g.drawImage(image, 0, 0, m_columns * CELL_SIZE, m_rows * CELL_SIZE, null);
+		}
+
+		if (shade(m_nodeCounts, m_nodeColor, pixels)) {
+			image.setRGB(0, 0, m_columns, m_rows, pixels, 0, m_columns);
+			g.drawImage(image, 0, 0, m_columns * CELL_SIZE, m_rows * CELL_SIZE, null);
+		}
+	}
+
+	/*
+	 * Fills pixels with the average color in colorSum, at the opacity of each
+	 * count.  Returns false if there is nothing to draw.
+	 */
+	private static boolean shade(final int[] counts, final long[] colorSum, final int[] pixels) {
+		final long colorCount = colorSum[3];
+
+		if (colorCount == 0)
+			return false;
+
+		final int rgb = (int) (((colorSum[0] / colorCount) << 16)
+		                       | ((colorSum[1] / colorCount) << 8) | (colorSum[2] / colorCount));
+
+		for (int i = 0; i < counts.length; i++)
+			pixels[i] = (ALPHAS[Math.min(counts[i], ALPHAS.length - 1)] << 24) | rgb;
+
+		return true;
+	}
+}
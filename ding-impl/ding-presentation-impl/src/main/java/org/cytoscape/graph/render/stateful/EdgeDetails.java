@@ -370,4 +370,15 @@ public abstract class EdgeDetails {
 		return 100.0;
 	}
 
+	/**
+	 * Returns a cache in which the rendering engine may keep the endpoints
+	 * and paths of edges from one frame to the next, or null if edge geometry
+	 * should be computed for every frame.  The cache must be emptied of
+	 * edges that no longer exist.<p>
+	 * By default this method returns null.
+	 */
+	public EdgeGeometryCache getGeometryCache() {
+		return null;
+	}
+
 }
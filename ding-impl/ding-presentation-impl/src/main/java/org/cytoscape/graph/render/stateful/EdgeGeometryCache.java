@@ -0,0 +1,350 @@
+package org.cytoscape.graph.render.stateful;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+import java.awt.Shape;
+import java.awt.geom.GeneralPath;
+import java.util.Arrays;
+
+import org.cytoscape.graph.render.immed.EdgeAnchors;
+import org.cytoscape.graph.render.immed.GraphGraphics;
+import org.cytoscape.graph.render.immed.PreparedEdge;
+import org.cytoscape.util.intr.LongEnumerator;
+import org.cytoscape.util.intr.LongObjHash;
+
+
+/**
+ * Keeps the geometry of edges from one frame to the next: the points where
+ * edges meet the shapes of their nodes, the paths of edges, and how edges are
+ * drawn, with their arrows, by GraphGraphics.drawEdgeFull().  The geometry
+ * is in node coordinates, so panning and zooming reuse all of it.  An entry is
+ * reused as long as everything it was computed from is unchanged: the extents
+ * and shapes of the nodes, the arrows, and the anchors.  Moving a node or a
+ * bend, or changing a node shape or an arrow, therefore recomputes only the
+ * edges that are affected.<p>
+ * Instances may be used by tiles that are rendered concurrently.  Looking up
+ * an edge allocates nothing.
+ */
+public final class EdgeGeometryCache {
+	// The number of stripes; a few times the number of tiles that are usually
+	// rendered at once.
+	private static final int STRIPES = 16;
+
+	// Marks an edge that was removed, since a LongObjHash can't remove keys.
+	private static final Object REMOVED = new Object();
+
+	// The geometries of edges are in STRIPES tables, picked by edge SUID, each
+	// guarded by its own lock.
+	private final Stripe[] m_stripes = new Stripe[STRIPES];
+
+	public EdgeGeometryCache() {
+		for (int i = 0; i < STRIPES; i++)
+			m_stripes[i] = new Stripe();
+	}
+
+	/**
+	 * Computes the endpoints of an edge like
+	 * GraphRenderer.computeEdgeEndpoints(), but returns the endpoints that were
+	 * computed before if the arguments are the same as then.
+	 * @param edge the SUID of the edge.
+	 * @param rtnValSrc also used as a buffer before the endpoints are
+	 *   returned.
+	 */
+	public boolean computeEdgeEndpoints(final long edge, final GraphGraphics grafx,
+	                                    final float[] srcNodeExtents, final byte srcNodeShape,
+	                                    final byte srcArrow, final float srcArrowSize,
+	                                    final EdgeAnchors anchors,
+	                                    final float[] trgNodeExtents, final byte trgNodeShape,
+	                                    final byte trgArrow, final float trgArrowSize,
+	                                    final float[] rtnValSrc, final float[] rtnValTrg) {
+		Geometry geometry = get(edge);
+
+		if ((geometry == null)
+		    || !geometry.matches(srcNodeExtents, srcNodeShape, srcArrow, srcArrowSize, anchors,
+		                         trgNodeExtents, trgNodeShape, trgArrow, trgArrowSize,
+		                         rtnValSrc)) {
+			geometry = new Geometry(srcNodeExtents, srcNodeShape, srcArrow, srcArrowSize,
+			                        anchors, trgNodeExtents, trgNodeShape, trgArrow,
+			                        trgArrowSize);
+			geometry.hasEndpoints = GraphRenderer.computeEdgeEndpoints(grafx, srcNodeExtents,
+			                                                           srcNodeShape, srcArrow,
+			                                                           srcArrowSize, anchors,
+			                                                           trgNodeExtents,
+			                                                           trgNodeShape, trgArrow,
+			                                                           trgArrowSize,
+			                                                           geometry.srcEndpoint,
+			                                                           geometry.trgEndpoint);
+			put(edge, geometry);
+		}
+
+		rtnValSrc[0] = geometry.srcEndpoint[0];
+		rtnValSrc[1] = geometry.srcEndpoint[1];
+		rtnValTrg[0] = geometry.trgEndpoint[0];
+		rtnValTrg[1] = geometry.trgEndpoint[1];
+
+		return geometry.hasEndpoints;
+	}
+
+	/**
+	 * Returns the path of an edge as computed by GraphGraphics.getEdgePath()
+	 * from the endpoints of the last call to computeEdgeEndpoints() for this
+	 * edge, or null if the edge has no endpoints or no path.  The returned
+	 * path is shared and must not be modified.
+	 * @param edge the SUID of the edge.
+	 */
+	public Shape getEdgePath(final long edge, final GraphGraphics grafx) {
+		final Geometry geometry = get(edge);
+
+		if ((geometry == null) || !geometry.hasEndpoints)
+			return null;
+
+		if (!geometry.hasPath) {
+			final GeneralPath path = new GeneralPath();
+
+			if (grafx.getEdgePath(geometry.srcArrow, geometry.srcArrowSize, geometry.trgArrow,
+			                      geometry.trgArrowSize, geometry.srcEndpoint[0],
+			                      geometry.srcEndpoint[1], geometry,
+			                      geometry.trgEndpoint[0], geometry.trgEndpoint[1], path))
+				geometry.path = path;
+
+			geometry.hasPath = true;
+		}
+
+		return geometry.path;
+	}
+
+	/**
+	 * Returns the edge as GraphGraphics.drawEdgeFull() draws it from the
+	 * endpoints of the last call to computeEdgeEndpoints() for this edge, or
+	 * null if nothing is drawn for the edge.  The returned edge is shared and
+	 * must not be modified.
+	 * @param edge the SUID of the edge.
+	 */
+	public PreparedEdge getPreparedEdge(final long edge, final GraphGraphics grafx) {
+		final Geometry geometry = get(edge);
+
+		if ((geometry == null) || !geometry.hasEndpoints)
+			return null;
+
+		if (!geometry.hasPreparedEdge) {
+			final PreparedEdge preparedEdge = new PreparedEdge();
+
+			if (grafx.prepareEdge(geometry.srcArrow, geometry.srcArrowSize, geometry.trgArrow,
+			                      geometry.trgArrowSize, geometry.srcEndpoint[0],
+			                      geometry.srcEndpoint[1], geometry,
+			                      geometry.trgEndpoint[0], geometry.trgEndpoint[1],
+			                      preparedEdge))
+				geometry.preparedEdge = preparedEdge;
+
+			geometry.hasPreparedEdge = true;
+		}
+
+		return geometry.preparedEdge;
+	}
+
+	/**
+	 * Forgets the geometry of an edge, for instance because it was removed.
+	 * @param edge the SUID of the edge.
+	 */
+	public void remove(final long edge) {
+		final Stripe stripe = m_stripes[stripeOf(edge)];
+
+		synchronized (stripe) {
+			final Object old = stripe.table.get(edge);
+
+			if ((old == null) || (old == REMOVED))
+				return;
+
+			stripe.table.put(edge, REMOVED);
+			stripe.removed++;
+
+			// Without this, a view whose edges keep being replaced would grow
+			// without bound.
+			if (stripe.removed > (stripe.table.size() / 2))
+				stripe.compact();
+		}
+	}
+
+	public void clear() {
+		for (final Stripe stripe : m_stripes) {
+			synchronized (stripe) {
+				stripe.table = new LongObjHash();
+				stripe.removed = 0;
+			}
+		}
+	}
+
+	public int size() {
+		int size = 0;
+
+		for (final Stripe stripe : m_stripes) {
+			synchronized (stripe) {
+				size += stripe.table.size() - stripe.removed;
+			}
+		}
+
+		return size;
+	}
+
+	private Geometry get(final long edge) {
+		final Stripe stripe = m_stripes[stripeOf(edge)];
+		final Object geometry;
+
+		synchronized (stripe) {
+			geometry = stripe.table.get(edge);
+		}
+
+		return (geometry == REMOVED) ? null : (Geometry) geometry;
+	}
+
+	private void put(final long edge, final Geometry geometry) {
+		final Stripe stripe = m_stripes[stripeOf(edge)];
+
+		synchronized (stripe) {
+			if (stripe.table.put(edge, geometry) == REMOVED)
+				stripe.removed--;
+		}
+	}
+
+	private static int stripeOf(final long edge) {
+		// SUIDs are mostly consecutive, so their low bits spread edges evenly.
+		return (int) (edge & (STRIPES - 1));
+	}
+
+	/*
+	 * A table of geometries.  Removed edges are mapped to REMOVED until the
+	 * table is compacted.
+	 */
+	private static final class Stripe {
+		LongObjHash table = new LongObjHash();
+		int removed;
+
+		void compact() {
+			final LongObjHash compacted = new LongObjHash();
+			final LongEnumerator keys = table.keys();
+
+			while (keys.numRemaining() > 0) {
+				final long key = keys.nextLong();
+				final Object value = table.get(key);
+
+				if (value != REMOVED)
+					compacted.put(key, value);
+			}
+
+			table = compacted;
+			removed = 0;
+		}
+	}
+
+	/*
+	 * The arguments of computeEdgeEndpoints() and what was computed from them.
+	 * The arguments are never modified; the results are computed once, but
+	 * possibly by more than one thread, which then compute the same values.
+	 */
+	private static final class Geometry implements EdgeAnchors {
+		private final float[] srcNodeExtents;
+		private final float[] trgNodeExtents;
+		private final float[] anchorPts;
+		private final byte srcNodeShape;
+		private final byte trgNodeShape;
+		final byte srcArrow;
+		final byte trgArrow;
+		final float srcArrowSize;
+		final float trgArrowSize;
+
+		final float[] srcEndpoint = new float[2];
+		final float[] trgEndpoint = new float[2];
+		volatile boolean hasEndpoints;
+		volatile Shape path;
+		volatile boolean hasPath;
+		volatile PreparedEdge preparedEdge;
+		volatile boolean hasPreparedEdge;
+
+		Geometry(final float[] srcNodeExtents, final byte srcNodeShape, final byte srcArrow,
+		         final float srcArrowSize, final EdgeAnchors anchors,
+		         final float[] trgNodeExtents, final byte trgNodeShape, final byte trgArrow,
+		         final float trgArrowSize) {
+			this.srcNodeExtents = Arrays.copyOf(srcNodeExtents, 4);
+			this.trgNodeExtents = Arrays.copyOf(trgNodeExtents, 4);
+			this.srcNodeShape = srcNodeShape;
+			this.trgNodeShape = trgNodeShape;
+			this.srcArrow = srcArrow;
+			this.trgArrow = trgArrow;
+			this.srcArrowSize = srcArrowSize;
+			this.trgArrowSize = trgArrowSize;
+
+			final int numAnchors = (anchors == null) ? 0 : anchors.numAnchors();
+			anchorPts = new float[numAnchors * 2];
+
+			for (int i = 0; i < numAnchors; i++)
+				anchors.getAnchor(i, anchorPts, i * 2);
+		}
+
+		/*
+		 * anchorBuff receives an anchor at a time.
+		 */
+		boolean matches(final float[] srcNodeExtents, final byte srcNodeShape,
+		                final byte srcArrow, final float srcArrowSize, final EdgeAnchors anchors,
+		                final float[] trgNodeExtents, final byte trgNodeShape,
+		                final byte trgArrow, final float trgArrowSize,
+		                final float[] anchorBuff) {
+			if ((srcNodeShape != this.srcNodeShape) || (trgNodeShape != this.trgNodeShape)
+			    || (srcArrow != this.srcArrow) || (trgArrow != this.trgArrow)
+			    || (srcArrowSize != this.srcArrowSize) || (trgArrowSize != this.trgArrowSize))
+				return false;
+
+			for (int i = 0; i < 4; i++) {
+				if ((srcNodeExtents[i] != this.srcNodeExtents[i])
+				    || (trgNodeExtents[i] != this.trgNodeExtents[i]))
+					return false;
+			}
+
+			final int numAnchors = (anchors == null) ? 0 : anchors.numAnchors();
+
+			if ((numAnchors * 2) != anchorPts.length)
+				return false;
+
+			for (int i = 0; i < numAnchors; i++) {
+				anchors.getAnchor(i, anchorBuff, 0);
+
+				if ((anchorBuff[0] != anchorPts[i * 2]) || (anchorBuff[1] != anchorPts[(i * 2) + 1]))
+					return false;
+			}
+
+			return true;
+		}
+
+		public int numAnchors() {
+			return anchorPts.length / 2;
+		}
+
+		public void getAnchor(final int anchorIndex, final float[] anchorArr, final int offset) {
+			anchorArr[offset] = anchorPts[anchorIndex * 2];
+			anchorArr[offset + 1] = anchorPts[(anchorIndex * 2) + 1];
+		}
+	}
+}
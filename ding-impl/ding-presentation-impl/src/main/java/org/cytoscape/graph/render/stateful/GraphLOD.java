@@ -224,5 +224,41 @@ public class GraphLOD {
 		return false;
 	}
 
+	/**
+	 * Determines whether or not to render a density map instead of drawing
+	 * nodes and edges one by one.  A density map shades the image by the number
+	 * of nodes and edges that fall into each of its cells, which is much faster
+	 * for very large graphs.  By default this method always returns false.<p>
+	 * A density map is only rendered at the low detail level.  If full detail
+	 * is chosen, the output of this method is ignored.
+	 * @param renderNodeCount the number of nodes that are about to be rendered.
+	 * @param renderEdgeCount the number of edges that are about to be rendered.
+	 * @return true if and only if a density map is to be rendered.
+	 * @see #detail(int, int)
+	 */
+	public boolean densityMap(final int renderNodeCount, final int renderEdgeCount) {
+		return false;
+	}
+
 	public double getNestedNetworkImageScaleFactor() { return 1.0; }
+
+	/**
+	 * Determines whether frames are rendered on a background thread, while the
+	 * previous frame keeps being shown, instead of on the event dispatch thread.
+	 * By default this method returns false.
+	 * @return true if and only if frames are to be rendered in the background.
+	 */
+	public boolean renderInBackground() {
+		return false;
+	}
+
+	/**
+	 * Determines the number of threads that render a frame.  If more than one
+	 * thread is used, the frame is split into tiles that are rendered
+	 * concurrently.  By default this method returns one.
+	 * @return the number of threads that render a frame, at least one.
+	 */
+	public int renderThreadCount() {
+		return 1;
+	}
 }
@@ -26,21 +26,35 @@ package org.cytoscape.graph.render.stateful;
 
 
 import java.awt.Font;
+import java.awt.Graphics2D;
 import java.awt.Paint;
 import java.awt.Shape;
 import java.awt.Stroke;
 import java.awt.TexturePaint;
 import java.awt.geom.GeneralPath;
 import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.cytoscape.graph.render.immed.EdgeAnchors;
 import org.cytoscape.graph.render.immed.GraphGraphics;
+import org.cytoscape.graph.render.immed.PreparedEdge;
 import org.cytoscape.model.CyEdge;
 import org.cytoscape.model.CyNetwork;
 import org.cytoscape.model.CyNode;
 import org.cytoscape.spacial.SpacialEntry2DEnumerator;
 import org.cytoscape.spacial.SpacialIndex2D;
+import org.cytoscape.util.intr.LongEnumerator;
 import org.cytoscape.util.intr.LongHash;
 import org.cytoscape.view.presentation.customgraphics.CustomGraphicLayer;
 
@@ -95,10 +109,32 @@ public final class GraphRenderer {
 	 */
 	public final static int LOD_CUSTOM_GRAPHICS = 0x100;
 
+	/**
+	 * Set at low detail when nodes and edges are shaded by density rather
+	 * than drawn one by one.
+	 */
+	public final static int LOD_DENSITY_MAP = 0x200;
+
+	/**
+	 * The width and height, in pixels, of the tiles that are rendered
+	 * concurrently by renderGraph().
+	 */
+	public final static int TILE_SIZE = 256;
+
 	// No constructor.
 	private GraphRenderer() {
 	}
 
+	/**
+	 * @return a cursor over the adjacent edges of nodes in "graph"; it walks the
+	 *   topology directly if "graph" is an AdjacentEdgeCursorProvider.
+	 */
+	public final static AdjacentEdgeCursor createAdjacentEdgeCursor(final CyNetwork graph) {
+		if (graph instanceof AdjacentEdgeCursorProvider)
+			return ((AdjacentEdgeCursorProvider) graph).createAdjacentEdgeCursor();
+		return new IterableAdjacentEdgeCursor(graph);
+	}
+
 	/**
 	 * Renders a graph.
 	 * @param graph the graph topology; nodes in this graph must correspond to
@@ -119,16 +155,21 @@ public final class GraphRenderer {
 	 * @param nodeBuff this is a computational helper that is required in the
 	 *   implementation of this method; when this method returns, nodeBuff is
 	 *   in a state such that an edge in graph has been rendered by this method
-	 *   if and only if it touches at least one node in this nodeBuff set;
-	 *   no guarantee made regarding edgeless nodes.
-	 * @param grafx the graphics context that is to render this graph.
+	 *   if and only if it touches at least one node in this nodeBuff set,
+	 *   apart from crossing edges (see below); no guarantee made regarding
+	 *   edgeless nodes.
+	 * @param grafx the graphics context that is to render this graph; if
+	 *   grafx is cancelled while rendering, this method returns early and
+	 *   leaves the frame incomplete.
 	 * @param bgPaint the background paint to use when calling grafx.clear().
 	 * @param xCenter the xCenter parameter to use when calling grafx.clear().
 	 * @param yCenter the yCenter parameter to use when calling grafx.clear().
 	 * @param scaleFactor the scaleFactor parameter to use when calling
 	 *   grafx.clear().
 	 * @return bits representing the level of detail that was rendered; the
-	 *   return value is a bitwise-or'ed value of the LOD_* constants.
+	 *   return value is a bitwise-or'ed value of the LOD_* constants.  If
+	 *   LOD_DENSITY_MAP is set, no edge was rendered by itself and nodeBuff is
+	 *   empty.
 	 */
 	public final static int renderGraph(final CyNetwork graph, final SpacialIndex2D nodePositions,
 	                                    final GraphLOD lod, final NodeDetails nodeDetails,
@@ -136,9 +177,166 @@ public final class GraphRenderer {
 	                                    final GraphGraphics grafx, final Paint bgPaint,
 	                                    final double xCenter, final double yCenter,
 	                                    final double scaleFactor) {
-	
+		return renderGraph(graph, nodePositions, null, lod, nodeDetails, edgeDetails, nodeBuff,
+		                   grafx, bgPaint, xCenter, yCenter, scaleFactor, null);
+	}
+
+	/**
+	 * Renders a graph, like the method above.  If tileExecutor is not null and
+	 * grafx renders to a BufferedImage, the image is split into square tiles of
+	 * TILE_SIZE pixels that are rasterized concurrently, each by a task submitted
+	 * to tileExecutor with its own GraphGraphics, and then copied into the image.
+	 * Every tile renders the edges and nodes that overlap it in the same order
+	 * as the untiled renderer, so the image looks the same.  The level of detail
+	 * is chosen once for the whole image.  Each tile only renders the nodes
+	 * whose labels and custom graphics may reach into it, and the edges whose
+	 * bounds overlap it.  The calling thread waits until all tiles have been
+	 * rendered; the tasks never lock anything the caller may hold, but read
+	 * nodeDetails and edgeDetails concurrently, so these must not be modified
+	 * until this method returns.
+	 * @param edgePositions if not null, defines bounding boxes of the edges in
+	 *   graph, keyed by edge SUID, which contain their anchors and arrows; when
+	 *   only the edges of visible nodes are rendered, the edges in this structure
+	 *   that cross the visible window between two invisible nodes are rendered
+	 *   as well, without putting their nodes into nodeBuff.
+	 * @param tileExecutor the executor on which tiles are rendered, or null
+	 *   to render the whole image on the calling thread.
+	 * @return bits representing the level of detail that was rendered; the
+	 *   return value is a bitwise-or'ed value of the LOD_* constants.
+	 */
+	public final static int renderGraph(final CyNetwork graph, final SpacialIndex2D nodePositions,
+	                                    final SpacialIndex2D edgePositions,
+	                                    final GraphLOD lod, final NodeDetails nodeDetails,
+	                                    final EdgeDetails edgeDetails, final LongHash nodeBuff,
+	                                    final GraphGraphics grafx, final Paint bgPaint,
+	                                    final double xCenter, final double yCenter,
+	                                    final double scaleFactor,
+	                                    final ExecutorService tileExecutor) {
+		return renderGraph(graph, nodePositions, edgePositions, lod, nodeDetails, edgeDetails,
+		                   nodeBuff, grafx, bgPaint, xCenter, yCenter, scaleFactor,
+		                   grafx.image.getWidth(null), grafx.image.getHeight(null), 0, 0,
+		                   tileExecutor);
+	}
+
+	/**
+	 * Renders a part of the image that the method above would render into an
+	 * image of width by height pixels, with the same center and scale.  The
+	 * part starts at pixel (partX, partY) of that image and is as large as the
+	 * image of grafx.  The level of detail is chosen for the whole image, and
+	 * nodes and edges outside of the part whose lines, borders, labels or
+	 * custom graphics reach into it are rendered as well, so an image that is
+	 * too large to keep in memory can be rendered one part at a time.  Only the
+	 * nodes and edges that reach into the part are drawn, although the nodes
+	 * and edges of the whole image are still visited once to count them; see
+	 * planImage() to do that only once for all of the parts.
+	 * @return bits representing the level of detail that was rendered; the
+	 *   return value is a bitwise-or'ed value of the LOD_* constants.
+	 */
+	public final static int renderGraph(final CyNetwork graph, final SpacialIndex2D nodePositions,
+	                                    final SpacialIndex2D edgePositions,
+	                                    final GraphLOD lod, final NodeDetails nodeDetails,
+	                                    final EdgeDetails edgeDetails, final LongHash nodeBuff,
+	                                    final GraphGraphics grafx, final Paint bgPaint,
+	                                    final double xCenter, final double yCenter,
+	                                    final double scaleFactor, final int width,
+	                                    final int height, final int partX, final int partY) {
+		return renderGraph(graph, nodePositions, edgePositions, lod, nodeDetails, edgeDetails,
+		                   nodeBuff, grafx, bgPaint, xCenter, yCenter, scaleFactor, width, height,
+		                   partX, partY, null);
+	}
+
+	private final static int renderGraph(final CyNetwork graph, final SpacialIndex2D nodePositions,
+	                                     final SpacialIndex2D edgePositions,
+	                                     final GraphLOD lod, final NodeDetails nodeDetails,
+	                                     final EdgeDetails edgeDetails, final LongHash nodeBuff,
+	                                     final GraphGraphics grafx, final Paint bgPaint,
+	                                     final double xCenter, final double yCenter,
+	                                     final double scaleFactor, final int width,
+	                                     final int height, final int partX, final int partY,
+	                                     final ExecutorService tileExecutor) {
+		nodeBuff.empty(); // Make sure we keep our promise.
+
+		final ImagePlan plan = planImage(graph, nodePositions, edgePositions, lod, nodeBuff,
+		                                 xCenter, yCenter, scaleFactor, width, height);
+		final boolean wholeImage = (partX == 0) && (partY == 0)
+		                           && (grafx.image.getWidth(null) == width)
+		                           && (grafx.image.getHeight(null) == height);
+
+		// A density map counts nodes and edges in parallel rather than in tiles.
+		if (!wholeImage || ((plan.lodBits & LOD_DENSITY_MAP) != 0))
+			return renderImagePart(graph, nodePositions, nodeDetails, edgeDetails, nodeBuff, grafx,
+			                       bgPaint, plan, partX, partY, tileExecutor);
+
+		if ((tileExecutor != null) && (grafx.image instanceof BufferedImage)
+		    && ((width > TILE_SIZE) || (height > TILE_SIZE)))
+			return renderTiles(graph, nodePositions, nodeDetails, edgeDetails, nodeBuff, grafx,
+			                   bgPaint, xCenter, yCenter, scaleFactor, plan.xMin, plan.yMin,
+			                   plan.xMax, plan.yMax, plan.renderEdges, plan.crossingEdges,
+			                   plan.lodBits, tileExecutor);
+
+		// Clear the background.
+		{
+			grafx.clear(bgPaint, xCenter, yCenter, scaleFactor);
+		}
+
+		return renderFrame(graph, nodePositions, nodeDetails, edgeDetails, nodeBuff, grafx, grafx,
+		                   plan.xMin, plan.yMin, plan.xMax, plan.yMax,
+		                   plan.xMin, plan.yMin, plan.xMax, plan.yMax,
+		                   Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY,
+		                   Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, plan.renderEdges,
+		                   plan.crossingEdges, plan.lodBits, null);
+	}
+
+	/**
+	 * Determines what renderGraph() determines for a whole image of width by
+	 * height pixels before rendering any of it: the level of detail, and the
+	 * edges that cross the image between two nodes outside of it.  The parts
+	 * of the image can then be rendered with the plan, which visits the nodes
+	 * and edges of the whole image only once for all of them.  The plan is
+	 * only valid as long as the nodes, edges and their details do not change.
+	 * @param edgePositions if not null, the crossing edges are looked up in it,
+	 *   as they are by renderGraph().
+	 */
+	public final static ImagePlan planImage(final CyNetwork graph,
+	                                        final SpacialIndex2D nodePositions,
+	                                        final SpacialIndex2D edgePositions,
+	                                        final GraphLOD lod, final double xCenter,
+	                                        final double yCenter, final double scaleFactor,
+	                                        final int width, final int height) {
+		return planImage(graph, nodePositions, edgePositions, lod, new LongHash(), xCenter,
+		                 yCenter, scaleFactor, width, height);
+	}
+
+	/**
+	 * Renders the part of an image that starts at pixel (partX, partY) of the
+	 * image and is as large as the image of grafx, like the renderGraph()
+	 * method that renders parts, but with the level of detail and the crossing
+	 * edges of plan.
+	 * @return bits representing the level of detail that was rendered; the
+	 *   return value is a bitwise-or'ed value of the LOD_* constants.
+	 */
+	public final static int renderGraph(final CyNetwork graph, final SpacialIndex2D nodePositions,
+	                                    final NodeDetails nodeDetails,
+	                                    final EdgeDetails edgeDetails, final LongHash nodeBuff,
+	                                    final GraphGraphics grafx, final Paint bgPaint,
+	                                    final ImagePlan plan, final int partX, final int partY) {
 		nodeBuff.empty(); // Make sure we keep our promise.
 
+		return renderImagePart(graph, nodePositions, nodeDetails, edgeDetails, nodeBuff, grafx,
+		                       bgPaint, plan, partX, partY, null);
+	}
+
+	/*
+	 * Counts the nodes and edges of the window of the image and chooses its
+	 * level of detail.  nodeBuff is empty again when this returns.
+	 */
+	private final static ImagePlan planImage(final CyNetwork graph,
+	                                         final SpacialIndex2D nodePositions,
+	                                         final SpacialIndex2D edgePositions,
+	                                         final GraphLOD lod, final LongHash nodeBuff,
+	                                         final double xCenter, final double yCenter,
+	                                         final double scaleFactor, final int width,
+	                                         final int height) {
 		// Define the visible window in node coordinate space.
 		final float xMin;
 
@@ -150,46 +348,19 @@ public final class GraphRenderer {
 
 		// Define the visible window in node coordinate space.
 		final float yMax;
-		xMin = (float) (xCenter - ((0.5d * grafx.image.getWidth(null)) / scaleFactor));
-		yMin = (float) (yCenter - ((0.5d * grafx.image.getHeight(null)) / scaleFactor));
-		xMax = (float) (xCenter + ((0.5d * grafx.image.getWidth(null)) / scaleFactor));
-		yMax = (float) (yCenter + ((0.5d * grafx.image.getHeight(null)) / scaleFactor));
+		xMin = (float) (xCenter - ((0.5d * width) / scaleFactor));
+		yMin = (float) (yCenter - ((0.5d * height) / scaleFactor));
+		xMax = (float) (xCenter + ((0.5d * width) / scaleFactor));
+		yMax = (float) (yCenter + ((0.5d * height) / scaleFactor));
 
-		// Define buffers.  These are of the few objects we're instantiating
-		// directly in this method.
-		final float[] floatBuff1;
-
-		// Define buffers.  These are of the few objects we're instantiating
-		// directly in this method.
-		final float[] floatBuff2;
-
-		// Define buffers.  These are of the few objects we're instantiating
-		// directly in this method.
-		final float[] floatBuff3;
-
-		// Define buffers.  These are of the few objects we're instantiating
-		// directly in this method.
-		final float[] floatBuff4;
-
-		// Define buffers.  These are of the few objects we're instantiating
-		// directly in this method.
-		final float[] floatBuff5;
-		final double[] doubleBuff1;
-		final double[] doubleBuff2;
-		final GeneralPath path2d;
-		floatBuff1 = new float[4];
-		floatBuff2 = new float[4];
-		floatBuff3 = new float[2];
-		floatBuff4 = new float[2];
-		floatBuff5 = new float[8];
-		doubleBuff1 = new double[4];
-		doubleBuff2 = new double[2];
-		path2d = new GeneralPath();
+		final float[] floatBuff1 = new float[4];
+		final AdjacentEdgeCursor edgeCursor = createAdjacentEdgeCursor(graph);
 
 		// Determine the number of nodes and edges that we are about to render.
 		final int renderNodeCount;
 		final int renderEdgeCount;
 		final byte renderEdges;
+		CrossingEdges crossingEdges = null;
 
 		{
 			final SpacialEntry2DEnumerator nodeHits = nodePositions.queryOverlap(xMin, yMin, xMax,
@@ -234,11 +405,10 @@ public final class GraphRenderer {
 					if ((floatBuff1[0] != floatBuff1[2]) && (floatBuff1[1] != floatBuff1[3]))
 						runningNodeCount++;
 
-					final Iterable<CyEdge> touchingEdges = graph.getAdjacentEdgeIterable(graph.getNode(node),CyEdge.Type.ANY);
+					edgeCursor.reset(node, CyEdge.Type.ANY);
 
-					for ( CyEdge e : touchingEdges ) {
-						final long edge = e.getSUID(); 
-						final long otherNode = node ^ e.getSource().getSUID() ^ e.getTarget().getSUID();
+					while (edgeCursor.next()) {
+						final long otherNode = node ^ edgeCursor.getSourceSUID() ^ edgeCursor.getTargetSUID();
 
 						if (nodeBuff.get(otherNode) < 0)
 							runningEdgeCount++;
@@ -247,9 +417,16 @@ public final class GraphRenderer {
 					nodeBuff.put(node);
 				}
 
+				nodeBuff.empty();
+
+				if (edgePositions != null) {
+					crossingEdges = queryCrossingEdges(graph, nodePositions, edgePositions,
+					                                   xMin, yMin, xMax, yMax);
+					runningEdgeCount += crossingEdges.edges.size();
+				}
+
 				renderNodeCount = runningNodeCount;
 				renderEdgeCount = runningEdgeCount;
-				nodeBuff.empty();
 			}
 		}
 
@@ -286,71 +463,346 @@ public final class GraphRenderer {
 
 				if (lod.customGraphics(renderNodeCount, renderEdgeCount))
 					lodTemp |= LOD_CUSTOM_GRAPHICS;
+			} else if (lod.densityMap(renderNodeCount, renderEdgeCount)) {
+				lodTemp |= LOD_DENSITY_MAP;
 			}
 
 			lodBits = lodTemp;
 		}
-		// Clear the background.
-		{
-			grafx.clear(bgPaint, xCenter, yCenter, scaleFactor);
+
+		return new ImagePlan(xCenter, yCenter, scaleFactor, width, height, xMin, yMin, xMax, yMax,
+		                     renderEdges, crossingEdges, lodBits);
+	}
+
+	/*
+	 * Renders the part of the image of plan at (partX, partY) into grafx,
+	 * clearing it first.
+	 */
+	private final static int renderImagePart(final CyNetwork graph,
+	                                         final SpacialIndex2D nodePositions,
+	                                         final NodeDetails nodeDetails,
+	                                         final EdgeDetails edgeDetails,
+	                                         final LongHash nodeBuff, final GraphGraphics grafx,
+	                                         final Paint bgPaint, final ImagePlan plan,
+	                                         final int partX, final int partY,
+	                                         final ExecutorService tileExecutor) {
+		final double scaleFactor = plan.scaleFactor;
+		final int partWidth = grafx.image.getWidth(null);
+		final int partHeight = grafx.image.getHeight(null);
+		final double partXCenter = plan.xCenter
+		                           + ((partX + (0.5d * partWidth) - (0.5d * plan.width)) / scaleFactor);
+		final double partYCenter = plan.yCenter
+		                           + ((partY + (0.5d * partHeight) - (0.5d * plan.height)) / scaleFactor);
+		final float partXMin = (float) (plan.xMin + (partX / scaleFactor));
+		final float partYMin = (float) (plan.yMin + (partY / scaleFactor));
+		final float partXMax = (float) (plan.xMin + ((partX + partWidth) / scaleFactor));
+		final float partYMax = (float) (plan.yMin + ((partY + partHeight) / scaleFactor));
+
+		grafx.clear(bgPaint, partXCenter, partYCenter, scaleFactor);
+
+		if ((plan.lodBits & LOD_DENSITY_MAP) != 0) {
+			DensityMap.render(graph, nodePositions, nodeDetails, edgeDetails, grafx,
+			                  partXMin, partYMin, partXMax, partYMax, scaleFactor, plan.renderEdges,
+			                  (plan.crossingEdges == null) ? null
+			                                               : plan.crossingEdges.edges.elements(),
+			                  tileExecutor);
+
+			return plan.lodBits;
 		}
 
+		// As for tiles, nodes whose borders, labels or custom graphics reach
+		// into the part are rendered, and so are edges within a pixel of it.
+		// The margin is measured over the whole image, so only for the first
+		// part.
+		float nodeMargin = plan.nodeMargin;
+
+		if (nodeMargin < 0.0f) {
+			nodeMargin = ((plan.lodBits & LOD_HIGH_DETAIL) == 0) ? 0.0f
+			             : computeNodeMargin(graph, nodePositions, nodeDetails, grafx, plan.xMin,
+			                                 plan.yMin, plan.xMax, plan.yMax, scaleFactor,
+			                                 plan.lodBits, null);
+			plan.nodeMargin = nodeMargin;
+		}
+
+		return renderPart(graph, nodePositions, nodeDetails, edgeDetails, nodeBuff, grafx, grafx,
+		                  plan.xMin, plan.yMin, plan.xMax, plan.yMax, partXMin, partYMin, partXMax,
+		                  partYMax, nodeMargin, (float) (1.0d / scaleFactor), plan.renderEdges,
+		                  plan.crossingEdges, plan.lodBits, null);
+	}
+
+	/**
+	 * The level of detail and the crossing edges of an image, as determined
+	 * by planImage(), for rendering the image in parts.
+	 */
+	public final static class ImagePlan {
+		final double xCenter;
+		final double yCenter;
+		final double scaleFactor;
+		final int width;
+		final int height;
+
+		// The visible window in node coordinate space.
+		final float xMin;
+		final float yMin;
+		final float xMax;
+		final float yMax;
+
+		final byte renderEdges;
+		final CrossingEdges crossingEdges;
+		final int lodBits;
+
+		// How far nodes reach beyond their extents, or -1 until the first part
+		// is rendered.
+		volatile float nodeMargin = -1.0f;
+
+		ImagePlan(final double xCenter, final double yCenter, final double scaleFactor,
+		          final int width, final int height, final float xMin, final float yMin,
+		          final float xMax, final float yMax, final byte renderEdges,
+		          final CrossingEdges crossingEdges, final int lodBits) {
+			this.xCenter = xCenter;
+			this.yCenter = yCenter;
+			this.scaleFactor = scaleFactor;
+			this.width = width;
+			this.height = height;
+			this.xMin = xMin;
+			this.yMin = yMin;
+			this.xMax = xMax;
+			this.yMax = yMax;
+			this.renderEdges = renderEdges;
+			this.crossingEdges = crossingEdges;
+			this.lodBits = lodBits;
+		}
+
+		/**
+		 * Returns true if this is the plan of an image of width by height
+		 * pixels with the given center and scale.
+		 */
+		public boolean isFor(final double xCenter, final double yCenter, final double scaleFactor,
+		                     final int width, final int height) {
+			return (this.xCenter == xCenter) && (this.yCenter == yCenter)
+			       && (this.scaleFactor == scaleFactor) && (this.width == width)
+			       && (this.height == height);
+		}
+
+		/**
+		 * Returns the level of detail of the image, as a bitwise-or'ed value
+		 * of the LOD_* constants.
+		 */
+		public int getLodBits() {
+			return lodBits;
+		}
+	}
+
+	/*
+	 * Renders the part [partXMin, partYMin, partXMax, partYMax] of the window
+	 * [xMin, yMin, xMax, yMax] into grafx, which has been cleared to show that
+	 * part.  Nodes must still overlap the window, like they do when the window
+	 * is rendered as a whole, but only those within nodeMargin of the part are
+	 * rendered, and only the edges within edgeMargin of it are drawn.
+	 */
+	private final static int renderPart(final CyNetwork graph, final SpacialIndex2D nodePositions,
+	                                    final NodeDetails nodeDetails,
+	                                    final EdgeDetails edgeDetails, final LongHash nodeBuff,
+	                                    final GraphGraphics grafx, final GraphGraphics frame,
+	                                    final float xMin, final float yMin, final float xMax,
+	                                    final float yMax, final float partXMin,
+	                                    final float partYMin, final float partXMax,
+	                                    final float partYMax, final float nodeMargin,
+	                                    final float edgeMargin, final byte renderEdges,
+	                                    final CrossingEdges crossingEdges, final int lodBits,
+	                                    final Map<CyNode, TexturePaint> nestedNetworkPaints) {
+		return renderFrame(graph, nodePositions, nodeDetails, edgeDetails, nodeBuff, grafx, frame,
+		                   xMin, yMin, xMax, yMax,
+		                   Math.max(xMin, partXMin - nodeMargin),
+		                   Math.max(yMin, partYMin - nodeMargin),
+		                   Math.min(xMax, partXMax + nodeMargin),
+		                   Math.min(yMax, partYMax + nodeMargin),
+		                   partXMin - edgeMargin, partYMin - edgeMargin,
+		                   partXMax + edgeMargin, partYMax + edgeMargin,
+		                   renderEdges, crossingEdges, lodBits, nestedNetworkPaints);
+	}
+
+	/*
+	 * Finds the edges in edgePositions that cross the window between two nodes
+	 * that don't overlap it.
+	 */
+	private final static CrossingEdges queryCrossingEdges(final CyNetwork graph,
+	                                                      final SpacialIndex2D nodePositions,
+	                                                      final SpacialIndex2D edgePositions,
+	                                                      final float xMin, final float yMin,
+	                                                      final float xMax, final float yMax) {
+		final CrossingEdges crossingEdges = new CrossingEdges();
+		final SpacialEntry2DEnumerator edgeHits = edgePositions.queryOverlap(xMin, yMin, xMax,
+		                                                                     yMax, null, 0,
+		                                                                     false);
+		final float[] extentsBuff = new float[4];
+
+		while (edgeHits.numRemaining() > 0) {
+			final long edgeSUID = edgeHits.nextLong();
+			final CyEdge edge = graph.getEdge(edgeSUID);
+
+			if (edge == null)
+				continue;
+
+			final long source = edge.getSource().getSUID();
+
+			if (overlapsWindow(nodePositions, source, extentsBuff, xMin, yMin, xMax, yMax)
+			    || overlapsWindow(nodePositions, edge.getTarget().getSUID(), extentsBuff,
+			                      xMin, yMin, xMax, yMax))
+				continue;
+
+			crossingEdges.edges.put(edgeSUID);
+			crossingEdges.sources.put(source);
+		}
+
+		return crossingEdges;
+	}
+
+	private final static boolean overlapsWindow(final SpacialIndex2D nodePositions,
+	                                            final long node, final float[] extentsBuff,
+	                                            final float xMin, final float yMin,
+	                                            final float xMax, final float yMax) {
+		if (!nodePositions.exists(node, extentsBuff, 0))
+			throw new IllegalStateException("nodePositions not recognizing node that exists in graph");
+
+		return (extentsBuff[0] <= xMax) && (extentsBuff[2] >= xMin) && (extentsBuff[1] <= yMax)
+		       && (extentsBuff[3] >= yMin);
+	}
+
+	/**
+	 * Renders the edges and nodes of a frame whose level of detail has been
+	 * determined already.  Edges are rendered for nodes in the window
+	 * [xMin, yMin, xMax, yMax], and so are crossingEdges if it is not null;
+	 * nodes are rendered if they overlap the window
+	 * [nodeXMin, nodeYMin, nodeXMax, nodeYMax].  Edges are visited in the same
+	 * order regardless of the windows, but only drawn if their bounds overlap
+	 * [edgeXMin, edgeYMin, edgeXMax, edgeYMax].  Rendering stops early if frame
+	 * is cancelled.  If nestedNetworkPaints is not null, nested network images
+	 * are taken from it rather than from nodeDetails.
+	 */
+	private final static int renderFrame(final CyNetwork graph, final SpacialIndex2D nodePositions,
+	                                     final NodeDetails nodeDetails,
+	                                     final EdgeDetails edgeDetails, final LongHash nodeBuff,
+	                                     final GraphGraphics grafx, final GraphGraphics frame,
+	                                     final float xMin, final float yMin, final float xMax,
+	                                     final float yMax, final float nodeXMin,
+	                                     final float nodeYMin, final float nodeXMax,
+	                                     final float nodeYMax, final float edgeXMin,
+	                                     final float edgeYMin, final float edgeXMax,
+	                                     final float edgeYMax, final byte renderEdges,
+	                                     final CrossingEdges crossingEdges, final int lodBits,
+	                                     final Map<CyNode, TexturePaint> nestedNetworkPaints) {
+
+		// Define buffers.  These are of the few objects we're instantiating
+		// directly in this method.
+		final float[] floatBuff1;
+
+		// Define buffers.  These are of the few objects we're instantiating
+		// directly in this method.
+		final float[] floatBuff2;
+
+		// Define buffers.  These are of the few objects we're instantiating
+		// directly in this method.
+		final float[] floatBuff3;
+
+		// Define buffers.  These are of the few objects we're instantiating
+		// directly in this method.
+		final float[] floatBuff4;
+
+		// Define buffers.  These are of the few objects we're instantiating
+		// directly in this method.
+		final float[] floatBuff5;
+		final double[] doubleBuff1;
+		final double[] doubleBuff2;
+		final GeneralPath path2d;
+		floatBuff1 = new float[4];
+		floatBuff2 = new float[4];
+		floatBuff3 = new float[2];
+		floatBuff4 = new float[2];
+		floatBuff5 = new float[8];
+		doubleBuff1 = new double[4];
+		doubleBuff2 = new double[2];
+		path2d = new GeneralPath();
+		final AdjacentEdgeCursor edgeCursor = createAdjacentEdgeCursor(graph);
+		final EdgeGeometryCache geometryCache = edgeDetails.getGeometryCache();
+
 		// Render the edges first.  No edge shall be rendered twice.  Render edge
 		// labels.  A label is not necessarily on top of every edge; it is only
 		// on top of the edge it belongs to.
 		if (renderEdges >= 0) {
-			final SpacialEntry2DEnumerator nodeHits;
-
-			if (renderEdges > 0)
-				// We want to render edges in the same order (back to front) that
-				// we would use to render just edges on visible nodes; this is assuming
-				// that our spacial index has the subquery order-preserving property.
-				nodeHits = nodePositions.queryOverlap(Float.NEGATIVE_INFINITY,
-				                                      Float.NEGATIVE_INFINITY,
-				                                      Float.POSITIVE_INFINITY,
-				                                      Float.POSITIVE_INFINITY, null, 0, false);
-			else
-				nodeHits = nodePositions.queryOverlap(xMin, yMin, xMax, yMax, null, 0, false);
-		
+			final SpacialEntry2DEnumerator nodeHits = queryEdgeNodes(nodePositions, xMin, yMin,
+			                                                         xMax, yMax, renderEdges,
+			                                                         crossingEdges);
+
 			if ((lodBits & LOD_HIGH_DETAIL) == 0) { // Low detail.
 
 				final int nodeHitCount = nodeHits.numRemaining();
 
 				for (int i = 0; i < nodeHitCount; i++) {
+					if (frame.isCancelled()) {
+						nodeBuff.empty();
+						return lodBits;
+					}
+
 					final long node = nodeHits.nextExtents(floatBuff1, 0);
+					final boolean crossingOnly = isCrossingSource(crossingEdges, node);
 
 					// Casting to double and then back we could achieve better accuracy
 					// at the expense of performance.
 					final float nodeX = (floatBuff1[0] + floatBuff1[2]) / 2;
 					final float nodeY = (floatBuff1[1] + floatBuff1[3]) / 2;
 
-					Iterable<CyEdge> touchingEdges = graph.getAdjacentEdgeIterable(graph.getNode(node),CyEdge.Type.ANY);
+					edgeCursor.reset(node, CyEdge.Type.ANY);
 
-					for ( CyEdge edge : touchingEdges ) {
-						final long otherNode = node ^ edge.getSource().getSUID() ^ edge.getTarget().getSUID();
+					while (edgeCursor.next()) {
+						final long otherNode = node ^ edgeCursor.getSourceSUID() ^ edgeCursor.getTargetSUID();
+
+						if (crossingOnly && !isCrossingEdge(crossingEdges, node, edgeCursor))
+							continue;
 
 						if (nodeBuff.get(otherNode) < 0) { // Has not yet been rendered.
 							nodePositions.exists(otherNode, floatBuff2, 0);
-							grafx.drawEdgeLow(nodeX, nodeY, 
-							                  // Again, casting issue - tradeoff between
-							                  // accuracy and performance.
-							                  (floatBuff2[0] + floatBuff2[2]) / 2,
-							                  (floatBuff2[1] + floatBuff2[3]) / 2,
+
+							// Again, casting issue - tradeoff between
+							// accuracy and performance.
+							final float otherNodeX = (floatBuff2[0] + floatBuff2[2]) / 2;
+							final float otherNodeY = (floatBuff2[1] + floatBuff2[3]) / 2;
+
+							if ((Math.max(nodeX, otherNodeX) < edgeXMin)
+							    || (Math.min(nodeX, otherNodeX) > edgeXMax)
+							    || (Math.max(nodeY, otherNodeY) < edgeYMin)
+							    || (Math.min(nodeY, otherNodeY) > edgeYMax))
+								continue;
+
+							final CyEdge edge = edgeCursor.getEdge();
+							grafx.drawEdgeLow(nodeX, nodeY, otherNodeX, otherNodeY,
 							                  edgeDetails.getColorLowDetail(edge));
 						}
 					}
 
-					nodeBuff.put(node);
+					if (!crossingOnly)
+						nodeBuff.put(node);
 				}
 			} else { // High detail.
 				while (nodeHits.numRemaining() > 0) {
+					if (frame.isCancelled()) {
+						nodeBuff.empty();
+						return lodBits;
+					}
+
 					final long node = nodeHits.nextExtents(floatBuff1, 0);
+					final boolean crossingOnly = isCrossingSource(crossingEdges, node);
 					final CyNode cyNode = graph.getNode(node);
 					final byte nodeShape = nodeDetails.getShape(cyNode);
-					Iterable<CyEdge> touchingEdges = graph.getAdjacentEdgeIterable(cyNode,CyEdge.Type.ANY);
-					for (final CyEdge edge : touchingEdges ) {
-						final long otherNode = node ^ edge.getSource().getSUID()
-							^ edge.getTarget().getSUID();
+					edgeCursor.reset(node, CyEdge.Type.ANY);
+					while (edgeCursor.next()) {
+						if (crossingOnly && !isCrossingEdge(crossingEdges, node, edgeCursor))
+							continue;
+
+						final CyEdge edge = edgeCursor.getEdge();
+						final long edgeSUID = edgeCursor.getEdgeSUID();
+						final long otherNode = node ^ edgeCursor.getSourceSUID()
+							^ edgeCursor.getTargetSUID();
 						final CyNode otherCyNode = graph.getNode(otherNode);
 
 						if (nodeBuff.get(otherNode) < 0) { // Has not yet been rendered.
@@ -367,7 +819,7 @@ public final class GraphRenderer {
 							final byte trgShape;
 							final float[] srcExtents;
 							final float[] trgExtents;
-							if (node == edge.getSource().getSUID()) {
+							if (node == edgeCursor.getSourceSUID()) {
 								srcShape = nodeShape;
 								trgShape = otherNodeShape;
 								srcExtents = floatBuff1;
@@ -379,255 +831,24 @@ public final class GraphRenderer {
 								trgExtents = floatBuff1;
 							}
 
-							// Compute visual attributes that do not depend on LOD.
-							final float thickness = edgeDetails.getWidth(edge);
-							final Stroke edgeStroke = edgeDetails.getStroke(edge);
-							final Paint segPaint = edgeDetails.getPaint(edge);
-
-							// Compute arrows.
-							final byte srcArrow;
-
-							// Compute arrows.
-							final byte trgArrow;
-							final float srcArrowSize;
-							final float trgArrowSize;
-							final Paint srcArrowPaint;
-							final Paint trgArrowPaint;
-
-							if ((lodBits & LOD_EDGE_ARROWS) == 0) { // Not rendering arrows.
-								trgArrow = srcArrow = GraphGraphics.ARROW_NONE;
-								trgArrowSize = srcArrowSize = 0.0f;
-								trgArrowPaint = srcArrowPaint = null;
-							} else { // Rendering edge arrows.
-								srcArrow = edgeDetails.getSourceArrowShape(edge);
-								trgArrow = edgeDetails.getTargetArrowShape(edge);
-								srcArrowSize = ((srcArrow == GraphGraphics.ARROW_NONE) 
-								                 ? 0.0f
-								                 : edgeDetails.getSourceArrowSize(edge));
-								trgArrowSize = ((trgArrow == GraphGraphics.ARROW_NONE)
-								                 ? 0.0f
-								                 : edgeDetails.getTargetArrowSize(edge));
-								srcArrowPaint = ((srcArrow == GraphGraphics.ARROW_NONE)
-								                 ? null : edgeDetails.getSourceArrowPaint(edge));
-								trgArrowPaint = ((trgArrow == GraphGraphics.ARROW_NONE)
-								                 ? null : edgeDetails.getTargetArrowPaint(edge));
-							}
-
-							// Compute the anchors to use when rendering edge.
-							final EdgeAnchors anchors = (((lodBits & LOD_EDGE_ANCHORS) == 0) ? null
-							                                                                 : edgeDetails
-							                                                                   .getAnchors(edge));
-
-							if (!computeEdgeEndpoints(grafx, srcExtents, srcShape, srcArrow,
-							                          srcArrowSize, anchors, trgExtents, trgShape,
-							                          trgArrow, trgArrowSize, floatBuff3, floatBuff4))
-								continue;
-
-							final float srcXAdj = floatBuff3[0];
-							final float srcYAdj = floatBuff3[1];
-							final float trgXAdj = floatBuff4[0];
-							final float trgYAdj = floatBuff4[1];
-
-							grafx.drawEdgeFull(srcArrow, srcArrowSize, srcArrowPaint, trgArrow,
-							                   trgArrowSize, trgArrowPaint, srcXAdj, srcYAdj,
-							                   anchors, trgXAdj, trgYAdj, thickness, edgeStroke, segPaint);
-
-							// Take care of edge anchor rendering.
-							if (anchors != null) {
-								for (int k = 0; k < anchors.numAnchors(); k++) {
-									final float anchorSize;
-
-									if ((anchorSize = edgeDetails.getAnchorSize(edge, k)) > 0.0f) {
-										anchors.getAnchor(k, floatBuff4, 0);
-										grafx.drawNodeFull(GraphGraphics.SHAPE_RECTANGLE,
-										                   (float) (floatBuff4[0]
-										                   - (anchorSize / 2.0d)),
-										                   (float) (floatBuff4[1]
-										                   - (anchorSize / 2.0d)),
-										                   (float) (floatBuff4[0]
-										                   + (anchorSize / 2.0d)),
-										                   (float) (floatBuff4[1]
-										                   + (anchorSize / 2.0d)),
-										                   edgeDetails.getAnchorPaint(edge, k), 0.0f, null,
-										                   null);
-									}
-								}
-							}
-
-							// Take care of label rendering.
-							if ((lodBits & LOD_EDGE_LABELS) != 0) {
-								
-								final int labelCount = edgeDetails.getLabelCount(edge);
-								for (int labelInx = 0; labelInx < labelCount; labelInx++) {
-									final String text = edgeDetails.getLabelText(edge, labelInx);
-									final Font font = edgeDetails.getLabelFont(edge, labelInx);
-									final double fontScaleFactor = edgeDetails.getLabelScaleFactor(edge, labelInx);
-									final Paint paint = edgeDetails.getLabelPaint(edge, labelInx);
-									final byte textAnchor = edgeDetails.getLabelTextAnchor(edge, labelInx);
-									final byte edgeAnchor = edgeDetails.getLabelEdgeAnchor(edge, labelInx);
-									final float offsetVectorX = edgeDetails.getLabelOffsetVectorX(edge, labelInx);
-									final float offsetVectorY = edgeDetails.getLabelOffsetVectorY(edge, labelInx);
-									final byte justify;
-
-									if (text.indexOf('\n') >= 0)
-										justify = edgeDetails.getLabelJustify(edge, labelInx);
-									else
-										justify = NodeDetails.LABEL_WRAP_JUSTIFY_CENTER;
-
-									final double edgeAnchorPointX;
-									final double edgeAnchorPointY;
-
-									final double edgeLabelWidth = edgeDetails.getLabelWidth(edge);
-
-									if (edgeAnchor == EdgeDetails.EDGE_ANCHOR_SOURCE) {
-										edgeAnchorPointX = srcXAdj;
-										edgeAnchorPointY = srcYAdj;
-									} else if (edgeAnchor == EdgeDetails.EDGE_ANCHOR_TARGET) {
-										edgeAnchorPointX = trgXAdj;
-										edgeAnchorPointY = trgYAdj;
-									} else if (edgeAnchor == EdgeDetails.EDGE_ANCHOR_MIDPOINT) {
-										if (!grafx.getEdgePath(srcArrow, srcArrowSize, trgArrow,
-										                       trgArrowSize, srcXAdj, srcYAdj, anchors,
-										                       trgXAdj, trgYAdj, path2d)) {
-											continue;
-										}
-
-										// Count the number of path segments.  This count
-										// includes the initial SEG_MOVETO.  So, for example, a
-										// path composed of 2 cubic curves would have a numPaths
-										// of 3.  Note that numPaths will be at least 2 in all
-										// cases.
-										final int numPaths;
-
-										{
-											final PathIterator pathIter = path2d.getPathIterator(null);
-											int numPathsTemp = 0;
-
-											while (!pathIter.isDone()) {
-												numPathsTemp++; // pathIter.currentSegment().
-												pathIter.next();
-											}
-
-											numPaths = numPathsTemp;
-										}
-
-										// Compute "midpoint" of edge.
-										if ((numPaths % 2) != 0) {
-											final PathIterator pathIter = path2d.getPathIterator(null);
-
-											for (int i = numPaths / 2; i > 0; i--)
-												pathIter.next();
-
-											final int subPathType = pathIter.currentSegment(floatBuff5);
-
-											if (subPathType == PathIterator.SEG_LINETO) {
-												edgeAnchorPointX = floatBuff5[0];
-												edgeAnchorPointY = floatBuff5[1];
-											} else if (subPathType == PathIterator.SEG_QUADTO) {
-												edgeAnchorPointX = floatBuff5[2];
-												edgeAnchorPointY = floatBuff5[3];
-											} else if (subPathType == PathIterator.SEG_CUBICTO) {
-												edgeAnchorPointX = floatBuff5[4];
-												edgeAnchorPointY = floatBuff5[5];
-											} else
-												throw new IllegalStateException("got unexpected PathIterator segment type: "
-												                                + subPathType);
-										} else { // numPaths % 2 == 0.
-
-											final PathIterator pathIter = path2d.getPathIterator(null);
-
-											for (int i = numPaths / 2; i > 0; i--) {
-												if (i == 1) {
-													final int subPathType = pathIter.currentSegment(floatBuff5);
-
-													if ((subPathType == PathIterator.SEG_MOVETO)
-													    || (subPathType == PathIterator.SEG_LINETO)) {
-														floatBuff5[6] = floatBuff5[0];
-														floatBuff5[7] = floatBuff5[1];
-													} else if (subPathType == PathIterator.SEG_QUADTO) {
-														floatBuff5[6] = floatBuff5[2];
-														floatBuff5[7] = floatBuff5[3];
-													} else if (subPathType == PathIterator.SEG_CUBICTO) {
-														floatBuff5[6] = floatBuff5[4];
-														floatBuff5[7] = floatBuff5[5];
-													} else
-														throw new IllegalStateException("got unexpected PathIterator segment type: "
-														                                + subPathType);
-												}
-
-												pathIter.next();
-											}
-
-											final int subPathType = pathIter.currentSegment(floatBuff5);
-
-											if (subPathType == PathIterator.SEG_LINETO) {
-												edgeAnchorPointX = (0.5d * floatBuff5[6])
-												                   + (0.5d * floatBuff5[0]);
-												edgeAnchorPointY = (0.5d * floatBuff5[7])
-												                   + (0.5d * floatBuff5[1]);
-											} else if (subPathType == PathIterator.SEG_QUADTO) {
-												edgeAnchorPointX = (0.25d * floatBuff5[6])
-												                   + (0.5d * floatBuff5[0])
-												                   + (0.25d * floatBuff5[2]);
-												edgeAnchorPointY = (0.25d * floatBuff5[7])
-												                   + (0.5d * floatBuff5[1])
-												                   + (0.25d * floatBuff5[3]);
-											} else if (subPathType == PathIterator.SEG_CUBICTO) {
-												edgeAnchorPointX = (0.125d * floatBuff5[6])
-												                   + (0.375d * floatBuff5[0])
-												                   + (0.375d * floatBuff5[2])
-												                   + (0.125d * floatBuff5[4]);
-												edgeAnchorPointY = (0.125d * floatBuff5[7])
-												                   + (0.375d * floatBuff5[1])
-												                   + (0.375d * floatBuff5[3])
-												                   + (0.125d * floatBuff5[5]);
-											} else
-												throw new IllegalStateException("got unexpected PathIterator segment type: "
-												                                + subPathType);
-										}
-									} else
-										throw new IllegalStateException("encountered an invalid EDGE_ANCHOR_* constant: "
-										                                + edgeAnchor);
-
-									final MeasuredLineCreator measuredText = 
-										new MeasuredLineCreator(text,font,
-										                         grafx.getFontRenderContextFull(),
-										                         fontScaleFactor, 
-										                         (lodBits&LOD_TEXT_AS_SHAPE)!= 0, 
-										                         edgeLabelWidth);
-
-									doubleBuff1[0] = -0.5d * measuredText.getMaxLineWidth();
-									doubleBuff1[1] = -0.5d * measuredText.getTotalHeight(); 
-									doubleBuff1[2] = 0.5d * measuredText.getMaxLineWidth(); 
-									doubleBuff1[3] = 0.5d * measuredText.getTotalHeight(); 
-									lemma_computeAnchor(textAnchor, doubleBuff1, doubleBuff2);
-
-									final double textXCenter = edgeAnchorPointX - doubleBuff2[0]
-									                           + offsetVectorX;
-									final double textYCenter = edgeAnchorPointY - doubleBuff2[1]
-									                           + offsetVectorY;
-									TextRenderingUtils.renderHorizontalText(grafx, measuredText, 
-									                                        font, fontScaleFactor,
-									                                        (float) textXCenter,
-									                                        (float) textYCenter,
-									                                        justify, paint,
-									                                        (lodBits
-									                                        & LOD_TEXT_AS_SHAPE) != 0);
-								}
-							}
+							renderEdgeHigh(edgeDetails, grafx, geometryCache, edge, edgeSUID, srcExtents,
+							               srcShape, trgExtents, trgShape, lodBits, edgeXMin, edgeYMin,
+							               edgeXMax, edgeYMax, floatBuff3, floatBuff4, floatBuff5,
+							               doubleBuff1, doubleBuff2, path2d);
 						}
 					}
 
-					nodeBuff.put(node);
+					if (!crossingOnly)
+						nodeBuff.put(node);
 				}
 			}
 		}
 		// Render nodes and labels.  A label is not necessarily on top of every
 		// node; it is only on top of the node it belongs to.
 		{
-			final SpacialEntry2DEnumerator nodeHits = nodePositions.queryOverlap(xMin, yMin, xMax,
-			                                                                     yMax, null, 0,
-			                                                                     false);
+			final SpacialEntry2DEnumerator nodeHits = nodePositions.queryOverlap(nodeXMin, nodeYMin,
+			                                                                     nodeXMax, nodeYMax,
+			                                                                     null, 0, false);
 
 			if ((lodBits & LOD_HIGH_DETAIL) == 0) { // Low detail.
 
@@ -642,10 +863,14 @@ public final class GraphRenderer {
 				}
 			} else { // High detail.
 				while (nodeHits.numRemaining() > 0) {
+					if (frame.isCancelled())
+						return lodBits;
+
 					final long node = nodeHits.nextExtents(floatBuff1, 0);
 					final CyNode cyNode = graph.getNode(node);
 					
-					renderNodeHigh(graph, grafx, node, cyNode, floatBuff1, doubleBuff1, doubleBuff2, nodeDetails, lodBits);
+					renderNodeHigh(graph, grafx, node, cyNode, floatBuff1, doubleBuff1, doubleBuff2, nodeDetails,
+					               nestedNetworkPaints, lodBits);
 				
 
 					// Take care of label rendering.
@@ -682,7 +907,7 @@ public final class GraphRenderer {
 
 							final double nodeAnchorPointX = doubleBuff2[0];
 							final double nodeAnchorPointY = doubleBuff2[1];
-							final MeasuredLineCreator measuredText = new MeasuredLineCreator(
+							final MeasuredLineCreator measuredText = MeasuredLineCreator.getMeasuredLineCreator(
 							    text, font, grafx.getFontRenderContextFull(), fontScaleFactor,
 							    (lodBits & LOD_TEXT_AS_SHAPE) != 0, nodeLabelWidth);
 
@@ -710,6 +935,1114 @@ public final class GraphRenderer {
 		return lodBits;
 	}
 
+	/*
+	 * Returns the nodes whose adjacent edges are rendered, in the order in
+	 * which their edges are rendered.
+	 */
+	private final static SpacialEntry2DEnumerator queryEdgeNodes(final SpacialIndex2D nodePositions,
+	                                                             final float xMin,
+	                                                             final float yMin,
+	                                                             final float xMax,
+	                                                             final float yMax,
+	                                                             final byte renderEdges,
+	                                                             final CrossingEdges crossingEdges) {
+		if (renderEdges > 0)
+			// We want to render edges in the same order (back to front) that
+			// we would use to render just edges on visible nodes; this is assuming
+			// that our spacial index has the subquery order-preserving property.
+			return nodePositions.queryOverlap(Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY,
+			                                  Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY,
+			                                  null, 0, false);
+
+		if (crossingEdges == null)
+			return nodePositions.queryOverlap(xMin, yMin, xMax, yMax, null, 0, false);
+
+		// The sources of crossing edges follow the visible nodes.
+		return new ConcatenatedEnumerator(nodePositions.queryOverlap(xMin, yMin, xMax, yMax,
+		                                                             null, 0, false),
+		                                  crossingEdges.sources.elements(), nodePositions);
+	}
+
+	/*
+	 * Renders an edge, its arrows, anchor handles and labels in high detail,
+	 * unless the window [edgeXMin, edgeYMin, edgeXMax, edgeYMax] is finite and
+	 * the edge doesn't overlap it.
+	 */
+	private final static void renderEdgeHigh(final EdgeDetails edgeDetails,
+	                                         final GraphGraphics grafx,
+	                                         final EdgeGeometryCache geometryCache,
+	                                         final CyEdge edge, final long edgeSUID,
+	                                         final float[] srcExtents, final byte srcShape,
+	                                         final float[] trgExtents, final byte trgShape,
+	                                         final int lodBits, final float edgeXMin,
+	                                         final float edgeYMin, final float edgeXMax,
+	                                         final float edgeYMax, final float[] floatBuff3,
+	                                         final float[] floatBuff4, final float[] floatBuff5,
+	                                         final double[] doubleBuff1,
+	                                         final double[] doubleBuff2, final GeneralPath path2d) {
+		// Compute visual attributes that do not depend on LOD.
+		final float thickness = edgeDetails.getWidth(edge);
+		final Stroke edgeStroke = edgeDetails.getStroke(edge);
+		final Paint segPaint = edgeDetails.getPaint(edge);
+
+		// Compute arrows.
+		final byte srcArrow;
+
+		// Compute arrows.
+		final byte trgArrow;
+		final float srcArrowSize;
+		final float trgArrowSize;
+		final Paint srcArrowPaint;
+		final Paint trgArrowPaint;
+
+		if ((lodBits & LOD_EDGE_ARROWS) == 0) { // Not rendering arrows.
+			trgArrow = srcArrow = GraphGraphics.ARROW_NONE;
+			trgArrowSize = srcArrowSize = 0.0f;
+			trgArrowPaint = srcArrowPaint = null;
+		} else { // Rendering edge arrows.
+			srcArrow = edgeDetails.getSourceArrowShape(edge);
+			trgArrow = edgeDetails.getTargetArrowShape(edge);
+			srcArrowSize = ((srcArrow == GraphGraphics.ARROW_NONE) 
+			                 ? 0.0f
+			                 : edgeDetails.getSourceArrowSize(edge));
+			trgArrowSize = ((trgArrow == GraphGraphics.ARROW_NONE)
+			                 ? 0.0f
+			                 : edgeDetails.getTargetArrowSize(edge));
+			srcArrowPaint = ((srcArrow == GraphGraphics.ARROW_NONE)
+			                 ? null : edgeDetails.getSourceArrowPaint(edge));
+			trgArrowPaint = ((trgArrow == GraphGraphics.ARROW_NONE)
+			                 ? null : edgeDetails.getTargetArrowPaint(edge));
+		}
+
+		// Compute the anchors to use when rendering edge.
+		final EdgeAnchors anchors = (((lodBits & LOD_EDGE_ANCHORS) == 0) ? null
+		                                                                 : edgeDetails
+		                                                                   .getAnchors(edge));
+
+		if ((edgeXMin != Float.NEGATIVE_INFINITY)
+		    && !edgeOverlapsWindow(edgeDetails, edge, grafx, srcExtents, trgExtents,
+		                           anchors, thickness,
+		                           Math.max(srcArrowSize, trgArrowSize), lodBits,
+		                           floatBuff4, edgeXMin, edgeYMin, edgeXMax,
+		                           edgeYMax))
+			return;
+
+		if (geometryCache != null) {
+			if (!geometryCache.computeEdgeEndpoints(edgeSUID, grafx, srcExtents,
+			                                        srcShape, srcArrow,
+			                                        srcArrowSize, anchors,
+			                                        trgExtents, trgShape,
+			                                        trgArrow, trgArrowSize,
+			                                        floatBuff3, floatBuff4))
+				return;
+		} else if (!computeEdgeEndpoints(grafx, srcExtents, srcShape, srcArrow,
+		                                 srcArrowSize, anchors, trgExtents,
+		                                 trgShape, trgArrow, trgArrowSize,
+		                                 floatBuff3, floatBuff4))
+			return;
+
+		final float srcXAdj = floatBuff3[0];
+		final float srcYAdj = floatBuff3[1];
+		final float trgXAdj = floatBuff4[0];
+		final float trgYAdj = floatBuff4[1];
+
+		if (geometryCache != null) {
+			// The curves and arrows were computed in an earlier frame.
+			final PreparedEdge preparedEdge = geometryCache.getPreparedEdge(edgeSUID, grafx);
+
+			if (preparedEdge != null)
+				grafx.drawEdgeFull(preparedEdge, srcArrowPaint, trgArrowPaint, thickness,
+				                   edgeStroke, segPaint);
+		} else {
+			grafx.drawEdgeFull(srcArrow, srcArrowSize, srcArrowPaint, trgArrow,
+			                   trgArrowSize, trgArrowPaint, srcXAdj, srcYAdj,
+			                   anchors, trgXAdj, trgYAdj, thickness, edgeStroke, segPaint);
+		}
+
+		// Take care of edge anchor rendering.
+		if (anchors != null) {
+			for (int k = 0; k < anchors.numAnchors(); k++) {
+				final float anchorSize;
+
+				if ((anchorSize = edgeDetails.getAnchorSize(edge, k)) > 0.0f) {
+					anchors.getAnchor(k, floatBuff4, 0);
+					grafx.drawNodeFull(GraphGraphics.SHAPE_RECTANGLE,
+					                   (float) (floatBuff4[0]
+					                   - (anchorSize / 2.0d)),
+					                   (float) (floatBuff4[1]
+					                   - (anchorSize / 2.0d)),
+					                   (float) (floatBuff4[0]
+					                   + (anchorSize / 2.0d)),
+					                   (float) (floatBuff4[1]
+					                   + (anchorSize / 2.0d)),
+					                   edgeDetails.getAnchorPaint(edge, k), 0.0f, null,
+					                   null);
+				}
+			}
+		}
+
+		// Take care of label rendering.
+		if ((lodBits & LOD_EDGE_LABELS) != 0) {
+			
+			final int labelCount = edgeDetails.getLabelCount(edge);
+			for (int labelInx = 0; labelInx < labelCount; labelInx++) {
+				final String text = edgeDetails.getLabelText(edge, labelInx);
+				final Font font = edgeDetails.getLabelFont(edge, labelInx);
+				final double fontScaleFactor = edgeDetails.getLabelScaleFactor(edge, labelInx);
+				final Paint paint = edgeDetails.getLabelPaint(edge, labelInx);
+				final byte textAnchor = edgeDetails.getLabelTextAnchor(edge, labelInx);
+				final byte edgeAnchor = edgeDetails.getLabelEdgeAnchor(edge, labelInx);
+				final float offsetVectorX = edgeDetails.getLabelOffsetVectorX(edge, labelInx);
+				final float offsetVectorY = edgeDetails.getLabelOffsetVectorY(edge, labelInx);
+				final byte justify;
+
+				if (text.indexOf('\n') >= 0)
+					justify = edgeDetails.getLabelJustify(edge, labelInx);
+				else
+					justify = NodeDetails.LABEL_WRAP_JUSTIFY_CENTER;
+
+				final double edgeAnchorPointX;
+				final double edgeAnchorPointY;
+
+				final double edgeLabelWidth = edgeDetails.getLabelWidth(edge);
+
+				if (edgeAnchor == EdgeDetails.EDGE_ANCHOR_SOURCE) {
+					edgeAnchorPointX = srcXAdj;
+					edgeAnchorPointY = srcYAdj;
+				} else if (edgeAnchor == EdgeDetails.EDGE_ANCHOR_TARGET) {
+					edgeAnchorPointX = trgXAdj;
+					edgeAnchorPointY = trgYAdj;
+				} else if (edgeAnchor == EdgeDetails.EDGE_ANCHOR_MIDPOINT) {
+					final Shape edgePath;
+
+					if (geometryCache != null)
+						edgePath = geometryCache.getEdgePath(edgeSUID, grafx);
+					else if (grafx.getEdgePath(srcArrow, srcArrowSize, trgArrow,
+					                           trgArrowSize, srcXAdj, srcYAdj, anchors,
+					                           trgXAdj, trgYAdj, path2d))
+						edgePath = path2d;
+					else
+						edgePath = null;
+
+					if (edgePath == null)
+						continue;
+
+					// Count the number of path segments.  This count
+					// includes the initial SEG_MOVETO.  So, for example, a
+					// path composed of 2 cubic curves would have a numPaths
+					// of 3.  Note that numPaths will be at least 2 in all
+					// cases.
+					final int numPaths;
+
+					{
+						final PathIterator pathIter = edgePath.getPathIterator(null);
+						int numPathsTemp = 0;
+
+						while (!pathIter.isDone()) {
+							numPathsTemp++; // pathIter.currentSegment().
+							pathIter.next();
+						}
+
+						numPaths = numPathsTemp;
+					}
+
+					// Compute "midpoint" of edge.
+					if ((numPaths % 2) != 0) {
+						final PathIterator pathIter = edgePath.getPathIterator(null);
+
+						for (int i = numPaths / 2; i > 0; i--)
+							pathIter.next();
+
+						final int subPathType = pathIter.currentSegment(floatBuff5);
+
+						if (subPathType == PathIterator.SEG_LINETO) {
+							edgeAnchorPointX = floatBuff5[0];
+							edgeAnchorPointY = floatBuff5[1];
+						} else if (subPathType == PathIterator.SEG_QUADTO) {
+							edgeAnchorPointX = floatBuff5[2];
+							edgeAnchorPointY = floatBuff5[3];
+						} else if (subPathType == PathIterator.SEG_CUBICTO) {
+							edgeAnchorPointX = floatBuff5[4];
+							edgeAnchorPointY = floatBuff5[5];
+						} else
+							throw new IllegalStateException("got unexpected PathIterator segment type: "
+							                                + subPathType);
+					} else { // numPaths % 2 == 0.
+
+						final PathIterator pathIter = edgePath.getPathIterator(null);
+
+						for (int i = numPaths / 2; i > 0; i--) {
+							if (i == 1) {
+								final int subPathType = pathIter.currentSegment(floatBuff5);
+
+								if ((subPathType == PathIterator.SEG_MOVETO)
+								    || (subPathType == PathIterator.SEG_LINETO)) {
+									floatBuff5[6] = floatBuff5[0];
+									floatBuff5[7] = floatBuff5[1];
+								} else if (subPathType == PathIterator.SEG_QUADTO) {
+									floatBuff5[6] = floatBuff5[2];
+									floatBuff5[7] = floatBuff5[3];
+								} else if (subPathType == PathIterator.SEG_CUBICTO) {
+									floatBuff5[6] = floatBuff5[4];
+									floatBuff5[7] = floatBuff5[5];
+								} else
+									throw new IllegalStateException("got unexpected PathIterator segment type: "
+									                                + subPathType);
+							}
+
+							pathIter.next();
+						}
+
+						final int subPathType = pathIter.currentSegment(floatBuff5);
+
+						if (subPathType == PathIterator.SEG_LINETO) {
+							edgeAnchorPointX = (0.5d * floatBuff5[6])
+							                   + (0.5d * floatBuff5[0]);
+							edgeAnchorPointY = (0.5d * floatBuff5[7])
+							                   + (0.5d * floatBuff5[1]);
+						} else if (subPathType == PathIterator.SEG_QUADTO) {
+							edgeAnchorPointX = (0.25d * floatBuff5[6])
+							                   + (0.5d * floatBuff5[0])
+							                   + (0.25d * floatBuff5[2]);
+							edgeAnchorPointY = (0.25d * floatBuff5[7])
+							                   + (0.5d * floatBuff5[1])
+							                   + (0.25d * floatBuff5[3]);
+						} else if (subPathType == PathIterator.SEG_CUBICTO) {
+							edgeAnchorPointX = (0.125d * floatBuff5[6])
+							                   + (0.375d * floatBuff5[0])
+							                   + (0.375d * floatBuff5[2])
+							                   + (0.125d * floatBuff5[4]);
+							edgeAnchorPointY = (0.125d * floatBuff5[7])
+							                   + (0.375d * floatBuff5[1])
+							                   + (0.375d * floatBuff5[3])
+							                   + (0.125d * floatBuff5[5]);
+						} else
+							throw new IllegalStateException("got unexpected PathIterator segment type: "
+							                                + subPathType);
+					}
+				} else
+					throw new IllegalStateException("encountered an invalid EDGE_ANCHOR_* constant: "
+					                                + edgeAnchor);
+
+				final MeasuredLineCreator measuredText = 
+					MeasuredLineCreator.getMeasuredLineCreator(text, font,
+					                         grafx.getFontRenderContextFull(),
+					                         fontScaleFactor, 
+					                         (lodBits&LOD_TEXT_AS_SHAPE)!= 0, 
+					                         edgeLabelWidth);
+
+				doubleBuff1[0] = -0.5d * measuredText.getMaxLineWidth();
+				doubleBuff1[1] = -0.5d * measuredText.getTotalHeight(); 
+				doubleBuff1[2] = 0.5d * measuredText.getMaxLineWidth(); 
+				doubleBuff1[3] = 0.5d * measuredText.getTotalHeight(); 
+				lemma_computeAnchor(textAnchor, doubleBuff1, doubleBuff2);
+
+				final double textXCenter = edgeAnchorPointX - doubleBuff2[0]
+				                           + offsetVectorX;
+				final double textYCenter = edgeAnchorPointY - doubleBuff2[1]
+				                           + offsetVectorY;
+				TextRenderingUtils.renderHorizontalText(grafx, measuredText, 
+				                                        font, fontScaleFactor,
+				                                        (float) textXCenter,
+				                                        (float) textYCenter,
+				                                        justify, paint,
+				                                        (lodBits
+				                                        & LOD_TEXT_AS_SHAPE) != 0);
+			}
+		}
+	}
+
+	/*
+	 * Renders the image of grafx in tiles on tileExecutor, then copies the tiles
+	 * into the image.  See renderGraph().  The edges to render are gathered on
+	 * the calling thread, like renderFrame() visits them, and sorted into the
+	 * tiles their bounds reach into, so that every tile only looks up the
+	 * details of the edges it draws.
+	 */
+	private final static int renderTiles(final CyNetwork graph, final SpacialIndex2D nodePositions,
+	                                     final NodeDetails nodeDetails,
+	                                     final EdgeDetails edgeDetails, final LongHash nodeBuff,
+	                                     final GraphGraphics grafx, final Paint bgPaint,
+	                                     final double xCenter, final double yCenter,
+	                                     final double scaleFactor, final float xMin,
+	                                     final float yMin, final float xMax, final float yMax,
+	                                     final byte renderEdges,
+	                                     final CrossingEdges crossingEdges, final int lodBits,
+	                                     final ExecutorService tileExecutor) {
+		grafx.clear(bgPaint, xCenter, yCenter, scaleFactor);
+
+		// A nested network image is rendered while holding the lock of the view,
+		// which the caller may hold, so these images are fetched on this thread.
+		final Map<CyNode, TexturePaint> nestedNetworkPaints;
+
+		if (((lodBits & LOD_HIGH_DETAIL) != 0) && ((lodBits & LOD_CUSTOM_GRAPHICS) != 0)) {
+			nestedNetworkPaints = new HashMap<CyNode, TexturePaint>();
+
+			final SpacialEntry2DEnumerator nodeHits = nodePositions.queryOverlap(xMin, yMin, xMax,
+			                                                                     yMax, null, 0,
+			                                                                     false);
+
+			while (nodeHits.numRemaining() > 0) {
+				final CyNode cyNode = graph.getNode(nodeHits.nextLong());
+				final TexturePaint paint = nodeDetails.getNestedNetworkTexturePaint(cyNode);
+
+				if (paint != null)
+					nestedNetworkPaints.put(cyNode, paint);
+			}
+		} else {
+			nestedNetworkPaints = null;
+		}
+
+		// In high detail, the borders, labels and custom graphics of nodes that
+		// don't overlap a tile may still reach into it.
+		final float nodeMargin = ((lodBits & LOD_HIGH_DETAIL) == 0) ? 0.0f
+		                         : computeNodeMargin(graph, nodePositions, nodeDetails, grafx,
+		                                             xMin, yMin, xMax, yMax, scaleFactor, lodBits,
+		                                             nestedNetworkPaints);
+
+		// Lines are antialiased, so they may touch the pixels next to a tile.
+		final float edgeMargin = (float) (1.0d / scaleFactor);
+
+		final int width = grafx.image.getWidth(null);
+		final int height = grafx.image.getHeight(null);
+		final TileEdges tileEdges;
+
+		if (renderEdges >= 0) {
+			tileEdges = binEdges(graph, nodePositions, edgeDetails, nodeBuff, grafx, xMin, yMin,
+			                     xMax, yMax, scaleFactor, edgeMargin,
+			                     (width + TILE_SIZE - 1) / TILE_SIZE,
+			                     (height + TILE_SIZE - 1) / TILE_SIZE, renderEdges, crossingEdges,
+			                     lodBits);
+
+			if (tileEdges == null)
+				return lodBits;
+		} else {
+			tileEdges = null;
+		}
+
+		int tileIndex = 0;
+		final List<Tile> tiles = new ArrayList<Tile>();
+		final List<Future<Object>> futures = new ArrayList<Future<Object>>();
+
+		for (int y = 0; y < height; y += TILE_SIZE) {
+			for (int x = 0; x < width; x += TILE_SIZE) {
+				final Tile tile = new Tile(x, y, Math.min(TILE_SIZE, width - x),
+				                           Math.min(TILE_SIZE, height - y));
+				final int[] edgeIndices = (tileEdges == null) ? null
+				                          : tileEdges.getEdgeIndices(tileIndex);
+				tileIndex++;
+				tiles.add(tile);
+
+				final FutureTask<Object> task = new FutureTask<Object>(new Runnable() {
+						public void run() {
+							if (grafx.isCancelled())
+								return;
+
+							final int tileWidth = tile.image.getWidth();
+							final int tileHeight = tile.image.getHeight();
+
+							// The tile has the scale of the image; its center is moved so
+							// that it shows its part of the image.  The tile starts out
+							// transparent and is drawn over the cleared image.
+							final GraphGraphics tileGrafx = new GraphGraphics(tile.image, false, false);
+							tileGrafx.clear(bgPaint,
+							                xCenter + ((tile.x + (0.5d * tileWidth) - (0.5d * width))
+							                           / scaleFactor),
+							                yCenter + ((tile.y + (0.5d * tileHeight) - (0.5d * height))
+							                           / scaleFactor), scaleFactor);
+
+							if (edgeIndices != null)
+								renderTileEdges(nodePositions, nodeDetails, edgeDetails, tileGrafx,
+								                grafx, tileEdges, edgeIndices, lodBits);
+
+							// Only the nodes are left to render.
+							renderPart(graph, nodePositions, nodeDetails, edgeDetails, null,
+							           tileGrafx, grafx, xMin, yMin, xMax, yMax,
+							           (float) (xMin + (tile.x / scaleFactor)),
+							           (float) (yMin + (tile.y / scaleFactor)),
+							           (float) (xMin + ((tile.x + tileWidth) / scaleFactor)),
+							           (float) (yMin + ((tile.y + tileHeight) / scaleFactor)),
+							           nodeMargin, edgeMargin, (byte) -1, null, lodBits,
+							           nestedNetworkPaints);
+						}
+					}, null);
+
+				try {
+					tileExecutor.execute(task);
+				} catch (RejectedExecutionException e) {
+					task.run();
+				}
+
+				futures.add(task);
+			}
+		}
+
+		waitFor(futures);
+
+		if (grafx.isCancelled())
+			return lodBits;
+
+		final Graphics2D g = (Graphics2D) grafx.image.getGraphics();
+
+		for (final Tile tile : tiles)
+			g.drawImage(tile.image, tile.x, tile.y, null);
+
+		g.dispose();
+
+		return lodBits;
+	}
+
+	/*
+	 * Gathers the edges that renderFrame() would render in the window
+	 * [xMin, yMin, xMax, yMax], in the same order, and sorts them into the
+	 * columns by rows tiles of TILE_SIZE pixels that their lines, arrows,
+	 * anchor handles and labels, plus edgeMargin, may reach into.  Fills
+	 * nodeBuff like renderFrame() does.  Returns null if grafx is cancelled.
+	 */
+	private final static TileEdges binEdges(final CyNetwork graph,
+	                                        final SpacialIndex2D nodePositions,
+	                                        final EdgeDetails edgeDetails, final LongHash nodeBuff,
+	                                        final GraphGraphics grafx, final float xMin,
+	                                        final float yMin, final float xMax, final float yMax,
+	                                        final double scaleFactor, final float edgeMargin,
+	                                        final int columns, final int rows,
+	                                        final byte renderEdges,
+	                                        final CrossingEdges crossingEdges, final int lodBits) {
+		final float[] floatBuff1 = new float[4];
+		final float[] floatBuff2 = new float[4];
+		final float[] floatBuff3 = new float[2];
+		final float[] bounds = new float[4];
+		final AdjacentEdgeCursor edgeCursor = createAdjacentEdgeCursor(graph);
+		final SpacialEntry2DEnumerator nodeHits = queryEdgeNodes(nodePositions, xMin, yMin, xMax,
+		                                                         yMax, renderEdges, crossingEdges);
+		final TileEdges tileEdges = new TileEdges(columns * rows);
+
+		while (nodeHits.numRemaining() > 0) {
+			if (grafx.isCancelled()) {
+				nodeBuff.empty();
+				return null;
+			}
+
+			final long node = nodeHits.nextExtents(floatBuff1, 0);
+			final boolean crossingOnly = isCrossingSource(crossingEdges, node);
+			edgeCursor.reset(node, CyEdge.Type.ANY);
+
+			while (edgeCursor.next()) {
+				if (crossingOnly && !isCrossingEdge(crossingEdges, node, edgeCursor))
+					continue;
+
+				final long otherNode = node ^ edgeCursor.getSourceSUID() ^ edgeCursor.getTargetSUID();
+
+				if (nodeBuff.get(otherNode) >= 0) // Already rendered.
+					continue;
+
+				if (!nodePositions.exists(otherNode, floatBuff2, 0))
+					throw new IllegalStateException("nodePositions not recognizing node that exists in graph");
+
+				final CyEdge edge = edgeCursor.getEdge();
+
+				if ((lodBits & LOD_HIGH_DETAIL) == 0) {
+					// A low detail edge is a line between the centers of its nodes.
+					final float nodeX = (floatBuff1[0] + floatBuff1[2]) / 2;
+					final float nodeY = (floatBuff1[1] + floatBuff1[3]) / 2;
+					final float otherNodeX = (floatBuff2[0] + floatBuff2[2]) / 2;
+					final float otherNodeY = (floatBuff2[1] + floatBuff2[3]) / 2;
+					bounds[0] = nodeX;
+					bounds[1] = nodeY;
+					bounds[2] = otherNodeX;
+					bounds[3] = otherNodeY;
+					tileEdges.add(edge, node != edgeCursor.getSourceSUID(), true, bounds);
+				} else {
+					computeEdgeBounds(edgeDetails, edge, grafx, floatBuff1, floatBuff2, lodBits,
+					                  floatBuff3, bounds);
+					tileEdges.add(edge, node != edgeCursor.getSourceSUID(), false, bounds);
+				}
+			}
+
+			if (!crossingOnly)
+				nodeBuff.put(node);
+		}
+
+		tileEdges.bin(xMin, yMin, scaleFactor, edgeMargin, columns, rows);
+
+		return tileEdges;
+	}
+
+	/*
+	 * Renders the edges of tileEdges at edgeIndices, in that order, into the
+	 * graphics of a tile.
+	 */
+	private final static void renderTileEdges(final SpacialIndex2D nodePositions,
+	                                          final NodeDetails nodeDetails,
+	                                          final EdgeDetails edgeDetails,
+	                                          final GraphGraphics grafx, final GraphGraphics frame,
+	                                          final TileEdges tileEdges, final int[] edgeIndices,
+	                                          final int lodBits) {
+		final float[] floatBuff1 = new float[4];
+		final float[] floatBuff2 = new float[4];
+		final float[] floatBuff3 = new float[2];
+		final float[] floatBuff4 = new float[2];
+		final float[] floatBuff5 = new float[8];
+		final double[] doubleBuff1 = new double[4];
+		final double[] doubleBuff2 = new double[2];
+		final GeneralPath path2d = new GeneralPath();
+		final EdgeGeometryCache geometryCache = edgeDetails.getGeometryCache();
+
+		for (int i = 0; i < edgeIndices.length; i++) {
+			if (frame.isCancelled())
+				return;
+
+			final int edgeIndex = edgeIndices[i];
+			final CyEdge edge = tileEdges.getEdge(edgeIndex);
+			final CyNode source = edge.getSource();
+			final CyNode target = edge.getTarget();
+
+			if (!nodePositions.exists(source.getSUID(), floatBuff1, 0)
+			    || !nodePositions.exists(target.getSUID(), floatBuff2, 0))
+				throw new IllegalStateException("nodePositions not recognizing node that exists in graph");
+
+			if ((lodBits & LOD_HIGH_DETAIL) == 0) {
+				// Draw the line from the node it was visited from, like renderFrame().
+				final float[] from = tileEdges.isFromTarget(edgeIndex) ? floatBuff2 : floatBuff1;
+				final float[] to = (from == floatBuff1) ? floatBuff2 : floatBuff1;
+				grafx.drawEdgeLow((from[0] + from[2]) / 2, (from[1] + from[3]) / 2,
+				                  (to[0] + to[2]) / 2, (to[1] + to[3]) / 2,
+				                  edgeDetails.getColorLowDetail(edge));
+			} else {
+				// The edge was only binned into the tiles it may reach into.
+				renderEdgeHigh(edgeDetails, grafx, geometryCache, edge, edge.getSUID(), floatBuff1,
+				               nodeDetails.getShape(source), floatBuff2, nodeDetails.getShape(target),
+				               lodBits, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY,
+				               Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, floatBuff3,
+				               floatBuff4, floatBuff5, doubleBuff1, doubleBuff2, path2d);
+			}
+		}
+	}
+
+	/**
+	 * Returns how far, in node coordinates, the borders, labels and custom
+	 * graphics of the nodes overlapping the window [xMin, yMin, xMax, yMax]
+	 * reach beyond the extents of their nodes at most, as renderGraph()
+	 * renders them at the given scale and level of detail.  The margin
+	 * includes a pixel for antialiasing.  When only a region of a frame is
+	 * rendered, no node of the window further than this margin from the
+	 * region can reach into it.
+	 * @param lodBits the level of detail, as returned by renderGraph().
+	 */
+	public final static float computeNodeMargin(final CyNetwork graph,
+	                                            final SpacialIndex2D nodePositions,
+	                                            final NodeDetails nodeDetails,
+	                                            final GraphGraphics grafx, final float xMin,
+	                                            final float yMin, final float xMax,
+	                                            final float yMax, final double scaleFactor,
+	                                            final int lodBits) {
+		return computeNodeMargin(graph, nodePositions, nodeDetails, grafx, xMin, yMin, xMax, yMax,
+		                         scaleFactor, lodBits, null);
+	}
+
+	/*
+	 * Returns how far the borders, labels and custom graphics of the nodes
+	 * overlapping the window reach beyond the extents of their nodes at most,
+	 * as they are rendered by renderFrame() with the given level of detail.
+	 */
+	private final static float computeNodeMargin(final CyNetwork graph,
+	                                             final SpacialIndex2D nodePositions,
+	                                             final NodeDetails nodeDetails,
+	                                             final GraphGraphics grafx, final float xMin,
+	                                             final float yMin, final float xMax,
+	                                             final float yMax, final double scaleFactor,
+	                                             final int lodBits,
+	                                             final Map<CyNode, TexturePaint> nestedNetworkPaints) {
+		final float[] extents = new float[4];
+		final double[] doubleBuff1 = new double[4];
+		final double[] doubleBuff2 = new double[2];
+
+		// One pixel for antialiasing.
+		double margin = 1.0d / scaleFactor;
+
+		final SpacialEntry2DEnumerator nodeHits = nodePositions.queryOverlap(xMin, yMin, xMax, yMax,
+		                                                                     null, 0, false);
+
+		while (nodeHits.numRemaining() > 0) {
+			final CyNode cyNode = graph.getNode(nodeHits.nextExtents(extents, 0));
+
+			if ((lodBits & LOD_NODE_BORDERS) != 0)
+				margin = Math.max(margin, nodeDetails.getBorderWidth(cyNode));
+
+			// The union of everything drawn for the node.
+			double uXMin = extents[0];
+			double uYMin = extents[1];
+			double uXMax = extents[2];
+			double uYMax = extents[3];
+
+			if ((lodBits & LOD_NODE_LABELS) != 0) {
+				final int labelCount = nodeDetails.getLabelCount(cyNode);
+
+				for (int labelInx = 0; labelInx < labelCount; labelInx++) {
+					final MeasuredLineCreator measuredText = MeasuredLineCreator.getMeasuredLineCreator(
+					    nodeDetails.getLabelText(cyNode, labelInx),
+					    nodeDetails.getLabelFont(cyNode, labelInx), grafx.getFontRenderContextFull(),
+					    nodeDetails.labelScaleFactor(cyNode, labelInx),
+					    (lodBits & LOD_TEXT_AS_SHAPE) != 0, nodeDetails.getLabelWidth(cyNode));
+
+					doubleBuff1[0] = extents[0];
+					doubleBuff1[1] = extents[1];
+					doubleBuff1[2] = extents[2];
+					doubleBuff1[3] = extents[3];
+					lemma_computeAnchor(nodeDetails.getLabelNodeAnchor(cyNode, labelInx), doubleBuff1,
+					                    doubleBuff2);
+
+					final double nodeAnchorPointX = doubleBuff2[0];
+					final double nodeAnchorPointY = doubleBuff2[1];
+					final double halfWidth = 0.5d * measuredText.getMaxLineWidth();
+					final double halfHeight = 0.5d * measuredText.getTotalHeight();
+
+					doubleBuff1[0] = -halfWidth;
+					doubleBuff1[1] = -halfHeight;
+					doubleBuff1[2] = halfWidth;
+					doubleBuff1[3] = halfHeight;
+					lemma_computeAnchor(nodeDetails.getLabelTextAnchor(cyNode, labelInx), doubleBuff1,
+					                    doubleBuff2);
+
+					final double textXCenter = nodeAnchorPointX - doubleBuff2[0]
+					                           + nodeDetails.getLabelOffsetVectorX(cyNode, labelInx);
+					final double textYCenter = nodeAnchorPointY - doubleBuff2[1]
+					                           + nodeDetails.getLabelOffsetVectorY(cyNode, labelInx);
+
+					uXMin = Math.min(uXMin, textXCenter - halfWidth);
+					uYMin = Math.min(uYMin, textYCenter - halfHeight);
+					uXMax = Math.max(uXMax, textXCenter + halfWidth);
+					uYMax = Math.max(uYMax, textYCenter + halfHeight);
+				}
+			}
+
+			if ((lodBits & LOD_CUSTOM_GRAPHICS) != 0) {
+				final double xCenter = (0.5d * extents[0]) + (0.5d * extents[2]);
+				final double yCenter = (0.5d * extents[1]) + (0.5d * extents[3]);
+				final TexturePaint nestedNetworkPaint = (nestedNetworkPaints == null)
+				                                        ? nodeDetails.getNestedNetworkTexturePaint(cyNode)
+				                                        : nestedNetworkPaints.get(cyNode);
+
+				if (nestedNetworkPaint != null) {
+					final Rectangle2D bounds = nestedNetworkPaint.getAnchorRect();
+					uXMin = Math.min(uXMin, xCenter + bounds.getMinX());
+					uYMin = Math.min(uYMin, yCenter + bounds.getMinY());
+					uXMax = Math.max(uXMax, xCenter + bounds.getMaxX());
+					uYMax = Math.max(uYMax, yCenter + bounds.getMaxY());
+				}
+
+				synchronized (nodeDetails.customGraphicsLock(cyNode)) {
+					final Iterator<CustomGraphicLayer> dNodeIt = nodeDetails.getCustomGraphics(cyNode);
+					int graphicInx = 0;
+
+					while (dNodeIt.hasNext()) {
+						final Rectangle2D bounds = dNodeIt.next().getBounds2D();
+						final double x = xCenter + nodeDetails.graphicOffsetVectorX(cyNode, graphicInx);
+						final double y = yCenter + nodeDetails.graphicOffsetVectorY(cyNode, graphicInx);
+						uXMin = Math.min(uXMin, x + bounds.getMinX());
+						uYMin = Math.min(uYMin, y + bounds.getMinY());
+						uXMax = Math.max(uXMax, x + bounds.getMaxX());
+						uYMax = Math.max(uYMax, y + bounds.getMaxY());
+						graphicInx++;
+					}
+				}
+			}
+
+			margin = Math.max(margin, Math.max(Math.max(extents[0] - uXMin, uXMax - extents[2]),
+			                                   Math.max(extents[1] - uYMin, uYMax - extents[3])));
+		}
+
+		// Leave another pixel for strokes, font descents and rounding.
+		return (float) (margin + (1.0d / scaleFactor));
+	}
+
+	/*
+	 * Returns true if an edge with the given endpoint nodes and anchors, its
+	 * arrows, anchor handles and labels may overlap the window.  A curved edge
+	 * stays inside the convex hull of its endpoints and anchors.
+	 */
+	private final static boolean edgeOverlapsWindow(final EdgeDetails edgeDetails,
+	                                                final CyEdge edge, final GraphGraphics grafx,
+	                                                final float[] srcExtents,
+	                                                final float[] trgExtents,
+	                                                final EdgeAnchors anchors,
+	                                                final float thickness,
+	                                                final float arrowSize, final int lodBits,
+	                                                final float[] anchorBuff,
+	                                                final float xMin, final float yMin,
+	                                                final float xMax, final float yMax) {
+		float eXMin = Math.min(srcExtents[0], trgExtents[0]);
+		float eYMin = Math.min(srcExtents[1], trgExtents[1]);
+		float eXMax = Math.max(srcExtents[2], trgExtents[2]);
+		float eYMax = Math.max(srcExtents[3], trgExtents[3]);
+
+		// Arrow shapes are at most a little over twice their size long.
+		float margin = thickness + (2.5f * arrowSize);
+
+		if (anchors != null) {
+			for (int k = 0; k < anchors.numAnchors(); k++) {
+				anchors.getAnchor(k, anchorBuff, 0);
+				eXMin = Math.min(eXMin, anchorBuff[0]);
+				eYMin = Math.min(eYMin, anchorBuff[1]);
+				eXMax = Math.max(eXMax, anchorBuff[0]);
+				eYMax = Math.max(eYMax, anchorBuff[1]);
+				margin = Math.max(margin, 0.5f * edgeDetails.getAnchorSize(edge, k));
+			}
+		}
+
+		if ((eXMin - margin <= xMax) && (eXMax + margin >= xMin) && (eYMin - margin <= yMax)
+		    && (eYMax + margin >= yMin))
+			return true;
+
+		if ((lodBits & LOD_EDGE_LABELS) == 0)
+			return false;
+
+		// A label is anchored somewhere on the edge, and reaches its own width
+		// and height plus its offset away from that point at most.
+		final int labelCount = edgeDetails.getLabelCount(edge);
+
+		for (int labelInx = 0; labelInx < labelCount; labelInx++) {
+			final MeasuredLineCreator measuredText = MeasuredLineCreator.getMeasuredLineCreator(
+			    edgeDetails.getLabelText(edge, labelInx), edgeDetails.getLabelFont(edge, labelInx),
+			    grafx.getFontRenderContextFull(), edgeDetails.getLabelScaleFactor(edge, labelInx),
+			    (lodBits & LOD_TEXT_AS_SHAPE) != 0, edgeDetails.getLabelWidth(edge));
+			final double xMargin = Math.abs(edgeDetails.getLabelOffsetVectorX(edge, labelInx))
+			                       + measuredText.getMaxLineWidth();
+			final double yMargin = Math.abs(edgeDetails.getLabelOffsetVectorY(edge, labelInx))
+			                       + measuredText.getTotalHeight();
+
+			if ((eXMin - xMargin <= xMax) && (eXMax + xMargin >= xMin)
+			    && (eYMin - yMargin <= yMax) && (eYMax + yMargin >= yMin))
+				return true;
+		}
+
+		return false;
+	}
+
+	/*
+	 * Computes a box around everything of an edge that edgeOverlapsWindow()
+	 * considers: the edge between its endpoint nodes and anchors, its arrows,
+	 * anchor handles and labels, as rendered with the given level of detail.
+	 */
+	private final static void computeEdgeBounds(final EdgeDetails edgeDetails, final CyEdge edge,
+	                                            final GraphGraphics grafx,
+	                                            final float[] srcExtents,
+	                                            final float[] trgExtents, final int lodBits,
+	                                            final float[] anchorBuff, final float[] bounds) {
+		float eXMin = Math.min(srcExtents[0], trgExtents[0]);
+		float eYMin = Math.min(srcExtents[1], trgExtents[1]);
+		float eXMax = Math.max(srcExtents[2], trgExtents[2]);
+		float eYMax = Math.max(srcExtents[3], trgExtents[3]);
+		float arrowSize = 0.0f;
+
+		if ((lodBits & LOD_EDGE_ARROWS) != 0) {
+			if (edgeDetails.getSourceArrowShape(edge) != GraphGraphics.ARROW_NONE)
+				arrowSize = edgeDetails.getSourceArrowSize(edge);
+
+			if (edgeDetails.getTargetArrowShape(edge) != GraphGraphics.ARROW_NONE)
+				arrowSize = Math.max(arrowSize, edgeDetails.getTargetArrowSize(edge));
+		}
+
+		// Arrow shapes are at most a little over twice their size long.
+		float margin = edgeDetails.getWidth(edge) + (2.5f * arrowSize);
+		final EdgeAnchors anchors = ((lodBits & LOD_EDGE_ANCHORS) == 0) ? null
+		                            : edgeDetails.getAnchors(edge);
+
+		if (anchors != null) {
+			for (int k = 0; k < anchors.numAnchors(); k++) {
+				anchors.getAnchor(k, anchorBuff, 0);
+				eXMin = Math.min(eXMin, anchorBuff[0]);
+				eYMin = Math.min(eYMin, anchorBuff[1]);
+				eXMax = Math.max(eXMax, anchorBuff[0]);
+				eYMax = Math.max(eYMax, anchorBuff[1]);
+				margin = Math.max(margin, 0.5f * edgeDetails.getAnchorSize(edge, k));
+			}
+		}
+
+		double xMargin = margin;
+		double yMargin = margin;
+
+		if ((lodBits & LOD_EDGE_LABELS) != 0) {
+			final int labelCount = edgeDetails.getLabelCount(edge);
+
+			for (int labelInx = 0; labelInx < labelCount; labelInx++) {
+				final MeasuredLineCreator measuredText = MeasuredLineCreator.getMeasuredLineCreator(
+				    edgeDetails.getLabelText(edge, labelInx), edgeDetails.getLabelFont(edge, labelInx),
+				    grafx.getFontRenderContextFull(), edgeDetails.getLabelScaleFactor(edge, labelInx),
+				    (lodBits & LOD_TEXT_AS_SHAPE) != 0, edgeDetails.getLabelWidth(edge));
+				xMargin = Math.max(xMargin, Math.abs(edgeDetails.getLabelOffsetVectorX(edge, labelInx))
+				                            + measuredText.getMaxLineWidth());
+				yMargin = Math.max(yMargin, Math.abs(edgeDetails.getLabelOffsetVectorY(edge, labelInx))
+				                            + measuredText.getTotalHeight());
+			}
+		}
+
+		bounds[0] = (float) (eXMin - xMargin);
+		bounds[1] = (float) (eYMin - yMargin);
+		bounds[2] = (float) (eXMax + xMargin);
+		bounds[3] = (float) (eYMax + yMargin);
+	}
+
+	/**
+	 * Waits for every task, even if one fails or this thread is interrupted,
+	 * so that no task reads the graph any more once this method returns.  The
+	 * first failure of a task is then thrown again.
+	 */
+	final static void waitFor(final List<Future<Object>> futures) {
+		boolean interrupted = false;
+		Throwable failure = null;
+
+		for (final Future<Object> future : futures) {
+			while (true) {
+				try {
+					future.get();
+
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				} catch (ExecutionException e) {
+					if (failure == null)
+						failure = e.getCause();
+
+					break;
+				}
+			}
+		}
+
+		if (interrupted)
+			Thread.currentThread().interrupt();
+
+		if (failure instanceof RuntimeException)
+			throw (RuntimeException) failure;
+
+		if (failure instanceof Error)
+			throw (Error) failure;
+
+		if (failure != null)
+			throw new IllegalStateException("failed to render frame", failure);
+	}
+
+	private final static boolean isCrossingSource(final CrossingEdges crossingEdges,
+	                                              final long node) {
+		return (crossingEdges != null) && (crossingEdges.sources.get(node) >= 0);
+	}
+
+	/*
+	 * A crossing edge is rendered once, together with its source.
+	 */
+	private final static boolean isCrossingEdge(final CrossingEdges crossingEdges,
+	                                            final long node,
+	                                            final AdjacentEdgeCursor edgeCursor) {
+		return (edgeCursor.getSourceSUID() == node)
+		       && (crossingEdges.edges.get(edgeCursor.getEdgeSUID()) >= 0);
+	}
+
+	/*
+	 * Edges that cross the visible window between two nodes that don't overlap
+	 * it, and their source nodes.  Read concurrently by tiles once created.
+	 */
+	private final static class CrossingEdges {
+		final LongHash edges = new LongHash();
+		final LongHash sources = new LongHash();
+	}
+
+	/*
+	 * Enumerates the entries of a query, followed by the given nodes.
+	 */
+	private final static class ConcatenatedEnumerator implements SpacialEntry2DEnumerator {
+		private final SpacialEntry2DEnumerator first;
+		private final LongEnumerator second;
+		private final SpacialIndex2D nodePositions;
+
+		ConcatenatedEnumerator(final SpacialEntry2DEnumerator first, final LongEnumerator second,
+		                       final SpacialIndex2D nodePositions) {
+			this.first = first;
+			this.second = second;
+			this.nodePositions = nodePositions;
+		}
+
+		public int numRemaining() {
+			return first.numRemaining() + second.numRemaining();
+		}
+
+		public long nextLong() {
+			if (first.numRemaining() > 0)
+				return first.nextLong();
+
+			return second.nextLong();
+		}
+
+		public long nextExtents(final float[] extentsArr, final int offset) {
+			if (first.numRemaining() > 0)
+				return first.nextExtents(extentsArr, offset);
+
+			final long node = second.nextLong();
+			nodePositions.exists(node, extentsArr, offset);
+
+			return node;
+		}
+	}
+
+	/*
+	 * The edges of a frame that is rendered in tiles, in the order in which
+	 * they are rendered, and for every tile the indices of the edges that may
+	 * reach into it.  Read concurrently by tiles once binned.
+	 */
+	private final static class TileEdges {
+		private CyEdge[] edges = new CyEdge[64];
+		private float[] bounds = new float[4 * 64];
+		private boolean[] fromTarget = new boolean[64];
+		private boolean[] lines = new boolean[64];
+		private int edgeCount;
+		private final int[][] tileEdgeIndices;
+
+		TileEdges(final int tileCount) {
+			tileEdgeIndices = new int[tileCount][];
+		}
+
+		/*
+		 * Appends an edge with the given bounds, which is drawn from its target
+		 * if fromTarget is true.  If line is true the edge is a straight line
+		 * and edgeBounds are its end points instead.
+		 */
+		void add(final CyEdge edge, final boolean fromTarget, final boolean line,
+		         final float[] edgeBounds) {
+			if (edgeCount == edges.length) {
+				final int capacity = 2 * edgeCount;
+				final CyEdge[] newEdges = new CyEdge[capacity];
+				final float[] newBounds = new float[4 * capacity];
+				final boolean[] newFromTarget = new boolean[capacity];
+				final boolean[] newLines = new boolean[capacity];
+				System.arraycopy(edges, 0, newEdges, 0, edgeCount);
+				System.arraycopy(bounds, 0, newBounds, 0, 4 * edgeCount);
+				System.arraycopy(this.fromTarget, 0, newFromTarget, 0, edgeCount);
+				System.arraycopy(lines, 0, newLines, 0, edgeCount);
+				edges = newEdges;
+				bounds = newBounds;
+				this.fromTarget = newFromTarget;
+				lines = newLines;
+			}
+
+			edges[edgeCount] = edge;
+			System.arraycopy(edgeBounds, 0, bounds, 4 * edgeCount, 4);
+			this.fromTarget[edgeCount] = fromTarget;
+			lines[edgeCount] = line;
+			edgeCount++;
+		}
+
+		/*
+		 * Sorts the edges into the tiles that their bounds, plus margin, overlap,
+		 * keeping their order.  A straight line is only sorted into the tiles
+		 * that it crosses, rather than into every tile its bounds overlap.  The
+		 * tiles are numbered row by row, and the window starts at (xMin, yMin)
+		 * in node coordinates.
+		 */
+		void bin(final float xMin, final float yMin, final double scaleFactor,
+		         final float margin, final int columns, final int rows) {
+			final int[] counts = new int[tileEdgeIndices.length];
+			final double tileMargin = (margin * scaleFactor) / TILE_SIZE;
+
+			for (int pass = 0; pass < 2; pass++) {
+				for (int i = 0; i < edgeCount; i++) {
+					final float x0 = bounds[4 * i];
+					final float y0 = bounds[(4 * i) + 1];
+					final float x1 = bounds[(4 * i) + 2];
+					final float y1 = bounds[(4 * i) + 3];
+					final int col0 = tileOf(Math.min(x0, x1) - margin, xMin, scaleFactor, columns);
+					final int row0 = tileOf(Math.min(y0, y1) - margin, yMin, scaleFactor, rows);
+					final int col1 = tileOf(Math.max(x0, x1) + margin, xMin, scaleFactor, columns);
+					final int row1 = tileOf(Math.max(y0, y1) + margin, yMin, scaleFactor, rows);
+
+					// The end points of a line in tiles.
+					final double tx0 = ((x0 - xMin) * scaleFactor) / TILE_SIZE;
+					final double ty0 = ((y0 - yMin) * scaleFactor) / TILE_SIZE;
+					final double dx = (((x1 - xMin) * scaleFactor) / TILE_SIZE) - tx0;
+					final double dy = (((y1 - yMin) * scaleFactor) / TILE_SIZE) - ty0;
+
+					for (int row = Math.max(0, row0); row <= Math.min(rows - 1, row1); row++) {
+						for (int col = Math.max(0, col0); col <= Math.min(columns - 1, col1); col++) {
+							if (lines[i] && !crossesTile(tx0, ty0, dx, dy, col, row, tileMargin))
+								continue;
+
+							final int tile = (row * columns) + col;
+
+							if (pass == 0)
+								counts[tile]++;
+							else
+								tileEdgeIndices[tile][counts[tile]++] = i;
+						}
+					}
+				}
+
+				if (pass == 0) {
+					for (int tile = 0; tile < counts.length; tile++) {
+						tileEdgeIndices[tile] = new int[counts[tile]];
+						counts[tile] = 0;
+					}
+				}
+			}
+
+			bounds = null;
+		}
+
+		/*
+		 * Returns whether the line from (x, y) to (x + dx, y + dy), in tiles,
+		 * passes through the tile at (col, row) grown by margin on every side,
+		 * given that the bounds of the line overlap it: the line misses the tile
+		 * only if all of the corners of the tile are on the same side of it.
+		 */
+		private static boolean crossesTile(final double x, final double y, final double dx,
+		                                   final double dy, final int col, final int row,
+		                                   final double margin) {
+			final double left = (dx * ((row - margin) - y)) - (dy * ((col - margin) - x));
+			final double right = (dx * ((row - margin) - y)) - (dy * ((col + 1 + margin) - x));
+			final double bottomLeft = (dx * ((row + 1 + margin) - y)) - (dy * ((col - margin) - x));
+			final double bottomRight = (dx * ((row + 1 + margin) - y))
+			                           - (dy * ((col + 1 + margin) - x));
+
+			return !(((left > 0) && (right > 0) && (bottomLeft > 0) && (bottomRight > 0))
+			         || ((left < 0) && (right < 0) && (bottomLeft < 0) && (bottomRight < 0)));
+		}
+
+		/*
+		 * Returns the index of the tile that contains v, which may be outside of
+		 * [0, tileCount).
+		 */
+		private static int tileOf(final float v, final float min, final double scaleFactor,
+		                          final int tileCount) {
+			final double tile = Math.floor(((v - min) * scaleFactor) / TILE_SIZE);
+
+			return (int) Math.max(-1.0d, Math.min(tileCount, tile));
+		}
+
+		int[] getEdgeIndices(final int tile) {
+			return tileEdgeIndices[tile];
+		}
+
+		CyEdge getEdge(final int edgeIndex) {
+			return edges[edgeIndex];
+		}
+
+		boolean isFromTarget(final int edgeIndex) {
+			return fromTarget[edgeIndex];
+		}
+	}
+
+	/*
+	 * A part of the image that is rendered by a single task.
+	 */
+	private final static class Tile {
+		final int x;
+		final int y;
+		final BufferedImage image;
+
+		Tile(final int x, final int y, final int width, final int height) {
+			this.x = x;
+			this.y = y;
+			image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+		}
+	}
+
 	private final static void lemma_computeAnchor(final int anchor, final double[] input4x,
 	                                              final double[] rtrn2x) {
 		switch (anchor) {
@@ -1037,11 +2370,13 @@ public final class GraphRenderer {
 	 * @param doubleBuff1
 	 * @param doubleBuff2
 	 * @param nodeDetails
+	 * @param nestedNetworkPaints
 	 * @param lodBits
 	 */
 	private static final void renderNodeHigh(final CyNetwork graph, final GraphGraphics grafx, 
 			final long node, final CyNode cyNode, final float[] floatBuff1, final double[] doubleBuff1, 
-			final double[] doubleBuff2, final NodeDetails nodeDetails, final int lodBits) {
+			final double[] doubleBuff2, final NodeDetails nodeDetails,
+			final Map<CyNode, TexturePaint> nestedNetworkPaints, final int lodBits) {
 
 		Shape nodeShape = null;
 
@@ -1077,7 +2412,9 @@ public final class GraphRenderer {
 		if ((lodBits & LOD_CUSTOM_GRAPHICS) != 0) {
 
 			// draw any nested networks first
-			final TexturePaint nestedNetworkPaint = nodeDetails.getNestedNetworkTexturePaint(cyNode);
+			final TexturePaint nestedNetworkPaint = (nestedNetworkPaints == null)
+			                                        ? nodeDetails.getNestedNetworkTexturePaint(cyNode)
+			                                        : nestedNetworkPaints.get(cyNode);
 			if (nestedNetworkPaint != null) {
 				doubleBuff1[0] = floatBuff1[0];
 				doubleBuff1[1] = floatBuff1[1];
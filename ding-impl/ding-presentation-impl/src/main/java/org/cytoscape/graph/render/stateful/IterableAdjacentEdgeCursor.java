@@ -0,0 +1,87 @@
+package org.cytoscape.graph.render.stateful;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.Iterator;
+
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+
+
+/**
+ * An {@link AdjacentEdgeCursor} for networks which are not an
+ * {@link AdjacentEdgeCursorProvider}.  This is built on top of
+ * getAdjacentEdgeIterable() and therefore allocates just as much as using that
+ * method directly.
+ */
+final class IterableAdjacentEdgeCursor implements AdjacentEdgeCursor {
+	private final CyNetwork graph;
+	private Iterator<CyEdge> edges;
+	private CyEdge edge;
+
+	IterableAdjacentEdgeCursor(final CyNetwork graph) {
+		this.graph = graph;
+	}
+
+	public boolean reset(final long node, final CyEdge.Type edgeType) {
+		edge = null;
+		final CyNode cyNode = graph.getNode(node);
+		if (cyNode == null) {
+			edges = null;
+			return false;
+		}
+
+		edges = graph.getAdjacentEdgeIterable(cyNode, edgeType).iterator();
+		return true;
+	}
+
+	public boolean next() {
+		if (edges == null || !edges.hasNext()) {
+			edge = null;
+			return false;
+		}
+
+		edge = edges.next();
+		return true;
+	}
+
+	public CyEdge getEdge() {
+		return edge;
+	}
+
+	public long getEdgeSUID() {
+		return edge.getSUID().longValue();
+	}
+
+	public long getSourceSUID() {
+		return edge.getSource().getSUID().longValue();
+	}
+
+	public long getTargetSUID() {
+		return edge.getTarget().getSUID().longValue();
+	}
+}
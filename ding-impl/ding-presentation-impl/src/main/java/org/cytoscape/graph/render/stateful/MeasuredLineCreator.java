@@ -35,6 +35,7 @@ import java.util.List;
 import java.util.ArrayList;
 
 import org.cytoscape.graph.render.immed.GraphGraphics;
+import org.cytoscape.graph.render.immed.StripedLRUCache;
 
 
 /**
@@ -43,6 +44,21 @@ import org.cytoscape.graph.render.immed.GraphGraphics;
  * line length is otherwise greater than the specified label width limit.
  */
 class MeasuredLineCreator {
+	// Labels that have been measured recently, keyed by everything that
+	// determines their lines.  Striped, because tiles measure labels
+	// concurrently.
+	private static final StripedLRUCache<Key,MeasuredLineCreator> s_cache =
+		new StripedLRUCache<Key,MeasuredLineCreator>(GraphGraphics.TEXT_CACHE_SIZE, 16);
+
+	// The key with which each thread looks up s_cache, so that a hit
+	// allocates nothing.
+	private static final ThreadLocal<Key> s_lookupKey = new ThreadLocal<Key>() {
+		@Override
+		protected Key initialValue() {
+			return new Key();
+		}
+	};
+
 	private double maxLineWidth;
 	private double totalHeight;
 
@@ -71,6 +87,30 @@ class MeasuredLineCreator {
 		createMeasuredLines();
 	}
 
+	/**
+	 * Returns the lines of a label like the constructor does, but measures
+	 * them only if no label with the same arguments was measured recently.
+	 * The returned object is shared, and its lines must not be modified.
+	 */
+	static MeasuredLineCreator getMeasuredLineCreator(final String rawLine, final Font font,
+	                                                  final FontRenderContext frc,
+	                                                  final double fontScaleFactor,
+	                                                  final boolean textAsShape,
+	                                                  final double labelWidth) {
+		final Key lookupKey = s_lookupKey.get();
+		lookupKey.set(rawLine, font, frc, fontScaleFactor, textAsShape, labelWidth);
+		MeasuredLineCreator measuredText = s_cache.get(lookupKey);
+
+		if (measuredText == null) {
+			measuredText = new MeasuredLineCreator(rawLine, font, frc, fontScaleFactor,
+			                                       textAsShape, labelWidth);
+			s_cache.put(new Key(rawLine, font, frc, fontScaleFactor, textAsShape, labelWidth),
+			            measuredText);
+		}
+
+		return measuredText;
+	}
+
 	/** 
 	 * Does a first pass at calculating the bounds of all lines. For short strings
 	 * (i.e. the norm) this is sufficient calculation.
@@ -206,4 +246,65 @@ class MeasuredLineCreator {
 	public List<MeasuredLine> getMeasuredLines() {
 		return measuredLines;
 	}
+
+	/*
+	 * A key is only changed with set() while it is used to look up s_cache,
+	 * never once it is in it.
+	 */
+	private static final class Key {
+		private String rawLine;
+		private Font font;
+		private FontRenderContext frc;
+		private double fontScaleFactor;
+		private boolean textAsShape;
+		private double labelWidth;
+		private int hash;
+
+		Key() {
+		}
+
+		Key(final String rawLine, final Font font, final FontRenderContext frc,
+		    final double fontScaleFactor, final boolean textAsShape, final double labelWidth) {
+			set(rawLine, font, frc, fontScaleFactor, textAsShape, labelWidth);
+		}
+
+		void set(final String rawLine, final Font font, final FontRenderContext frc,
+		         final double fontScaleFactor, final boolean textAsShape,
+		         final double labelWidth) {
+			this.rawLine = rawLine;
+			this.font = font;
+			this.frc = frc;
+			this.fontScaleFactor = fontScaleFactor;
+			this.textAsShape = textAsShape;
+			this.labelWidth = labelWidth;
+
+			// Hashes the doubles like Double.hashCode(), without boxing them.
+			final long scaleBits = Double.doubleToLongBits(fontScaleFactor);
+			final long widthBits = Double.doubleToLongBits(labelWidth);
+			int hash = rawLine.hashCode();
+			hash = (31 * hash) + font.hashCode();
+			hash = (31 * hash) + frc.hashCode();
+			hash = (31 * hash) + (int) (scaleBits ^ (scaleBits >>> 32));
+			hash = (31 * hash) + (textAsShape ? 1 : 0);
+			hash = (31 * hash) + (int) (widthBits ^ (widthBits >>> 32));
+			this.hash = hash;
+		}
+
+		@Override
+		public boolean equals(final Object o) {
+			if (!(o instanceof Key))
+				return false;
+
+			final Key other = (Key) o;
+
+			return rawLine.equals(other.rawLine) && font.equals(other.font)
+			       && frc.equals(other.frc) && (fontScaleFactor == other.fontScaleFactor)
+			       && (textAsShape == other.textAsShape) && (labelWidth == other.labelWidth);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
 }
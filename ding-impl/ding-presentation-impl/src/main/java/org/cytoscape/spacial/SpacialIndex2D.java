@@ -151,4 +151,39 @@ public interface SpacialIndex2D {
 	 *   method invocation.
 	 */
 	public boolean delete(long objKey);
+
+	/**
+	 * Replaces all entries in this structure with the specified entries.
+	 * This is equivalent to emptying this structure and inserting every entry,
+	 * but it is much faster and may produce a structure that is faster to
+	 * query.  If an exception is thrown, this structure is left unchanged.
+	 * @param objKeys the identifiers of the entries; the first count elements
+	 *   are used; identifiers must be non-negative and distinct.
+	 * @param extents the extents of the entries, four values per entry; the
+	 *   extents of objKeys[i] are xMin, yMin, xMax, and yMax at indices
+	 *   4*i through 4*i+3.
+	 * @param count the number of entries.
+	 * @exception IllegalStateException if an objKey occurs more than once.
+	 * @exception IllegalArgumentException if an objKey is negative,
+	 *   if an xMin is not less than or equal to its xMax, or
+	 *   if a yMin is not less than or equal to its yMax.
+	 */
+	public void bulkLoad(long[] objKeys, float[] extents, int count);
+
+	/**
+	 * Rebuilds this structure from its current entries.  This is worth doing
+	 * after most entries have been deleted and inserted again with new
+	 * extents, for example after a layout.
+	 */
+	public void rebuild();
+
+	/**
+	 * Returns a read-only view of the entries currently in this structure.
+	 * The snapshot is not affected by later modifications of this structure,
+	 * and its query methods may be called from any thread without
+	 * synchronization, including while this structure is being modified.
+	 * The modifying methods of the snapshot throw
+	 * UnsupportedOperationException.
+	 */
+	public SpacialIndex2D snapshot();
 }
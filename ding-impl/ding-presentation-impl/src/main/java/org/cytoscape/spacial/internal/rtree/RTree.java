@@ -28,11 +28,12 @@ import org.cytoscape.spacial.SpacialIndex2D;
 import org.cytoscape.spacial.SpacialEntry2DEnumerator;
 // import org.cytoscape.util.intr.IntEnumerator;
 // import org.cytoscape.util.intr.IntObjHash;
-// import org.cytoscape.util.intr.IntStack;
+import org.cytoscape.util.intr.IntStack;
 import org.cytoscape.util.intr.LongEnumerator;
 import org.cytoscape.util.intr.LongObjHash;
 import org.cytoscape.util.intr.LongStack;
 
+import java.util.Arrays;
 import java.util.Iterator;
 
 
@@ -55,6 +56,11 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 	private int m_deletedEntries;
 	private int m_mapExpansionThreshold;
 
+	// Nodes whose epoch is older than m_epoch may be part of a snapshot and
+	// are copied before they are modified.  See snapshot().
+	private int m_epoch;
+	private transient Snapshot m_snapshot; // Null once modified.
+
 	// These buffers are used during node splitting.
 	private final long[] m_objKeyBuff;
 	private final Node[] m_childrenBuff;
@@ -91,7 +97,7 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 		        };
 		m_maxBranches = maxBranches;
 		m_minBranches = Math.max(2, (int) (((double) (m_maxBranches + 1)) * 0.4d));
-		m_root = new Node(m_maxBranches, true);
+		m_root = new Node(m_maxBranches, true, m_epoch);
 		m_entryMap = new LongObjHash();
 		m_deletedEntries = 0;
 		m_mapExpansionThreshold = LongObjHash.maxCapacity(m_entryMap.size());
@@ -116,12 +122,120 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 	 * background).
 	 */
 	public final void empty() {
-		m_root = new Node(m_maxBranches, true);
+		m_snapshot = null;
+		m_root = new Node(m_maxBranches, true, m_epoch);
 		m_entryMap = new LongObjHash();
 		m_deletedEntries = 0;
 		m_mapExpansionThreshold = LongObjHash.maxCapacity(m_entryMap.size());
 	}
 
+	/**
+	 * Replaces all entries in this R-tree with the specified entries.  The
+	 * tree is built bottom-up in one pass using Sort-Tile-Recursive packing:
+	 * entries are sorted into vertical slices by the X coordinate of their
+	 * centers, each slice is sorted by Y, and runs of consecutive entries
+	 * become full leaf nodes; the same is done with the leaves to build each
+	 * level above them.  This is much faster than inserting the entries one
+	 * at a time, and the resulting nodes are full and overlap very little,
+	 * so queries visit fewer nodes.<p>
+	 * Entries inserted after a bulk load are placed with the usual insertion
+	 * algorithm.  If this method throws an exception, this R-tree is left
+	 * unchanged.
+	 * @param objKeys the identifiers of the entries; the first count elements
+	 *   are used; identifiers must be non-negative and distinct.
+	 * @param extents the extents of the entries, four values per entry; the
+	 *   extents of objKeys[i] are xMin, yMin, xMax, and yMax at indices
+	 *   4*i through 4*i+3.
+	 * @param count the number of entries.
+	 * @exception IllegalStateException if an objKey occurs more than once.
+	 * @exception IllegalArgumentException if an objKey is negative,
+	 *   if an xMin is not less than or equal to its xMax, or
+	 *   if a yMin is not less than or equal to its yMax.
+	 */
+	public final void bulkLoad(final long[] objKeys, final float[] extents, final int count) {
+		for (int i = 0, off = 0; i < count; i++, off += 4) {
+			if (objKeys[i] < 0)
+				throw new IllegalArgumentException("objKey is negative");
+
+			if (!(extents[off] <= extents[off + 2]))
+				throw new IllegalArgumentException("xMin <= xMax not true: xMin " + extents[off]
+				                                   + " xMax " + extents[off + 2]);
+
+			if (!(extents[off + 1] <= extents[off + 3]))
+				throw new IllegalArgumentException("yMin <= yMax not true: yMin " + extents[off + 1]
+				                                   + " yMax " + extents[off + 3]);
+		}
+
+		final LongObjHash entryMap = new LongObjHash();
+		Node[] level = packLeafNodes(objKeys, extents, count, m_maxBranches, m_epoch, entryMap);
+
+		while (level.length > 1)
+			level = packInternalNodes(level, m_maxBranches, m_epoch);
+
+		final Node root = (level.length == 0) ? new Node(m_maxBranches, true, m_epoch) : level[0];
+		m_MBR[0] = Float.POSITIVE_INFINITY;
+		m_MBR[1] = Float.POSITIVE_INFINITY;
+		m_MBR[2] = Float.NEGATIVE_INFINITY;
+		m_MBR[3] = Float.NEGATIVE_INFINITY;
+
+		for (int i = 0; i < root.entryCount; i++) {
+			m_MBR[0] = Math.min(m_MBR[0], root.xMins[i]);
+			m_MBR[1] = Math.min(m_MBR[1], root.yMins[i]);
+			m_MBR[2] = Math.max(m_MBR[2], root.xMaxs[i]);
+			m_MBR[3] = Math.max(m_MBR[3], root.yMaxs[i]);
+		}
+
+		m_snapshot = null;
+		m_root = root;
+		m_entryMap = entryMap;
+		m_deletedEntries = 0;
+		m_mapExpansionThreshold = LongObjHash.maxCapacity(m_entryMap.size());
+	}
+
+	/**
+	 * Rebuilds this R-tree from its current entries, as if they were passed
+	 * to bulkLoad().  Useful after most entries have been moved, for example
+	 * by a layout, since a long series of deletions and insertions leaves
+	 * the tree less tightly packed than a bulk load does.
+	 */
+	public final void rebuild() {
+		final int count = size();
+		final long[] objKeys = new long[count];
+		final float[] extents = new float[count * 4];
+		final SpacialEntry2DEnumerator entries = queryOverlap(Float.NEGATIVE_INFINITY,
+		                                                      Float.NEGATIVE_INFINITY,
+		                                                      Float.POSITIVE_INFINITY,
+		                                                      Float.POSITIVE_INFINITY,
+		                                                      null, 0, false);
+
+		for (int i = 0; i < count; i++)
+			objKeys[i] = entries.nextExtents(extents, i * 4);
+
+		bulkLoad(objKeys, extents, count);
+	}
+
+	/**
+	 * Returns a read-only view of the entries currently in this R-tree.  The
+	 * snapshot is not affected by later modifications of this R-tree, and its
+	 * query methods may be called from any thread without synchronization,
+	 * including while this R-tree is being modified.  Its modifying methods
+	 * throw UnsupportedOperationException.<p>
+	 * Taking a snapshot returns in constant time and copies nothing.  Instead,
+	 * the nodes that exist at that time are shared with the snapshot; this
+	 * R-tree copies such a node the first time it needs to modify it, so an
+	 * insertion or deletion after a snapshot copies at most the nodes on the
+	 * paths it touches.  As long as this R-tree isn't modified, successive
+	 * calls return the same snapshot.
+	 */
+	public final SpacialIndex2D snapshot() {
+		if (m_snapshot == null) {
+			m_snapshot = new Snapshot(m_root, m_MBR, size(), m_maxBranches);
+			m_epoch++;
+		}
+
+		return m_snapshot;
+	}
+
 	/**
 	 * Returns the number of entries currently in this R-tree.  This method
 	 * returns in constant time.<p>
@@ -210,13 +324,18 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 			}
 		}
 
+		m_snapshot = null;
+
+		if (m_root.epoch != m_epoch)
+			m_root = copyNode(m_root, m_epoch, m_entryMap);
+
 		final Node rootSplit = insert(m_root, objKey, xMin, yMin, xMax, yMax, m_maxBranches,
-		                              m_minBranches, m_entryMap, m_MBR, m_objKeyBuff,
+		                              m_minBranches, m_epoch, m_entryMap, m_MBR, m_objKeyBuff,
 		                              m_childrenBuff, m_xMinBuff, m_yMinBuff, m_xMaxBuff,
 		                              m_yMaxBuff, m_tempBuff1, m_tempBuff2);
 
 		if (rootSplit != null) {
-			final Node newRoot = new Node(m_maxBranches, false);
+			final Node newRoot = new Node(m_maxBranches, false, m_epoch);
 			newRoot.entryCount = 2;
 			m_root.parent = newRoot;
 			rootSplit.parent = newRoot;
@@ -254,13 +373,14 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 	private final static Node insert(final Node root, final long objKey, final float xMin,
 	                                 final float yMin, final float xMax, final float yMax,
 	                                 final int maxBranches, final int minBranches,
-	                                 final LongObjHash entryMap, final float[] globalMBR,
+	                                 final int epoch, final LongObjHash entryMap,
+	                                 final float[] globalMBR,
 	                                 final long[] objKeyBuff, final Node[] childrenBuff,
 	                                 final float[] xMinBuff, final float[] yMinBuff,
 	                                 final float[] xMaxBuff, final float[] yMaxBuff,
 	                                 final float[] tempBuff1, final float[] tempBuff2) {
 		final int deepCountIncrease = 1;
-		final Node chosenLeaf = chooseLeaf(root, xMin, yMin, xMax, yMax);
+		final Node chosenLeaf = chooseLeaf(root, xMin, yMin, xMax, yMax, epoch, entryMap);
 
 		if (chosenLeaf.entryCount < maxBranches) { // No split is necessary.
 
@@ -303,13 +423,15 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 	private final static Node insert(final Node root, final int depth, final Node n,
 	                                 final float xMin, final float yMin, final float xMax,
 	                                 final float yMax, final int maxBranches,
-	                                 final int minBranches, final float[] globalMBR,
+	                                 final int minBranches, final int epoch,
+	                                 final LongObjHash entryMap, final float[] globalMBR,
 	                                 final Node[] childrenBuff, final float[] xMinBuff,
 	                                 final float[] yMinBuff, final float[] xMaxBuff,
 	                                 final float[] yMaxBuff, final float[] tempBuff1,
 	                                 final float[] tempBuff2) {
 		final int deepCountIncrease = (isLeafNode(n) ? n.entryCount : n.data.deepCount);
-		final Node chosenParent = chooseParent(root, depth, xMin, yMin, xMax, yMax);
+		final Node chosenParent = chooseParent(root, depth, xMin, yMin, xMax, yMax, epoch,
+		                                       entryMap);
 
 		if (chosenParent.entryCount < maxBranches) { // No split is necessary.
 
@@ -340,14 +462,16 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 	/*
 	 * Returns a leaf node.  The returned leaf node is chosen by this
 	 * algorithm as the most suitable leaf node [under specified root] in
-	 * which to place specified new entry.
+	 * which to place specified new entry.  The nodes on the way down are
+	 * copied if they are older than epoch; root must not be.
 	 */
 	private final static Node chooseLeaf(final Node root, final float xMin, final float yMin,
-	                                     final float xMax, final float yMax) {
+	                                     final float xMax, final float yMax, final int epoch,
+	                                     final LongObjHash entryMap) {
 		Node n = root;
 
 		while (!isLeafNode(n))
-			n = n.data.children[chooseSubtree(n, xMin, yMin, xMax, yMax)];
+			n = writableChild(n, chooseSubtree(n, xMin, yMin, xMax, yMax), epoch, entryMap);
 
 		return n;
 	}
@@ -355,21 +479,99 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 	/*
 	 * The root is defined to be at depth zero.  This function returns a node
 	 * at specified depth such that the returned node is the most suitable such
-	 * node in which to place specified MBR.
+	 * node in which to place specified MBR.  Nodes are copied on the way down
+	 * as in chooseLeaf().
 	 */
 	private final static Node chooseParent(final Node root, final int depth, final float xMin,
-	                                       final float yMin, final float xMax, final float yMax) {
+	                                       final float yMin, final float xMax, final float yMax,
+	                                       final int epoch, final LongObjHash entryMap) {
 		Node n = root;
 		int currDepth = 0;
 
 		while (currDepth != depth) {
-			n = n.data.children[chooseSubtree(n, xMin, yMin, xMax, yMax)];
+			n = writableChild(n, chooseSubtree(n, xMin, yMin, xMax, yMax), epoch, entryMap);
 			currDepth++;
 		}
 
 		return n;
 	}
 
+	/*
+	 * Returns the child at index inx of the specified node, replacing it with
+	 * a copy first if it is older than epoch.  The parent must not be older
+	 * than epoch.
+	 */
+	private final static Node writableChild(final Node parent, final int inx, final int epoch,
+	                                        final LongObjHash entryMap) {
+		final Node child = parent.data.children[inx];
+
+		if (child.epoch == epoch)
+			return child;
+
+		final Node copy = copyNode(child, epoch, entryMap);
+		parent.data.children[inx] = copy;
+
+		return copy;
+	}
+
+	/*
+	 * Returns a copy of n with the specified epoch, and points the parent
+	 * pointers of n's children, or the entryMap entries of n's objKeys, at the
+	 * copy.  The contents of n are not modified, so a snapshot that contains
+	 * n is not affected; snapshots never look at parent pointers.  The arrays
+	 * are copied in full because split routines keep an MBR at the last index.
+	 */
+	private final static Node copyNode(final Node n, final int epoch,
+	                                   final LongObjHash entryMap) {
+		final int maxBranches = n.xMins.length;
+		final Node copy = new Node(maxBranches, isLeafNode(n), epoch);
+		copy.parent = n.parent;
+		copy.entryCount = n.entryCount;
+		System.arraycopy(n.xMins, 0, copy.xMins, 0, maxBranches);
+		System.arraycopy(n.yMins, 0, copy.yMins, 0, maxBranches);
+		System.arraycopy(n.xMaxs, 0, copy.xMaxs, 0, maxBranches);
+		System.arraycopy(n.yMaxs, 0, copy.yMaxs, 0, maxBranches);
+
+		if (isLeafNode(n)) {
+			System.arraycopy(n.objKeys, 0, copy.objKeys, 0, maxBranches);
+
+			for (int i = 0; i < n.entryCount; i++)
+				entryMap.put(n.objKeys[i], copy);
+		} else {
+			System.arraycopy(n.data.children, 0, copy.data.children, 0, maxBranches);
+			copy.data.deepCount = n.data.deepCount;
+
+			for (int i = 0; i < n.entryCount; i++)
+				n.data.children[i].parent = copy;
+		}
+
+		return copy;
+	}
+
+	/*
+	 * Returns n, or the copy that replaces it if it is older than m_epoch.
+	 * Its ancestors are made writable first, so that the entire path from
+	 * the returned node to the root may be modified.
+	 */
+	private final Node writableNode(final Node n) {
+		if (n.epoch == m_epoch)
+			return n;
+
+		if (n.parent == null) {
+			m_root = copyNode(n, m_epoch, m_entryMap);
+
+			return m_root;
+		}
+
+		final Node parent = writableNode(n.parent);
+		int inx = 0;
+
+		while (parent.data.children[inx] != n)
+			inx++;
+
+		return writableChild(parent, inx, m_epoch, m_entryMap);
+	}
+
 	/*
 	 * Returns the index of entry in n whose rectangular boundary
 	 * needs least enlargment to swallow the input rectangle.  Ties are resolved
@@ -452,7 +654,7 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 		fullLeafNode.entryCount = 1;
 
 		final int seed2 = (int) seeds;
-		final Node returnThis = new Node(maxBranches, true);
+		final Node returnThis = new Node(maxBranches, true, fullLeafNode.epoch);
 		returnThis.objKeys[0] = objKeyBuff[seed2];
 		returnThis.xMins[0] = xMinBuff[seed2];
 		returnThis.yMins[0] = yMinBuff[seed2];
@@ -669,7 +871,7 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 		fullInternalNode.entryCount = 1;
 
 		final int seed2 = (int) seeds;
-		final Node returnThis = new Node(maxBranches, false);
+		final Node returnThis = new Node(maxBranches, false, fullInternalNode.epoch);
 		childrenBuff[seed2].parent = returnThis;
 		returnThis.data.children[0] = childrenBuff[seed2];
 		returnThis.xMins[0] = xMinBuff[seed2];
@@ -1253,7 +1455,8 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 			if ((o == null) || (o == m_deletedEntry))
 				return false;
 
-			n = (Node) o;
+			m_snapshot = null;
+			n = writableNode((Node) o);
 		}
 
 		// Delete record from leaf node.
@@ -1290,20 +1493,21 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 					rootSplit = insert(m_root, eliminatedNode.objKeys[i], eliminatedNode.xMins[i],
 					                   eliminatedNode.yMins[i], eliminatedNode.xMaxs[i],
 					                   eliminatedNode.yMaxs[i], m_maxBranches, m_minBranches,
-					                   m_entryMap, m_MBR, m_objKeyBuff, m_childrenBuff, m_xMinBuff,
+					                   m_epoch, m_entryMap, m_MBR, m_objKeyBuff, m_childrenBuff, m_xMinBuff,
 					                   m_yMinBuff, m_xMaxBuff, m_yMaxBuff, m_tempBuff1, m_tempBuff2);
 				} else {
 					rootSplit = insert(m_root, currentDepth, eliminatedNode.data.children[i],
 					                   eliminatedNode.xMins[i], eliminatedNode.yMins[i],
 					                   eliminatedNode.xMaxs[i], eliminatedNode.yMaxs[i],
-					                   m_maxBranches, m_minBranches, m_MBR, m_childrenBuff,
+					                   m_maxBranches, m_minBranches, m_epoch, m_entryMap,
+					                   m_MBR, m_childrenBuff,
 					                   m_xMinBuff, m_yMinBuff, m_xMaxBuff, m_yMaxBuff, m_tempBuff1,
 					                   m_tempBuff2);
 					eliminatedNode.data.children[i] = null; /* Facilitate gc. */
 				}
 
 				if (rootSplit != null) {
-					final Node newRoot = new Node(m_maxBranches, false);
+					final Node newRoot = new Node(m_maxBranches, false, m_epoch);
 					newRoot.entryCount = 2;
 					m_root.parent = newRoot;
 					rootSplit.parent = newRoot;
@@ -1553,18 +1757,23 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 			extentsArr[offset + 3] = Float.NEGATIVE_INFINITY;
 		}
 
-		m_nodeStack.push(m_root); // This stack should always be left empty after
-		                          // previous uses.
-
-		m_extentsStack[0] = m_MBR[0];
-		m_extentsStack[1] = m_MBR[1];
-		m_extentsStack[2] = m_MBR[2];
-		m_extentsStack[3] = m_MBR[3];
-
 		final ObjStack nodeStack = new ObjStack();
 		final ObjStack stackStack = new ObjStack();
-		final int totalCount = queryOverlap(m_nodeStack, m_extentsStack, nodeStack, stackStack,
-		                                    xMin, yMin, xMax, yMax, extentsArr, offset, reverse);
+		final int totalCount;
+
+		// Concurrent queries are allowed; they share the buffers below.
+		synchronized (m_nodeStack) {
+			m_nodeStack.push(m_root); // This stack should always be left empty after
+			                          // previous uses.
+
+			m_extentsStack[0] = m_MBR[0];
+			m_extentsStack[1] = m_MBR[1];
+			m_extentsStack[2] = m_MBR[2];
+			m_extentsStack[3] = m_MBR[3];
+
+			totalCount = queryOverlap(m_nodeStack, m_extentsStack, nodeStack, stackStack,
+			                          xMin, yMin, xMax, yMax, extentsArr, offset, reverse);
+		}
 
 		// m_nodeStack will now be empty.
 		return new OverlapEnumerator(totalCount, nodeStack, stackStack, reverse);
@@ -1672,6 +1881,156 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 		return count;
 	}
 
+	/*
+	 * Builds the leaf level of a bulk load.  Every objKey is put into entryMap,
+	 * mapped to its leaf node.
+	 */
+	private final static Node[] packLeafNodes(final long[] objKeys, final float[] extents,
+	                                          final int count, final int maxBranches,
+	                                          final int epoch, final LongObjHash entryMap) {
+		final int[] order = new int[count];
+		final int[] groupEnds = strSort(extents, count, maxBranches, order);
+		final Node[] leaves = new Node[groupEnds.length];
+
+		for (int g = 0, i = 0; g < leaves.length; g++) {
+			final Node leaf = new Node(maxBranches, true, epoch);
+
+			for (; i < groupEnds[g]; i++) {
+				final int inx = order[i];
+				final int off = inx * 4;
+				final long objKey = objKeys[inx];
+
+				if (entryMap.put(objKey, leaf) != null)
+					throw new IllegalStateException("objkey " + objKey + " is used more than once");
+
+				leaf.objKeys[leaf.entryCount] = objKey;
+				leaf.xMins[leaf.entryCount] = extents[off];
+				leaf.yMins[leaf.entryCount] = extents[off + 1];
+				leaf.xMaxs[leaf.entryCount] = extents[off + 2];
+				leaf.yMaxs[leaf.entryCount] = extents[off + 3];
+				leaf.entryCount++;
+			}
+
+			leaves[g] = leaf;
+		}
+
+		return leaves;
+	}
+
+	/*
+	 * Builds the level of a bulk load above the specified nodes.
+	 */
+	private final static Node[] packInternalNodes(final Node[] children, final int maxBranches,
+	                                              final int epoch) {
+		final float[] extents = new float[children.length * 4];
+
+		for (int c = 0, off = 0; c < children.length; c++, off += 4) {
+			final Node child = children[c];
+			extents[off] = Float.POSITIVE_INFINITY;
+			extents[off + 1] = Float.POSITIVE_INFINITY;
+			extents[off + 2] = Float.NEGATIVE_INFINITY;
+			extents[off + 3] = Float.NEGATIVE_INFINITY;
+
+			for (int i = 0; i < child.entryCount; i++) {
+				extents[off] = Math.min(extents[off], child.xMins[i]);
+				extents[off + 1] = Math.min(extents[off + 1], child.yMins[i]);
+				extents[off + 2] = Math.max(extents[off + 2], child.xMaxs[i]);
+				extents[off + 3] = Math.max(extents[off + 3], child.yMaxs[i]);
+			}
+		}
+
+		final int[] order = new int[children.length];
+		final int[] groupEnds = strSort(extents, children.length, maxBranches, order);
+		final Node[] parents = new Node[groupEnds.length];
+
+		for (int g = 0, i = 0; g < parents.length; g++) {
+			final Node parent = new Node(maxBranches, false, epoch);
+
+			for (; i < groupEnds[g]; i++) {
+				final int inx = order[i];
+				final int off = inx * 4;
+				final Node child = children[inx];
+				child.parent = parent;
+				parent.data.children[parent.entryCount] = child;
+				parent.data.deepCount += (isLeafNode(child) ? child.entryCount
+				                                            : child.data.deepCount);
+				parent.xMins[parent.entryCount] = extents[off];
+				parent.yMins[parent.entryCount] = extents[off + 1];
+				parent.xMaxs[parent.entryCount] = extents[off + 2];
+				parent.yMaxs[parent.entryCount] = extents[off + 3];
+				parent.entryCount++;
+			}
+
+			parents[g] = parent;
+		}
+
+		return parents;
+	}
+
+	/*
+	 * Sort-Tile-Recursive ordering of count rectangles, four extents values
+	 * each.  The indices of the rectangles are written into order such that
+	 * consecutive runs form the nodes of a level; the returned array holds the
+	 * (exclusive) end of each run.  The rectangles are cut into about
+	 * sqrt(count / maxBranches) vertical slices by the X coordinates of their
+	 * centers, and each slice is sorted by Y and split into runs of as equal
+	 * sizes as possible, none larger than maxBranches.
+	 */
+	private final static int[] strSort(final float[] extents, final int count,
+	                                   final int maxBranches, final int[] order) {
+		final long[] keys = new long[count];
+
+		for (int i = 0; i < count; i++)
+			keys[i] = sortKey((extents[i * 4] * 0.5f) + (extents[(i * 4) + 2] * 0.5f), i);
+
+		Arrays.sort(keys);
+
+		final int nodeCount = (count + maxBranches - 1) / maxBranches;
+		final int sliceCount = (int) Math.ceil(Math.sqrt(nodeCount));
+		final int sliceSize = (sliceCount == 0) ? 1
+		                      : (((nodeCount + sliceCount - 1) / sliceCount) * maxBranches);
+		final IntStack groupEnds = new IntStack();
+
+		for (int start = 0; start < count; start += sliceSize) {
+			final int end = Math.min(count, start + sliceSize);
+
+			for (int i = start; i < end; i++) {
+				final int inx = (int) keys[i];
+				keys[i] = sortKey((extents[(inx * 4) + 1] * 0.5f) + (extents[(inx * 4) + 3] * 0.5f),
+				                  inx);
+			}
+
+			Arrays.sort(keys, start, end);
+
+			final int sliceEntries = end - start;
+			final int groups = (sliceEntries + maxBranches - 1) / maxBranches;
+
+			for (int g = 1; g <= groups; g++)
+				groupEnds.push(start + (int) (((long) sliceEntries * g) / groups));
+		}
+
+		for (int i = 0; i < count; i++)
+			order[i] = (int) keys[i];
+
+		final int[] returnThis = new int[groupEnds.size()];
+
+		for (int g = returnThis.length - 1; g >= 0; g--)
+			returnThis[g] = groupEnds.pop();
+
+		return returnThis;
+	}
+
+	/*
+	 * A long that sorts like the float value, with the index as tie breaker
+	 * in the low 32 bits.
+	 */
+	private final static long sortKey(final float value, final int inx) {
+		int bits = Float.floatToIntBits(value);
+		bits ^= ((bits >> 31) & 0x7fffffff);
+
+		return (((long) bits) << 32) | inx;
+	}
+
 	private final static class Node implements java.io.Serializable {
 	private final static long serialVersionUID = 1213746741283564L;
 		private Node parent;
@@ -1682,8 +2041,10 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 		private final float[] yMaxs;
 		private final long[] objKeys; // null if and only if internal node.
 		private final InternalNodeData data;
+		private final int epoch;
 
-		private Node(final int maxBranches, final boolean leafNode) {
+		private Node(final int maxBranches, final boolean leafNode, final int epoch) {
+			this.epoch = epoch;
 			xMins = new float[maxBranches];
 			yMins = new float[maxBranches];
 			xMaxs = new float[maxBranches];
@@ -1709,6 +2070,153 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 		}
 	}
 
+	/*
+	 * A read-only R-tree made of nodes that are shared with the R-tree it was
+	 * taken from.  Queries allocate their own buffers, so any number of them
+	 * may run at once.
+	 */
+	private final static class Snapshot implements SpacialIndex2D {
+		private final Node root;
+		private final float[] mbr;
+		private final int size;
+		private final int extentsStackSize;
+		private volatile LongObjHash leafNodes; // Built on first use by exists().
+
+		private Snapshot(final Node root, final float[] mbr, final int size,
+		                 final int maxBranches) {
+			this.root = root;
+			this.mbr = mbr.clone();
+			this.size = size;
+
+			int depth = 0;
+
+			for (Node n = root; !isLeafNode(n); n = n.data.children[0])
+				depth++;
+
+			// A depth-first search holds at most maxBranches children of every
+			// node on the current path.
+			extentsStackSize = ((depth * maxBranches) + 1) * 4;
+		}
+
+		public final int size() {
+			return size;
+		}
+
+		public final boolean exists(final long objKey, final float[] extentsArr,
+		                            final int offset) {
+			if (objKey < 0)
+				return false;
+
+			final Node n = (Node) leafNodes().get(objKey);
+
+			if (n == null)
+				return false;
+
+			if (extentsArr != null) {
+				int i = -1;
+
+				while (n.objKeys[++i] != objKey)
+					;
+
+				extentsArr[offset] = n.xMins[i];
+				extentsArr[offset + 1] = n.yMins[i];
+				extentsArr[offset + 2] = n.xMaxs[i];
+				extentsArr[offset + 3] = n.yMaxs[i];
+			}
+
+			return true;
+		}
+
+		public final SpacialEntry2DEnumerator queryOverlap(final float xMin, final float yMin,
+		                                                   final float xMax, final float yMax,
+		                                                   final float[] extentsArr,
+		                                                   final int offset,
+		                                                   final boolean reverse) {
+			if (!(xMin <= xMax))
+				throw new IllegalArgumentException("xMin <= xMax not true");
+
+			if (!(yMin <= yMax))
+				throw new IllegalArgumentException("yMin <= yMax not true");
+
+			if (extentsArr != null) {
+				extentsArr[offset] = Float.POSITIVE_INFINITY;
+				extentsArr[offset + 1] = Float.POSITIVE_INFINITY;
+				extentsArr[offset + 2] = Float.NEGATIVE_INFINITY;
+				extentsArr[offset + 3] = Float.NEGATIVE_INFINITY;
+			}
+
+			final ObjStack unprocessedNodes = new ObjStack();
+			final float[] extentsStack = new float[extentsStackSize];
+			final ObjStack nodeStack = new ObjStack();
+			final ObjStack stackStack = new ObjStack();
+			unprocessedNodes.push(root);
+			System.arraycopy(mbr, 0, extentsStack, 0, 4);
+
+			final int totalCount = RTree.queryOverlap(unprocessedNodes, extentsStack, nodeStack,
+			                                          stackStack, xMin, yMin, xMax, yMax,
+			                                          extentsArr, offset, reverse);
+
+			return new OverlapEnumerator(totalCount, nodeStack, stackStack, reverse);
+		}
+
+		public final SpacialIndex2D snapshot() {
+			return this;
+		}
+
+		public final void empty() {
+			throw new UnsupportedOperationException("snapshots are read-only");
+		}
+
+		public final void insert(final long objKey, final float xMin, final float yMin,
+		                         final float xMax, final float yMax) {
+			throw new UnsupportedOperationException("snapshots are read-only");
+		}
+
+		public final boolean delete(final long objKey) {
+			throw new UnsupportedOperationException("snapshots are read-only");
+		}
+
+		public final void bulkLoad(final long[] objKeys, final float[] extents,
+		                           final int count) {
+			throw new UnsupportedOperationException("snapshots are read-only");
+		}
+
+		public final void rebuild() {
+			throw new UnsupportedOperationException("snapshots are read-only");
+		}
+
+		private final LongObjHash leafNodes() {
+			LongObjHash map = leafNodes;
+
+			if (map == null) {
+				synchronized (this) {
+					map = leafNodes;
+
+					if (map == null) {
+						map = new LongObjHash();
+						final ObjStack nodes = new ObjStack();
+						nodes.push(root);
+
+						while (nodes.size() > 0) {
+							final Node n = (Node) nodes.pop();
+
+							for (int i = 0; i < n.entryCount; i++) {
+								if (isLeafNode(n))
+									map.put(n.objKeys[i], n);
+								else
+									nodes.push(n.data.children[i]);
+							}
+						}
+
+						leafNodes = map;
+					}
+				}
+			}
+
+			return map;
+		}
+	}
+
 	private final static class OverlapEnumerator implements SpacialEntry2DEnumerator {
 		private int count;
 		private final ObjStack nodeStack;
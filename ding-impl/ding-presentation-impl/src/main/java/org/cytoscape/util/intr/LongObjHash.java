@@ -92,7 +92,9 @@ public final class LongObjHash implements java.io.Serializable {
 	// These are caching variables.  The idea is that programmers will
 	// frequently first do a get(), and based on that result, will perform
 	// some other operations and then maybe do a put() operation with the same
-	// key as the previous get() operation.
+	// key as the previous get() operation.  Only put() updates them, so that
+	// get() can be called from several threads at once as long as nothing is
+	// being put.
 	private long m_prevKey;
 	private int m_prevInx;
 
@@ -177,19 +179,19 @@ public final class LongObjHash implements java.io.Serializable {
 		if (key < 0)
 			throw new IllegalArgumentException("key is negative");
 
-		if (key != m_prevKey) {
-			int incr = 0;
+		if (key == m_prevKey)
+			return m_vals[m_prevInx];
 
-			for (m_prevInx = (int)(key % (long)m_keys.length);
-			     (m_keys[m_prevInx] >= 0) && (m_keys[m_prevInx] != key);
-			     m_prevInx = (int)((m_prevInx + incr) % (long)m_keys.length))
-				if (incr == 0)
-					incr = 1 + (int)(key % (long)(m_keys.length - 1));
+		int incr = 0;
+		int inx;
 
-			m_prevKey = key;
-		}
+		for (inx = (int)(key % (long)m_keys.length);
+		     (m_keys[inx] >= 0) && (m_keys[inx] != key);
+		     inx = (int)((inx + incr) % (long)m_keys.length))
+			if (incr == 0)
+				incr = 1 + (int)(key % (long)(m_keys.length - 1));
 
-		return m_vals[m_prevInx];
+		return m_vals[inx];
 	}
 
 	/**
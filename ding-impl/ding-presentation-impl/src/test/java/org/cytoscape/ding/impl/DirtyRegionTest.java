@@ -0,0 +1,79 @@
+package org.cytoscape.ding.impl;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class DirtyRegionTest {
+
+	private DirtyRegion region;
+	private float[] buff;
+
+	@Before
+	public void setUp() throws Exception {
+		region = new DirtyRegion();
+		buff = new float[4];
+	}
+
+	@Test
+	public void testAddAndClear() {
+		assertTrue(region.isEmpty());
+		region.add(0.0f, 1.0f, 2.0f, 3.0f);
+		region.add(10.0f, 11.0f, 12.0f, 13.0f);
+		assertEquals(2, region.size());
+
+		region.get(1, buff, 0);
+		assertArrayEquals(new float[] { 10.0f, 11.0f, 12.0f, 13.0f }, buff, 0.0f);
+		region.getBounds(buff, 0);
+		assertArrayEquals(new float[] { 0.0f, 1.0f, 12.0f, 13.0f }, buff, 0.0f);
+
+		region.clear();
+		assertTrue(region.isEmpty());
+	}
+
+	@Test
+	public void testTooManyRectanglesAreMerged() {
+		for (int i = 0; i < DirtyRegion.MAX_RECTANGLES; i++)
+			region.add(i, 0.0f, i + 1.0f, 1.0f);
+
+		assertEquals(DirtyRegion.MAX_RECTANGLES, region.size());
+		region.add(-5.0f, -5.0f, -4.0f, -4.0f);
+		assertEquals(2, region.size());
+
+		region.get(0, buff, 0);
+		assertArrayEquals(new float[] { 0.0f, 0.0f, DirtyRegion.MAX_RECTANGLES, 1.0f }, buff, 0.0f);
+		region.getBounds(buff, 0);
+		assertArrayEquals(new float[] { -5.0f, -5.0f, DirtyRegion.MAX_RECTANGLES, 1.0f }, buff, 0.0f);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testEmptyRegionHasNoBounds() {
+		region.getBounds(buff, 0);
+	}
+}
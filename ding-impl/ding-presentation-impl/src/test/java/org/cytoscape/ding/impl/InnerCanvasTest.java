@@ -0,0 +1,191 @@
+package org.cytoscape.ding.impl;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
+
+import org.cytoscape.ding.DVisualLexicon;
+import org.cytoscape.ding.customgraphics.CustomGraphicsManager;
+import org.cytoscape.ding.impl.cyannotator.create.AnnotationFactoryManager;
+import org.cytoscape.event.CyEventHelper;
+import org.cytoscape.graph.render.stateful.GraphLOD;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.NetworkTestSupport;
+import org.cytoscape.service.util.CyServiceRegistrar;
+import org.cytoscape.spacial.internal.rtree.RTreeFactory;
+import org.cytoscape.view.model.CyNetworkViewManager;
+import org.cytoscape.view.presentation.property.values.HandleFactory;
+import org.cytoscape.view.vizmap.VisualMappingManager;
+import org.cytoscape.work.swing.DialogTaskManager;
+import org.cytoscape.work.undo.UndoSupport;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class InnerCanvasTest {
+
+	// How long the frame rendered in the background holds the lock, unless it
+	// is stopped.
+	private static final long FRAME_MILLIS = 10000L;
+
+	private final NetworkTestSupport netSupport = new NetworkTestSupport();
+
+	private DGraphView networkView;
+	private InnerCanvas canvas;
+	private DNodeView nodeView;
+	private DNodeView otherNodeView;
+
+	@Before
+	public void setUp() throws Exception {
+		final CyNetwork network = netSupport.getNetwork();
+		final CyNode node = network.addNode();
+		final CyNode otherNode = network.addNode();
+		network.addEdge(node, otherNode, true);
+
+		networkView = new DGraphView(network, netSupport.getRootNetworkFactory(), mock(UndoSupport.class),
+		                             new RTreeFactory(), new DVisualLexicon(mock(CustomGraphicsManager.class)),
+		                             mock(ViewTaskFactoryListener.class), mock(DialogTaskManager.class),
+		                             mock(CyEventHelper.class), mock(AnnotationFactoryManager.class),
+		                             mock(DingGraphLOD.class), mock(VisualMappingManager.class),
+		                             mock(CyNetworkViewManager.class), mock(HandleFactory.class),
+		                             mock(CyServiceRegistrar.class));
+		canvas = networkView.getCanvas();
+		nodeView = (DNodeView) networkView.getDNodeView(node);
+		otherNodeView = (DNodeView) networkView.getDNodeView(otherNode);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		canvas.dispose();
+	}
+
+	@Test(timeout = 3 * FRAME_MILLIS)
+	public void testEdtDoesNotWaitForBackgroundFrame() throws Exception {
+		final CountDownLatch frameStarted = new CountDownLatch(1);
+
+		// Holds the lock, as a frame that takes FRAME_MILLIS to render would,
+		// until the frame is stopped.
+		networkView.setGraphLOD(new GraphLOD() {
+			@Override
+			public boolean renderInBackground() {
+				return true;
+			}
+
+			@Override
+			public boolean detail(final int renderNodeCount, final int renderEdgeCount) {
+				frameStarted.countDown();
+				final long end = System.currentTimeMillis() + FRAME_MILLIS;
+
+				try {
+					while (canvas.isRenderingInBackground() && (System.currentTimeMillis() < end))
+						Thread.sleep(10L);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+
+				return false;
+			}
+		});
+
+		canvas.setBounds(0, 0, 200, 200);
+		final BufferedImage img = new BufferedImage(200, 200, BufferedImage.TYPE_INT_ARGB);
+		SwingUtilities.invokeAndWait(new Runnable() {
+			public void run() {
+				canvas.update(img.getGraphics());
+			}
+		});
+		assertTrue(frameStarted.await(FRAME_MILLIS, TimeUnit.MILLISECONDS));
+
+		final long start = System.currentTimeMillis();
+		SwingUtilities.invokeAndWait(new Runnable() {
+			public void run() {
+				nodeView.setSelectedPaint(Color.RED);
+			}
+		});
+		final long elapsed = System.currentTimeMillis() - start;
+
+		assertTrue("waited " + elapsed + " ms for the lock", elapsed < (FRAME_MILLIS / 2));
+		assertEquals(Color.RED, networkView.m_nodeDetails.getSelectedPaint(nodeView.getCyNode()));
+	}
+
+	@Test
+	public void testSelectionRendersLabelsReachingIntoDirtyRegion() throws Exception {
+		// The label of the other node is more than twice as wide as the nodes
+		// are apart, so that it reaches across the selected node.
+		nodeView.setXPosition(0.0d);
+		nodeView.setYPosition(0.0d);
+		otherNodeView.setXPosition(150.0d);
+		otherNodeView.setYPosition(0.0d);
+		otherNodeView.setText("A label much wider than the nodes are apart");
+		otherNodeView.setFont(new Font("SansSerif", Font.PLAIN, 40));
+		otherNodeView.setLabelWidth(2000.0d);
+		networkView.setGraphLOD(new GraphLOD());
+		canvas.setBounds(0, 0, 400, 300);
+
+		for (final double zoom : new double[] { 0.25d, 1.0d, 2.0d }) {
+			nodeView.unselect();
+			networkView.setCenter(75.0d, 0.0d);
+			networkView.setZoom(zoom);
+			render();
+
+			nodeView.select();
+			final BufferedImage dirtyImg = render();
+
+			networkView.m_contentChanged = true;
+			final BufferedImage fullImg = render();
+
+			for (int y = 0; y < fullImg.getHeight(); y++) {
+				for (int x = 0; x < fullImg.getWidth(); x++)
+					assertEquals("pixel (" + x + ", " + y + ") at zoom " + zoom, fullImg.getRGB(x, y),
+					             dirtyImg.getRGB(x, y));
+			}
+		}
+	}
+
+	/*
+	 * Updates the canvas on the EDT and returns what it has drawn.
+	 */
+	private BufferedImage render() throws Exception {
+		final BufferedImage img = new BufferedImage(400, 300, BufferedImage.TYPE_INT_ARGB);
+		SwingUtilities.invokeAndWait(new Runnable() {
+			public void run() {
+				canvas.update(img.getGraphics());
+			}
+		});
+
+		return img;
+	}
+}
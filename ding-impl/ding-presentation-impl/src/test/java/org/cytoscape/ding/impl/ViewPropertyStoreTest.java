@@ -0,0 +1,143 @@
+package org.cytoscape.ding.impl;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import static org.junit.Assert.*;
+
+import java.awt.Color;
+import java.awt.Paint;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ViewPropertyStoreTest {
+
+	private ViewPropertyStore store;
+	private ViewPropertyStore.FloatColumn widths;
+	private ViewPropertyStore.ObjectColumn<String> labels;
+	private ViewPropertyStore.InternedColumn<Paint> paints;
+
+	@Before
+	public void setUp() throws Exception {
+		store = new ViewPropertyStore();
+		widths = store.floatColumn();
+		labels = store.objectColumn();
+		paints = store.internedColumn();
+	}
+
+	@Test
+	public void testSetAndUnset() {
+		final int a = store.register();
+		final int b = store.register();
+		assertFalse(a == b);
+		assertFalse(widths.isSet(a));
+		assertNull(labels.get(a));
+		assertNull(paints.get(a));
+
+		widths.set(a, 3.5f);
+		labels.set(b, "b");
+		paints.set(a, Color.RED);
+		assertTrue(widths.isSet(a));
+		assertEquals(3.5f, widths.get(a), 0.0f);
+		assertFalse(widths.isSet(b));
+		assertEquals("b", labels.get(b));
+		assertEquals(Color.RED, paints.get(a));
+
+		widths.unset(a);
+		labels.set(b, null);
+		assertFalse(widths.isSet(a));
+		assertFalse(labels.isSet(b));
+		assertEquals(Color.RED, paints.get(a));
+	}
+
+	@Test
+	public void testUnregisteredOrdinalIsIgnored() {
+		widths.set(-1, 1.0f);
+		paints.set(-1, Color.RED);
+		assertFalse(widths.isSet(-1));
+		assertNull(paints.get(-1));
+		store.unregister(-1);
+	}
+
+	@Test
+	public void testOrdinalIsReusedWithoutValues() {
+		final int a = store.register();
+		widths.set(a, 2.0f);
+		labels.set(a, "a");
+		paints.set(a, Color.BLUE);
+
+		store.unregister(a);
+		final int b = store.register();
+		assertEquals(a, b);
+		assertFalse(widths.isSet(b));
+		assertNull(labels.get(b));
+		assertNull(paints.get(b));
+	}
+
+	@Test
+	public void testGrowsAndClears() {
+		final int count = 1000;
+
+		for (int i = 0; i < count; i++) {
+			final int ordinal = store.register();
+			assertEquals(i, ordinal);
+			widths.set(ordinal, i);
+		}
+
+		for (int i = 0; i < count; i++)
+			assertEquals((float) i, widths.get(i), 0.0f);
+
+		assertEquals(count, widths.count());
+		store.clear();
+		assertEquals(0, widths.count());
+
+		for (int i = 0; i < count; i++)
+			assertFalse(widths.isSet(i));
+	}
+
+	@Test
+	public void testInternedValuesAreShared() {
+		for (int i = 0; i < 100; i++)
+			paints.set(store.register(), i % 2 == 0 ? Color.RED : Color.GREEN);
+
+		assertEquals(2, paints.tableSize());
+		assertEquals(Color.RED, paints.get(0));
+		assertEquals(Color.GREEN, paints.get(1));
+	}
+
+	@Test
+	public void testUnusedInternedValuesAreDropped() {
+		final int a = store.register();
+		final int b = store.register();
+		paints.set(b, Color.BLACK);
+
+		for (int i = 0; i < 10000; i++)
+			paints.set(a, new Color(i));
+
+		assertTrue(paints.tableSize() <= 1000);
+		assertEquals(new Color(9999), paints.get(a));
+		assertEquals(Color.BLACK, paints.get(b));
+	}
+}
@@ -69,6 +69,34 @@ public class GraphGraphicsTest extends TestCase {
 		oldGraphGraphics.clear(Color.white,0,0,1.0);
 	}
 
+	public void testZoomBucket() {
+		assertEquals(0, GraphGraphics.getZoomBucket(1.0));
+		assertEquals(1, GraphGraphics.getZoomBucket(1.2));
+		assertEquals(2, GraphGraphics.getZoomBucket(2.0));
+		assertEquals(-2, GraphGraphics.getZoomBucket(0.5));
+		assertEquals(-2, GraphGraphics.getZoomBucket(0.4));
+		assertEquals(-3, GraphGraphics.getZoomBucket(0.3));
+	}
+
+	public void testDrawCustomGraphicImage() {
+		BufferedImage big = new BufferedImage(400,400,BufferedImage.TYPE_INT_ARGB);
+		java.awt.Graphics2D g = big.createGraphics();
+		g.setColor(Color.red);
+		g.fillRect(0,0,400,400);
+		g.dispose();
+		java.awt.TexturePaint paint = new java.awt.TexturePaint(big, new java.awt.Rectangle(0,0,400,400));
+		java.awt.Rectangle bounds = new java.awt.Rectangle(-10,-10,20,20);
+
+		// The second time, the image scaled down the first time is drawn.
+		for (int i = 0; i < 2; i++) {
+			currentGraphGraphics.clear(Color.white,0,0,1.0);
+			currentGraphGraphics.drawCustomGraphicImage(bounds, 0.0f, 0.0f, paint);
+			assertEquals(Color.red.getRGB(), image.getRGB(canvasSize/2, canvasSize/2));
+			assertEquals(Color.red.getRGB(), image.getRGB(canvasSize/2 - 9, canvasSize/2 - 9));
+			assertEquals(Color.white.getRGB(), image.getRGB(canvasSize/2 - 12, canvasSize/2));
+		}
+	}
+
 	public void testRenderGraphFull() {
 		// run everything once, to prime the system
 		Random rand = new Random(10);
@@ -0,0 +1,82 @@
+package org.cytoscape.graph.render.immed;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2009 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import junit.framework.*;
+
+
+public class LRUCacheTest extends TestCase {
+
+	public void testDropsLeastRecentlyUsed() {
+		LRUCache<String,String> cache = new LRUCache<String,String>(2);
+		cache.put("a", "A");
+		cache.put("b", "B");
+		assertEquals("A", cache.get("a"));
+		cache.put("c", "C");
+
+		assertEquals(2, cache.size());
+		assertEquals("A", cache.get("a"));
+		assertNull(cache.get("b"));
+		assertEquals("C", cache.get("c"));
+	}
+
+	public void testDropsByWeight() {
+		LRUCache<String,String> cache = new LRUCache<String,String>(10,
+			new LRUCache.Weigher<String>() {
+				public long weigh(String value) {
+					return value.length();
+				}
+			});
+		cache.put("a", "aaaa");
+		cache.put("b", "bbbb");
+		assertEquals(8, cache.weight());
+
+		// Replacing a value does not count its old weight.
+		cache.put("b", "bbb");
+		assertEquals(7, cache.weight());
+
+		cache.put("c", "cccccc");
+		assertEquals(9, cache.weight());
+		assertNull(cache.get("a"));
+		assertEquals("bbb", cache.get("b"));
+
+		// A value heavier than the cache is not kept, and drops nothing.
+		cache.put("d", "ddddddddddd");
+		assertNull(cache.get("d"));
+		assertEquals(2, cache.size());
+
+		cache.clear();
+		assertEquals(0, cache.size());
+		assertEquals(0, cache.weight());
+	}
+
+	public void testInvalidSize() {
+		try {
+			new LRUCache<String,String>(0);
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+	}
+}
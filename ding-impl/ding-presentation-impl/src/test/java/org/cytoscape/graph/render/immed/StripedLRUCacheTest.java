@@ -0,0 +1,106 @@
+package org.cytoscape.graph.render.immed;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2009 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import junit.framework.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+public class StripedLRUCacheTest extends TestCase {
+
+	public void testHoldsAtMostMaxSize() {
+		StripedLRUCache<Integer,String> cache = new StripedLRUCache<Integer,String>(100, 4);
+
+		for (int i = 0; i < 1000; i++)
+			cache.put(i, "v" + i);
+
+		assertTrue(cache.size() <= 100);
+
+		// The most recent entry of every stripe is kept.
+		assertEquals("v999", cache.get(999));
+
+		cache.clear();
+		assertEquals(0, cache.size());
+		assertNull(cache.get(999));
+	}
+
+	public void testReplacesValues() {
+		StripedLRUCache<String,String> cache = new StripedLRUCache<String,String>(10, 3);
+		cache.put("a", "A");
+		cache.put("a", "AA");
+
+		assertEquals(1, cache.size());
+		assertEquals("AA", cache.get("a"));
+	}
+
+	public void testInvalidArguments() {
+		try {
+			new StripedLRUCache<String,String>(10, 0);
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+
+		try {
+			// Three stripes are rounded up to four, which don't fit in three entries.
+			new StripedLRUCache<String,String>(3, 3);
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	public void testConcurrentAccess() throws Exception {
+		final StripedLRUCache<Integer,Integer> cache = new StripedLRUCache<Integer,Integer>(64, 8);
+		final AtomicInteger wrongValues = new AtomicInteger();
+		final List<Thread> threads = new ArrayList<Thread>();
+
+		for (int t = 0; t < 4; t++) {
+			final Thread thread = new Thread() {
+				public void run() {
+					for (int i = 0; i < 20000; i++) {
+						final Integer key = i % 200;
+						final Integer value = cache.get(key);
+
+						if (value == null)
+							cache.put(key, -key);
+						else if (value != -key)
+							wrongValues.incrementAndGet();
+					}
+				}
+			};
+			threads.add(thread);
+			thread.start();
+		}
+
+		for (final Thread thread : threads)
+			thread.join();
+
+		assertEquals(0, wrongValues.get());
+		assertTrue(cache.size() <= 64);
+	}
+}
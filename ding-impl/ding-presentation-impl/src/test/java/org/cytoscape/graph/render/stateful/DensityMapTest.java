@@ -0,0 +1,93 @@
+package org.cytoscape.graph.render.stateful;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2010 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import junit.framework.*;
+
+
+public class DensityMapTest extends TestCase {
+	private DensityMap map;
+
+	public void setUp() {
+		// 10 x 5 cells of 2 pixels over the window (100, 50) - (110, 55).
+		map = new DensityMap(10, 5, 100.0, 50.0, 2.0);
+	}
+
+	public void testCellAt() {
+		assertEquals(0, map.cellAt(100.0, 50.0));
+		assertEquals(9, map.cellAt(109.9, 50.0));
+		assertEquals(10 + 3, map.cellAt(103.5, 51.0));
+		assertEquals(-1, map.cellAt(99.9, 50.0));
+		assertEquals(-1, map.cellAt(110.0, 50.0));
+		assertEquals(-1, map.cellAt(105.0, 55.0));
+	}
+
+	public void testHorizontalLineCountsEveryCellOnce() {
+		assertTrue(map.addLine(100.5, 52.5, 109.5, 52.5));
+
+		for (int column = 0; column < 10; column++) {
+			assertEquals(1, map.getEdgeCount((2 * 10) + column));
+			assertEquals(0, map.getEdgeCount((1 * 10) + column));
+		}
+	}
+
+	public void testLineIsClippedToGrid() {
+		// From far outside on the left to far outside on the right.
+		assertTrue(map.addLine(-1.0e6, 50.5, 1.0e6, 50.5));
+
+		for (int column = 0; column < 10; column++)
+			assertEquals(1, map.getEdgeCount(column));
+
+		// Entirely outside.
+		assertFalse(map.addLine(0.0, 0.0, 50.0, 10.0));
+		assertFalse(map.addLine(120.0, 50.0, 120.0, 55.0));
+	}
+
+	public void testDiagonalLine() {
+		assertTrue(map.addLine(100.0, 50.0, 104.99, 54.99));
+
+		int total = 0;
+
+		for (int cell = 0; cell < 50; cell++)
+			total += map.getEdgeCount(cell);
+
+		// Each of the 5 diagonal cells, and at most a neighbor per step.
+		assertTrue(total >= 5);
+		assertTrue(total <= 10);
+
+		for (int i = 0; i < 5; i++)
+			assertEquals(1, map.getEdgeCount((i * 10) + i));
+	}
+
+	public void testAdd() {
+		final DensityMap other = new DensityMap(10, 5, 100.0, 50.0, 2.0);
+		map.addLine(100.5, 50.5, 100.5, 50.5);
+		other.addLine(100.5, 50.5, 109.5, 50.5);
+		map.add(other);
+		assertEquals(2, map.getEdgeCount(0));
+		assertEquals(1, map.getEdgeCount(9));
+	}
+}
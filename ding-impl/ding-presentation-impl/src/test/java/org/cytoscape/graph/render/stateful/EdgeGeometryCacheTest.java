@@ -0,0 +1,243 @@
+package org.cytoscape.graph.render.stateful;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2010 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import junit.framework.*;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Image;
+import java.awt.Shape;
+import java.awt.geom.GeneralPath;
+import java.awt.geom.PathIterator;
+import java.awt.image.BufferedImage;
+
+import org.cytoscape.graph.render.immed.EdgeAnchors;
+import org.cytoscape.graph.render.immed.GraphGraphics;
+import org.cytoscape.graph.render.immed.PreparedEdge;
+
+
+public class EdgeGeometryCacheTest extends TestCase {
+	private GraphGraphics grafx;
+	private EdgeGeometryCache cache;
+	private float[] srcNodeExtents;
+	private float[] trgNodeExtents;
+	private float[] anchor;
+
+	public void setUp() {
+		Image img = new BufferedImage(500,500,BufferedImage.TYPE_INT_ARGB);
+		grafx = new GraphGraphics(img, false, true);
+		cache = new EdgeGeometryCache();
+		srcNodeExtents = new float[] {10.0f,10.0f,20.0f,20.0f};
+		trgNodeExtents = new float[] {110.0f,110.0f,120.0f,120.0f};
+		anchor = new float[] {50.0f,90.0f};
+	}
+
+	public void testEndpointsMatchUncachedEndpoints() {
+		assertEndpointsMatch(null);
+		assertEndpointsMatch(new Anchor());
+
+		// The same edge again, after its target and its anchor moved.
+		trgNodeExtents[0] = trgNodeExtents[2] = 200.0f;
+		anchor[1] = 10.0f;
+		assertEndpointsMatch(new Anchor());
+		assertEquals(1, cache.size());
+	}
+
+	public void testPathMatchesUncachedPath() {
+		final float[] rtnValSrc = new float[2];
+		final float[] rtnValTrg = new float[2];
+		assertNull(cache.getEdgePath(1L, grafx));
+		assertTrue(computeCached(new Anchor(), rtnValSrc, rtnValTrg));
+
+		final Shape path = cache.getEdgePath(1L, grafx);
+		assertSame(path, cache.getEdgePath(1L, grafx));
+
+		final GeneralPath expected = new GeneralPath();
+		assertTrue(grafx.getEdgePath(GraphGraphics.ARROW_DISC, 5.0f, GraphGraphics.ARROW_DELTA, 7.0f,
+		                             rtnValSrc[0], rtnValSrc[1], new Anchor(),
+		                             rtnValTrg[0], rtnValTrg[1], expected));
+		assertSamePath(expected, path);
+
+		// A new anchor position gives a new path.
+		anchor[0] = 90.0f;
+		assertTrue(computeCached(new Anchor(), rtnValSrc, rtnValTrg));
+		assertNotSame(path, cache.getEdgePath(1L, grafx));
+
+		cache.remove(1L);
+		assertNull(cache.getEdgePath(1L, grafx));
+		assertEquals(0, cache.size());
+	}
+
+	public void testPreparedEdgeDrawsLikeDrawEdgeFull() {
+		assertDrawsLikeDrawEdgeFull(null, GraphGraphics.ARROW_DISC, GraphGraphics.ARROW_DELTA);
+		assertDrawsLikeDrawEdgeFull(new Anchor(), GraphGraphics.ARROW_DISC,
+		                            GraphGraphics.ARROW_DELTA);
+		assertDrawsLikeDrawEdgeFull(null, GraphGraphics.ARROW_NONE, GraphGraphics.ARROW_NONE);
+		assertDrawsLikeDrawEdgeFull(new Anchor(), GraphGraphics.ARROW_NONE,
+		                            GraphGraphics.ARROW_NONE);
+
+		// The arrows of nodes this close leave no room for the segment.
+		trgNodeExtents = new float[] {21.0f,10.0f,31.0f,20.0f};
+		assertDrawsLikeDrawEdgeFull(null, GraphGraphics.ARROW_DISC, GraphGraphics.ARROW_DELTA);
+	}
+
+	public void testRemoveManyEdges() {
+		final float[] rtnValSrc = new float[2];
+		final float[] rtnValTrg = new float[2];
+
+		for (long edge = 0; edge < 1000; edge++)
+			cache.computeEdgeEndpoints(edge, grafx,
+			                           srcNodeExtents,GraphGraphics.SHAPE_ELLIPSE,
+			                           GraphGraphics.ARROW_NONE,0.0f,
+			                           null,
+			                           trgNodeExtents,GraphGraphics.SHAPE_RECTANGLE,
+			                           GraphGraphics.ARROW_NONE,0.0f,
+			                           rtnValSrc,rtnValTrg);
+
+		assertEquals(1000, cache.size());
+
+		for (long edge = 0; edge < 900; edge++)
+			cache.remove(edge);
+
+		// Removing an edge twice, or one that isn't there, changes nothing.
+		cache.remove(0L);
+		cache.remove(5000L);
+		assertEquals(100, cache.size());
+
+		for (long edge = 0; edge < 1000; edge++) {
+			if (edge < 900)
+				assertNull(cache.getEdgePath(edge, grafx));
+			else
+				assertNotNull(cache.getEdgePath(edge, grafx));
+		}
+
+		cache.clear();
+		assertEquals(0, cache.size());
+	}
+
+	private void assertDrawsLikeDrawEdgeFull(final EdgeAnchors anchors, final byte srcArrow,
+	                                         final byte trgArrow) {
+		final float srcArrowSize = (srcArrow == GraphGraphics.ARROW_NONE) ? 0.0f : 5.0f;
+		final float trgArrowSize = (trgArrow == GraphGraphics.ARROW_NONE) ? 0.0f : 7.0f;
+		final float[] rtnValSrc = new float[2];
+		final float[] rtnValTrg = new float[2];
+		final BasicStroke stroke = new BasicStroke(2.0f);
+		cache.clear();
+
+		if (!cache.computeEdgeEndpoints(1L, grafx,
+		                                srcNodeExtents,GraphGraphics.SHAPE_ELLIPSE,
+		                                srcArrow,srcArrowSize,
+		                                anchors,
+		                                trgNodeExtents,GraphGraphics.SHAPE_RECTANGLE,
+		                                trgArrow,trgArrowSize,
+		                                rtnValSrc,rtnValTrg))
+			fail("the edge has no endpoints");
+
+		final BufferedImage expected = new BufferedImage(200,200,BufferedImage.TYPE_INT_ARGB);
+		final GraphGraphics expectedGrafx = new GraphGraphics(expected, false, true);
+		expectedGrafx.clear(Color.WHITE, 60.0d, 60.0d, 1.5d);
+		expectedGrafx.drawEdgeFull(srcArrow, srcArrowSize, Color.RED, trgArrow, trgArrowSize,
+		                           Color.BLUE, rtnValSrc[0], rtnValSrc[1], anchors,
+		                           rtnValTrg[0], rtnValTrg[1], 2.0f, stroke, Color.BLACK);
+
+		final BufferedImage actual = new BufferedImage(200,200,BufferedImage.TYPE_INT_ARGB);
+		final GraphGraphics actualGrafx = new GraphGraphics(actual, false, true);
+		actualGrafx.clear(Color.WHITE, 60.0d, 60.0d, 1.5d);
+
+		final PreparedEdge preparedEdge = cache.getPreparedEdge(1L, grafx);
+		assertNotNull(preparedEdge);
+		assertSame(preparedEdge, cache.getPreparedEdge(1L, grafx));
+		actualGrafx.drawEdgeFull(preparedEdge, Color.RED, Color.BLUE, 2.0f, stroke, Color.BLACK);
+
+		for (int y = 0; y < 200; y++)
+			for (int x = 0; x < 200; x++)
+				assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+	}
+
+	private void assertEndpointsMatch(final EdgeAnchors anchors) {
+		final float[] rtnValSrc = new float[2];
+		final float[] rtnValTrg = new float[2];
+		final float[] expectedSrc = new float[2];
+		final float[] expectedTrg = new float[2];
+		final boolean expected = GraphRenderer.computeEdgeEndpoints(grafx,
+		                                  srcNodeExtents,GraphGraphics.SHAPE_ELLIPSE,
+		                                  GraphGraphics.ARROW_DISC,5.0f,
+		                                  anchors,
+		                                  trgNodeExtents,GraphGraphics.SHAPE_RECTANGLE,
+		                                  GraphGraphics.ARROW_DELTA,7.0f,
+		                                  expectedSrc,expectedTrg);
+
+		// The second call is answered from the cache.
+		for (int i = 0; i < 2; i++) {
+			assertEquals(expected, computeCached(anchors, rtnValSrc, rtnValTrg));
+			assertEquals(expectedSrc[0], rtnValSrc[0], 0.0f);
+			assertEquals(expectedSrc[1], rtnValSrc[1], 0.0f);
+			assertEquals(expectedTrg[0], rtnValTrg[0], 0.0f);
+			assertEquals(expectedTrg[1], rtnValTrg[1], 0.0f);
+		}
+	}
+
+	private boolean computeCached(final EdgeAnchors anchors, final float[] rtnValSrc,
+	                              final float[] rtnValTrg) {
+		return cache.computeEdgeEndpoints(1L, grafx,
+		                                  srcNodeExtents,GraphGraphics.SHAPE_ELLIPSE,
+		                                  GraphGraphics.ARROW_DISC,5.0f,
+		                                  anchors,
+		                                  trgNodeExtents,GraphGraphics.SHAPE_RECTANGLE,
+		                                  GraphGraphics.ARROW_DELTA,7.0f,
+		                                  rtnValSrc,rtnValTrg);
+	}
+
+	private void assertSamePath(final Shape expected, final Shape actual) {
+		final PathIterator expectedIter = expected.getPathIterator(null);
+		final PathIterator actualIter = actual.getPathIterator(null);
+		final float[] expectedCoords = new float[6];
+		final float[] actualCoords = new float[6];
+
+		while (!expectedIter.isDone()) {
+			assertFalse(actualIter.isDone());
+			assertEquals(expectedIter.currentSegment(expectedCoords),
+			             actualIter.currentSegment(actualCoords));
+
+			for (int i = 0; i < 6; i++)
+				assertEquals(expectedCoords[i], actualCoords[i], 0.0f);
+
+			expectedIter.next();
+			actualIter.next();
+		}
+
+		assertTrue(actualIter.isDone());
+	}
+
+	private class Anchor implements EdgeAnchors {
+		public int numAnchors() { return 1; }
+		public void getAnchor(int anchorIndex, float[] anchorArr, int offset) {
+			anchorArr[offset] = anchor[0];
+			anchorArr[offset + 1] = anchor[1];
+		}
+	}
+}
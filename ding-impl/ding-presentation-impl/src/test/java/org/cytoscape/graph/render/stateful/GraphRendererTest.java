@@ -28,10 +28,23 @@ package org.cytoscape.graph.render.stateful;
 import junit.framework.*;
 
 import java.awt.image.BufferedImage;
+import java.awt.Color;
+import java.awt.Font;
 import java.awt.Image;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.cytoscape.graph.render.immed.GraphGraphics;
 import org.cytoscape.graph.render.immed.EdgeAnchors;
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.NetworkTestSupport;
+import org.cytoscape.spacial.internal.rtree.RTree;
+import org.cytoscape.util.intr.LongHash;
 
 
 public class GraphRendererTest extends TestCase {
@@ -260,6 +273,411 @@ public class GraphRendererTest extends TestCase {
 		assertEquals( 20.0f, rtnValTrg[1], 0.001f );
 	}
 
+	// In low detail nothing is anti-aliased, so tiles must match exactly.
+	public void testRenderGraphTiled() throws Exception {
+		final CyNetwork net = new NetworkTestSupport().getNetwork();
+		final RTree positions = new RTree();
+		final Random rand = new Random(42L);
+		final List<CyNode> nodes = new ArrayList<CyNode>();
+
+		for (int i = 0; i < 500; i++) {
+			final CyNode node = net.addNode();
+			final float x = rand.nextFloat() * 1000.0f;
+			final float y = rand.nextFloat() * 1000.0f;
+			positions.insert(node.getSUID(), x, y, x + 20.0f, y + 10.0f);
+			nodes.add(node);
+		}
+
+		for (int i = 0; i < 1000; i++)
+			net.addEdge(nodes.get(rand.nextInt(500)), nodes.get(rand.nextInt(500)), true);
+
+		final GraphLOD lod = new GraphLOD() {
+				public boolean detail(final int renderNodeCount, final int renderEdgeCount) {
+					return false;
+				}
+			};
+		final NodeDetails nodeDetails = new NodeDetails();
+		final EdgeDetails edgeDetails = new EdgeDetails() { };
+		final BufferedImage expected = new BufferedImage(700, 600, BufferedImage.TYPE_INT_ARGB);
+		final BufferedImage tiled = new BufferedImage(700, 600, BufferedImage.TYPE_INT_ARGB);
+		final LongHash expectedNodes = new LongHash();
+		final LongHash tiledNodes = new LongHash();
+		final ExecutorService executor = Executors.newFixedThreadPool(3);
+
+		try {
+			GraphRenderer.renderGraph(net, positions, lod, nodeDetails, edgeDetails, expectedNodes,
+			                          new GraphGraphics(expected, false, true), Color.WHITE,
+			                          450.0d, 500.0d, 0.8d);
+			GraphRenderer.renderGraph(net, positions, null, lod, nodeDetails, edgeDetails,
+			                          tiledNodes, new GraphGraphics(tiled, false, true),
+			                          Color.WHITE, 450.0d, 500.0d, 0.8d, executor);
+		} finally {
+			executor.shutdown();
+		}
+
+		for (int y = 0; y < expected.getHeight(); y++)
+			for (int x = 0; x < expected.getWidth(); x++)
+				assertEquals("pixel " + x + "," + y, expected.getRGB(x, y), tiled.getRGB(x, y));
+
+		assertEquals(expectedNodes.size(), tiledNodes.size());
+	}
+
+	// Edges are only rendered in the tiles that their arrows and labels reach
+	// into, in the same order as without tiles.
+	public void testRenderGraphTiledHighDetail() throws Exception {
+		final CyNetwork net = new NetworkTestSupport().getNetwork();
+		final RTree positions = new RTree();
+		final Random rand = new Random(5L);
+		final List<CyNode> nodes = new ArrayList<CyNode>();
+
+		for (int i = 0; i < 200; i++) {
+			final CyNode node = net.addNode();
+			final float x = rand.nextFloat() * 1000.0f;
+			final float y = rand.nextFloat() * 1000.0f;
+			positions.insert(node.getSUID(), x, y, x + 20.0f, y + 10.0f);
+			nodes.add(node);
+		}
+
+		for (int i = 0; i < 300; i++)
+			net.addEdge(nodes.get(rand.nextInt(200)), nodes.get(rand.nextInt(200)), true);
+
+		final GraphLOD lod = new GraphLOD() {
+				public boolean detail(final int renderNodeCount, final int renderEdgeCount) {
+					return true;
+				}
+
+				public boolean edgeArrows(final int renderNodeCount, final int renderEdgeCount) {
+					return true;
+				}
+
+				public boolean edgeLabels(final int renderNodeCount, final int renderEdgeCount) {
+					return true;
+				}
+			};
+		final NodeDetails nodeDetails = new NodeDetails();
+		final EdgeDetails edgeDetails = new EdgeDetails() {
+				public byte getTargetArrowShape(final CyEdge edge) {
+					return GraphGraphics.ARROW_DELTA;
+				}
+
+				public float getTargetArrowSize(final CyEdge edge) {
+					return 8.0f;
+				}
+
+				public int getLabelCount(final CyEdge edge) {
+					return 1;
+				}
+
+				public String getLabelText(final CyEdge edge, final int labelInx) {
+					return "edge " + edge.getSUID();
+				}
+
+				public Font getLabelFont(final CyEdge edge, final int labelInx) {
+					return new Font(Font.SANS_SERIF, Font.PLAIN, 12);
+				}
+
+				public float getLabelOffsetVectorY(final CyEdge edge, final int labelInx) {
+					return 30.0f;
+				}
+			};
+		final BufferedImage expected = new BufferedImage(700, 600, BufferedImage.TYPE_INT_ARGB);
+		final BufferedImage tiled = new BufferedImage(700, 600, BufferedImage.TYPE_INT_ARGB);
+		final LongHash expectedNodes = new LongHash();
+		final LongHash tiledNodes = new LongHash();
+		final ExecutorService executor = Executors.newFixedThreadPool(3);
+		final int lodBits;
+
+		try {
+			lodBits = GraphRenderer.renderGraph(net, positions, lod, nodeDetails, edgeDetails,
+			                                    expectedNodes,
+			                                    new GraphGraphics(expected, false, true),
+			                                    Color.WHITE, 450.0d, 500.0d, 0.8d);
+			GraphRenderer.renderGraph(net, positions, null, lod, nodeDetails, edgeDetails,
+			                          tiledNodes, new GraphGraphics(tiled, false, true),
+			                          Color.WHITE, 450.0d, 500.0d, 0.8d, executor);
+		} finally {
+			executor.shutdown();
+		}
+
+		assertTrue((lodBits & GraphRenderer.LOD_EDGE_LABELS) != 0);
+
+		// Anti-aliased pixels are blended into a tile before it is copied into
+		// the image, which may round them differently, but every line, arrow
+		// and label must be there.
+		for (int y = 0; y < expected.getHeight(); y++)
+			for (int x = 0; x < expected.getWidth(); x++)
+				assertTrue("pixel " + x + "," + y,
+				           colorDistance(expected.getRGB(x, y), tiled.getRGB(x, y)) <= 2);
+
+		assertEquals(expectedNodes.size(), tiledNodes.size());
+	}
+
+	// In low detail nothing is anti-aliased, so parts must match exactly.
+	public void testRenderGraphInParts() {
+		final CyNetwork net = new NetworkTestSupport().getNetwork();
+		final RTree positions = new RTree();
+		final Random rand = new Random(11L);
+		final List<CyNode> nodes = new ArrayList<CyNode>();
+
+		for (int i = 0; i < 500; i++) {
+			final CyNode node = net.addNode();
+			final float x = rand.nextFloat() * 1000.0f;
+			final float y = rand.nextFloat() * 1000.0f;
+			positions.insert(node.getSUID(), x, y, x + 20.0f, y + 10.0f);
+			nodes.add(node);
+		}
+
+		for (int i = 0; i < 1000; i++)
+			net.addEdge(nodes.get(rand.nextInt(500)), nodes.get(rand.nextInt(500)), true);
+
+		final GraphLOD lod = new GraphLOD() {
+				public boolean detail(final int renderNodeCount, final int renderEdgeCount) {
+					return false;
+				}
+			};
+		final NodeDetails nodeDetails = new NodeDetails();
+		final EdgeDetails edgeDetails = new EdgeDetails() { };
+		final BufferedImage expected = new BufferedImage(700, 600, BufferedImage.TYPE_INT_ARGB);
+		final LongHash nodeBuff = new LongHash();
+
+		GraphRenderer.renderGraph(net, positions, lod, nodeDetails, edgeDetails, nodeBuff,
+		                          new GraphGraphics(expected, false, true), Color.WHITE,
+		                          450.0d, 500.0d, 0.8d);
+
+		for (int partY = 0; partY < expected.getHeight(); partY += 128) {
+			final BufferedImage part = new BufferedImage(expected.getWidth(),
+			                                             Math.min(128, expected.getHeight() - partY),
+			                                             BufferedImage.TYPE_INT_ARGB);
+			GraphRenderer.renderGraph(net, positions, null, lod, nodeDetails, edgeDetails,
+			                          nodeBuff, new GraphGraphics(part, false, true), Color.WHITE,
+			                          450.0d, 500.0d, 0.8d, expected.getWidth(),
+			                          expected.getHeight(), 0, partY);
+
+			for (int y = 0; y < part.getHeight(); y++)
+				for (int x = 0; x < part.getWidth(); x++)
+					assertEquals("pixel " + x + "," + (partY + y), expected.getRGB(x, partY + y),
+					             part.getRGB(x, y));
+		}
+	}
+
+	// The parts of one plan match the whole image, and the level of detail is
+	// chosen only once for all of them.
+	public void testRenderGraphInPartsOfOnePlan() {
+		final CyNetwork net = new NetworkTestSupport().getNetwork();
+		final RTree positions = new RTree();
+		final Random rand = new Random(12L);
+		final List<CyNode> nodes = new ArrayList<CyNode>();
+
+		for (int i = 0; i < 300; i++) {
+			final CyNode node = net.addNode();
+			final float x = rand.nextFloat() * 1000.0f;
+			final float y = rand.nextFloat() * 1000.0f;
+			positions.insert(node.getSUID(), x, y, x + 20.0f, y + 10.0f);
+			nodes.add(node);
+		}
+
+		for (int i = 0; i < 600; i++)
+			net.addEdge(nodes.get(rand.nextInt(300)), nodes.get(rand.nextInt(300)), true);
+
+		final int[] detailCalls = new int[1];
+		final GraphLOD lod = new GraphLOD() {
+				public boolean detail(final int renderNodeCount, final int renderEdgeCount) {
+					detailCalls[0]++;
+					return false;
+				}
+			};
+		final NodeDetails nodeDetails = new NodeDetails();
+		final EdgeDetails edgeDetails = new EdgeDetails() { };
+		final BufferedImage expected = new BufferedImage(500, 400, BufferedImage.TYPE_INT_ARGB);
+		final LongHash nodeBuff = new LongHash();
+
+		final int expectedLodBits = GraphRenderer.renderGraph(net, positions, lod, nodeDetails,
+		                                                      edgeDetails, nodeBuff,
+		                                                      new GraphGraphics(expected, false, true),
+		                                                      Color.WHITE, 400.0d, 450.0d, 0.6d);
+		detailCalls[0] = 0;
+
+		final GraphRenderer.ImagePlan plan = GraphRenderer.planImage(net, positions, null, lod,
+		                                                             400.0d, 450.0d, 0.6d,
+		                                                             expected.getWidth(),
+		                                                             expected.getHeight());
+		assertEquals(expectedLodBits, plan.getLodBits());
+		assertTrue(plan.isFor(400.0d, 450.0d, 0.6d, expected.getWidth(), expected.getHeight()));
+		assertFalse(plan.isFor(400.0d, 450.0d, 0.5d, expected.getWidth(), expected.getHeight()));
+
+		for (int partY = 0; partY < expected.getHeight(); partY += 100) {
+			final BufferedImage part = new BufferedImage(expected.getWidth(), 100,
+			                                             BufferedImage.TYPE_INT_ARGB);
+			assertEquals(expectedLodBits,
+			             GraphRenderer.renderGraph(net, positions, nodeDetails, edgeDetails, nodeBuff,
+			                                       new GraphGraphics(part, false, true), Color.WHITE,
+			                                       plan, 0, partY));
+
+			for (int y = 0; y < part.getHeight(); y++)
+				for (int x = 0; x < part.getWidth(); x++)
+					assertEquals("pixel " + x + "," + (partY + y), expected.getRGB(x, partY + y),
+					             part.getRGB(x, y));
+		}
+
+		assertEquals(1, detailCalls[0]);
+	}
+
+	// A label that hangs below its node is rendered in the part below the node.
+	public void testRenderGraphPartWithLabelOfNodeOutside() {
+		final CyNetwork net = new NetworkTestSupport().getNetwork();
+		final RTree positions = new RTree();
+		final CyNode node = net.addNode();
+		positions.insert(node.getSUID(), 40.0f, 80.0f, 60.0f, 95.0f);
+
+		final NodeDetails nodeDetails = new NodeDetails() {
+				public int getLabelCount(final CyNode node) {
+					return 1;
+				}
+
+				public String getLabelText(final CyNode node, final int labelInx) {
+					return "MMMM";
+				}
+
+				public Font getLabelFont(final CyNode node, final int labelInx) {
+					return new Font(Font.SANS_SERIF, Font.BOLD, 30);
+				}
+
+				public byte getLabelTextAnchor(final CyNode node, final int labelInx) {
+					return ANCHOR_NORTH;
+				}
+
+				public byte getLabelNodeAnchor(final CyNode node, final int labelInx) {
+					return ANCHOR_SOUTH;
+				}
+			};
+		final EdgeDetails edgeDetails = new EdgeDetails() { };
+		final BufferedImage part = new BufferedImage(200, 100, BufferedImage.TYPE_INT_ARGB);
+		final LongHash nodeBuff = new LongHash();
+
+		// The part is the lower half of a 200 by 200 image, below the node.
+		GraphRenderer.renderGraph(net, positions, null, new GraphLOD(), nodeDetails, edgeDetails,
+		                          nodeBuff, new GraphGraphics(part, false, true), Color.WHITE,
+		                          100.0d, 100.0d, 1.0d, 200, 200, 0, 100);
+		boolean labelRendered = false;
+
+		for (int y = 0; y < 20; y++)
+			for (int x = 0; x < part.getWidth(); x++)
+				labelRendered |= (part.getRGB(x, y) != Color.WHITE.getRGB());
+
+		assertTrue(labelRendered);
+	}
+
+	// An edge between two nodes outside of the window is only rendered if the
+	// renderer is given the positions of the edges.
+	public void testRenderGraphCrossingEdges() {
+		final CyNetwork net = new NetworkTestSupport().getNetwork();
+		final RTree positions = new RTree();
+		final RTree edgePositions = new RTree();
+		final CyNode source = net.addNode();
+		final CyNode target = net.addNode();
+		positions.insert(source.getSUID(), -500.0f, 95.0f, -490.0f, 105.0f);
+		positions.insert(target.getSUID(), 690.0f, 95.0f, 700.0f, 105.0f);
+		edgePositions.insert(net.addEdge(source, target, true).getSUID(),
+		                     -500.0f, 95.0f, 700.0f, 105.0f);
+
+		final GraphLOD lod = new GraphLOD() {
+				public boolean detail(final int renderNodeCount, final int renderEdgeCount) {
+					return false;
+				}
+			};
+		final NodeDetails nodeDetails = new NodeDetails();
+		final EdgeDetails edgeDetails = new EdgeDetails() { };
+		final BufferedImage withoutEdges = new BufferedImage(200, 200, BufferedImage.TYPE_INT_ARGB);
+		final BufferedImage withEdges = new BufferedImage(200, 200, BufferedImage.TYPE_INT_ARGB);
+		final LongHash nodeBuff = new LongHash();
+
+		GraphRenderer.renderGraph(net, positions, lod, nodeDetails, edgeDetails, nodeBuff,
+		                          new GraphGraphics(withoutEdges, false, true), Color.WHITE,
+		                          100.0d, 100.0d, 1.0d);
+		assertEquals(Color.WHITE.getRGB(), withoutEdges.getRGB(100, 100));
+
+		GraphRenderer.renderGraph(net, positions, edgePositions, lod, nodeDetails, edgeDetails,
+		                          nodeBuff, new GraphGraphics(withEdges, false, true),
+		                          Color.WHITE, 100.0d, 100.0d, 1.0d, null);
+		boolean edgeRendered = false;
+
+		for (int y = 95; y < 105; y++)
+			edgeRendered |= (withEdges.getRGB(100, y) != Color.WHITE.getRGB());
+
+		assertTrue(edgeRendered);
+		assertEquals(0, nodeBuff.size());
+	}
+
+	// Counting in parallel must give the same density map as on one thread.
+	public void testRenderGraphDensityMap() throws Exception {
+		final CyNetwork net = new NetworkTestSupport().getNetwork();
+		final RTree positions = new RTree();
+		final Random rand = new Random(7L);
+		final List<CyNode> nodes = new ArrayList<CyNode>();
+
+		for (int i = 0; i < 500; i++) {
+			final CyNode node = net.addNode();
+			final float x = rand.nextFloat() * 1000.0f;
+			final float y = rand.nextFloat() * 1000.0f;
+			positions.insert(node.getSUID(), x, y, x + 4.0f, y + 4.0f);
+			nodes.add(node);
+		}
+
+		for (int i = 0; i < 2000; i++)
+			net.addEdge(nodes.get(rand.nextInt(500)), nodes.get(rand.nextInt(500)), true);
+
+		final GraphLOD lod = new GraphLOD() {
+				public boolean detail(final int renderNodeCount, final int renderEdgeCount) {
+					return false;
+				}
+
+				public boolean densityMap(final int renderNodeCount, final int renderEdgeCount) {
+					return true;
+				}
+			};
+		final NodeDetails nodeDetails = new NodeDetails();
+		final EdgeDetails edgeDetails = new EdgeDetails() { };
+		final BufferedImage expected = new BufferedImage(300, 250, BufferedImage.TYPE_INT_ARGB);
+		final BufferedImage parallel = new BufferedImage(300, 250, BufferedImage.TYPE_INT_ARGB);
+		final LongHash nodeBuff = new LongHash();
+		final ExecutorService executor = Executors.newFixedThreadPool(3);
+		final int lodBits;
+
+		try {
+			lodBits = GraphRenderer.renderGraph(net, positions, lod, nodeDetails, edgeDetails,
+			                                    nodeBuff, new GraphGraphics(expected, false, true),
+			                                    Color.WHITE, 500.0d, 500.0d, 0.3d);
+			GraphRenderer.renderGraph(net, positions, null, lod, nodeDetails, edgeDetails,
+			                          nodeBuff, new GraphGraphics(parallel, false, true),
+			                          Color.WHITE, 500.0d, 500.0d, 0.3d, executor);
+		} finally {
+			executor.shutdown();
+		}
+
+		assertEquals(GraphRenderer.LOD_DENSITY_MAP, lodBits);
+		assertEquals(0, nodeBuff.size());
+		int shaded = 0;
+
+		for (int y = 0; y < expected.getHeight(); y++) {
+			for (int x = 0; x < expected.getWidth(); x++) {
+				assertEquals("pixel " + x + "," + y, expected.getRGB(x, y), parallel.getRGB(x, y));
+
+				if (expected.getRGB(x, y) != Color.WHITE.getRGB())
+					shaded++;
+			}
+		}
+
+		assertTrue(shaded > 0);
+	}
+
+	private static int colorDistance(final int rgb1, final int rgb2) {
+		int distance = 0;
+
+		for (int shift = 0; shift < 32; shift += 8)
+			distance = Math.max(distance, Math.abs(((rgb1 >>> shift) & 0xff) - ((rgb2 >>> shift) & 0xff)));
+
+		return distance;
+	}
 
 	private class SingleEdgeAnchor implements EdgeAnchors {
 		private float[] pt;	
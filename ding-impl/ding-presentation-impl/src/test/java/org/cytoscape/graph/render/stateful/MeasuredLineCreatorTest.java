@@ -143,6 +143,33 @@ public class MeasuredLineCreatorTest extends TestCase {
 		assertTrue( mw < (50.0*2.0) );
 	}
 
+	public void testMeasuredLinesAreShared() {
+		mlc = MeasuredLineCreator.getMeasuredLineCreator("homer bart lisa",serif,frc,2.0,false,50.0);
+		assertSame(mlc, MeasuredLineCreator.getMeasuredLineCreator("homer bart lisa",serif,
+		                                                           new FontRenderContext(null,true,true),
+		                                                           2.0,false,50.0));
+		assertNotSame(mlc, MeasuredLineCreator.getMeasuredLineCreator("homer bart lisa",serif,frc,
+		                                                              2.0,false,60.0));
+		assertNotSame(mlc, MeasuredLineCreator.getMeasuredLineCreator("homer bart lisa",sansSerif,frc,
+		                                                              2.0,false,50.0));
+
+		final MeasuredLineCreator expected = new MeasuredLineCreator("homer bart lisa",serif,frc,
+		                                                             2.0,false,50.0);
+		assertEquals(expected.getMeasuredLines().size(), mlc.getMeasuredLines().size());
+		assertEquals(expected.getMaxLineWidth(), mlc.getMaxLineWidth(), 0.0);
+	}
+
+	public void testLookupsDoNotChangeCachedLabels() {
+		mlc = MeasuredLineCreator.getMeasuredLineCreator("maggie",serif,frc,1.0,true,100.0);
+
+		// Looking up other labels reuses a lookup key, which must not be the
+		// key of the cached label.
+		for (int i = 0; i < 10; i++)
+			MeasuredLineCreator.getMeasuredLineCreator("maggie " + i,serif,frc,1.0,true,100.0);
+
+		assertSame(mlc, MeasuredLineCreator.getMeasuredLineCreator("maggie",serif,frc,1.0,true,100.0));
+	}
+
 	private void printLines(String title, MeasuredLineCreator mlx) {
 		System.out.println("------------------------- " + title);
 		System.out.println("max line width: " + mlx.getMaxLineWidth());
@@ -0,0 +1,188 @@
+package org.cytoscape.spacial.internal.rtree;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.cytoscape.spacial.SpacialEntry2DEnumerator;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RTreeBulkLoadTest {
+
+	private static final int COUNT = 5000;
+
+	private long[] objKeys;
+	private float[] extents;
+
+	@Before
+	public void setUp() throws Exception {
+		final Random random = new Random(17L);
+		objKeys = new long[COUNT];
+		extents = new float[COUNT * 4];
+
+		for (int i = 0; i < COUNT; i++) {
+			objKeys[i] = i * 3L;
+			extents[i * 4] = random.nextFloat() * 1000.0f - 500.0f;
+			extents[(i * 4) + 1] = random.nextFloat() * 1000.0f - 500.0f;
+			extents[(i * 4) + 2] = extents[i * 4] + random.nextFloat() * 20.0f;
+			extents[(i * 4) + 3] = extents[(i * 4) + 1] + random.nextFloat() * 20.0f;
+		}
+	}
+
+	@Test
+	public void testQueriesMatchInsertedTree() {
+		for (final int maxBranches : new int[] { 3, 7, RTree.DEFAULT_MAX_BRANCHES }) {
+			final RTree tree = new RTree(maxBranches);
+			tree.bulkLoad(objKeys, extents, COUNT);
+			assertEquals(COUNT, tree.size());
+			assertQueriesCorrect(tree, COUNT);
+		}
+	}
+
+	@Test
+	public void testExistsReturnsExtents() {
+		final RTree tree = new RTree();
+		tree.bulkLoad(objKeys, extents, COUNT);
+		final float[] buff = new float[4];
+
+		for (int i = 0; i < COUNT; i++) {
+			assertTrue(tree.exists(objKeys[i], buff, 0));
+
+			for (int j = 0; j < 4; j++)
+				assertEquals(extents[(i * 4) + j], buff[j], 0.0f);
+		}
+
+		assertFalse(tree.exists(1L, buff, 0));
+	}
+
+	@Test
+	public void testUpdatesAfterBulkLoad() {
+		final RTree tree = new RTree();
+		tree.bulkLoad(objKeys, extents, COUNT);
+
+		// Move every other entry, then rebuild and move them back.
+		for (int i = 0; i < COUNT; i += 2) {
+			assertTrue(tree.delete(objKeys[i]));
+			extents[i * 4] += 100.0f;
+			extents[(i * 4) + 2] += 100.0f;
+			tree.insert(objKeys[i], extents[i * 4], extents[(i * 4) + 1], extents[(i * 4) + 2],
+			            extents[(i * 4) + 3]);
+		}
+
+		assertQueriesCorrect(tree, COUNT);
+		tree.rebuild();
+		assertEquals(COUNT, tree.size());
+		assertQueriesCorrect(tree, COUNT);
+
+		for (int i = 0; i < COUNT; i += 2)
+			assertTrue(tree.delete(objKeys[i]));
+
+		assertEquals(COUNT / 2, tree.size());
+
+		for (int i = 1; i < COUNT; i += 2) {
+			objKeys[i / 2] = objKeys[i];
+			System.arraycopy(extents, i * 4, extents, (i / 2) * 4, 4);
+		}
+
+		assertQueriesCorrect(tree, COUNT / 2);
+	}
+
+	@Test
+	public void testEmptyBulkLoad() {
+		final RTree tree = new RTree();
+		tree.insert(1L, 0.0f, 0.0f, 1.0f, 1.0f);
+		tree.bulkLoad(new long[0], new float[0], 0);
+		assertEquals(0, tree.size());
+		assertFalse(tree.exists(1L, null, 0));
+		tree.insert(1L, 0.0f, 0.0f, 1.0f, 1.0f);
+		assertEquals(1, tree.size());
+	}
+
+	@Test
+	public void testInvalidInputLeavesTreeUnchanged() {
+		final RTree tree = new RTree();
+		tree.insert(1L, 0.0f, 0.0f, 1.0f, 1.0f);
+
+		try {
+			tree.bulkLoad(new long[] { 2L, 2L }, new float[8], 2);
+			fail();
+		} catch (IllegalStateException e) {
+		}
+
+		try {
+			tree.bulkLoad(new long[] { 2L }, new float[] { 1.0f, 0.0f, 0.0f, 0.0f }, 1);
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+
+		assertEquals(1, tree.size());
+		assertTrue(tree.exists(1L, null, 0));
+	}
+
+	private void assertQueriesCorrect(final RTree tree, final int count) {
+		final Random random = new Random(5L);
+		final float[] queryExtents = new float[4];
+
+		for (int q = 0; q < 200; q++) {
+			final float xMin = random.nextFloat() * 1200.0f - 600.0f;
+			final float yMin = random.nextFloat() * 1200.0f - 600.0f;
+			final float xMax = xMin + random.nextFloat() * 200.0f;
+			final float yMax = yMin + random.nextFloat() * 200.0f;
+			final boolean[] expected = new boolean[count];
+			int expectedCount = 0;
+
+			for (int i = 0; i < count; i++) {
+				if (Math.max(xMin, extents[i * 4]) <= Math.min(xMax, extents[(i * 4) + 2])
+				    && Math.max(yMin, extents[(i * 4) + 1]) <= Math.min(yMax, extents[(i * 4) + 3])) {
+					expected[i] = true;
+					expectedCount++;
+				}
+			}
+
+			final SpacialEntry2DEnumerator hits = tree.queryOverlap(xMin, yMin, xMax, yMax,
+			                                                        queryExtents, 0, false);
+			assertEquals(expectedCount, hits.numRemaining());
+
+			while (hits.numRemaining() > 0) {
+				final long objKey = hits.nextLong();
+				final int i = indexOf(objKey, count);
+				assertTrue(expected[i]);
+				expected[i] = false;
+			}
+		}
+	}
+
+	private int indexOf(final long objKey, final int count) {
+		for (int i = 0; i < count; i++)
+			if (objKeys[i] == objKey)
+				return i;
+
+		fail("unexpected objKey " + objKey);
+		return -1;
+	}
+}
@@ -0,0 +1,218 @@
+package org.cytoscape.spacial.internal.rtree;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.cytoscape.spacial.SpacialEntry2DEnumerator;
+import org.cytoscape.spacial.SpacialIndex2D;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RTreeSnapshotTest {
+
+	private static final int COUNT = 2000;
+
+	private RTree tree;
+	private float[] extents; // Current extents; NaN if the entry was deleted.
+	private Random random;
+
+	@Before
+	public void setUp() throws Exception {
+		tree = new RTree(5);
+		extents = new float[COUNT * 4];
+		random = new Random(3L);
+
+		for (int i = 0; i < COUNT; i++) {
+			randomExtents(i);
+			tree.insert(i, extents[i * 4], extents[(i * 4) + 1], extents[(i * 4) + 2],
+			            extents[(i * 4) + 3]);
+		}
+	}
+
+	@Test
+	public void testSnapshotIsNotAffectedByUpdates() {
+		for (int round = 0; round < 5; round++) {
+			final SpacialIndex2D snapshot = tree.snapshot();
+			final float[] snapshotExtents = extents.clone();
+			assertSame(snapshot, tree.snapshot());
+
+			for (int i = 0; i < COUNT / 2; i++)
+				update(random.nextInt(COUNT));
+
+			if (round == 2)
+				tree.rebuild();
+
+			assertMatches(snapshot, snapshotExtents);
+			assertMatches(tree, extents);
+			assertMatches(tree.snapshot(), extents);
+		}
+	}
+
+	@Test
+	public void testSnapshotIsReadOnly() {
+		final SpacialIndex2D snapshot = tree.snapshot();
+
+		try {
+			snapshot.insert(COUNT, 0.0f, 0.0f, 1.0f, 1.0f);
+			fail();
+		} catch (UnsupportedOperationException e) {
+		}
+
+		try {
+			snapshot.delete(0L);
+			fail();
+		} catch (UnsupportedOperationException e) {
+		}
+
+		assertEquals(COUNT, snapshot.size());
+	}
+
+	@Test
+	public void testConcurrentQueries() throws Exception {
+		final AtomicReference<SpacialIndex2D> current = new AtomicReference<SpacialIndex2D>();
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		final int[] sizes = new int[1];
+		current.set(tree.snapshot());
+
+		final Thread reader = new Thread() {
+			public void run() {
+				try {
+					for (int i = 0; i < 2000; i++) {
+						final SpacialIndex2D snapshot = current.get();
+						final SpacialEntry2DEnumerator all =
+							snapshot.queryOverlap(Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY,
+							                      Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY,
+							                      null, 0, false);
+
+						if (all.numRemaining() != snapshot.size())
+							throw new AssertionError("size " + snapshot.size() + " but "
+							                         + all.numRemaining() + " entries");
+
+						while (all.numRemaining() > 0)
+							if (!snapshot.exists(all.nextLong(), null, 0))
+								throw new AssertionError("entry is missing");
+
+						sizes[0]++;
+					}
+				} catch (Throwable t) {
+					failure.set(t);
+				}
+			}
+		};
+
+		reader.start();
+
+		while (reader.isAlive()) {
+			for (int i = 0; i < 20; i++)
+				update(random.nextInt(COUNT));
+
+			current.set(tree.snapshot());
+		}
+
+		reader.join();
+
+		if (failure.get() != null)
+			throw new AssertionError(failure.get());
+
+		assertEquals(2000, sizes[0]);
+	}
+
+	/*
+	 * Moves, deletes or re-inserts entry i.
+	 */
+	private void update(final int i) {
+		if (Float.isNaN(extents[i * 4])) {
+			randomExtents(i);
+			tree.insert(i, extents[i * 4], extents[(i * 4) + 1], extents[(i * 4) + 2],
+			            extents[(i * 4) + 3]);
+		} else if (random.nextInt(4) == 0) {
+			assertTrue(tree.delete(i));
+			extents[i * 4] = Float.NaN;
+		} else {
+			assertTrue(tree.delete(i));
+			randomExtents(i);
+			tree.insert(i, extents[i * 4], extents[(i * 4) + 1], extents[(i * 4) + 2],
+			            extents[(i * 4) + 3]);
+		}
+	}
+
+	private void randomExtents(final int i) {
+		extents[i * 4] = random.nextFloat() * 1000.0f;
+		extents[(i * 4) + 1] = random.nextFloat() * 1000.0f;
+		extents[(i * 4) + 2] = extents[i * 4] + random.nextFloat() * 30.0f;
+		extents[(i * 4) + 3] = extents[(i * 4) + 1] + random.nextFloat() * 30.0f;
+	}
+
+	private void assertMatches(final SpacialIndex2D index, final float[] expectedExtents) {
+		final float[] buff = new float[4];
+		int count = 0;
+
+		for (int i = 0; i < COUNT; i++) {
+			if (Float.isNaN(expectedExtents[i * 4])) {
+				assertFalse(index.exists(i, buff, 0));
+			} else {
+				count++;
+				assertTrue(index.exists(i, buff, 0));
+
+				for (int j = 0; j < 4; j++)
+					assertEquals(expectedExtents[(i * 4) + j], buff[j], 0.0f);
+			}
+		}
+
+		assertEquals(count, index.size());
+
+		for (int q = 0; q < 50; q++) {
+			final float xMin = random.nextFloat() * 1000.0f;
+			final float yMin = random.nextFloat() * 1000.0f;
+			final float xMax = xMin + random.nextFloat() * 150.0f;
+			final float yMax = yMin + random.nextFloat() * 150.0f;
+			final boolean[] expected = new boolean[COUNT];
+			int expectedCount = 0;
+
+			for (int i = 0; i < COUNT; i++) {
+				if (!Float.isNaN(expectedExtents[i * 4])
+				    && Math.max(xMin, expectedExtents[i * 4]) <= Math.min(xMax, expectedExtents[(i * 4) + 2])
+				    && Math.max(yMin, expectedExtents[(i * 4) + 1]) <= Math.min(yMax, expectedExtents[(i * 4) + 3])) {
+					expected[i] = true;
+					expectedCount++;
+				}
+			}
+
+			final SpacialEntry2DEnumerator hits = index.queryOverlap(xMin, yMin, xMax, yMax,
+			                                                         null, 0, false);
+			assertEquals(expectedCount, hits.numRemaining());
+
+			while (hits.numRemaining() > 0) {
+				final int i = (int) hits.nextLong();
+				assertTrue(expected[i]);
+				expected[i] = false;
+			}
+		}
+	}
+}
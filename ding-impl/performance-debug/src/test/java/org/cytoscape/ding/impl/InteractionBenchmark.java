@@ -0,0 +1,165 @@
+package org.cytoscape.ding.impl;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl Performance (ding-impl-performance-debug)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.cytoscape.model.CyNode;
+import org.cytoscape.spacial.SpacialEntry2DEnumerator;
+import org.cytoscape.util.intr.LongStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+
+/**
+ * Measures the throughput of what a user does to a view between frames: R-tree
+ * queries for the nodes in a window, picking nodes and edges under the mouse
+ * and toggling the selection of nodes.  Run {@link #main(String[])} to
+ * execute the benchmarks with the GC profiler, which also reports the
+ * allocation rate of each.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Djava.awt.headless=true", "-Xmx4g" })
+public class InteractionBenchmark {
+
+	private static final int WIDTH = 1200;
+	private static final int HEIGHT = 900;
+
+	// The width and height, in node coordinates, of a window query.
+	private static final float WINDOW_SIZE = 1000.0f;
+
+	@Param({ "10000", "100000" })
+	public int nodeCount;
+
+	@Param({ "1", "4" })
+	public int edgesPerNode;
+
+	private DGraphView view;
+	private CyNode[] nodes;
+	private float side;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		view = SyntheticNetworkView.create(nodeCount, edgesPerNode, 1234L);
+		nodes = view.getModel().getNodeList().toArray(new CyNode[nodeCount]);
+		side = (float) SyntheticNetworkView.getSide(nodeCount);
+
+		// Picking transforms mouse coordinates through the size of the canvas.
+		view.getCanvas().setSize(WIDTH, HEIGHT);
+		view.setCenter(side / 2.0, side / 2.0);
+		view.setZoom(Math.min(WIDTH, HEIGHT) / (double) side);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		view.dispose();
+	}
+
+	/**
+	 * Each benchmark thread draws its own random windows, points and nodes.
+	 */
+	@State(Scope.Thread)
+	public static class Cursor {
+		final Random random = new Random();
+		final LongStack stack = new LongStack();
+	}
+
+	@Benchmark
+	public int queryWindow(final Cursor cursor) {
+		final float xMin = cursor.random.nextFloat() * (side - WINDOW_SIZE);
+		final float yMin = cursor.random.nextFloat() * (side - WINDOW_SIZE);
+		final SpacialEntry2DEnumerator hits =
+			view.getSpacialSnapshot().queryOverlap(xMin, yMin, xMin + WINDOW_SIZE,
+			                                       yMin + WINDOW_SIZE, null, 0, false);
+		int count = 0;
+
+		while (hits.numRemaining() > 0) {
+			hits.nextLong();
+			count++;
+		}
+
+		return count;
+	}
+
+	@Benchmark
+	public int pickNode(final Cursor cursor) {
+		final double x = cursor.random.nextDouble() * side;
+		final double y = cursor.random.nextDouble() * side;
+		cursor.stack.empty();
+		view.getNodesIntersectingRectangle(x, y, x, y, false, cursor.stack);
+
+		return cursor.stack.size();
+	}
+
+	@Benchmark
+	public int pickEdge(final Cursor cursor) {
+		final int x = cursor.random.nextInt(WIDTH);
+		final int y = cursor.random.nextInt(HEIGHT);
+		cursor.stack.empty();
+		view.queryDrawnEdges(x - 2, y - 2, x + 2, y + 2, cursor.stack);
+
+		return cursor.stack.size();
+	}
+
+	@Benchmark
+	public boolean toggleSelection(final Cursor cursor) {
+		final DNodeView nodeView = view.getDNodeView(nodes[cursor.random.nextInt(nodes.length)]);
+
+		return nodeView.setSelected(!nodeView.isSelected());
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		for (final int threads : new int[] { 1, 2, 4, 8 }) {
+			final Options options = new OptionsBuilder()
+				.include(InteractionBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.threads(threads)
+				.build();
+			new Runner(options).run();
+		}
+	}
+}
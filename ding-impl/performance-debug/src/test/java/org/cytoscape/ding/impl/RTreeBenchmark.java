@@ -0,0 +1,166 @@
+package org.cytoscape.ding.impl;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl Performance (ding-impl-performance-debug)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.cytoscape.spacial.SpacialEntry2DEnumerator;
+import org.cytoscape.spacial.internal.rtree.RTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+
+/**
+ * Compares an R-tree built by inserting random node-sized entries one at a
+ * time with one built by a single bulk load: the time it takes to build each,
+ * and the time it takes to query a window of each.  Run {@link #main(String[])}
+ * to execute the benchmarks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g" })
+public class RTreeBenchmark {
+
+	// The width and height of an entry, and the area of the plane per entry.
+	private static final float ENTRY_SIZE = 40.0f;
+	private static final float AREA_PER_ENTRY = 10000.0f;
+
+	// The width and height of a window query.
+	private static final float WINDOW_SIZE = 1000.0f;
+
+	@Param({ "100000", "1000000" })
+	public int entryCount;
+
+	private long[] objKeys;
+	private float[] extents;
+	private float side;
+	private RTree insertedTree;
+	private RTree bulkLoadedTree;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		final Random random = new Random(1234L);
+		objKeys = new long[entryCount];
+		extents = new float[4 * entryCount];
+		side = (float) Math.sqrt(entryCount * AREA_PER_ENTRY);
+
+		for (int i = 0; i < entryCount; i++) {
+			final float x = random.nextFloat() * side;
+			final float y = random.nextFloat() * side;
+			objKeys[i] = i;
+			extents[4 * i] = x;
+			extents[(4 * i) + 1] = y;
+			extents[(4 * i) + 2] = x + ENTRY_SIZE;
+			extents[(4 * i) + 3] = y + ENTRY_SIZE;
+		}
+
+		insertedTree = insert();
+		bulkLoadedTree = bulkLoad();
+	}
+
+	/**
+	 * Each benchmark thread draws its own random windows.
+	 */
+	@State(Scope.Thread)
+	public static class Cursor {
+		final Random random = new Random();
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Measurement(iterations = 10, batchSize = 1)
+	public RTree insert() {
+		final RTree tree = new RTree();
+
+		for (int i = 0; i < entryCount; i++)
+			tree.insert(objKeys[i], extents[4 * i], extents[(4 * i) + 1], extents[(4 * i) + 2],
+			            extents[(4 * i) + 3]);
+
+		return tree;
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Measurement(iterations = 10, batchSize = 1)
+	public RTree bulkLoad() {
+		final RTree tree = new RTree();
+		tree.bulkLoad(objKeys, extents, entryCount);
+
+		return tree;
+	}
+
+	@Benchmark
+	public int queryInsertedTree(final Cursor cursor) {
+		return queryWindow(insertedTree, cursor.random);
+	}
+
+	@Benchmark
+	public int queryBulkLoadedTree(final Cursor cursor) {
+		return queryWindow(bulkLoadedTree, cursor.random);
+	}
+
+	private int queryWindow(final RTree tree, final Random random) {
+		final float xMin = random.nextFloat() * (side - WINDOW_SIZE);
+		final float yMin = random.nextFloat() * (side - WINDOW_SIZE);
+		final SpacialEntry2DEnumerator hits = tree.queryOverlap(xMin, yMin, xMin + WINDOW_SIZE,
+		                                                        yMin + WINDOW_SIZE, null, 0, false);
+		int count = 0;
+
+		while (hits.numRemaining() > 0) {
+			hits.nextLong();
+			count++;
+		}
+
+		return count;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		final Options options = new OptionsBuilder()
+			.include(RTreeBenchmark.class.getSimpleName())
+			.build();
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,188 @@
+package org.cytoscape.ding.impl;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl Performance (ding-impl-performance-debug)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.cytoscape.graph.render.immed.GraphGraphics;
+import org.cytoscape.graph.render.stateful.GraphLOD;
+import org.cytoscape.graph.render.stateful.GraphRenderer;
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.util.intr.LongHash;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+
+/**
+ * Measures how long GraphRenderer takes to render a frame of a whole random
+ * network at each level of detail: full detail, full detail with a label on
+ * every node and edge, low detail and a density map.
+ * With a threadCount above one the frame is split into tiles that are rendered
+ * on a pool of that many threads, as InnerCanvas does for render.threadCount.
+ * Run {@link #main(String[])} to execute the benchmarks with the GC profiler,
+ * which also reports the allocation rate of each, or run
+ * <code>mvn test-compile exec:exec -Djmh.args="RenderBenchmark -prof gc"</code>
+ * in this module.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Djava.awt.headless=true", "-Xmx4g" })
+public class RenderBenchmark {
+
+	private static final int WIDTH = 1200;
+	private static final int HEIGHT = 900;
+
+	@Param({ "10000", "100000" })
+	public int nodeCount;
+
+	@Param({ "1", "4" })
+	public int edgesPerNode;
+
+	@Param({ "full", "labels", "low", "density" })
+	public String lod;
+
+	@Param({ "1", "4" })
+	public int threadCount;
+
+	private DGraphView view;
+	private GraphLOD graphLOD;
+	private ExecutorService tileExecutor;
+	private BufferedImage image;
+	private LongHash nodeBuff;
+	private double center;
+	private double scaleFactor;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		view = SyntheticNetworkView.create(nodeCount, edgesPerNode, 1234L);
+
+		if ("labels".equals(lod)) {
+			for (final CyNode node : view.getModel().getNodeList())
+				view.getDNodeView(node).setText("Node " + node.getSUID());
+
+			for (final CyEdge edge : view.getModel().getEdgeList())
+				view.getDEdgeView(edge).setText("Edge " + edge.getSUID());
+		}
+
+		graphLOD = createLOD(lod);
+		image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+		nodeBuff = new LongHash();
+		tileExecutor = (threadCount > 1) ? Executors.newFixedThreadPool(threadCount) : null;
+
+		final double side = SyntheticNetworkView.getSide(nodeCount);
+		center = side / 2.0;
+		scaleFactor = Math.min(WIDTH, HEIGHT) / side;
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		if (tileExecutor != null)
+			tileExecutor.shutdown();
+
+		view.dispose();
+	}
+
+	/*
+	 * Renders every frame at the given level of detail, whatever the number
+	 * of nodes and edges.
+	 */
+	private static GraphLOD createLOD(final String lod) {
+		final boolean labels = "labels".equals(lod);
+		final boolean detail = "full".equals(lod) || labels;
+		final boolean densityMap = "density".equals(lod);
+
+		return new GraphLOD() {
+			@Override
+			public byte renderEdges(final int visibleNodeCount, final int totalNodeCount,
+			                        final int totalEdgeCount) {
+				return (byte) 1;
+			}
+
+			@Override
+			public boolean detail(final int renderNodeCount, final int renderEdgeCount) {
+				return detail;
+			}
+
+			@Override
+			public boolean densityMap(final int renderNodeCount, final int renderEdgeCount) {
+				return densityMap;
+			}
+
+			@Override
+			public boolean nodeLabels(final int renderNodeCount, final int renderEdgeCount) {
+				return labels;
+			}
+
+			@Override
+			public boolean edgeLabels(final int renderNodeCount, final int renderEdgeCount) {
+				return labels;
+			}
+		};
+	}
+
+	@Benchmark
+	public int renderGraph() {
+		synchronized (view.m_lock) {
+			return GraphRenderer.renderGraph(view.m_drawPersp, view.m_spacial,
+			                                 view.getEdgePositions(), graphLOD,
+			                                 view.m_nodeDetails, view.m_edgeDetails, nodeBuff,
+			                                 new GraphGraphics(image, false, true), Color.WHITE,
+			                                 center, center, scaleFactor, tileExecutor);
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		final Options options = new OptionsBuilder()
+			.include(RenderBenchmark.class.getSimpleName())
+			.addProfiler(GCProfiler.class)
+			.build();
+		new Runner(options).run();
+	}
+}
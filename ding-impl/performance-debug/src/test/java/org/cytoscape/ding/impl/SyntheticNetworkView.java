@@ -0,0 +1,84 @@
+package org.cytoscape.ding.impl;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl Performance (ding-impl-performance-debug)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.cytoscape.ding.NetworkViewTestSupport;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+
+
+/**
+ * Builds views of random networks for the benchmarks.  Nodes are scattered
+ * uniformly over a square whose area grows with the number of nodes, so that
+ * the density on screen depends only on the number of edges per node.
+ */
+final class SyntheticNetworkView {
+
+	/**
+	 * The average area, in node coordinates, that a node has to itself.
+	 */
+	static final double AREA_PER_NODE = 2500.0;
+
+	private SyntheticNetworkView() {
+	}
+
+	/**
+	 * @return a view of a network with nodeCount nodes and
+	 *   nodeCount * edgesPerNode edges between random nodes.
+	 */
+	static DGraphView create(final int nodeCount, final int edgesPerNode, final long seed) {
+		final NetworkViewTestSupport support = new NetworkViewTestSupport();
+		final CyNetwork network = support.getNetwork();
+		final List<CyNode> nodes = new ArrayList<CyNode>(nodeCount);
+
+		for (int i = 0; i < nodeCount; i++)
+			nodes.add(network.addNode());
+
+		final Random rand = new Random(seed);
+
+		for (int i = 0; i < nodeCount * edgesPerNode; i++)
+			network.addEdge(nodes.get(rand.nextInt(nodeCount)), nodes.get(rand.nextInt(nodeCount)), true);
+
+		final DGraphView view = (DGraphView) support.getNetworkViewFactory().createNetworkView(network);
+		final double side = getSide(nodeCount);
+
+		for (final CyNode node : nodes)
+			view.getDNodeView(node).setOffset(rand.nextDouble() * side, rand.nextDouble() * side);
+
+		return view;
+	}
+
+	/**
+	 * @return the width and height of the square that the nodes are in.
+	 */
+	static double getSide(final int nodeCount) {
+		return Math.sqrt(nodeCount * AREA_PER_NODE);
+	}
+}
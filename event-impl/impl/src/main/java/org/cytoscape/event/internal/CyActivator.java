@@ -30,22 +30,61 @@ package org.cytoscape.event.internal;
 
 
 import org.cytoscape.event.internal.CyEventHelperImpl;
+import org.cytoscape.event.internal.CyEventMetricsImpl;
 import org.cytoscape.event.internal.CyListenerAdapter;
+import org.cytoscape.event.internal.payload.PayloadCollectionFactory;
 import org.cytoscape.event.CyEventHelper;
 import org.osgi.framework.BundleContext;
 import org.cytoscape.service.util.AbstractCyActivator;
+import java.lang.management.ManagementFactory;
 import java.util.Properties;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class CyActivator extends AbstractCyActivator {
+	private static final Logger logger = LoggerFactory.getLogger(CyActivator.class);
+
+	private ObjectName metricsName;
+
 	public CyActivator() {
 		super();
 	}
 
 	public void start(BundleContext bc) {
-		CyListenerAdapter cyListenerAdapter = new CyListenerAdapter(bc);
+		CyEventMetricsImpl cyEventMetrics = new CyEventMetricsImpl();
+		CyListenerAdapter cyListenerAdapter = new CyListenerAdapter(bc,cyEventMetrics);
 		CyEventHelperImpl cyEventHelper = new CyEventHelperImpl(cyListenerAdapter);
+		cyEventMetrics.setPayloadEventMetrics(cyEventHelper.getPayloadEventMetrics());
 		
 		registerService(bc,cyEventHelper,CyEventHelper.class, new Properties());
+		registerServiceListener(bc,cyEventHelper,"addPayloadCollectionFactory","removePayloadCollectionFactory",PayloadCollectionFactory.class);
+
+		// The metrics types stay private to this bundle, so they are published
+		// through JMX rather than as an OSGi service.
+		try {
+			final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			final ObjectName name = new ObjectName(CyEventMetricsImpl.OBJECT_NAME);
+			if ( server.isRegistered(name) )
+				server.unregisterMBean(name);
+			server.registerMBean(cyEventMetrics, name);
+			metricsName = name;
+		} catch (Exception e) {
+			logger.warn("Unable to register the event metrics MXBean.", e);
+		}
 	}
-}
 
+	public void stop(BundleContext bc) {
+		if ( metricsName != null ) {
+			try {
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(metricsName);
+			} catch (Exception e) {
+				logger.warn("Unable to unregister the event metrics MXBean.", e);
+			}
+			metricsName = null;
+		}
+
+		super.stop(bc);
+	}
+}
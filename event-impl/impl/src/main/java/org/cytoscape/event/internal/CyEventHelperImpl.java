@@ -24,21 +24,27 @@ package org.cytoscape.event.internal;
  * #L%
  */
 
+
 import org.cytoscape.event.CyEvent;
 import org.cytoscape.event.CyPayloadEvent;
 import org.cytoscape.event.CyEventHelper;
 
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.cytoscape.event.internal.payload.PayloadCollectionFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -48,23 +54,57 @@ public class CyEventHelperImpl implements CyEventHelper {
 
 	private static final Object DUMMY = new Object();
 
+	// Payloads are accumulated in several independently locked stripes, chosen by
+	// source, so that threads adding payloads for different sources don't contend.
+	private static final int STRIPE_COUNT = 16;
+
+	// Once this many payloads are pending, a flush is scheduled right away instead
+	// of waiting for the next interval.
+	static final int EARLY_FLUSH_THRESHOLD = 50000;
+
+	// Once this many payloads are pending, the pipeline is overflowing: every
+	// further payload is counted and a warning is logged once per overflow.  The
+	// producer is never made to wait, since it may be holding model locks that
+	// the listeners being flushed need.
+	static final int MAX_PENDING_PAYLOADS = 4 * EARLY_FLUSH_THRESHOLD;
+
+	private static final Comparator<SourcePayloads> sequenceComparator = new Comparator<SourcePayloads>() {
+		public int compare(final SourcePayloads a, final SourcePayloads b) {
+			return a.sequence < b.sequence ? -1 : (a.sequence > b.sequence ? 1 : 0);
+		}
+	};
+
 	private final CyListenerAdapter normal;
-	private final Map<Object,Map<Class<?>,PayloadAccumulator<?,?,?>>> sourceAccMap;
+	private final PayloadStripe[] stripes;
+	private final AtomicLong sourceSequence;
+	private final Object flushLock;
+	private final AtomicBoolean earlyFlushScheduled;
+	private final AtomicBoolean overflowing;
+	private final PayloadEventMetrics metrics;
 	private final ScheduledExecutorService payloadEventMonitor;
 	private final Map<Object, Object> silencedSources;
-	private boolean havePayload;
+	private final ConcurrentMap<Class<?>, PayloadCollectionFactory<?>> payloadCollectionFactories;
+	private final Runnable payloadChecker;
 	
 	public CyEventHelperImpl(final CyListenerAdapter normal) {
 		this.normal = normal;
-		sourceAccMap = new LinkedHashMap<Object,Map<Class<?>,PayloadAccumulator<?,?,?>>>();
+		stripes = new PayloadStripe[STRIPE_COUNT];
+		for (int i = 0; i < STRIPE_COUNT; i++)
+			stripes[i] = new PayloadStripe();
+		sourceSequence = new AtomicLong();
+		flushLock = new Object();
+		earlyFlushScheduled = new AtomicBoolean(false);
+		overflowing = new AtomicBoolean(false);
+		metrics = new PayloadEventMetrics();
 		payloadEventMonitor = Executors.newSingleThreadScheduledExecutor();
 		silencedSources = new WeakHashMap<Object, Object>();
-		havePayload = false;
+		payloadCollectionFactories = new ConcurrentHashMap<Class<?>, PayloadCollectionFactory<?>>();
 
 		// This thread just flushes any accumulated payload events.
 		// It is scheduled to run repeatedly at a fixed interval.
-        final Runnable payloadChecker = new Runnable() {
+        payloadChecker = new Runnable() {
             public void run() {
+                earlyFlushScheduled.set(false);
                 flushPayloadEvents();
             }
         };
@@ -112,19 +152,22 @@ public class CyEventHelperImpl implements CyEventHelper {
 		if ( silencedSources.containsKey(source))
 			return;
 
-		synchronized (this) {
-			Map<Class<?>,PayloadAccumulator<?,?,?>> cmap = sourceAccMap.get(source);
-			if ( cmap == null ) { 
-				cmap = new LinkedHashMap<Class<?>,PayloadAccumulator<?,?,?>>();
-				sourceAccMap.put(source,cmap);
+		final PayloadStripe stripe = getStripe(source);
+		final int pending;
+
+		synchronized (stripe) {
+			SourcePayloads sp = stripe.sources.get(source);
+			if ( sp == null ) { 
+				sp = new SourcePayloads(sourceSequence.getAndIncrement());
+				stripe.sources.put(source,sp);
 			}
 	
-			PayloadAccumulator<S,P,E> acc = (PayloadAccumulator<S,P,E>) cmap.get(eventType);
+			PayloadAccumulator<S,P,E> acc = (PayloadAccumulator<S,P,E>) sp.accumulators.get(eventType);
 	
 			if ( acc == null ) {
 				try {
-					acc = new PayloadAccumulator<S,P,E>(source, eventType);
-					cmap.put(eventType,acc);
+					acc = new PayloadAccumulator<S,P,E>(source, eventType, payloadCollectionFactories.get(eventType));
+					sp.accumulators.put(eventType,acc);
 				} catch (NoSuchMethodException nsme) {
 					logger.warn("Unable to add payload to event, because of missing event constructor.", nsme);
 					return;
@@ -132,26 +175,90 @@ public class CyEventHelperImpl implements CyEventHelper {
 			}
 			
 			acc.addPayload(payload);
-			havePayload = true;
-		}		
+			stripe.payloadCount++;
+			pending = metrics.payloadsAdded(1);
+		}
+
+		if ( pending >= EARLY_FLUSH_THRESHOLD )
+			scheduleEarlyFlush();
+
+		if ( pending >= MAX_PENDING_PAYLOADS ) {
+			metrics.payloadOverflowed();
+			if ( overflowing.compareAndSet(false, true) )
+				logger.warn("More than " + MAX_PENDING_PAYLOADS + " payloads are waiting to be flushed, " +
+				            "the payload event listeners are falling behind.");
+		}
+	}
+
+	private void scheduleEarlyFlush() {
+		if ( !earlyFlushScheduled.compareAndSet(false, true) )
+			return;
+
+		metrics.earlyFlushRequested();
+		try {
+			payloadEventMonitor.execute(payloadChecker);
+		} catch (RuntimeException re) {
+			// The monitor has been shut down, the next fireEvent() will flush.
+			earlyFlushScheduled.set(false);
+		}
+	}
+
+	/**
+	 * Registers the factory for the collections that the payloads of its event
+	 * type are accumulated in.  Payloads that are already pending keep their
+	 * current collection.
+	 */
+	public void addPayloadCollectionFactory(final PayloadCollectionFactory<?> factory, final Map<?,?> props) {
+		payloadCollectionFactories.put(factory.getEventType(), factory);
+	}
+
+	public void removePayloadCollectionFactory(final PayloadCollectionFactory<?> factory, final Map<?,?> props) {
+		payloadCollectionFactories.remove(factory.getEventType(), factory);
 	}
 
 	public void flushPayloadEvents() {
-		List<CyPayloadEvent<?,?>> flushList;
-		
-		synchronized (this) {
+		if ( metrics.getPendingPayloadCount() == 0 )
+			return;
+
+		final long start = System.nanoTime();
+		final List<CyPayloadEvent<?,?>> flushList = new ArrayList<CyPayloadEvent<?,?>>();
+
+		synchronized (flushLock) {
+			// Take the accumulated payloads out of every stripe, then restore
+			// the order in which the sources first received a payload.
+			final List<SourcePayloads> sourceList = new ArrayList<SourcePayloads>();
+			final List<Object> sourceKeys = new ArrayList<Object>();
+			int payloadCount = 0;
 
-			if ( !havePayload )
+			for ( final PayloadStripe stripe : stripes ) {
+				final Map<Object,SourcePayloads> sources;
+				synchronized (stripe) {
+					if ( stripe.payloadCount == 0 )
+						continue;
+
+					sources = stripe.sources;
+					payloadCount += stripe.payloadCount;
+					stripe.sources = new LinkedHashMap<Object,SourcePayloads>();
+					stripe.payloadCount = 0;
+				}
+
+				for ( final Map.Entry<Object,SourcePayloads> entry : sources.entrySet() ) {
+					entry.getValue().source = entry.getKey();
+					sourceList.add(entry.getValue());
+				}
+			}
+
+			if ( metrics.payloadsRemoved(payloadCount) < MAX_PENDING_PAYLOADS )
+				overflowing.set(false);
+
+			if ( sourceList.isEmpty() )
 				return;
-			
-			flushList = new ArrayList<CyPayloadEvent<?,?>>();
-			havePayload = false;
-			
-			Iterator<Entry<Object, Map<Class<?>, PayloadAccumulator<?, ?, ?>>>> iterator = sourceAccMap.entrySet().iterator();
-			while (iterator.hasNext()) {
-				Entry<Object, Map<Class<?>, PayloadAccumulator<?, ?, ?>>> entry = iterator.next();
-				Object source = entry.getKey();
-				for ( PayloadAccumulator<?,?,?> acc : entry.getValue().values() ) {
+
+			Collections.sort(sourceList, sequenceComparator);
+
+			for ( final SourcePayloads sp : sourceList ) {
+				final Object source = sp.source;
+				for ( PayloadAccumulator<?,?,?> acc : sp.accumulators.values() ) {
 					try {
 						CyPayloadEvent<?,?> event = acc.newEventInstance( source );
 						if ( event != null ) {
@@ -161,15 +268,23 @@ public class CyEventHelperImpl implements CyEventHelper {
 						logger.warn("Couldn't instantiate event for source: " + source, ie);
 					}
 				}
-				iterator.remove();
 			}
-			
 		}
 		
 		// Actually fire the events outside of the synchronized block.
 		for (CyPayloadEvent<?,?> event : flushList) {
 			normal.fireEvent(event);
 		}	
+
+		metrics.flushed(flushList.size(), System.nanoTime() - start);
+	}
+
+	/**
+	 * @return the queue depth and flush latency counters of the payload events,
+	 *         which are also published through {@link CyEventMetricsMXBean}.
+	 */
+	public PayloadEventMetrics getPayloadEventMetrics() {
+		return metrics;
 	}
 	
 	// Used only for unit testing to prevent the confusion of multiple 
@@ -177,5 +292,35 @@ public class CyEventHelperImpl implements CyEventHelper {
 	public void cleanup() {
 		payloadEventMonitor.shutdown();
 	}
-}
 
+	private PayloadStripe getStripe(final Object source) {
+		// Spread the hash bits, since many sources use the identity hash code.
+		int h = source.hashCode();
+		h ^= (h >>> 20) ^ (h >>> 12);
+		h ^= (h >>> 7) ^ (h >>> 4);
+		return stripes[h & (STRIPE_COUNT - 1)];
+	}
+
+	/**
+	 * The payloads of the sources that map to one stripe.  All fields are
+	 * guarded by the stripe's monitor.
+	 */
+	private static final class PayloadStripe {
+		Map<Object,SourcePayloads> sources = new LinkedHashMap<Object,SourcePayloads>();
+		int payloadCount;
+	}
+
+	/**
+	 * The accumulators of one source, in the order their event types were first used.
+	 */
+	private static final class SourcePayloads {
+		final long sequence;
+		final Map<Class<?>,PayloadAccumulator<?,?,?>> accumulators;
+		Object source;
+
+		SourcePayloads(final long sequence) {
+			this.sequence = sequence;
+			accumulators = new LinkedHashMap<Class<?>,PayloadAccumulator<?,?,?>>();
+		}
+	}
+}
@@ -0,0 +1,229 @@
+package org.cytoscape.event.internal;
+
+/*
+ * #%L
+ * Cytoscape Event Impl (event-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * Records event and listener statistics for {@link CyListenerAdapter}.  When
+ * disabled, the adapter doesn't even read the clock, so the only cost is a
+ * volatile read per event.
+ */
+public class CyEventMetricsImpl implements CyEventMetricsMXBean {
+
+	private volatile boolean enabled;
+	private final ConcurrentMap<Class<?>, Recorder> events;
+	private final ConcurrentMap<ListenerKey, Recorder> listeners;
+	private volatile PayloadEventMetrics payloadEventMetrics;
+
+	public CyEventMetricsImpl() {
+		this(Boolean.getBoolean("cytoscape.eventMetrics"));
+	}
+
+	public CyEventMetricsImpl(final boolean enabled) {
+		this.enabled = enabled;
+		events = new ConcurrentHashMap<Class<?>, Recorder>();
+		listeners = new ConcurrentHashMap<ListenerKey, Recorder>();
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	@Override
+	public void setEnabled(final boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	@Override
+	public void reset() {
+		events.clear();
+		listeners.clear();
+	}
+
+	void eventFired(final Class<?> eventClass, final int payloadCount, final long nanos) {
+		Recorder recorder = events.get(eventClass);
+		if (recorder == null) {
+			final Recorder newRecorder = new Recorder(eventClass.getName(), null);
+			recorder = events.putIfAbsent(eventClass, newRecorder);
+			if (recorder == null)
+				recorder = newRecorder;
+		}
+
+		recorder.record(payloadCount, nanos);
+	}
+
+	void listenerInvoked(final Class<?> eventClass, final Class<?> listenerClass, final int payloadCount,
+	                     final long nanos) {
+		final ListenerKey key = new ListenerKey(eventClass, listenerClass);
+		Recorder recorder = listeners.get(key);
+		if (recorder == null) {
+			final Recorder newRecorder = new Recorder(eventClass.getName(), listenerClass.getName());
+			recorder = listeners.putIfAbsent(key, newRecorder);
+			if (recorder == null)
+				recorder = newRecorder;
+		}
+
+		recorder.record(payloadCount, nanos);
+	}
+
+	@Override
+	public List<EventStatistics> getEventStatistics() {
+		return snapshot(events.values());
+	}
+
+	@Override
+	public List<EventStatistics> getListenerStatistics() {
+		return snapshot(listeners.values());
+	}
+
+	@Override
+	public PayloadEventMetrics getPayloadEventMetrics() {
+		return payloadEventMetrics;
+	}
+
+	/**
+	 * Publishes the payload event counters of an event helper along with the
+	 * event statistics.
+	 */
+	public void setPayloadEventMetrics(final PayloadEventMetrics payloadEventMetrics) {
+		this.payloadEventMetrics = payloadEventMetrics;
+	}
+
+	@Override
+	public void exportTo(final String fileName) throws IOException {
+		final BufferedWriter writer = new BufferedWriter(new FileWriter(new File(fileName)));
+		try {
+			writer.write("event\tlistener\tcount\tpayloads\ttotal ns\tmean ns\tp50 ns\tp99 ns\tmax ns");
+			writer.newLine();
+			for (final EventStatistics stats : getEventStatistics())
+				write(writer, stats);
+			for (final EventStatistics stats : getListenerStatistics())
+				write(writer, stats);
+		} finally {
+			writer.close();
+		}
+	}
+
+	private static void write(final BufferedWriter writer, final EventStatistics stats) throws IOException {
+		writer.write(stats.getEventType());
+		writer.write('\t');
+		writer.write(stats.getListener() == null ? "*" : stats.getListener());
+		writer.write('\t');
+		writer.write(Long.toString(stats.getCount()));
+		writer.write('\t');
+		writer.write(Long.toString(stats.getPayloadCount()));
+		writer.write('\t');
+		writer.write(Long.toString(stats.getTotalNanos()));
+		writer.write('\t');
+		writer.write(Long.toString(stats.getMeanNanos()));
+		writer.write('\t');
+		writer.write(Long.toString(stats.getPercentileNanos(50.0)));
+		writer.write('\t');
+		writer.write(Long.toString(stats.getPercentileNanos(99.0)));
+		writer.write('\t');
+		writer.write(Long.toString(stats.getMaxNanos()));
+		writer.newLine();
+	}
+
+	private static List<EventStatistics> snapshot(final Iterable<Recorder> recorders) {
+		final List<EventStatistics> ret = new ArrayList<EventStatistics>();
+		for (final Recorder recorder : recorders)
+			ret.add(recorder.snapshot());
+		return ret;
+	}
+
+	private static final class Recorder {
+		private final String eventType;
+		private final String listener;
+		private final AtomicLong count = new AtomicLong();
+		private final AtomicLong payloadCount = new AtomicLong();
+		private final AtomicLong totalNanos = new AtomicLong();
+		private final AtomicLong maxNanos = new AtomicLong();
+		private final AtomicLongArray histogram = new AtomicLongArray(EventStatistics.BUCKET_COUNT);
+
+		Recorder(final String eventType, final String listener) {
+			this.eventType = eventType;
+			this.listener = listener;
+		}
+
+		void record(final int payloads, final long nanos) {
+			count.incrementAndGet();
+			if (payloads > 0)
+				payloadCount.addAndGet(payloads);
+			totalNanos.addAndGet(nanos);
+			histogram.incrementAndGet(EventStatistics.getBucket(nanos));
+
+			long max = maxNanos.get();
+			while (nanos > max && !maxNanos.compareAndSet(max, nanos))
+				max = maxNanos.get();
+		}
+
+		EventStatistics snapshot() {
+			final long[] buckets = new long[EventStatistics.BUCKET_COUNT];
+			for (int i = 0; i < buckets.length; i++)
+				buckets[i] = histogram.get(i);
+
+			return new EventStatistics(eventType, listener, count.get(), payloadCount.get(),
+			                           totalNanos.get(), maxNanos.get(), buckets);
+		}
+	}
+
+	private static final class ListenerKey {
+		private final Class<?> eventClass;
+		private final Class<?> listenerClass;
+
+		ListenerKey(final Class<?> eventClass, final Class<?> listenerClass) {
+			this.eventClass = eventClass;
+			this.listenerClass = listenerClass;
+		}
+
+		@Override
+		public boolean equals(final Object o) {
+			if (!(o instanceof ListenerKey))
+				return false;
+
+			final ListenerKey other = (ListenerKey) o;
+			return eventClass == other.eventClass && listenerClass == other.listenerClass;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * eventClass.hashCode() + listenerClass.hashCode();
+		}
+	}
+}
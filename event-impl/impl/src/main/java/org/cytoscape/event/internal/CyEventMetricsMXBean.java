@@ -0,0 +1,88 @@
+package org.cytoscape.event.internal;
+
+/*
+ * #%L
+ * Cytoscape Event Impl (event-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.io.IOException;
+import java.util.List;
+
+
+/**
+ * Records how often events are fired and how long their listeners take to
+ * handle them.  Recording is off by default; it can be switched on at runtime
+ * through {@link #setEnabled(boolean)} or at startup with the
+ * "cytoscape.eventMetrics" system property.
+ * <p>
+ * This is published as a platform MXBean named {@link #OBJECT_NAME}, so that
+ * the statistics can be read with any JMX client without exporting a package
+ * from this bundle.
+ */
+public interface CyEventMetricsMXBean {
+
+	String OBJECT_NAME = "org.cytoscape:type=EventMetrics";
+
+
+	/**
+	 * @return true if events are currently being recorded.
+	 */
+	boolean isEnabled();
+
+	/**
+	 * Switches recording on or off.  Statistics recorded so far are kept.
+	 */
+	void setEnabled(boolean enabled);
+
+	/**
+	 * Discards all statistics recorded so far.
+	 */
+	void reset();
+
+	/**
+	 * @return the statistics of every event type fired, covering all listeners
+	 *         of each event.  The returned statistics are snapshots.
+	 */
+	List<EventStatistics> getEventStatistics();
+
+	/**
+	 * @return the statistics of every listener, one entry per event type and
+	 *         listener class.  The returned statistics are snapshots.
+	 */
+	List<EventStatistics> getListenerStatistics();
+
+	/**
+	 * @return the queue depth and flush latency of the payload events, or null
+	 *         if no event helper has been attached.  These are always recorded,
+	 *         whether or not recording is enabled, and are not cleared by
+	 *         {@link #reset()}.
+	 */
+	PayloadEventMetrics getPayloadEventMetrics();
+
+	/**
+	 * Writes all statistics as tab separated text to the file with the given
+	 * path, one line per event type and one per listener, replacing the file if
+	 * it exists.
+	 */
+	void exportTo(String fileName) throws IOException;
+}
@@ -27,12 +27,13 @@ package org.cytoscape.event.internal;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Arrays;
 import java.util.WeakHashMap;
 
 import org.cytoscape.event.CyEvent;
+import org.cytoscape.event.CyPayloadEvent;
 import org.osgi.framework.BundleContext;
 import org.osgi.util.tracker.ServiceTracker;
 import org.slf4j.Logger;
@@ -44,12 +45,12 @@ import org.slf4j.LoggerFactory;
  */
 public class CyListenerAdapter {
 	private static final Logger logger = LoggerFactory.getLogger(CyListenerAdapter.class);
-	private static final ServiceComparator serviceComparator = new ServiceComparator(); 
 
 	private static final Object DUMMY = new Object();
 	
-	private final Map<Class<?>,ServiceTracker> serviceTrackers; 
+	private final Map<Class<?>,ListenerDispatcher> dispatchers; 
 	private final BundleContext bc;
+	private final CyEventMetricsImpl metrics;
 	private final Map<Object, Object> silencedSources;
 	private final StringBuilder traceString; 
 	private final boolean printEventTrace;
@@ -61,8 +62,17 @@ public class CyListenerAdapter {
 	 * @param bc  DOCUMENT ME!
 	 */
 	public CyListenerAdapter(BundleContext bc) {
+		this(bc, new CyEventMetricsImpl());
+	}
+
+	/**
+	 * Creates a new CyListenerAdapter object that records event and listener
+	 * statistics in the given metrics.
+	 */
+	public CyListenerAdapter(BundleContext bc, CyEventMetricsImpl metrics) {
 		this.bc = bc;
-		serviceTrackers = new HashMap<Class<?>,ServiceTracker>();
+		this.metrics = metrics;
+		dispatchers = new HashMap<Class<?>,ListenerDispatcher>();
 		silencedSources = new WeakHashMap<Object, Object>();
 
 		// used only for printing a coherent event trace
@@ -87,13 +97,18 @@ public class CyListenerAdapter {
 		
 		final Class<?> listenerClass = event.getListenerClass();
 		
-		final Object[] listeners = getListeners(listenerClass);
+		final ListenerDispatcher dispatcher = getDispatcher(listenerClass);
+		final Object[] listeners = dispatcher.getListeners();
 		if ( listeners == null ) 
 			return;
 	
 	
 		Object lastListener = null;
 		long begin = 0;
+		final boolean recordMetrics = metrics.isEnabled();
+		final boolean timed = recordMetrics || printEventTrace;
+		final int payloadCount = recordMetrics ? getPayloadCount(event) : 0;
+		final long eventBegin = timed ? System.nanoTime() : 0;
 
 		if ( printEventTrace ) {
 			fireCount++;
@@ -101,23 +116,26 @@ public class CyListenerAdapter {
 		}
 		
 		try {
-			final Method method = listenerClass.getMethod("handleEvent", event.getClass());
+			final Method method = dispatcher.getHandler(event.getClass());
 
 			for (final Object listener : listeners) {
 				lastListener = listener;
 
 				// This call is VERY memory intensive - only use it for debugging!!!!
 				// logger.debug("event: " + event.getClass().getName() + "  listener: " + listener.getClass().getName());
-				if ( printEventTrace ) {
+				if ( printEventTrace )
 					printTrace(fireCount,"listener: " + listener.getClass().getName());
-					begin = System.currentTimeMillis();
-				}
+				if ( timed )
+					begin = System.nanoTime();
 
 				method.invoke(listenerClass.cast(listener), event);
 
-				if ( printEventTrace ) {
-					final long end = System.currentTimeMillis();
-					printTrace(fireCount,"listener: " + listener.getClass().getName() + " duration: " + (end - begin));
+				if ( timed ) {
+					final long duration = System.nanoTime() - begin;
+					if ( recordMetrics )
+						metrics.listenerInvoked(event.getClass(), listener.getClass(), payloadCount, duration);
+					if ( printEventTrace )
+						printTrace(fireCount,"listener: " + listener.getClass().getName() + " duration: " + (duration / 1000000));
 				}
 			}
 		} catch (NoSuchMethodException e) {
@@ -132,28 +150,34 @@ public class CyListenerAdapter {
 				     + listenerClass.getName(), e);
 		}
 
+		if ( recordMetrics )
+			metrics.eventFired(event.getClass(), payloadCount, System.nanoTime() - eventBegin);
+
 		if ( printEventTrace ) {
 			printTrace(fireCount,"EVENT END  : " + event.getClass().getName());
 			fireCount--;
 		}
 	}
 
-	private Object[] getListeners(Class<?> listenerClass) {
-		ServiceTracker tracker = serviceTrackers.get(listenerClass);
-		if ( tracker == null ) {
+	private ListenerDispatcher getDispatcher(Class<?> listenerClass) {
+		ListenerDispatcher dispatcher = dispatchers.get(listenerClass);
+		if ( dispatcher == null ) {
 			//logger.debug("added new service tracker for " + listenerClass);
-			tracker = new ServiceTracker(bc, listenerClass.getName(), null);
+			final ServiceTracker tracker = new ServiceTracker(bc, listenerClass.getName(), null);
 			tracker.open();
-			serviceTrackers.put( listenerClass, tracker );
+			dispatcher = new ListenerDispatcher(listenerClass, tracker);
+			dispatchers.put( listenerClass, dispatcher );
 		}
 
-		Object[] services = tracker.getServices();
+		return dispatcher;
+	}
 
-		if ( services == null )
-			return null;
+	private static int getPayloadCount(final CyEvent<?> event) {
+		if ( !(event instanceof CyPayloadEvent) )
+			return 0;
 
-		Arrays.sort(services, serviceComparator);
-		return services; 
+		final Collection<?> payload = ((CyPayloadEvent<?,?>) event).getPayloadCollection();
+		return payload == null ? 0 : payload.size();
 	}
 
 	void silenceEventSource(Object eventSource) {
@@ -0,0 +1,142 @@
+package org.cytoscape.event.internal;
+
+/*
+ * #%L
+ * Cytoscape Event Impl (event-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+/**
+ * A snapshot of the statistics recorded for one event type, either over all
+ * listeners of the event or for a single listener class.
+ * <p>
+ * Durations are kept in a histogram with power of two buckets: bucket
+ * <code>i</code> counts durations of less than <code>2^i</code> nanoseconds
+ * that did not fit into bucket <code>i - 1</code>.
+ */
+public final class EventStatistics {
+
+	/**
+	 * The number of histogram buckets, enough for any duration in nanoseconds.
+	 */
+	public static final int BUCKET_COUNT = 64;
+
+	private final String eventType;
+	private final String listener;
+	private final long count;
+	private final long payloadCount;
+	private final long totalNanos;
+	private final long maxNanos;
+	private final long[] histogram;
+
+	public EventStatistics(final String eventType, final String listener, final long count,
+	                       final long payloadCount, final long totalNanos, final long maxNanos,
+	                       final long[] histogram) {
+		this.eventType = eventType;
+		this.listener = listener;
+		this.count = count;
+		this.payloadCount = payloadCount;
+		this.totalNanos = totalNanos;
+		this.maxNanos = maxNanos;
+		this.histogram = histogram.clone();
+	}
+
+	/**
+	 * @return the histogram bucket for the given duration.
+	 */
+	public static int getBucket(final long nanos) {
+		return nanos <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(nanos);
+	}
+
+	/**
+	 * @return the fully qualified class name of the event.
+	 */
+	public String getEventType() {
+		return eventType;
+	}
+
+	/**
+	 * @return the fully qualified class name of the listener, or null if these
+	 *         statistics cover all listeners of the event type.
+	 */
+	public String getListener() {
+		return listener;
+	}
+
+	/**
+	 * @return the number of times the event was fired or handled.
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * @return the total number of payloads delivered, 0 for events without payloads.
+	 */
+	public long getPayloadCount() {
+		return payloadCount;
+	}
+
+	public long getTotalNanos() {
+		return totalNanos;
+	}
+
+	public long getMaxNanos() {
+		return maxNanos;
+	}
+
+	public long getMeanNanos() {
+		return count == 0 ? 0 : totalNanos / count;
+	}
+
+	/**
+	 * @return an upper bound for the given percentile (between 0 and 100) of the
+	 *         recorded durations, based on the histogram.
+	 */
+	public long getPercentileNanos(final double percentile) {
+		if (count == 0)
+			return 0;
+
+		final long rank = (long) Math.ceil((percentile / 100.0) * count);
+		long seen = 0;
+		for (int i = 0; i < histogram.length; i++) {
+			seen += histogram[i];
+			if (seen >= rank && seen > 0)
+				return Math.min(i == 63 ? Long.MAX_VALUE : (1L << i), maxNanos);
+		}
+
+		return maxNanos;
+	}
+
+	/**
+	 * @return a copy of the duration histogram.
+	 */
+	public long[] getHistogram() {
+		return histogram.clone();
+	}
+
+	@Override
+	public String toString() {
+		return eventType + (listener == null ? "" : " -> " + listener)
+			+ " count: " + count + " mean (ns): " + getMeanNanos() + " max (ns): " + maxNanos;
+	}
+}
@@ -0,0 +1,98 @@
+package org.cytoscape.event.internal;
+
+/*
+ * #%L
+ * Cytoscape Event Impl (event-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.osgi.util.tracker.ServiceTracker;
+
+
+/**
+ * Holds everything needed to dispatch events to the listeners of one listener
+ * class: the sorted listener array, which is only rebuilt when the service
+ * tracker reports a change in the registered services, and the resolved
+ * "handleEvent" method for every event class seen so far.
+ */
+final class ListenerDispatcher {
+	private static final ServiceComparator serviceComparator = new ServiceComparator(); 
+
+	private final Class<?> listenerClass;
+	private final ServiceTracker tracker;
+	private final Map<Class<?>, Method> handlers;
+	private volatile ListenerSnapshot snapshot;
+
+	ListenerDispatcher(final Class<?> listenerClass, final ServiceTracker tracker) {
+		this.listenerClass = listenerClass;
+		this.tracker = tracker;
+		handlers = new ConcurrentHashMap<Class<?>, Method>();
+	}
+
+	/**
+	 * @return the sorted listeners, or null if there are none.  The returned
+	 *         array is shared and must not be modified.
+	 */
+	Object[] getListeners() {
+		final int trackingCount = tracker.getTrackingCount();
+		final ListenerSnapshot current = snapshot;
+		if (current != null && current.trackingCount == trackingCount)
+			return current.listeners;
+
+		final Object[] services = tracker.getServices();
+		if (services != null)
+			Arrays.sort(services, serviceComparator);
+
+		snapshot = new ListenerSnapshot(trackingCount, services);
+		return services;
+	}
+
+	/**
+	 * @return the "handleEvent" method of the listener class that accepts events
+	 *         of "eventClass".
+	 */
+	Method getHandler(final Class<?> eventClass) throws NoSuchMethodException {
+		Method method = handlers.get(eventClass);
+		if (method == null) {
+			method = listenerClass.getMethod("handleEvent", eventClass);
+			method.setAccessible(true);
+			handlers.put(eventClass, method);
+		}
+
+		return method;
+	}
+
+	private static final class ListenerSnapshot {
+		final int trackingCount;
+		final Object[] listeners;
+
+		ListenerSnapshot(final int trackingCount, final Object[] listeners) {
+			this.trackingCount = trackingCount;
+			this.listeners = listeners;
+		}
+	}
+}
@@ -25,19 +25,30 @@ package org.cytoscape.event.internal;
  */
 
 import java.util.ArrayList;
-import java.util.List;
 import java.util.Collection;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import org.cytoscape.event.CyPayloadEvent;
+import org.cytoscape.event.internal.payload.PayloadCollectionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 class PayloadAccumulator<S,P,E extends CyPayloadEvent<S,P>> {
 
-	private List<P> payloadList; 
+	private static final Logger logger = LoggerFactory.getLogger(PayloadAccumulator.class);
+
+	private Collection<P> payloadList; 
 	private final Constructor<E> constructor;
+	private final PayloadCollectionFactory<?> collectionFactory;
 	private Class<?> sourceClass;
 
-	PayloadAccumulator(S source, Class<E> eventType) throws NoSuchMethodException {
+	/**
+	 * @param collectionFactory creates the collections the payloads are added to
+	 *        and the events are constructed with, or null for plain lists.  This
+	 *        lets the bundle that owns an event type store its payloads more
+	 *        compactly or coalesce them.
+	 */
+	PayloadAccumulator(S source, Class<E> eventType, PayloadCollectionFactory<?> collectionFactory) throws NoSuchMethodException {
 		//System.out.println(" payload accumulator: source.getClass():  " + source + "   " + source.getClass());
 
 		for ( Constructor<?> cons : eventType.getConstructors() ) {
@@ -51,7 +62,8 @@ class PayloadAccumulator<S,P,E extends CyPayloadEvent<S,P>> {
 			throw new IllegalArgumentException("no valid source class found.");
 			
 		constructor = eventType.getConstructor(sourceClass, Collection.class);
-		payloadList = new ArrayList<P>();
+		this.collectionFactory = collectionFactory;
+		payloadList = newPayloadCollection();
 	}
 
 	E newEventInstance(Object source) throws InstantiationException, IllegalAccessException, InvocationTargetException, ClassCastException {
@@ -75,8 +87,21 @@ class PayloadAccumulator<S,P,E extends CyPayloadEvent<S,P>> {
 		if ( payloadList.isEmpty() )
 			return null;
 
-		List<P> ret = payloadList;
-		payloadList = new ArrayList<P>();
+		Collection<P> ret = payloadList;
+		payloadList = newPayloadCollection();
 		return ret; 
 	}
+
+	@SuppressWarnings("unchecked")
+	private Collection<P> newPayloadCollection() {
+		if ( collectionFactory != null ) {
+			try {
+				return (Collection<P>) collectionFactory.createPayloadCollection();
+			} catch (RuntimeException e) {
+				logger.warn("Unable to create payload collection, using a list instead.", e);
+			}
+		}
+
+		return new ArrayList<P>();
+	}
 }
@@ -0,0 +1,166 @@
+package org.cytoscape.event.internal;
+
+/*
+ * #%L
+ * Cytoscape Event Impl (event-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Counters describing the payload event pipeline of a {@link CyEventHelperImpl}:
+ * how many payloads are waiting to be flushed and how long flushing takes.
+ */
+public final class PayloadEventMetrics {
+
+	private final AtomicInteger pendingPayloads = new AtomicInteger();
+	private final AtomicInteger maxPendingPayloads = new AtomicInteger();
+	private final AtomicLong flushCount = new AtomicLong();
+	private final AtomicLong earlyFlushCount = new AtomicLong();
+	private final AtomicLong overflowPayloadCount = new AtomicLong();
+	private final AtomicLong firedEventCount = new AtomicLong();
+	private final AtomicLong totalFlushNanos = new AtomicLong();
+	private final AtomicLong maxFlushNanos = new AtomicLong();
+	private volatile long lastFlushNanos;
+
+	PayloadEventMetrics() {
+	}
+
+	/**
+	 * @return the new number of pending payloads.
+	 */
+	int payloadsAdded(final int count) {
+		final int pending = pendingPayloads.addAndGet(count);
+
+		int max = maxPendingPayloads.get();
+		while (pending > max && !maxPendingPayloads.compareAndSet(max, pending))
+			max = maxPendingPayloads.get();
+
+		return pending;
+	}
+
+	/**
+	 * @return the new number of pending payloads.
+	 */
+	int payloadsRemoved(final int count) {
+		return pendingPayloads.addAndGet(-count);
+	}
+
+	void earlyFlushRequested() {
+		earlyFlushCount.incrementAndGet();
+	}
+
+	void payloadOverflowed() {
+		overflowPayloadCount.incrementAndGet();
+	}
+
+	void flushed(final int eventCount, final long nanos) {
+		flushCount.incrementAndGet();
+		firedEventCount.addAndGet(eventCount);
+		totalFlushNanos.addAndGet(nanos);
+		lastFlushNanos = nanos;
+
+		long max = maxFlushNanos.get();
+		while (nanos > max && !maxFlushNanos.compareAndSet(max, nanos))
+			max = maxFlushNanos.get();
+	}
+
+	/**
+	 * @return the number of payloads added but not yet flushed.
+	 */
+	public int getPendingPayloadCount() {
+		return pendingPayloads.get();
+	}
+
+	/**
+	 * @return the largest number of payloads that were pending at once.
+	 */
+	public int getMaxPendingPayloadCount() {
+		return maxPendingPayloads.get();
+	}
+
+	/**
+	 * @return the number of flushes that fired at least one event.
+	 */
+	public long getFlushCount() {
+		return flushCount.get();
+	}
+
+	/**
+	 * @return the number of flushes that were triggered because too many
+	 *         payloads were pending, rather than by the timer or fireEvent().
+	 */
+	public long getEarlyFlushCount() {
+		return earlyFlushCount.get();
+	}
+
+	/**
+	 * @return the number of payloads added while more than
+	 *         {@link CyEventHelperImpl#MAX_PENDING_PAYLOADS} were pending.
+	 */
+	public long getOverflowPayloadCount() {
+		return overflowPayloadCount.get();
+	}
+
+	/**
+	 * @return the number of payload events fired.
+	 */
+	public long getFiredEventCount() {
+		return firedEventCount.get();
+	}
+
+	/**
+	 * @return the time spent flushing, including firing the events, in nanoseconds.
+	 */
+	public long getTotalFlushNanos() {
+		return totalFlushNanos.get();
+	}
+
+	/**
+	 * @return the duration of the longest flush in nanoseconds.
+	 */
+	public long getMaxFlushNanos() {
+		return maxFlushNanos.get();
+	}
+
+	/**
+	 * @return the duration of the most recent flush in nanoseconds.
+	 */
+	public long getLastFlushNanos() {
+		return lastFlushNanos;
+	}
+
+	@Override
+	public String toString() {
+		return "pending payloads: " + getPendingPayloadCount()
+			+ ", max pending payloads: " + getMaxPendingPayloadCount()
+			+ ", flushes: " + getFlushCount()
+			+ ", early flushes: " + getEarlyFlushCount()
+			+ ", overflow payloads: " + getOverflowPayloadCount()
+			+ ", fired events: " + getFiredEventCount()
+			+ ", total flush time (ns): " + getTotalFlushNanos()
+			+ ", max flush time (ns): " + getMaxFlushNanos();
+	}
+}
@@ -0,0 +1,51 @@
+package org.cytoscape.event.internal.payload;
+
+/*
+ * #%L
+ * Cytoscape Event Impl (event-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.Collection;
+
+import org.cytoscape.event.CyPayloadEvent;
+
+
+/**
+ * Creates the collections that the event helper accumulates the payloads of
+ * one event type in, which lets the bundle providing an event type store or
+ * coalesce its payloads without this bundle depending on it.  Register an
+ * implementation as a PayloadCollectionFactory service.
+ */
+public interface PayloadCollectionFactory<P> {
+
+	/**
+	 * @return the payload event type whose payloads this factory's collections hold.
+	 */
+	Class<? extends CyPayloadEvent<?,P>> getEventType();
+
+	/**
+	 * @return a new, empty collection.  It is only accessed by one thread at a
+	 *         time, and no longer modified once the event holding it is fired.
+	 */
+	Collection<P> createPayloadCollection();
+}
@@ -0,0 +1,289 @@
+package org.cytoscape.event;
+
+/*
+ * #%L
+ * Cytoscape Event Impl (event-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import org.cytoscape.event.internal.CyEventHelperImpl;
+import org.cytoscape.event.internal.CyEventMetricsImpl;
+import org.cytoscape.event.internal.CyListenerAdapter;
+import org.cytoscape.event.internal.EventStatistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.InvalidSyntaxException;
+import org.osgi.framework.ServiceReference;
+import org.springframework.osgi.mock.MockBundleContext;
+import org.springframework.osgi.mock.MockServiceReference;
+
+
+public class CyEventMetricsTest {
+
+	private static final long LISTENER_MILLIS = 2;
+
+	public interface TimedListener extends CyListener {
+		void handleEvent(TimedEvent e);
+		void handleEvent(TimedPayloadEvent e);
+	}
+
+	public static class TimedEvent extends AbstractCyEvent<Object> {
+		public TimedEvent(final Object source) {
+			super(source, TimedListener.class);
+		}
+	}
+
+	public static class TimedPayloadEvent extends AbstractCyPayloadEvent<Object,Integer> {
+		public TimedPayloadEvent(final Object source, final Integer... payload) {
+			super(source, TimedListener.class, Arrays.asList(payload));
+		}
+
+		public TimedPayloadEvent(final Object source, final Collection<Integer> payload) {
+			super(source, TimedListener.class, payload);
+		}
+	}
+
+	public static class SlowListener implements TimedListener {
+		int calls;
+
+		public void handleEvent(final TimedEvent e) {
+			handle();
+		}
+
+		public void handleEvent(final TimedPayloadEvent e) {
+			handle();
+		}
+
+		private void handle() {
+			calls++;
+			try {
+				Thread.sleep(LISTENER_MILLIS);
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private SlowListener listener;
+	private CyEventMetricsImpl metrics;
+	private CyListenerAdapter adapter;
+
+	@Before
+	public void setUp() {
+		listener = new SlowListener();
+		final ServiceReference listenerRef = new MockServiceReference();
+
+		final BundleContext bc = new MockBundleContext() {
+				public ServiceReference getServiceReference(String clazz) {
+					return clazz.equals(TimedListener.class.getName()) ? listenerRef : null;
+				}
+
+				public ServiceReference[] getServiceReferences(String clazz, String filter)
+				    throws InvalidSyntaxException {
+					return clazz.equals(TimedListener.class.getName()) ? new ServiceReference[] { listenerRef } : null;
+				}
+
+				public Object getService(ServiceReference ref) {
+					return ref == listenerRef ? listener : null;
+				}
+			};
+
+		metrics = new CyEventMetricsImpl(true);
+		adapter = new CyListenerAdapter(bc, metrics);
+	}
+
+	@Test
+	public void testBucketBoundaries() {
+		assertEquals(0, EventStatistics.getBucket(0));
+		assertEquals(1, EventStatistics.getBucket(1));
+		assertEquals(2, EventStatistics.getBucket(2));
+		assertEquals(2, EventStatistics.getBucket(3));
+		assertEquals(11, EventStatistics.getBucket(1024));
+		assertEquals(63, EventStatistics.getBucket(Long.MAX_VALUE));
+	}
+
+	@Test
+	public void testPercentiles() {
+		final long[] histogram = new long[EventStatistics.BUCKET_COUNT];
+		histogram[EventStatistics.getBucket(100)] = 99;
+		histogram[EventStatistics.getBucket(5000000)] = 1;
+		final EventStatistics stats = new EventStatistics("e", null, 100, 0, 99 * 100 + 5000000, 5000000, histogram);
+
+		assertEquals(128, stats.getPercentileNanos(50.0));
+		assertEquals(128, stats.getPercentileNanos(99.0));
+		assertEquals(5000000, stats.getPercentileNanos(100.0));
+	}
+
+	@Test
+	public void testFiredEventsAreRecorded() {
+		final Object source = new Object();
+		for (int i = 0; i < 3; i++)
+			adapter.fireEvent(new TimedEvent(source));
+		adapter.fireEvent(new TimedPayloadEvent(source, 1, 2));
+		adapter.fireEvent(new TimedPayloadEvent(source, 3, 4, 5));
+
+		assertEquals(5, listener.calls);
+		assertEquals(2, metrics.getEventStatistics().size());
+		assertEquals(2, metrics.getListenerStatistics().size());
+
+		final long minNanos = LISTENER_MILLIS * 1000000;
+
+		final EventStatistics events = find(metrics.getEventStatistics(), TimedEvent.class, null);
+		assertEquals(3, events.getCount());
+		assertEquals(0, events.getPayloadCount());
+		assertTrue(events.getTotalNanos() >= 3 * minNanos);
+		assertTrue(events.getMaxNanos() >= minNanos);
+		assertTrue(events.getMeanNanos() >= minNanos);
+		assertTrue(events.getPercentileNanos(50.0) >= minNanos);
+		assertEquals(3, sum(events.getHistogram()));
+
+		final EventStatistics payloadEvents = find(metrics.getEventStatistics(), TimedPayloadEvent.class, null);
+		assertEquals(2, payloadEvents.getCount());
+		assertEquals(5, payloadEvents.getPayloadCount());
+
+		final EventStatistics listenerStats = find(metrics.getListenerStatistics(), TimedEvent.class, SlowListener.class);
+		assertEquals(3, listenerStats.getCount());
+		assertTrue(listenerStats.getTotalNanos() >= 3 * minNanos);
+		assertTrue(listenerStats.getTotalNanos() <= events.getTotalNanos());
+
+		final EventStatistics payloadListenerStats =
+			find(metrics.getListenerStatistics(), TimedPayloadEvent.class, SlowListener.class);
+		assertEquals(2, payloadListenerStats.getCount());
+		assertEquals(5, payloadListenerStats.getPayloadCount());
+	}
+
+	@Test
+	public void testDisabledMetricsRecordNothing() {
+		metrics.setEnabled(false);
+		adapter.fireEvent(new TimedEvent(new Object()));
+
+		assertEquals(1, listener.calls);
+		assertTrue(metrics.getEventStatistics().isEmpty());
+		assertTrue(metrics.getListenerStatistics().isEmpty());
+
+		metrics.setEnabled(true);
+		adapter.fireEvent(new TimedEvent(new Object()));
+		assertEquals(1, find(metrics.getEventStatistics(), TimedEvent.class, null).getCount());
+
+		metrics.reset();
+		assertTrue(metrics.getEventStatistics().isEmpty());
+	}
+
+	@Test
+	public void testMXBeanAttributes() throws Exception {
+		adapter.fireEvent(new TimedEvent(new Object()));
+
+		final MBeanServer server = MBeanServerFactory.newMBeanServer();
+		final ObjectName name = new ObjectName(CyEventMetricsImpl.OBJECT_NAME);
+		server.registerMBean(metrics, name);
+
+		assertEquals(Boolean.TRUE, server.getAttribute(name, "Enabled"));
+		final CompositeData[] stats = (CompositeData[]) server.getAttribute(name, "EventStatistics");
+		assertEquals(1, stats.length);
+		assertEquals(TimedEvent.class.getName(), stats[0].get("eventType"));
+		assertEquals(Long.valueOf(1), stats[0].get("count"));
+	}
+
+	@Test
+	public void testMXBeanPayloadEventMetrics() throws Exception {
+		final MBeanServer server = MBeanServerFactory.newMBeanServer();
+		final ObjectName name = new ObjectName(CyEventMetricsImpl.OBJECT_NAME);
+		server.registerMBean(metrics, name);
+		assertNull(server.getAttribute(name, "PayloadEventMetrics"));
+
+		final CyEventHelperImpl helper = new CyEventHelperImpl(adapter);
+		try {
+			metrics.setPayloadEventMetrics(helper.getPayloadEventMetrics());
+			final Object source = new Object();
+			helper.addEventPayload(source, Integer.valueOf(1), TimedPayloadEvent.class);
+			helper.addEventPayload(source, Integer.valueOf(2), TimedPayloadEvent.class);
+
+			CompositeData payloads = (CompositeData) server.getAttribute(name, "PayloadEventMetrics");
+			assertEquals(Integer.valueOf(2), payloads.get("pendingPayloadCount"));
+
+			helper.flushPayloadEvents();
+			payloads = (CompositeData) server.getAttribute(name, "PayloadEventMetrics");
+			assertEquals(Integer.valueOf(0), payloads.get("pendingPayloadCount"));
+			assertEquals(Integer.valueOf(2), payloads.get("maxPendingPayloadCount"));
+			assertEquals(Long.valueOf(1), payloads.get("flushCount"));
+			assertTrue((Long) payloads.get("totalFlushNanos") > 0);
+		} finally {
+			helper.cleanup();
+		}
+	}
+
+	@Test
+	public void testExport() throws Exception {
+		final CyEventMetricsImpl metrics = new CyEventMetricsImpl(true);
+		final File file = File.createTempFile("event-metrics", ".txt");
+		file.deleteOnExit();
+
+		metrics.exportTo(file.getPath());
+		final BufferedReader reader = new BufferedReader(new FileReader(file));
+		try {
+			assertTrue(reader.readLine().startsWith("event\tlistener\tcount"));
+			assertNull(reader.readLine());
+		} finally {
+			reader.close();
+		}
+
+		final List<EventStatistics> stats = metrics.getEventStatistics();
+		assertTrue(stats.isEmpty());
+	}
+
+	private static EventStatistics find(final List<EventStatistics> stats, final Class<?> eventType,
+	                                    final Class<?> listenerType) {
+		for (final EventStatistics s : stats) {
+			if (s.getEventType().equals(eventType.getName())
+			    && (listenerType == null ? s.getListener() == null : listenerType.getName().equals(s.getListener())))
+				return s;
+		}
+
+		fail("no statistics for " + eventType.getName() + " and " + listenerType);
+		return null;
+	}
+
+	private static long sum(final long[] histogram) {
+		long sum = 0;
+		for (final long count : histogram)
+			sum += count;
+		return sum;
+	}
+}
@@ -0,0 +1,179 @@
+package org.cytoscape.event.internal;
+
+/*
+ * #%L
+ * Cytoscape Event Impl (event-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.cytoscape.event.AbstractCyPayloadEvent;
+import org.cytoscape.event.CyEvent;
+import org.cytoscape.event.CyListener;
+import org.cytoscape.event.CyPayloadEvent;
+import org.cytoscape.event.internal.payload.PayloadCollectionFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class CyEventHelperImplTest {
+
+	public interface TestPayloadListener extends CyListener {
+		void handleEvent(TestPayloadEvent e);
+	}
+
+	public static class TestPayloadEvent extends AbstractCyPayloadEvent<Object,Integer> {
+		public TestPayloadEvent(final Object source, final Collection<Integer> payload) {
+			super(source, TestPayloadListener.class, payload);
+		}
+	}
+
+	private Thread producer;
+	private CountDownLatch listenerRelease;
+	private AtomicBoolean firedOnProducer;
+	private AtomicInteger firedPayloads;
+	private CyEventHelperImpl helper;
+
+	@Before
+	public void setUp() {
+		listenerRelease = new CountDownLatch(1);
+		firedOnProducer = new AtomicBoolean(false);
+		firedPayloads = new AtomicInteger();
+
+		// Stands in for the listeners: blocks until released and counts the payloads.
+		final CyListenerAdapter adapter = new CyListenerAdapter(null) {
+			@Override
+			public <E extends CyEvent<?>> void fireEvent(final E event) {
+				if ( Thread.currentThread() == producer )
+					firedOnProducer.set(true);
+
+				try {
+					listenerRelease.await();
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+				}
+
+				firedPayloads.addAndGet(((CyPayloadEvent<?,?>) event).getPayloadCollection().size());
+			}
+		};
+
+		helper = new CyEventHelperImpl(adapter);
+	}
+
+	@After
+	public void cleanup() {
+		listenerRelease.countDown();
+		helper.cleanup();
+	}
+
+	@Test
+	public void testOverflowDoesNotBlockProducer() throws Exception {
+		final Object source = new Object();
+		final int total = 2 * CyEventHelperImpl.MAX_PENDING_PAYLOADS;
+
+		// The listeners are blocked, so after the first early flush has taken
+		// its payloads nothing more is flushed while the producer runs past the
+		// limit, as it would if it held a lock a listener needs.
+		producer = new Thread(new Runnable() {
+			public void run() {
+				for (int i = 0; i < total; i++)
+					helper.addEventPayload(source, Integer.valueOf(i), TestPayloadEvent.class);
+			}
+		});
+		producer.start();
+		producer.join(10000);
+
+		assertFalse("producer blocked by pending payloads", producer.isAlive());
+		assertFalse("listener called on the producer", firedOnProducer.get());
+
+		final PayloadEventMetrics metrics = helper.getPayloadEventMetrics();
+		assertTrue(metrics.getEarlyFlushCount() > 0);
+		assertTrue(metrics.getOverflowPayloadCount() > 0);
+		assertTrue(metrics.getMaxPendingPayloadCount() >= CyEventHelperImpl.MAX_PENDING_PAYLOADS);
+
+		// The monitor thread may still be firing the payloads it took out early.
+		listenerRelease.countDown();
+		helper.flushPayloadEvents();
+		assertEquals(0, metrics.getPendingPayloadCount());
+		final long deadline = System.currentTimeMillis() + 10000;
+		while ( firedPayloads.get() < total && System.currentTimeMillis() < deadline )
+			Thread.sleep(1);
+
+		assertEquals(total, firedPayloads.get());
+		assertFalse(firedOnProducer.get());
+	}
+
+	@Test
+	public void testShutDownMonitorDoesNotBlockProducer() {
+		helper.cleanup();
+
+		final Object source = new Object();
+		producer = Thread.currentThread();
+
+		for (int i = 0; i < CyEventHelperImpl.MAX_PENDING_PAYLOADS; i++)
+			helper.addEventPayload(source, Integer.valueOf(i), TestPayloadEvent.class);
+
+		assertEquals(CyEventHelperImpl.MAX_PENDING_PAYLOADS, helper.getPayloadEventMetrics().getPendingPayloadCount());
+		assertEquals(0, firedPayloads.get());
+	}
+
+	@Test
+	public void testPayloadCollectionFactory() {
+		listenerRelease.countDown();
+
+		final PayloadCollectionFactory<Integer> factory = new PayloadCollectionFactory<Integer>() {
+			public Class<TestPayloadEvent> getEventType() {
+				return TestPayloadEvent.class;
+			}
+
+			public Collection<Integer> createPayloadCollection() {
+				return new LinkedHashSet<Integer>();
+			}
+		};
+		helper.addPayloadCollectionFactory(factory, Collections.emptyMap());
+
+		final Object source = new Object();
+		helper.addEventPayload(source, Integer.valueOf(1), TestPayloadEvent.class);
+		helper.addEventPayload(source, Integer.valueOf(1), TestPayloadEvent.class);
+		helper.addEventPayload(source, Integer.valueOf(2), TestPayloadEvent.class);
+		helper.flushPayloadEvents();
+		assertEquals(2, firedPayloads.get());
+
+		helper.removePayloadCollectionFactory(factory, Collections.emptyMap());
+
+		helper.addEventPayload(source, Integer.valueOf(1), TestPayloadEvent.class);
+		helper.addEventPayload(source, Integer.valueOf(1), TestPayloadEvent.class);
+		helper.flushPayloadEvents();
+		assertEquals(4, firedPayloads.get());
+	}
+}
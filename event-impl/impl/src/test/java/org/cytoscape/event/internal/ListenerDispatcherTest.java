@@ -0,0 +1,231 @@
+package org.cytoscape.event.internal;
+
+/*
+ * #%L
+ * Cytoscape Event Impl (event-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.cytoscape.event.AbstractCyEvent;
+import org.cytoscape.event.CyListener;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.util.tracker.ServiceTracker;
+import org.springframework.osgi.mock.MockBundleContext;
+
+
+public class ListenerDispatcherTest {
+
+	public interface OverloadedListener extends CyListener {
+		void handleEvent(EventA e);
+		void handleEvent(EventB e);
+	}
+
+	public static class EventA extends AbstractCyEvent<Object> {
+		public EventA(final Object source) {
+			super(source, OverloadedListener.class);
+		}
+	}
+
+	public static class EventB extends AbstractCyEvent<Object> {
+		public EventB(final Object source) {
+			super(source, OverloadedListener.class);
+		}
+	}
+
+	public static class EventC extends AbstractCyEvent<Object> {
+		public EventC(final Object source) {
+			super(source, OverloadedListener.class);
+		}
+	}
+
+	public static class StubListener implements OverloadedListener {
+		public void handleEvent(final EventA e) {
+		}
+
+		public void handleEvent(final EventB e) {
+		}
+	}
+
+	/**
+	 * A tracker whose services and tracking count are set directly by the test,
+	 * the way the framework would change them on register, unregister and
+	 * ranking updates.
+	 */
+	private static final class StubTracker extends ServiceTracker {
+		Object[] services;
+		int trackingCount;
+		int getServicesCalls;
+
+		StubTracker() {
+			super(new MockBundleContext(), OverloadedListener.class.getName(), null);
+		}
+
+		@Override
+		public Object[] getServices() {
+			getServicesCalls++;
+			return services == null ? null : services.clone();
+		}
+
+		@Override
+		public int getTrackingCount() {
+			return trackingCount;
+		}
+	}
+
+	private StubTracker tracker;
+	private ListenerDispatcher dispatcher;
+
+	@Before
+	public void setUp() {
+		tracker = new StubTracker();
+		dispatcher = new ListenerDispatcher(OverloadedListener.class, tracker);
+	}
+
+	@Test
+	public void testNoListeners() {
+		assertNull(dispatcher.getListeners());
+	}
+
+	@Test
+	public void testUnchangedTrackingCountReusesListeners() {
+		tracker.services = new Object[] { new StubListener(), new StubListener() };
+		tracker.trackingCount = 1;
+
+		final Object[] first = dispatcher.getListeners();
+		final Object[] second = dispatcher.getListeners();
+
+		assertSame(first, second);
+		assertEquals(1, tracker.getServicesCalls);
+	}
+
+	@Test
+	public void testAddedServiceInvalidatesListeners() {
+		final StubListener l1 = new StubListener();
+		final StubListener l2 = new StubListener();
+		tracker.services = new Object[] { l1 };
+		tracker.trackingCount = 1;
+		assertEquals(1, dispatcher.getListeners().length);
+
+		tracker.services = new Object[] { l1, l2 };
+		tracker.trackingCount = 2;
+
+		assertEquals(asSet(l1, l2), asSet(dispatcher.getListeners()));
+		assertEquals(2, tracker.getServicesCalls);
+	}
+
+	@Test
+	public void testRemovedServiceInvalidatesListeners() {
+		final StubListener l1 = new StubListener();
+		final StubListener l2 = new StubListener();
+		tracker.services = new Object[] { l1, l2 };
+		tracker.trackingCount = 1;
+		assertEquals(2, dispatcher.getListeners().length);
+
+		tracker.services = new Object[] { l2 };
+		tracker.trackingCount = 2;
+		assertEquals(asSet(l2), asSet(dispatcher.getListeners()));
+
+		tracker.services = null;
+		tracker.trackingCount = 3;
+		assertNull(dispatcher.getListeners());
+		assertEquals(3, tracker.getServicesCalls);
+	}
+
+	@Test
+	public void testModifiedServiceInvalidatesListeners() {
+		// A ranking change keeps the same services but bumps the tracking count.
+		final StubListener l1 = new StubListener();
+		final StubListener l2 = new StubListener();
+		tracker.services = new Object[] { l1, l2 };
+		tracker.trackingCount = 1;
+		final Object[] before = dispatcher.getListeners();
+
+		tracker.trackingCount = 2;
+		final Object[] after = dispatcher.getListeners();
+
+		assertEquals(2, tracker.getServicesCalls);
+		assertEquals(asSet(before), asSet(after));
+		assertSame(after, dispatcher.getListeners());
+		assertEquals(2, tracker.getServicesCalls);
+	}
+
+	@Test
+	public void testHandlerResolvedPerEventClass() throws Exception {
+		final Method a = dispatcher.getHandler(EventA.class);
+		final Method b = dispatcher.getHandler(EventB.class);
+
+		assertNotNull(a);
+		assertNotNull(b);
+		assertEquals(EventA.class, a.getParameterTypes()[0]);
+		assertEquals(EventB.class, b.getParameterTypes()[0]);
+
+		assertSame(a, dispatcher.getHandler(EventA.class));
+		assertSame(b, dispatcher.getHandler(EventB.class));
+	}
+
+	@Test
+	public void testHandlerDispatchesToMatchingOverload() throws Exception {
+		final int[] calls = new int[2];
+		final OverloadedListener listener = new OverloadedListener() {
+				public void handleEvent(final EventA e) {
+					calls[0]++;
+				}
+
+				public void handleEvent(final EventB e) {
+					calls[1]++;
+				}
+			};
+
+		dispatcher.getHandler(EventB.class).invoke(listener, new EventB(this));
+		dispatcher.getHandler(EventB.class).invoke(listener, new EventB(this));
+		dispatcher.getHandler(EventA.class).invoke(listener, new EventA(this));
+
+		assertEquals(1, calls[0]);
+		assertEquals(2, calls[1]);
+	}
+
+	@Test
+	public void testMissingHandler() {
+		try {
+			dispatcher.getHandler(EventC.class);
+			fail("expected NoSuchMethodException");
+		} catch (NoSuchMethodException e) {
+			// expected
+		}
+	}
+
+	private static Set<Object> asSet(final Object... objects) {
+		return new HashSet<Object>(Arrays.asList(objects));
+	}
+}
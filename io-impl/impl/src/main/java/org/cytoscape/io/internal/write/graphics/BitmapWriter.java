@@ -64,6 +64,11 @@ public class BitmapWriter extends AbstractTask implements CyWriter {
 	
 	private static final double MAX_ZOOM= 500;
 
+	// Larger images are rendered in strips, if their format is written row by
+	// row, so that poster-size exports don't need the whole image in memory.
+	private static final long MAX_UNSTRIPED_PIXELS = 2048L * 2048L;
+	private static final String[] STRIPED_FORMATS = { "png", "tif", "tiff" };
+
 	//****
 	public BoundedDouble zoom;
 	@Tunable(description = "Zoom (%)",groups={"Image Size"},params="alignments=vertical;slider=true",listenForChange={"WidthInPixels","HeightInPixels", "WidthInInches", "HeightInInches"})
@@ -233,6 +238,22 @@ public class BitmapWriter extends AbstractTask implements CyWriter {
 
 		final double scale = zoom.getValue() / 100.0; 
 		tm.setProgress(0.1);		
+
+		if (((long) widthInPixels * heightInPixels) > MAX_UNSTRIPED_PIXELS && isStripedFormat()) {
+			final StripImage image = new StripImage(re, widthInPixels, heightInPixels, scale, tm);
+
+			try {
+				ImageIO.write(image, extension, outStream);
+			} finally {
+				image.dispose();
+				outStream.close();
+			}
+
+			logger.debug("Bitmap image rendering finished.");
+			tm.setProgress(1.0);
+			return;
+		}
+
 		final BufferedImage image = new BufferedImage(widthInPixels, heightInPixels, BufferedImage.TYPE_INT_RGB);
 		Graphics2D g = (Graphics2D) image.getGraphics();
 		g.scale(scale, scale);
@@ -251,6 +272,15 @@ public class BitmapWriter extends AbstractTask implements CyWriter {
 		tm.setProgress(1.0);
 	}	
 
+	private boolean isStripedFormat() {
+		for (final String format : STRIPED_FORMATS) {
+			if (format.equalsIgnoreCase(extension))
+				return true;
+		}
+
+		return false;
+	}
+
 
 }
 
@@ -0,0 +1,310 @@
+package org.cytoscape.io.internal.write.graphics;
+
+/*
+ * #%L
+ * Cytoscape IO Impl (io-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.cytoscape.view.presentation.RenderingEngine;
+import org.cytoscape.work.TaskMonitor;
+
+
+/**
+ * An image of the canvas of a rendering engine that is rendered in horizontal
+ * strips as an image writer asks for its rows.  Writers that encode row by
+ * row, such as PNG, therefore never need more than two strips in memory,
+ * however large the image.  While the writer encodes one strip, the next one
+ * is rendered on a background thread.  The canvas is clipped to the strip
+ * that is being rendered.  Writers ask for the strips from the top down, so
+ * the rendering engine can tell a new image by its first strip and determine
+ * the level of detail of the whole image only once.
+ */
+final class StripImage implements RenderedImage {
+
+	/**
+	 * The height, in pixels, of a strip.
+	 */
+	static final int STRIP_HEIGHT = 256;
+
+	private final RenderingEngine<?> re;
+	private final int width;
+	private final int height;
+	private final double scale;
+	private final TaskMonitor tm;
+	private final ColorModel colorModel;
+	private final SampleModel sampleModel;
+
+	private ExecutorService executor;
+	private BufferedImage strip;
+	private int stripIndex = -1;
+	private Future<BufferedImage> nextStrip;
+	private int nextStripIndex = -1;
+
+	/**
+	 * @param scale the scale at which the canvas is rendered.
+	 * @param tm if not null, the progress of the rendering is reported to it.
+	 */
+	StripImage(final RenderingEngine<?> re, final int width, final int height, final double scale,
+			final TaskMonitor tm) {
+		this.re = re;
+		this.width = width;
+		this.height = height;
+		this.scale = scale;
+		this.tm = tm;
+
+		final BufferedImage prototype = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+		colorModel = prototype.getColorModel();
+		sampleModel = colorModel.createCompatibleSampleModel(width, STRIP_HEIGHT);
+	}
+
+	/**
+	 * Stops rendering strips in the background.
+	 */
+	void dispose() {
+		if (nextStrip != null)
+			nextStrip.cancel(false);
+
+		if (executor != null)
+			executor.shutdown();
+
+		strip = null;
+		nextStrip = null;
+	}
+
+	private BufferedImage renderStrip(final int index) {
+		final BufferedImage image = new BufferedImage(width, STRIP_HEIGHT, BufferedImage.TYPE_INT_RGB);
+		final Graphics2D g = image.createGraphics();
+		g.translate(0, -index * STRIP_HEIGHT);
+
+		// The clip tells the rendering engine which part of the canvas is
+		// needed, so it can skip what doesn't reach into the strip.
+		g.clipRect(0, index * STRIP_HEIGHT, width, STRIP_HEIGHT);
+		g.scale(scale, scale);
+		re.printCanvas(g);
+		g.dispose();
+
+		return image;
+	}
+
+	private BufferedImage getStrip(final int index) {
+		if (index == stripIndex)
+			return strip;
+
+		// The rendering engine renders one strip at a time, so a strip that is
+		// being rendered in the background is waited for even if it is not the
+		// one that is needed.
+		BufferedImage image = null;
+
+		if (nextStrip != null) {
+			final BufferedImage next = await(nextStrip);
+
+			if (nextStripIndex == index)
+				image = next;
+
+			nextStrip = null;
+		}
+
+		if (image == null)
+			image = renderStrip(index);
+
+		strip = image;
+		stripIndex = index;
+
+		if (index + 1 < getNumYTiles()) {
+			if (executor == null)
+				executor = Executors.newSingleThreadExecutor();
+
+			final int next = index + 1;
+			nextStripIndex = next;
+			nextStrip = executor.submit(new Callable<BufferedImage>() {
+				public BufferedImage call() {
+					return renderStrip(next);
+				}
+			});
+		}
+
+		if (tm != null)
+			tm.setProgress(0.1 + (0.9 * (index + 1)) / getNumYTiles());
+
+		return strip;
+	}
+
+	private static BufferedImage await(final Future<BufferedImage> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted while rendering image", e);
+		} catch (ExecutionException e) {
+			final Throwable cause = e.getCause();
+
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+
+			if (cause instanceof Error)
+				throw (Error) cause;
+
+			throw new IllegalStateException("failed to render image", cause);
+		}
+	}
+
+	@Override
+	public Vector<RenderedImage> getSources() {
+		return null;
+	}
+
+	@Override
+	public Object getProperty(final String name) {
+		return Image.UndefinedProperty;
+	}
+
+	@Override
+	public String[] getPropertyNames() {
+		return null;
+	}
+
+	@Override
+	public ColorModel getColorModel() {
+		return colorModel;
+	}
+
+	@Override
+	public SampleModel getSampleModel() {
+		return sampleModel;
+	}
+
+	@Override
+	public int getWidth() {
+		return width;
+	}
+
+	@Override
+	public int getHeight() {
+		return height;
+	}
+
+	@Override
+	public int getMinX() {
+		return 0;
+	}
+
+	@Override
+	public int getMinY() {
+		return 0;
+	}
+
+	@Override
+	public int getNumXTiles() {
+		return 1;
+	}
+
+	@Override
+	public int getNumYTiles() {
+		return (height + STRIP_HEIGHT - 1) / STRIP_HEIGHT;
+	}
+
+	@Override
+	public int getMinTileX() {
+		return 0;
+	}
+
+	@Override
+	public int getMinTileY() {
+		return 0;
+	}
+
+	@Override
+	public int getTileWidth() {
+		return width;
+	}
+
+	@Override
+	public int getTileHeight() {
+		return STRIP_HEIGHT;
+	}
+
+	@Override
+	public int getTileGridXOffset() {
+		return 0;
+	}
+
+	@Override
+	public int getTileGridYOffset() {
+		return 0;
+	}
+
+	@Override
+	public Raster getTile(final int tileX, final int tileY) {
+		return getStrip(tileY).getRaster().createTranslatedChild(0, tileY * STRIP_HEIGHT);
+	}
+
+	@Override
+	public Raster getData() {
+		return getData(new Rectangle(0, 0, width, height));
+	}
+
+	@Override
+	public Raster getData(final Rectangle rect) {
+		final WritableRaster raster = colorModel.createCompatibleWritableRaster(rect.width, rect.height);
+
+		return copyData(raster.createWritableTranslatedChild(rect.x, rect.y));
+	}
+
+	@Override
+	public WritableRaster copyData(WritableRaster raster) {
+		if (raster == null)
+			raster = colorModel.createCompatibleWritableRaster(width, height);
+
+		final Rectangle bounds = raster.getBounds().intersection(new Rectangle(0, 0, width, height));
+
+		if (bounds.isEmpty())
+			return raster;
+
+		final int lastStrip = (bounds.y + bounds.height - 1) / STRIP_HEIGHT;
+
+		for (int i = bounds.y / STRIP_HEIGHT; i <= lastStrip; i++) {
+			final Raster tile = getTile(0, i);
+			final Rectangle part = bounds.intersection(tile.getBounds());
+			raster.setRect(tile.createChild(part.x, part.y, part.width, part.height, part.x, part.y,
+			                                null));
+		}
+
+		return raster;
+	}
+}
@@ -0,0 +1,163 @@
+package org.cytoscape.io.internal.write.graphics;
+
+/*
+ * #%L
+ * Cytoscape IO Impl (io-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.view.presentation.RenderingEngine;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class StripImageTest {
+
+	private static final int WIDTH = 300;
+	private static final int HEIGHT = (StripImage.STRIP_HEIGHT * 3) + 17;
+	private static final double SCALE = 1.5;
+
+	private RenderingEngine<CyNetwork> re;
+	private List<Rectangle> clips;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		re = (RenderingEngine<CyNetwork>) mock(RenderingEngine.class);
+		clips = Collections.synchronizedList(new ArrayList<Rectangle>());
+
+		// Diagonal bands, so that every strip looks different.
+		doAnswer(new Answer<Object>() {
+			public Object answer(final InvocationOnMock invocation) {
+				final Graphics g = (Graphics) invocation.getArguments()[0];
+				clips.add(g.getClipBounds());
+				g.setColor(Color.WHITE);
+				g.fillRect(0, 0, WIDTH, HEIGHT);
+
+				for (int i = 0; i < 40; i++) {
+					g.setColor(new Color((i * 37) % 256, (i * 91) % 256, (i * 13) % 256));
+					g.fillRect(i * 7, i * 13, 25, 31);
+				}
+
+				return null;
+			}
+		}).when(re).printCanvas(any(Graphics.class));
+	}
+
+	@Test
+	public void testPngMatchesUnstripedImage() throws Exception {
+		final BufferedImage expected = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+		final Graphics2D g = expected.createGraphics();
+		g.scale(SCALE, SCALE);
+		re.printCanvas(g);
+		g.dispose();
+
+		final StripImage image = new StripImage(re, WIDTH, HEIGHT, SCALE, null);
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		try {
+			ImageIO.write(image, "png", out);
+		} finally {
+			image.dispose();
+		}
+
+		final BufferedImage written = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+		assertEquals(WIDTH, written.getWidth());
+		assertEquals(HEIGHT, written.getHeight());
+
+		for (int y = 0; y < HEIGHT; y++)
+			for (int x = 0; x < WIDTH; x++)
+				assertEquals("pixel " + x + "," + y, expected.getRGB(x, y), written.getRGB(x, y));
+	}
+
+	@Test
+	public void testGetDataAcrossStrips() {
+		final StripImage image = new StripImage(re, WIDTH, HEIGHT, SCALE, null);
+		final BufferedImage expected = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+		final Graphics2D g = expected.createGraphics();
+		g.scale(SCALE, SCALE);
+		re.printCanvas(g);
+		g.dispose();
+
+		try {
+			final int y = StripImage.STRIP_HEIGHT - 10;
+			final Raster data = image.getData(new Rectangle(5, y, 100, 300));
+			final int[] pixel = new int[3];
+
+			for (int row = y; row < y + 300; row += 7) {
+				for (int x = 5; x < 105; x += 3) {
+					data.getPixel(x, row, pixel);
+					final int rgb = expected.getRGB(x, row);
+					assertEquals((rgb >> 16) & 0xff, pixel[0]);
+					assertEquals((rgb >> 8) & 0xff, pixel[1]);
+					assertEquals(rgb & 0xff, pixel[2]);
+				}
+			}
+		} finally {
+			image.dispose();
+		}
+	}
+
+	@Test
+	public void testCanvasIsClippedToStrip() {
+		final StripImage image = new StripImage(re, WIDTH, HEIGHT, SCALE, null);
+
+		try {
+			image.getData();
+		} finally {
+			image.dispose();
+		}
+
+		assertEquals(image.getNumYTiles(), clips.size());
+
+		for (int i = 0; i < clips.size(); i++) {
+			// In canvas coordinates, which are scaled down by SCALE.
+			final Rectangle clip = clips.get(i);
+			final double top = (i * StripImage.STRIP_HEIGHT) / SCALE;
+			assertTrue(clip.y <= top && clip.y > top - 1);
+			assertTrue(clip.y + clip.height >= top + (StripImage.STRIP_HEIGHT / SCALE));
+			assertTrue(clip.height <= (StripImage.STRIP_HEIGHT / SCALE) + 2);
+		}
+	}
+}
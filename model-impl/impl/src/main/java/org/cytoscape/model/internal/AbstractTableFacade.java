@@ -37,6 +37,7 @@ import org.cytoscape.model.CyTable;
 import org.cytoscape.model.SUIDFactory;
 import org.cytoscape.model.SavePolicy;
 import org.cytoscape.model.VirtualColumnInfo;
+import org.cytoscape.model.internal.bulk.BulkValueSetter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -44,7 +45,7 @@ import org.slf4j.LoggerFactory;
 /**
  * An abstract table facade class. 
  */
-public abstract class AbstractTableFacade implements CyTable {
+public abstract class AbstractTableFacade implements CyTable, BulkValueSetter {
 	
 	private static final Logger logger = LoggerFactory.getLogger(AbstractTableFacade.class);
 	
@@ -212,6 +213,26 @@ public abstract class AbstractTableFacade implements CyTable {
 		actual.swap(otherTable);	
 	}
 
+	@Override
+	public void setValues(final Collection<?> primaryKeys, final String columnName, final Object value) {
+		if (actual instanceof BulkValueSetter) {
+			((BulkValueSetter) actual).setValues(primaryKeys, columnName, value);
+		} else {
+			for (final Object key : primaryKeys)
+				getRow(key).set(columnName, value);
+		}
+	}
+
+	@Override
+	public void setValues(final String columnName, final Map<?, ?> keyToValueMap) {
+		if (actual instanceof BulkValueSetter) {
+			((BulkValueSetter) actual).setValues(columnName, keyToValueMap);
+		} else {
+			for (final Map.Entry<?, ?> entry : keyToValueMap.entrySet())
+				getRow(entry.getKey()).set(columnName, entry.getValue());
+		}
+	}
+
 	protected abstract void updateColumnName(String oldName, String newName);
 	
 	private final class RowFacade implements CyRow {
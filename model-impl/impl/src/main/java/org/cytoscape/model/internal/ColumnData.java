@@ -0,0 +1,60 @@
+package org.cytoscape.model.internal;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.Collection;
+
+
+/**
+ * Storage for the (primary key, value) pairs of a single column of a {@link CyTableImpl}.
+ * Values may be equations in which case they are returned unevaluated.
+ */
+interface ColumnData {
+
+	/** @return the value or equation stored for "key", or null if none has been set */
+	Object get(Object key);
+
+	/** @return the previously stored value or equation, or null if none was set */
+	Object put(Object key, Object value);
+
+	/** @return the removed value or equation, or null if none was set */
+	Object remove(Object key);
+
+	/** @return the number of keys that currently have a value */
+	int size();
+
+	/** @return a snapshot of the keys that currently have a value */
+	Collection<Object> keys();
+
+	/** @return true if at least one of the stored values is an equation */
+	boolean hasEquations();
+
+	/**
+	 * Appends all stored values to "values".  Must only be used if {@link #hasEquations()}
+	 * returns false, since equations would otherwise be added unevaluated.
+	 */
+	void addValuesTo(Collection<Object> values);
+}
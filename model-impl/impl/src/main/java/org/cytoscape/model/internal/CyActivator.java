@@ -25,6 +25,7 @@ package org.cytoscape.model.internal;
  */
 
 import org.cytoscape.event.CyEventHelper;
+import org.cytoscape.event.internal.payload.PayloadCollectionFactory;
 import org.cytoscape.service.util.CyServiceRegistrar;
 import org.cytoscape.equations.Interpreter;
 
@@ -77,6 +78,9 @@ public class CyActivator extends AbstractCyActivator {
 		registerService(bc,cyTableManager,NetworkAboutToBeDestroyedListener.class, new Properties());
 		registerService(bc,cyNetworkManager,CyNetworkManager.class, new Properties());
 
+		// Lets the event helper coalesce RowsSetEvent payloads.
+		registerService(bc,new RowSetPayloadCollection.Factory(),PayloadCollectionFactory.class, new Properties());
+
 	}
 }
 
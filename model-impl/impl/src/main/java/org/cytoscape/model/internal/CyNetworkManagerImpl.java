@@ -95,10 +95,16 @@ public class CyNetworkManagerImpl implements CyNetworkManager {
 			if (!networkMap.containsKey(networkId))
 				throw new IllegalArgumentException("network is not recognized by this NetworkManager");
 
-			for (CyNode n : network.getNodeList())
-				network.getRow(n).set(CyNetwork.SELECTED, false);
-			for (CyEdge e : network.getEdgeList())
-				network.getRow(e).set(CyNetwork.SELECTED, false);
+			if (network instanceof DefaultTablesNetwork) {
+				final DefaultTablesNetwork tablesNetwork = (DefaultTablesNetwork) network;
+				tablesNetwork.setLocalValues(network.getNodeList(), CyNode.class, CyNetwork.SELECTED, false);
+				tablesNetwork.setLocalValues(network.getEdgeList(), CyEdge.class, CyNetwork.SELECTED, false);
+			} else {
+				for (CyNode n : network.getNodeList())
+					network.getRow(n).set(CyNetwork.SELECTED, false);
+				for (CyEdge e : network.getEdgeList())
+					network.getRow(e).set(CyNetwork.SELECTED, false);
+			}
 
 			networkMap.remove(networkId);
 
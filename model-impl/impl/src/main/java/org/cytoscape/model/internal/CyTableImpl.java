@@ -33,6 +33,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.cytoscape.equations.Equation;
 import org.cytoscape.equations.Interpreter;
@@ -53,6 +55,7 @@ import org.cytoscape.model.events.TableAddedEvent;
 import org.cytoscape.model.events.TableAddedListener;
 import org.cytoscape.model.events.TablePrivacyChangedEvent;
 import org.cytoscape.model.events.TableTitleChangedEvent;
+import org.cytoscape.model.internal.bulk.BulkValueSetter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -60,13 +63,14 @@ import com.google.common.collect.HashMultimap;
 import com.google.common.collect.SetMultimap;
 
 
-public final class CyTableImpl implements CyTable, TableAddedListener {
+public final class CyTableImpl implements CyTable, BulkValueSetter, TableAddedListener {
 	
 	private static final Logger logger = LoggerFactory.getLogger(CyTableImpl.class);
 
 	private Set<String> currentlyActiveAttributes;
-	private Map<String, Map<Object, Object>> attributes; // Maps column names to (key,value) pairs, where "key" is the primary key.
-	private Map<String, SetMultimap<Object,Object>> reverse;
+	private Map<String, ColumnData> attributes; // Maps column names to (key,value) pairs, where "key" is the primary key.
+	private RowOrdinalIndex rowIndex; // Assigns the dense row ordinals used by the primitive column stores.
+	private Map<String, SetMultimap<Object,Object>> reverse; // Value to keys indices, built on first use.
 	private Map<Object, CyRow> rows; // Maps the primary key to CyRow.
 	private Map<String, CyColumn> types;
 	private ArrayList<CyColumn> colList; //Stores the list of columns in the table
@@ -94,12 +98,20 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 	private final Interpreter interpreter;
 	private final int defaultInitSize;
 
-	String lastInternalError;
+	volatile String lastInternalError;
 
 	private Map<String, VirtualColumn> virtualColumnMap;
 
 	private SavePolicy savePolicy;
 	private boolean fireEvents;
+
+	// Readers share the read lock and may therefore run concurrently, anything that
+	// modifies the table takes the write lock.  Equation evaluation keeps track of the
+	// columns being evaluated in "currentlyActiveAttributes" and is therefore serialized
+	// separately through "equationLock".
+	private final Lock readLock;
+	private final Lock writeLock;
+	private final Object equationLock;
 	
 	/**
 	 * Creates a new CyTableImpl object.
@@ -124,9 +136,15 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 		this.fireEvents = false;
 		this.defaultInitSize = defaultInitSize;
 
+		final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+		readLock = lock.readLock();
+		writeLock = lock.writeLock();
+		equationLock = new Object();
+
 		currentlyActiveAttributes = new HashSet<String>();
-		attributes = new HashMap<String, Map<Object, Object>>();
-		reverse =  new HashMap<String, SetMultimap<Object,Object>>();
+		attributes = new HashMap<String, ColumnData>();
+		rowIndex = new RowOrdinalIndex(defaultInitSize);
+		reverse = new ConcurrentHashMap<String, SetMultimap<Object,Object>>();
 		
 		rows = new ConcurrentHashMap<Object, CyRow>(defaultInitSize, 0.5f);
 		types = new ConcurrentHashMap<String, CyColumn>();
@@ -134,7 +152,7 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 		rowList = new ArrayList<CyRow>();
 		
 		dependents = new HashMap<String, Set<CyColumn>>();
-		normalizedColumnNames = new HashMap<String, String>();
+		normalizedColumnNames = new ConcurrentHashMap<String, String>();
 		
 		VirtualColumnInfo virtualInfo = NonVirtualColumnInfo.create(true);
 		final String normalizedPKName = normalizeColumnName(primaryKey);
@@ -147,80 +165,88 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 						                             /* isImmutable = */ true,
 						                             null));
 		colList.add(getColumn(normalizedPKName));
-		attributes.put(normalizedPKName, new HashMap<Object, Object>());
-		reverse.put(normalizedPKName, HashMultimap.create());
+		attributes.put(normalizedPKName, new MapColumnData(0));
 
-		virtualColumnMap = new HashMap<String, VirtualColumn>();
+		virtualColumnMap = new ConcurrentHashMap<String, VirtualColumn>();
 	}
 
 
 	@Override
-	public synchronized void swap(final CyTable otherTable) {
-		final CyTableImpl other = (CyTableImpl)otherTable;
-
-		final Set<String> tempCurrentlyActiveAttributes = currentlyActiveAttributes;
-		currentlyActiveAttributes = other.currentlyActiveAttributes;
-		other.currentlyActiveAttributes = tempCurrentlyActiveAttributes;
-
-		final Map<String, Map<Object, Object>> tempAttributes = attributes;
-		attributes = other.attributes;
-		other.attributes = tempAttributes;
-
-		final Map<String, SetMultimap<Object,Object>> tempReverse = reverse;
-		reverse = other.reverse;
-		other.reverse = tempReverse;
-
-		final Map<Object, CyRow> tempRows = rows;
-		rows = other.rows;
-		other.rows = tempRows;
-
-		final Map<String, CyColumn> tempTypes = types;
-		types = other.types;
-		other.types = tempTypes;
+	public void swap(final CyTable otherTable) {
+		writeLock.lock();
+		try {
+			final CyTableImpl other = (CyTableImpl)otherTable;
+
+			final Set<String> tempCurrentlyActiveAttributes = currentlyActiveAttributes;
+			currentlyActiveAttributes = other.currentlyActiveAttributes;
+			other.currentlyActiveAttributes = tempCurrentlyActiveAttributes;
+
+			final Map<String, ColumnData> tempAttributes = attributes;
+			attributes = other.attributes;
+			other.attributes = tempAttributes;
+
+			final RowOrdinalIndex tempRowIndex = rowIndex;
+			rowIndex = other.rowIndex;
+			other.rowIndex = tempRowIndex;
+
+			final Map<String, SetMultimap<Object,Object>> tempReverse = reverse;
+			reverse = other.reverse;
+			other.reverse = tempReverse;
+
+			final Map<Object, CyRow> tempRows = rows;
+			rows = other.rows;
+			other.rows = tempRows;
+
+			final Map<String, CyColumn> tempTypes = types;
+			types = other.types;
+			other.types = tempTypes;
 		
-		final ArrayList<CyColumn> tempListCol = colList;
-		colList = other.colList;
-		other.colList = tempListCol;
+			final ArrayList<CyColumn> tempListCol = colList;
+			colList = other.colList;
+			other.colList = tempListCol;
 		
-		final ArrayList<CyRow> tempListRow = rowList;
-		rowList = other.rowList;
-		other.rowList = tempListRow;
+			final ArrayList<CyRow> tempListRow = rowList;
+			rowList = other.rowList;
+			other.rowList = tempListRow;
 		
-		final Map<String, String> tempNormalizedColNames = normalizedColumnNames;
-		normalizedColumnNames = other.normalizedColumnNames;
-		other.normalizedColumnNames = tempNormalizedColNames;
+			final Map<String, String> tempNormalizedColNames = normalizedColumnNames;
+			normalizedColumnNames = other.normalizedColumnNames;
+			other.normalizedColumnNames = tempNormalizedColNames;
 
-		final String tempTitle = title;
-		title = other.title;
-		other.title = tempTitle;
+			final String tempTitle = title;
+			title = other.title;
+			other.title = tempTitle;
 
-		final boolean tempPub = pub;
-		pub = other.pub;
-		other.pub = tempPub;
+			final boolean tempPub = pub;
+			pub = other.pub;
+			other.pub = tempPub;
 
-		final boolean tempIsImmutable = isImmutable;
-		isImmutable = other.isImmutable;
-		other.isImmutable = tempIsImmutable;
+			final boolean tempIsImmutable = isImmutable;
+			isImmutable = other.isImmutable;
+			other.isImmutable = tempIsImmutable;
 
-		final String tempPrimaryKey = primaryKey;
-		primaryKey = other.primaryKey;
-		other.primaryKey = tempPrimaryKey;
+			final String tempPrimaryKey = primaryKey;
+			primaryKey = other.primaryKey;
+			other.primaryKey = tempPrimaryKey;
 
-		final String tempLastInternalError= lastInternalError;
-		lastInternalError = other.lastInternalError;
-		other.lastInternalError = tempLastInternalError;
+			final String tempLastInternalError= lastInternalError;
+			lastInternalError = other.lastInternalError;
+			other.lastInternalError = tempLastInternalError;
 
-		final Map<String, VirtualColumn> tempVirtualColumnMap = virtualColumnMap;
-		virtualColumnMap = other.virtualColumnMap;
-		other.virtualColumnMap = tempVirtualColumnMap;
+			final Map<String, VirtualColumn> tempVirtualColumnMap = virtualColumnMap;
+			virtualColumnMap = other.virtualColumnMap;
+			other.virtualColumnMap = tempVirtualColumnMap;
 
-		final Map<String, Set<CyColumn>> tempDependents = dependents;
-		dependents = other.dependents;
-		other.dependents = tempDependents;
+			final Map<String, Set<CyColumn>> tempDependents = dependents;
+			dependents = other.dependents;
+			other.dependents = tempDependents;
 		
-		final SavePolicy tempSavePolicy = savePolicy;
-		savePolicy = other.savePolicy;
-		other.savePolicy = tempSavePolicy;
+			final SavePolicy tempSavePolicy = savePolicy;
+			savePolicy = other.savePolicy;
+			other.savePolicy = tempSavePolicy;
+		} finally {
+			writeLock.unlock();
+		}
 	}
 
 	void updateColumnName(final String oldColumnName, final String newColumnName) {
@@ -234,7 +260,8 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 					   + curColumnName + "' with type: "
 					   + types.get(curColumnName).getType());
 		
-		synchronized(this) {
+		writeLock.lock();
+		try {
 			if (currentlyActiveAttributes.contains(oldColumnName)) {
 				currentlyActiveAttributes.remove(oldColumnName);
 				currentlyActiveAttributes.add(newColumnName);
@@ -242,7 +269,7 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 
 			String normalizedOldColName = normalizeColumnName(oldColumnName);
 			String normalizedNewColName = normalizeColumnName(newColumnName);
-			final Map<Object, Object> keyValuePairs = attributes.get(normalizedOldColName);
+			final ColumnData keyValuePairs = attributes.get(normalizedOldColName);
 			if (keyValuePairs != null) {
 				attributes.remove(normalizedOldColName);
 				attributes.put(normalizedNewColName, keyValuePairs);
@@ -269,6 +296,8 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 				dependents.remove(normalizedOldColName);
 				dependents.put(normalizedNewColName, columnDependents);
 			}
+		} finally {
+			writeLock.unlock();
 		}
 
 		eventHelper.fireEvent(new ColumnNameChangedEvent(this, oldColumnName, newColumnName));
@@ -295,13 +324,18 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 	}
 	
 	@Override
-	public synchronized CyTable.Mutability getMutability() {
-		if (isImmutable)
-			return Mutability.PERMANENTLY_IMMUTABLE;
-		else if (getDependentCount() == 0)
-			return Mutability.MUTABLE;
-		else
-			return Mutability.IMMUTABLE_DUE_TO_VIRT_COLUMN_REFERENCES;
+	public CyTable.Mutability getMutability() {
+		readLock.lock();
+		try {
+			if (isImmutable)
+				return Mutability.PERMANENTLY_IMMUTABLE;
+			else if (getDependentCount() == 0)
+				return Mutability.MUTABLE;
+			else
+				return Mutability.IMMUTABLE_DUE_TO_VIRT_COLUMN_REFERENCES;
+		} finally {
+			readLock.unlock();
+		}
 	}
 
 	private final int getDependentCount() {
@@ -314,8 +348,13 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 
 
 	@Override
-	synchronized public String getTitle() {
-		return title;
+	public String getTitle() {
+		readLock.lock();
+		try {
+			return title;
+		} finally {
+			readLock.unlock();
+		}
 	}
 	
 	@Override
@@ -324,13 +363,20 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 	}
 
 	@Override
-	synchronized public void setTitle(String title) {
-		if(!this.title.equals(title)){
-			String oldTitle = this.title;
+	public void setTitle(String title) {
+		final String oldTitle;
+		writeLock.lock();
+		try {
+			if (this.title.equals(title))
+				return;
+			oldTitle = this.title;
 			this.title = title;
-			if(fireEvents)
-				eventHelper.fireEvent(new TableTitleChangedEvent(this, oldTitle));
+		} finally {
+			writeLock.unlock();
 		}
+
+		if(fireEvents)
+			eventHelper.fireEvent(new TableTitleChangedEvent(this, oldTitle));
 	}
 
 	@Override
@@ -355,7 +401,8 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 
 	@Override
 	public void deleteColumn(final String columnName) {
-		synchronized(this) {
+		writeLock.lock();
+		try {
 			if (columnName == null)
 				throw new NullPointerException("\"columnName\" must not be null.");
 
@@ -384,6 +431,8 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 					types.remove(normalizedColName);
 				}
 			}
+		} finally {
+			writeLock.unlock();
 		}
 
 		// This event must be synchronous!
@@ -417,7 +466,8 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 	@Override
 	public <T> void createColumn(final String columnName, final Class<? extends T> type,
 				     final boolean isImmutable, final T defaultValue) {
-		synchronized(this) {
+		writeLock.lock();
+		try {
 			if (columnName == null)
 				throw new NullPointerException("column name is null");
 			
@@ -444,14 +494,23 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 							                              /* isPrimaryKey = */ false,
 							                              isImmutable,
 							                              defaultValue));
-			attributes.put(normalizedColName, new HashMap<Object, Object>(defaultInitSize));
-			reverse.put(normalizedColName, HashMultimap.create());
+			attributes.put(normalizedColName, createColumnData(type));
 			colList.add(types.get(normalizedColName));
+		} finally {
+			writeLock.unlock();
 		}
 		
 		eventHelper.fireEvent(new ColumnCreatedEvent(this, columnName));
 	}
-	
+
+	/**
+	 * Numeric and boolean columns are stored in dense primitive arrays, everything else
+	 * falls back to a map.
+	 */
+	private ColumnData createColumnData(final Class<?> type) {
+		final ColumnData data = PrimitiveColumnData.create(type, rowIndex);
+		return data != null ? data : new MapColumnData(defaultInitSize);
+	}
 
 	@Override
 	public <T> void createListColumn(final String columnName, final Class<T> listElementType,
@@ -462,7 +521,8 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 	@Override
 	public <T> void createListColumn(final String columnName, final Class<T> listElementType,
 					 final boolean isImmutable, final List<T> defaultValue) {
-		synchronized(this) {
+		writeLock.lock();
+		try {
 			if (columnName == null)
 				throw new NullPointerException("column name is null");
 
@@ -485,56 +545,63 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 							       /* isPrimaryKey = */ false,
 							       isImmutable,
 								   defaultValue));
-			attributes.put(normalizedColName, new HashMap<Object, Object>(defaultInitSize));
-			reverse.put(normalizedColName, HashMultimap.create());
+			attributes.put(normalizedColName, new MapColumnData(defaultInitSize));
 			colList.add(types.get(normalizedColName));
+		} finally {
+			writeLock.unlock();
 		}
 
 		eventHelper.fireEvent(new ColumnCreatedEvent(this, columnName));
 	}
 
-	synchronized <T> List<T> getColumnValues(final String columnName, final Class<? extends T> type) {
-		if (columnName == null)
-			throw new NullPointerException("column name is null.");
+	<T> List<T> getColumnValues(final String columnName, final Class<? extends T> type) {
+		readLock.lock();
+		try {
+			if (columnName == null)
+				throw new NullPointerException("column name is null.");
 
-		if (type == null)
-			throw new NullPointerException("column type is null.");
+			if (type == null)
+				throw new NullPointerException("column type is null.");
 
-		if (columnName.equalsIgnoreCase(primaryKey)) {
-			final List primaryKeys = new ArrayList(rows.size());
-			for (final Object primaryKey : rows.keySet())
-				primaryKeys.add(primaryKey);
-			return primaryKeys;
-		}
+			if (columnName.equalsIgnoreCase(primaryKey)) {
+				final List primaryKeys = new ArrayList(rows.size());
+				for (final Object primaryKey : rows.keySet())
+					primaryKeys.add(primaryKey);
+				return primaryKeys;
+			}
 
-		final String normalizedColName = normalizeColumnName(columnName);
+			final String normalizedColName = normalizeColumnName(columnName);
 		
-		final VirtualColumn virtColumn = virtualColumnMap.get(normalizedColName);
-		if (virtColumn != null)
-			return virtColumn.getColumnValues();
+			final VirtualColumn virtColumn = virtualColumnMap.get(normalizedColName);
+			if (virtColumn != null)
+				return virtColumn.getColumnValues();
 
-		Map<Object, Object> vals = attributes.get(normalizedColName);
-		if (vals == null)
-			throw new IllegalArgumentException("column \"" + columnName + "\" does not exist.");
+			final ColumnData vals = attributes.get(normalizedColName);
+			if (vals == null)
+				throw new IllegalArgumentException("column \"" + columnName + "\" does not exist.");
 
-		List l = new ArrayList(vals.size());
-		for (final Object suid : vals.keySet()) {
-			final Object value = vals.get(suid);
-			if (value instanceof Equation) {
-				final StringBuilder errorMsg = new StringBuilder();
-				final Object eqnValue =
-					EqnSupport.evalEquation((Equation)value, suid, interpreter,
-								currentlyActiveAttributes,
-								columnName, errorMsg, this);
-				lastInternalError = errorMsg.toString();
-				if (eqnValue == null)
-					throw new IllegalStateException("can't convert an equation to a value.");
-				l.add(eqnValue);
-			} else
-				l.add(value);
-		}
+			List l = new ArrayList(vals.size());
+			if (!vals.hasEquations()) {
+				// Straight scan, no need for per-key lookups.
+				vals.addValuesTo(l);
+				return l;
+			}
+
+			for (final Object suid : vals.keys()) {
+				final Object value = vals.get(suid);
+				if (value instanceof Equation) {
+					final Object eqnValue = evalEquation((Equation)value, suid, columnName);
+					if (eqnValue == null)
+						throw new IllegalStateException("can't convert an equation to a value.");
+					l.add(eqnValue);
+				} else
+					l.add(value);
+			}
 
-		return l;
+			return l;
+		} finally {
+			readLock.unlock();
+		}
 	}
 
 	// Used in virtual columns so that we don't create new rows in tables
@@ -568,7 +635,7 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 
 
 	@Override
-	synchronized public String getLastInternalError() {
+	public String getLastInternalError() {
 		return lastInternalError;
 	}
 
@@ -588,48 +655,58 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 	}
 
 	@Override
-	synchronized public Collection<CyRow> getMatchingRows(final String columnName, final Object value) {
-		final String normalizedColName = normalizeColumnName(columnName);
-		final VirtualColumn virtColumn = virtualColumnMap.get(normalizedColName);
+	public Collection<CyRow> getMatchingRows(final String columnName, final Object value) {
+		readLock.lock();
+		try {
+			final String normalizedColName = normalizeColumnName(columnName);
+			final VirtualColumn virtColumn = virtualColumnMap.get(normalizedColName);
 		
-		if (virtColumn != null)
-			return virtColumn.getMatchingRows(value);
-
-		if (normalizedColName.equals(normalizeColumnName(primaryKey))) {
-			final ArrayList<CyRow> matchingRows = new ArrayList<CyRow>(1);
-			final CyRow matchingRow = rows.get(value);
-			if (matchingRow != null)
-				matchingRows.add(matchingRow);
-			return matchingRows;
-		}
+			if (virtColumn != null)
+				return virtColumn.getMatchingRows(value);
+
+			if (normalizedColName.equals(normalizeColumnName(primaryKey))) {
+				final ArrayList<CyRow> matchingRows = new ArrayList<CyRow>(1);
+				final CyRow matchingRow = rows.get(value);
+				if (matchingRow != null)
+					matchingRows.add(matchingRow);
+				return matchingRows;
+			}
 
-		final SetMultimap<Object,Object> valueToKeysMap = reverse.get(normalizedColName);
+			final SetMultimap<Object,Object> valueToKeysMap = getReverseMap(normalizedColName);
+			if (valueToKeysMap == null)
+				return new ArrayList<CyRow>();
 
-		final Set<Object> keys = valueToKeysMap.get(value);
-		if (keys == null)
-			return new ArrayList<CyRow>();
+			final Set<Object> keys = valueToKeysMap.get(value);
 
-		final ArrayList<CyRow> matchingRows = new ArrayList<CyRow>(rows.size());
-		for (final Object key : keys)
-			matchingRows.add(rows.get(key));
+			final ArrayList<CyRow> matchingRows = new ArrayList<CyRow>(rows.size());
+			for (final Object key : keys)
+				matchingRows.add(rows.get(key));
 
-		return matchingRows;
+			return matchingRows;
+		} finally {
+			readLock.unlock();
+		}
 	}
 
 	@Override
-	synchronized public int countMatchingRows(final String columnName, final Object value) {
-		final String normalizedColName = normalizeColumnName(columnName);
-		final VirtualColumn virtColumn = virtualColumnMap.get(normalizedColName);
+	public int countMatchingRows(final String columnName, final Object value) {
+		readLock.lock();
+		try {
+			final String normalizedColName = normalizeColumnName(columnName);
+			final VirtualColumn virtColumn = virtualColumnMap.get(normalizedColName);
 		
-		if (virtColumn != null)
-			return virtColumn.countMatchingRows(value);
+			if (virtColumn != null)
+				return virtColumn.countMatchingRows(value);
 
-		final SetMultimap<Object,Object> valueToKeysMap = reverse.get(normalizedColName);
+			final SetMultimap<Object,Object> valueToKeysMap = getReverseMap(normalizedColName);
 
-		if ( valueToKeysMap == null )
-			return 0;
-		else
-			return valueToKeysMap.get(value).size();
+			if ( valueToKeysMap == null )
+				return 0;
+			else
+				return valueToKeysMap.get(value).size();
+		} finally {
+			readLock.unlock();
+		}
 	}
 
 	private final void setX(final Object key, final String columnName, final Object value) {
@@ -642,7 +719,8 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 		final Object newRawValue;
 		final VirtualColumn virtColumn;
 		
-		synchronized(this) {
+		writeLock.lock();
+		try {
 			final String normalizedColName = normalizeColumnName(columnName);
 			
 			if (types.get(normalizedColName) == null)
@@ -665,7 +743,7 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 				newValue = virtColumn.getValue(key);
 				newRawValue = virtColumn.getRawValue(key);
 			} else {
-				Map<Object, Object> keyToValueMap = attributes.get(normalizedColName);
+				final ColumnData keyToValueMap = attributes.get(normalizedColName);
 
 				if (!columnType.isAssignableFrom(value.getClass())
 				    && !EqnSupport.scalarEquationIsCompatible(value, columnType))
@@ -677,11 +755,7 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 					// TODO this is an implicit addRow - not sure if we want to refactor this or not
 					keyToValueMap.put(key, equation);
 
-					final StringBuilder errorMsg = new StringBuilder();
-					newValue = EqnSupport.evalEquation(equation, key, interpreter,
-									   currentlyActiveAttributes, columnName,
-									   errorMsg, this);
-					lastInternalError = errorMsg.toString();
+					newValue = evalEquation(equation, key, columnName);
 					if (newValue == null)
 						logger.warn("attempted premature evaluation evaluation for " + equation);
 				} else {
@@ -692,6 +766,8 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 					addToReverseMap(columnName, key, oldValue, newValue);
 				}
 			}
+		} finally {
+			writeLock.unlock();
 		}
 
 		if (fireEvents && virtColumn == null) {
@@ -700,6 +776,158 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 		}
 	}
 
+	/**
+	 * Sets "columnName" to "value" in every row identified by "primaryKeys".  This has the same
+	 * effect as calling {@link CyRow#set(String, Object)} on {@link #getRow(Object)} for each key,
+	 * including the creation of missing rows, but the table is only locked once.  A null "value"
+	 * unsets the column.  All keys and values are checked before anything is changed, so an
+	 * invalid argument leaves the table as it was.
+	 */
+	@Override
+	public void setValues(final Collection<?> primaryKeys, final String columnName, final Object value) {
+		setValuesInternal(columnName, primaryKeys, null, value);
+	}
+
+	/**
+	 * Sets "columnName" in every row whose primary key is contained in "keyToValueMap" to the
+	 * associated value, creating missing rows.  Apart from taking the table lock only once, this
+	 * behaves like calling {@link CyRow#set(String, Object)} for each entry.
+	 * @see #setValues(Collection, String, Object)
+	 */
+	@Override
+	public void setValues(final String columnName, final Map<?, ?> keyToValueMap) {
+		if (keyToValueMap == null)
+			throw new NullPointerException("keyToValueMap must not be null.");
+		setValuesInternal(columnName, keyToValueMap.keySet(), keyToValueMap, null);
+	}
+
+	private final void setValuesInternal(final String columnName, final Collection<?> keys,
+	                                     final Map<?, ?> keyToValueMap, final Object value) {
+		if (columnName == null)
+			throw new NullPointerException("columnName must not be null.");
+		if (keys == null)
+			throw new NullPointerException("primaryKeys must not be null.");
+
+		final List<Object> changedKeys = new ArrayList<Object>(keys.size());
+		final List<Object> newValues = new ArrayList<Object>(keys.size());
+		// Virtual columns, lists and equations need the full treatment of the single row path,
+		// which fires its own events.  They are set once the table is unlocked.
+		final List<Object> singleRowKeys = new ArrayList<Object>();
+		final List<Object> singleRowValues = new ArrayList<Object>();
+
+		writeLock.lock();
+		try {
+			final String normalizedColName = normalizeColumnName(columnName);
+			final CyColumn column = types.get(normalizedColName);
+			if (column == null)
+				throw new IllegalArgumentException("column: '" + columnName + "' does not yet exist.");
+
+			for (final Object key : keys) {
+				checkKey(key);
+				checkBulkValue(column, keyToValueMap != null ? keyToValueMap.get(key) : value);
+			}
+
+			final Class<?> columnType = column.getType();
+			final ColumnData keyToValueData = attributes.get(normalizedColName);
+			final SetMultimap<Object,Object> valueToKeysMap = reverse.get(normalizedColName);
+			final boolean singleRowColumn = virtualColumnMap.containsKey(normalizedColName)
+			                                || columnType == List.class;
+
+			for (final Object key : keys) {
+				final Object newValue = keyToValueMap != null ? keyToValueMap.get(key) : value;
+				getRow(key);
+
+				if (singleRowColumn || newValue instanceof Equation) {
+					singleRowKeys.add(key);
+					singleRowValues.add(newValue);
+					continue;
+				}
+
+				if (newValue == null) {
+					final Object oldValue = keyToValueData.get(key);
+					if (oldValue == null)
+						continue;
+					if (valueToKeysMap != null && !(oldValue instanceof Equation))
+						valueToKeysMap.remove(oldValue, key);
+					keyToValueData.remove(key);
+				} else {
+					final Object oldValue = keyToValueData.put(key, newValue);
+					if (valueToKeysMap != null) {
+						valueToKeysMap.remove(oldValue, key);
+						valueToKeysMap.put(newValue, key);
+					}
+				}
+
+				changedKeys.add(key);
+				newValues.add(newValue);
+			}
+		} finally {
+			writeLock.unlock();
+		}
+
+		// Events are only fired once the table is unlocked, so that listeners of the payloads
+		// never run while this thread holds the lock.  The event helper coalesces all of these
+		// payloads into a single RowsSetEvent.
+		if (fireEvents) {
+			for (int i = 0; i < changedKeys.size(); i++) {
+				final Object newValue = newValues.get(i);
+				fireVirtualColumnRowSetEvent(this, changedKeys.get(i), columnName, newValue, newValue);
+			}
+		}
+
+		for (int i = 0; i < singleRowKeys.size(); i++) {
+			final Object newValue = singleRowValues.get(i);
+			if (newValue == null)
+				unSetX(singleRowKeys.get(i), columnName);
+			else
+				setX(singleRowKeys.get(i), columnName, newValue);
+		}
+	}
+
+	/**
+	 * Throws the exception that setting "value" in "column" would throw, if any.
+	 */
+	private final void checkBulkValue(final CyColumn column, final Object value) {
+		if (value == null)
+			return;
+
+		final Class<?> columnType = column.getType();
+		if (columnType == List.class) {
+			if (value instanceof Equation) {
+				if (!EqnSupport.listEquationIsCompatible((Equation)value, column.getListElementType()))
+					throw new IllegalArgumentException(
+						"value is not a List equation of a compatible type for column '"
+						+ column.getName() + "'.");
+			} else if (value instanceof List) {
+				final List<?> list = (List<?>)value;
+				if (!list.isEmpty())
+					checkType(list.get(0));
+			} else {
+				throw new IllegalArgumentException("value is a " + value.getClass().getName()
+				                                   + " and not a List for column '"
+				                                   + column.getName() + "'.");
+			}
+		} else if (value instanceof Equation) {
+			if (!EqnSupport.scalarEquationIsCompatible(value, columnType))
+				throw new IllegalArgumentException("value of \"" + column.getName() + "\" is not of type " + columnType);
+		} else {
+			checkType(value);
+			if (!columnType.isAssignableFrom(value.getClass()))
+				throw new IllegalArgumentException("value of \"" + column.getName() + "\" is not of type " + columnType);
+		}
+	}
+
+	private Object evalEquation(final Equation equation, final Object key, final String columnName) {
+		final StringBuilder errorMsg = new StringBuilder();
+		final Object value;
+		synchronized (equationLock) {
+			value = EqnSupport.evalEquation(equation, key, interpreter, currentlyActiveAttributes,
+			                                columnName, errorMsg, this);
+		}
+		lastInternalError = errorMsg.toString();
+		return value;
+	}
+
 	private void fireVirtualColumnRowSetEvent(CyTableImpl table, Object key, String columnName, Object newValue, Object newRawValue) {
 		// Fire an event for this table
 		CyRow row = table.getRowNoCreate(key);
@@ -723,11 +951,8 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 				fireVirtualColumnRowSetEvent(table2, key, targetJoinKey, newValue, newRawValue);
 			} else {
 				String normalizedTargetJoinKey = table2.normalizeColumnName(targetJoinKey);			
-				SetMultimap<Object, Object> reverseMap = table2.reverse.get(normalizedTargetJoinKey);
-				if(reverseMap != null) {
-					for (Object key2 : reverseMap.get(key)) {
-						fireVirtualColumnRowSetEvent(table2, key2, targetJoinKey, newValue, newRawValue);
-					}
+				for (Object key2 : table2.getMatchingKeys(normalizedTargetJoinKey, key)) {
+					fireVirtualColumnRowSetEvent(table2, key2, targetJoinKey, newValue, newRawValue);
 				}
 			}
 		}
@@ -737,15 +962,65 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 				     final Object oldValue, final Object newValue) {
 		final String normalizedColName = normalizeColumnName(columnName);
 		final SetMultimap<Object,Object> valueTokeysMap = reverse.get(normalizedColName);
+		if (valueTokeysMap == null)
+			return;
 		valueTokeysMap.remove(oldValue,key);
 		valueTokeysMap.put(newValue,key);
 	}
 
+	/**
+	 * Returns the value to keys index of a column, building it the first time that the column
+	 * is searched by value.  Keeping an index for every column would store every cell a second
+	 * time, boxed, and most columns are never searched.  Once built, an index is kept up to date
+	 * by all writes.  Must be called with the read or the write lock held.
+	 */
+	private SetMultimap<Object,Object> getReverseMap(final String normalizedColName) {
+		SetMultimap<Object,Object> valueToKeysMap = reverse.get(normalizedColName);
+		if (valueToKeysMap != null)
+			return valueToKeysMap;
+
+		final ColumnData keyToValueData = attributes.get(normalizedColName);
+		if (keyToValueData == null)
+			return null;
+
+		// Several readers may get here at the same time.
+		synchronized (reverse) {
+			valueToKeysMap = reverse.get(normalizedColName);
+			if (valueToKeysMap == null) {
+				valueToKeysMap = HashMultimap.create();
+				for (final Object key : keyToValueData.keys()) {
+					final Object value = keyToValueData.get(key);
+					if (!(value instanceof Equation))
+						valueToKeysMap.put(value, key);
+				}
+				reverse.put(normalizedColName, valueToKeysMap);
+			}
+		}
+
+		return valueToKeysMap;
+	}
+
+	/**
+	 * @return the primary keys of the rows whose "normalizedColName" column is set to "value"
+	 */
+	private List<Object> getMatchingKeys(final String normalizedColName, final Object value) {
+		readLock.lock();
+		try {
+			final SetMultimap<Object,Object> valueToKeysMap = getReverseMap(normalizedColName);
+			if (valueToKeysMap == null)
+				return new ArrayList<Object>();
+			return new ArrayList<Object>(valueToKeysMap.get(value));
+		} finally {
+			readLock.unlock();
+		}
+	}
+
 	private final void setListX(final Object key, final String columnName, final Object value) {
 		Object newValue;
 		final Object rawValue;
 		
-		synchronized(this) {
+		writeLock.lock();
+		try {
 			final String normalizedColName = normalizeColumnName(columnName);
 			final CyColumn column = types.get(normalizedColName);
 			CyRow row = rows.get(key);
@@ -778,22 +1053,20 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 			if (virtColumn != null && !(rawValue instanceof Equation)) {
 				newValue = virtColumn.getListValue(key);
 			} else {
-				Map<Object, Object> keyToValueMap = attributes.get(normalizedColName);
+				final ColumnData keyToValueMap = attributes.get(normalizedColName);
 
 				// TODO this is an implicit addRow - not sure if we want to refactor this or not
 				final Object oldValue = keyToValueMap.get(key);
 				keyToValueMap.put(key, rawValue);
 				if (rawValue instanceof Equation) {
-					final StringBuilder errorMsg = new StringBuilder();
-					newValue = EqnSupport.evalEquation((Equation)rawValue, suid, interpreter,
-									   currentlyActiveAttributes, columnName,
-									   errorMsg, this);
-					lastInternalError = errorMsg.toString();
+					newValue = evalEquation((Equation)rawValue, suid, columnName);
 				} else {
 					newValue = rawValue;
 					addToReverseMap(columnName, key, oldValue, rawValue);
 				}
 			}
+		} finally {
+			writeLock.unlock();
 		}
 
 		if (fireEvents)
@@ -802,15 +1075,16 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 			                            RowsSetEvent.class);
 	}
 
-	synchronized private void unSetX(final Object key, final String columnName) {
-		synchronized(this) {
+	private void unSetX(final Object key, final String columnName) {
+		writeLock.lock();
+		try {
 			final String normalizedColName = normalizeColumnName(columnName);
 			final VirtualColumn virtColumn = virtualColumnMap.get(normalizedColName);
 			
 			if (virtColumn != null)
 				virtColumn.setValue(key, null);
 			else {
-				final Map<Object, Object> keyToValueMap = attributes.get(normalizedColName);
+				final ColumnData keyToValueMap = attributes.get(normalizedColName);
 				if (!types.containsKey(normalizedColName) || keyToValueMap == null)
 					throw new IllegalArgumentException("column: '" + columnName + "' does not yet exist.");
 
@@ -822,6 +1096,8 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 					removeFromReverseMap(columnName, key, value);
 				keyToValueMap.remove(key);
 			}
+		} finally {
+			writeLock.unlock();
 		}
 
 		if (fireEvents)
@@ -833,32 +1109,38 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 	private final void removeFromReverseMap(final String columnName, final Object key, final Object value) {
 		final String normalizedColName = normalizeColumnName(columnName);
 		final SetMultimap<Object,Object> valueTokeysMap = reverse.get(normalizedColName);
-		valueTokeysMap.remove(key,value);
+		if (valueTokeysMap != null)
+			valueTokeysMap.remove(value,key);
 	}
 
-	synchronized Object getValueOrEquation(final Object key, final String columnName) {
+	Object getValueOrEquation(final Object key, final String columnName) {
 		final String normalizedColName = normalizeColumnName(columnName);
 		return getValueOrEquation(key, columnName, virtualColumnMap.get(normalizedColName));
 	}
 
-	private final synchronized Object getValueOrEquation(final Object key, final String columnName, final VirtualColumn virtColumn) {
-		final String normalizedColName = normalizeColumnName(columnName);
+	private final Object getValueOrEquation(final Object key, final String columnName, final VirtualColumn virtColumn) {
+		readLock.lock();
+		try {
+			final String normalizedColName = normalizeColumnName(columnName);
 		
-		if (primaryKey.equalsIgnoreCase(normalizedColName))
-			return key;
+			if (primaryKey.equalsIgnoreCase(normalizedColName))
+				return key;
 
-		Object virtualValue = null;
-		if (virtColumn != null)
-			virtualValue = virtColumn.getRawValue(key);
+			Object virtualValue = null;
+			if (virtColumn != null)
+				virtualValue = virtColumn.getRawValue(key);
 		
-		if (virtualValue != null && !(virtualValue instanceof Equation))
-			return virtualValue;
+			if (virtualValue != null && !(virtualValue instanceof Equation))
+				return virtualValue;
 		
-		final Map<Object, Object> keyToValueMap = attributes.get(normalizedColName);
-		if (keyToValueMap == null)
-			return null;
+			final ColumnData keyToValueMap = attributes.get(normalizedColName);
+			if (keyToValueMap == null)
+				return null;
 		
-		return keyToValueMap.get(key);
+			return keyToValueMap.get(key);
+		} finally {
+			readLock.unlock();
+		}
 	}
 
 	private final <T> T getX(final Object key, final String columnName, final Class<? extends T> type, final T defaultValue) {
@@ -867,10 +1149,13 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 		lastInternalError = null;
 
 		Object value;
-		synchronized (this) {
+		readLock.lock();
+		try {
 			value = getValue(key, columnName, type);
 			if (value == null)
 				return getDefaultValue(columnName, defaultValue);
+		} finally {
+			readLock.unlock();
 		}
 		return type.cast(value);
 	}
@@ -890,12 +1175,7 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 			return null;
 
 		if (vl instanceof Equation) {
-			final StringBuilder errorMsg = new StringBuilder();
-			final Object value =
-				EqnSupport.evalEquation((Equation)vl, key, interpreter,
-							currentlyActiveAttributes, columnName,
-							errorMsg, this);
-			lastInternalError = errorMsg.toString();
+			final Object value = evalEquation((Equation)vl, key, columnName);
 			if ( type == null )
 				return value;
 			else if(value != null)
@@ -919,64 +1199,169 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 	}
 
 
-	synchronized private <T> List<T> getListX(final Object key, final String columnName,
-							   final Class<? extends T> listElementType, final List<T> defaultValue) {
-		final String normalizedColName = normalizeColumnName(columnName);
-		CyColumn type = types.get(normalizedColName);
-		
-		if (type == null) {
-			logger.warn("'" + columnName + "' does not yet exist.");
-			return defaultValue;
+	/**
+	 * Returns the value of a Double column in the row identified by "primaryKey" without
+	 * boxing it.  Equations, virtual columns and unset values are handled as by
+	 * {@link CyRow#get(String, Class, Object)}, with "defaultValue" returned if there is no value.
+	 */
+	public double getDouble(final Object primaryKey, final String columnName, final double defaultValue) {
+		readLock.lock();
+		try {
+			final ColumnData data = getStoredColumnData(columnName);
+			if (data instanceof PrimitiveColumnData.DoubleColumnData) {
+				final PrimitiveColumnData.DoubleColumnData doubles = (PrimitiveColumnData.DoubleColumnData) data;
+				final int ordinal = doubles.getValueOrdinal(primaryKey);
+				if (ordinal >= 0)
+					return doubles.getDouble(ordinal);
+			}
+		} finally {
+			readLock.unlock();
 		}
 
-		final Class<?> expectedListElementType = type.getListElementType();
-		if (expectedListElementType == null) {
-			throw new IllegalArgumentException("'" + columnName + "' is not a List.");
-		}
+		final Double value = getX(primaryKey, columnName, Double.class, null);
+		return value != null ? value.doubleValue() : defaultValue;
+	}
 
-		if (expectedListElementType != listElementType) {
-			throw new IllegalArgumentException("invalid list element type for column '"
-			             + columnName + ", found: " + listElementType.getName()
-			             + ", expected: " + expectedListElementType.getName()
-			             + ".");
+	/**
+	 * Unboxed variant of {@link CyRow#get(String, Class, Object)} for Integer columns.
+	 * @see #getDouble(Object, String, double)
+	 */
+	public int getInt(final Object primaryKey, final String columnName, final int defaultValue) {
+		readLock.lock();
+		try {
+			final ColumnData data = getStoredColumnData(columnName);
+			if (data instanceof PrimitiveColumnData.IntegerColumnData) {
+				final PrimitiveColumnData.IntegerColumnData ints = (PrimitiveColumnData.IntegerColumnData) data;
+				final int ordinal = ints.getValueOrdinal(primaryKey);
+				if (ordinal >= 0)
+					return ints.getInt(ordinal);
+			}
+		} finally {
+			readLock.unlock();
 		}
 
-		lastInternalError = null;
+		final Integer value = getX(primaryKey, columnName, Integer.class, null);
+		return value != null ? value.intValue() : defaultValue;
+	}
 
-		final VirtualColumn virtColumn = virtualColumnMap.get(normalizedColName);
-		final Object vl = getValueOrEquation(key, columnName, virtColumn);
-		if (virtColumn != null && vl == null)
-			return (List<T>)virtColumn.getListValue(key);
+	/**
+	 * Unboxed variant of {@link CyRow#get(String, Class, Object)} for Long columns.
+	 * @see #getDouble(Object, String, double)
+	 */
+	public long getLong(final Object primaryKey, final String columnName, final long defaultValue) {
+		readLock.lock();
+		try {
+			final ColumnData data = getStoredColumnData(columnName);
+			if (data instanceof PrimitiveColumnData.LongColumnData) {
+				final PrimitiveColumnData.LongColumnData longs = (PrimitiveColumnData.LongColumnData) data;
+				final int ordinal = longs.getValueOrdinal(primaryKey);
+				if (ordinal >= 0)
+					return longs.getLong(ordinal);
+			}
+		} finally {
+			readLock.unlock();
+		}
 
-		if (vl == null)
-			return getDefaultValue(columnName,defaultValue);
+		final Long value = getX(primaryKey, columnName, Long.class, null);
+		return value != null ? value.longValue() : defaultValue;
+	}
 
-		if (vl instanceof Equation) {
-			final StringBuilder errorMsg = new StringBuilder();
-			final Object result =
-				EqnSupport.evalEquation((Equation)vl, key, interpreter,
-							currentlyActiveAttributes, columnName,
-							errorMsg, this);
-			lastInternalError = errorMsg.toString();
-			return (List)result;
-		} else
-			return (List)vl;
+	/**
+	 * Unboxed variant of {@link CyRow#get(String, Class, Object)} for Boolean columns.
+	 * @see #getDouble(Object, String, double)
+	 */
+	public boolean getBoolean(final Object primaryKey, final String columnName, final boolean defaultValue) {
+		readLock.lock();
+		try {
+			final ColumnData data = getStoredColumnData(columnName);
+			if (data instanceof PrimitiveColumnData.BooleanColumnData) {
+				final PrimitiveColumnData.BooleanColumnData booleans = (PrimitiveColumnData.BooleanColumnData) data;
+				final int ordinal = booleans.getValueOrdinal(primaryKey);
+				if (ordinal >= 0)
+					return booleans.getBoolean(ordinal);
+			}
+		} finally {
+			readLock.unlock();
+		}
+
+		final Boolean value = getX(primaryKey, columnName, Boolean.class, null);
+		return value != null ? value.booleanValue() : defaultValue;
 	}
 
-	synchronized private <T> boolean isSetX(final Object key, final String columnName) {
+	/**
+	 * @return the values stored in this table for "columnName", or null if the column is
+	 *   virtual or does not exist.  Must be called with the read or the write lock held.
+	 */
+	private ColumnData getStoredColumnData(final String columnName) {
 		final String normalizedColName = normalizeColumnName(columnName);
+		if (virtualColumnMap.containsKey(normalizedColName))
+			return null;
+		return attributes.get(normalizedColName);
+	}
+
+	private <T> List<T> getListX(final Object key, final String columnName,
+							   final Class<? extends T> listElementType, final List<T> defaultValue) {
+		readLock.lock();
+		try {
+			final String normalizedColName = normalizeColumnName(columnName);
+			CyColumn type = types.get(normalizedColName);
 		
-		if (primaryKey.equalsIgnoreCase(normalizedColName))
-			return true;
+			if (type == null) {
+				logger.warn("'" + columnName + "' does not yet exist.");
+				return defaultValue;
+			}
+
+			final Class<?> expectedListElementType = type.getListElementType();
+			if (expectedListElementType == null) {
+				throw new IllegalArgumentException("'" + columnName + "' is not a List.");
+			}
+
+			if (expectedListElementType != listElementType) {
+				throw new IllegalArgumentException("invalid list element type for column '"
+				             + columnName + ", found: " + listElementType.getName()
+				             + ", expected: " + expectedListElementType.getName()
+				             + ".");
+			}
+
+			lastInternalError = null;
+
+			final VirtualColumn virtColumn = virtualColumnMap.get(normalizedColName);
+			final Object vl = getValueOrEquation(key, columnName, virtColumn);
+			if (virtColumn != null && vl == null)
+				return (List<T>)virtColumn.getListValue(key);
+
+			if (vl == null)
+				return getDefaultValue(columnName,defaultValue);
+
+			if (vl instanceof Equation) {
+				final Object result = evalEquation((Equation)vl, key, columnName);
+				return (List)result;
+			} else
+				return (List)vl;
+		} finally {
+			readLock.unlock();
+		}
+	}
+
+	private <T> boolean isSetX(final Object key, final String columnName) {
+		readLock.lock();
+		try {
+			final String normalizedColName = normalizeColumnName(columnName);
 		
-		final VirtualColumn virtColumn = virtualColumnMap.get(normalizedColName);
+			if (primaryKey.equalsIgnoreCase(normalizedColName))
+				return true;
 		
-		if (virtColumn != null) {
-			return virtColumn.getRawValue(key) != null;
-		} else {
-			final Map<Object, Object> keyToValueMap = attributes.get(normalizedColName);
+			final VirtualColumn virtColumn = virtualColumnMap.get(normalizedColName);
+		
+			if (virtColumn != null) {
+				return virtColumn.getRawValue(key) != null;
+			} else {
+				final ColumnData keyToValueMap = attributes.get(normalizedColName);
 			
-			return keyToValueMap != null && keyToValueMap.get(key) != null;
+				return keyToValueMap != null && keyToValueMap.get(key) != null;
+			}
+		} finally {
+			readLock.unlock();
 		}
 	}
 
@@ -1020,7 +1405,8 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 
 		String targetName = "failed to create column"; 
 
-		synchronized(this) {
+		writeLock.lock();
+		try {
 			final String normalizedColName = normalizeColumnName(virtualColumnName);
 			if (types.containsKey(normalizedColName))
 				throw new IllegalArgumentException("column already exists with name: '" + virtualColumnName
@@ -1051,9 +1437,11 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 
 			final String normalizedTargetName = normalizeColumnName(targetName);
 			types.put(normalizedTargetName, targetColumn);
-			attributes.put(normalizedTargetName, new HashMap<Object, Object>(defaultInitSize));
+			attributes.put(normalizedTargetName, new MapColumnData(defaultInitSize));
 			virtualColumnMap.put(normalizedTargetName, virtualColumn);
 			colList.add(types.get(normalizedTargetName));
+		} finally {
+			writeLock.unlock();
 		}
 
 		eventHelper.fireEvent(new ColumnCreatedEvent(this, targetName));
@@ -1063,57 +1451,67 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 	// Warning: This method is only to be used by CyTableManagerImpl!!!  That's also the reason
 	//          why no ColumnDeletedEvent events are being fired by it!  Also this deletes
 	//          (intentionally!) immutable columns!
-	synchronized void removeAllVirtColumns() {
-		if (getDependentCount() > 0)
-			return;
+	void removeAllVirtColumns() {
+		writeLock.lock();
+		try {
+			if (getDependentCount() > 0)
+				return;
 
-		for (final String columnName : virtualColumnMap.keySet()) {
-			final CyColumn column = types.get(columnName);
-			types.remove(columnName);
-			colList.remove(column);
-			VirtualColumnInfo info = column.getVirtualColumnInfo();
-			((CyTableImpl) info.getSourceTable()).removeDependent(info.getSourceColumn(), column);
+			for (final String columnName : virtualColumnMap.keySet()) {
+				final CyColumn column = types.get(columnName);
+				types.remove(columnName);
+				colList.remove(column);
+				VirtualColumnInfo info = column.getVirtualColumnInfo();
+				((CyTableImpl) info.getSourceTable()).removeDependent(info.getSourceColumn(), column);
+			}
+			virtualColumnMap.clear();
+		} finally {
+			writeLock.unlock();
 		}
-		virtualColumnMap.clear();
 	}
 
 	@Override
-	synchronized public final void addVirtualColumns(final CyTable sourceTable, final String targetJoinKeyName,
+	public final void addVirtualColumns(final CyTable sourceTable, final String targetJoinKeyName,
 			final boolean isImmutable) {
-		if (sourceTable == null)
-			throw new NullPointerException("\"sourceTable\" argument must never be null.");
-		if (targetJoinKeyName == null)
-			throw new NullPointerException("\"targetJoinKeyName\" argument must never be null.");
-
-		final CyColumn targetJoinKey = this.getColumn(targetJoinKeyName);
-		if (targetJoinKey == null)
-			throw new IllegalArgumentException("\"" + targetJoinKeyName
-							   + "\" is not a known column in this table (" + getTitle() +").");
-
-		final CyColumn sourceJoinKey = sourceTable.getPrimaryKey();
-		if (sourceJoinKey.getType() != targetJoinKey.getType())
-			throw new IllegalArgumentException("\"" + sourceJoinKey.getName()
-							   + "\" has a different type from \""
-							   + targetJoinKeyName + "\".");
-
-		final Collection<CyColumn> columns = sourceTable.getColumns();
-		for(final CyColumn column: columns) {
-			// skip the primary key
-			if (column == sourceTable.getPrimaryKey())
-				continue;
+		writeLock.lock();
+		try {
+			if (sourceTable == null)
+				throw new NullPointerException("\"sourceTable\" argument must never be null.");
+			if (targetJoinKeyName == null)
+				throw new NullPointerException("\"targetJoinKeyName\" argument must never be null.");
+
+			final CyColumn targetJoinKey = this.getColumn(targetJoinKeyName);
+			if (targetJoinKey == null)
+				throw new IllegalArgumentException("\"" + targetJoinKeyName
+								   + "\" is not a known column in this table (" + getTitle() +").");
+
+			final CyColumn sourceJoinKey = sourceTable.getPrimaryKey();
+			if (sourceJoinKey.getType() != targetJoinKey.getType())
+				throw new IllegalArgumentException("\"" + sourceJoinKey.getName()
+								   + "\" has a different type from \""
+								   + targetJoinKeyName + "\".");
+
+			final Collection<CyColumn> columns = sourceTable.getColumns();
+			for(final CyColumn column: columns) {
+				// skip the primary key
+				if (column == sourceTable.getPrimaryKey())
+					continue;
 			
-			final String normalizedColName = normalizeColumnName(column.getName());
-			if (types.containsKey(normalizedColName))
-				throw new IllegalArgumentException("column already exists with name: '" + column.getName()
-						+ "' with type: " + types.get(normalizedColName).getType());
-		}
-		for (final CyColumn column : columns) {
-			// skip the primary key
-			if (column == sourceTable.getPrimaryKey())
-				continue;
-			final String columnName = column.getName();
+				final String normalizedColName = normalizeColumnName(column.getName());
+				if (types.containsKey(normalizedColName))
+					throw new IllegalArgumentException("column already exists with name: '" + column.getName()
+							+ "' with type: " + types.get(normalizedColName).getType());
+			}
+			for (final CyColumn column : columns) {
+				// skip the primary key
+				if (column == sourceTable.getPrimaryKey())
+					continue;
+				final String columnName = column.getName();
 
-			addVirtualColumn(columnName, columnName, sourceTable, targetJoinKeyName, isImmutable);
+				addVirtualColumn(columnName, columnName, sourceTable, targetJoinKeyName, isImmutable);
+			}
+		} finally {
+			writeLock.unlock();
 		}
 	}
 
@@ -1149,7 +1547,8 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 	@Override
 	public boolean deleteRows(final Collection<?> primaryKeys) {
 		boolean changed = false;
-		synchronized(this) {
+		writeLock.lock();
+		try {
 			for (Object key : primaryKeys) {
 				checkKey(key);
 		
@@ -1161,7 +1560,7 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 
 				for (CyColumn col : getColumns()) {
 		            final String normalizedColName = normalizeColumnName(col.getName());
-		            final Map<Object, Object> keyToValueMap = attributes.get(normalizedColName);
+		            final ColumnData keyToValueMap = attributes.get(normalizedColName);
 		            if (keyToValueMap != null) {
 		                Object val = keyToValueMap.remove(key);
 		                SetMultimap<Object,Object> valueToKeysMap = reverse.get(normalizedColName);
@@ -1173,7 +1572,11 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 		                }
 		            }
 				}
+
+				rowIndex.release(key);
 	        }
+		} finally {
+			writeLock.unlock();
 		}
 		
 		return changed;
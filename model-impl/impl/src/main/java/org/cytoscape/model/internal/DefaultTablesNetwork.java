@@ -40,6 +40,7 @@ import org.cytoscape.model.CyTable;
 import org.cytoscape.model.CyTableFactory;
 import org.cytoscape.model.CyTableFactory.InitialTableSize;
 import org.cytoscape.event.CyEventHelper;
+import org.cytoscape.model.internal.bulk.BulkValueSetter;
 
 
 /**
@@ -194,6 +195,23 @@ abstract class DefaultTablesNetwork extends SimpleNetwork {
 			return InitialTableSize.SMALL;
 	}
 
+	/**
+	 * Sets a column of the local table of "type" for all "items" with a single bulk update.
+	 */
+	protected <T extends CyIdentifiable> void setLocalValues(Collection<T> items, Class<? extends T> type,
+	                                                         String columnName, Object value) {
+		final CyTable table = networkTableManager.getTable(networkRef.get(), type, CyNetwork.LOCAL_ATTRS);
+		if (table instanceof BulkValueSetter) {
+			Collection<Long> primaryKeys = new ArrayList<Long>(items.size());
+			for (T item : items)
+				primaryKeys.add(item.getSUID());
+			((BulkValueSetter) table).setValues(primaryKeys, columnName, value);
+		} else {
+			for (T item : items)
+				table.getRow(item.getSUID()).set(columnName, value);
+		}
+	}
+
 	protected <T extends CyIdentifiable> void removeRows(Collection<T> items, Class<? extends T> type) {
 		Collection<Long> primaryKeys = new ArrayList<Long>();
 		for (T item : items) {
@@ -0,0 +1,92 @@
+package org.cytoscape.model.internal;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.cytoscape.equations.Equation;
+
+
+/**
+ * Fallback column storage backed by a {@link HashMap}.  Used for String and List
+ * columns, and for the local values of virtual columns.
+ */
+final class MapColumnData implements ColumnData {
+
+	private final Map<Object, Object> values;
+	private int equationCount;
+
+	MapColumnData(final int initialSize) {
+		values = new HashMap<Object, Object>(initialSize);
+		equationCount = 0;
+	}
+
+	@Override
+	public Object get(final Object key) {
+		return values.get(key);
+	}
+
+	@Override
+	public Object put(final Object key, final Object value) {
+		final Object oldValue = values.put(key, value);
+		if (oldValue instanceof Equation)
+			--equationCount;
+		if (value instanceof Equation)
+			++equationCount;
+		return oldValue;
+	}
+
+	@Override
+	public Object remove(final Object key) {
+		final Object oldValue = values.remove(key);
+		if (oldValue instanceof Equation)
+			--equationCount;
+		return oldValue;
+	}
+
+	@Override
+	public int size() {
+		return values.size();
+	}
+
+	@Override
+	public Collection<Object> keys() {
+		return new ArrayList<Object>(values.keySet());
+	}
+
+	@Override
+	public boolean hasEquations() {
+		return equationCount > 0;
+	}
+
+	@Override
+	public void addValuesTo(final Collection<Object> values) {
+		values.addAll(this.values.values());
+	}
+}
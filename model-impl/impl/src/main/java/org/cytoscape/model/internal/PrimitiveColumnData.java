@@ -0,0 +1,296 @@
+package org.cytoscape.model.internal;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cytoscape.equations.Equation;
+
+
+/**
+ * Dense column storage for Double, Integer, Long and Boolean columns.  Values are
+ * kept unboxed in a primitive array indexed by the row ordinal handed out by a
+ * table-wide {@link RowOrdinalIndex}, and a bitmap records which ordinals are set.
+ * Equations, which are rare, are stored in a separate map.
+ */
+abstract class PrimitiveColumnData implements ColumnData {
+
+	private static final int MIN_CAPACITY = 16;
+
+	private final RowOrdinalIndex index;
+	private final BitSet isSet;
+	private Map<Object, Object> equations; // Lazily created.
+	private int size;
+
+	PrimitiveColumnData(final RowOrdinalIndex index) {
+		this.index = index;
+		this.isSet = new BitSet();
+		this.size = 0;
+	}
+
+	/**
+	 * @return a primitive store for "type" or null if "type" has no primitive representation
+	 */
+	static ColumnData create(final Class<?> type, final RowOrdinalIndex index) {
+		if (type == Double.class)
+			return new DoubleColumnData(index);
+		if (type == Integer.class)
+			return new IntegerColumnData(index);
+		if (type == Long.class)
+			return new LongColumnData(index);
+		if (type == Boolean.class)
+			return new BooleanColumnData(index);
+		return null;
+	}
+
+	/** Makes sure that the value array can hold at least "capacity" entries. */
+	abstract void ensureCapacity(int capacity);
+
+	abstract Object getAt(int ordinal);
+
+	abstract void setAt(int ordinal, Object value);
+
+	/** @return a new capacity of at least "required", growing geometrically from "current" */
+	static int grow(final int current, final int required) {
+		return Math.max(required, Math.max(MIN_CAPACITY, current + (current >> 1)));
+	}
+
+	private Object getSet(final Object key, final int ordinal) {
+		if (equations != null) {
+			final Object equation = equations.get(key);
+			if (equation != null)
+				return equation;
+		}
+		return getAt(ordinal);
+	}
+
+	/**
+	 * @return the row ordinal of the plain value stored for "key", or -1 if no value is set
+	 *   or if the value is an equation.  Lets callers read values through the unboxed
+	 *   getters of the subclasses.
+	 */
+	final int getValueOrdinal(final Object key) {
+		final int ordinal = index.getOrdinal(key);
+		if (ordinal < 0 || !isSet.get(ordinal))
+			return -1;
+		if (equations != null && equations.containsKey(key))
+			return -1;
+		return ordinal;
+	}
+
+	@Override
+	public final Object get(final Object key) {
+		final int ordinal = index.getOrdinal(key);
+		if (ordinal < 0 || !isSet.get(ordinal))
+			return null;
+		return getSet(key, ordinal);
+	}
+
+	@Override
+	public final Object put(final Object key, final Object value) {
+		final int ordinal = index.getOrCreateOrdinal(key);
+		final Object oldValue;
+		if (isSet.get(ordinal)) {
+			oldValue = getSet(key, ordinal);
+		} else {
+			oldValue = null;
+			isSet.set(ordinal);
+			++size;
+		}
+
+		if (value instanceof Equation) {
+			if (equations == null)
+				equations = new HashMap<Object, Object>();
+			equations.put(key, value);
+		} else {
+			if (equations != null)
+				equations.remove(key);
+			ensureCapacity(ordinal + 1);
+			setAt(ordinal, value);
+		}
+
+		return oldValue;
+	}
+
+	@Override
+	public final Object remove(final Object key) {
+		final int ordinal = index.getOrdinal(key);
+		if (ordinal < 0 || !isSet.get(ordinal))
+			return null;
+
+		final Object oldValue = getSet(key, ordinal);
+		if (equations != null)
+			equations.remove(key);
+		isSet.clear(ordinal);
+		--size;
+		return oldValue;
+	}
+
+	@Override
+	public final int size() {
+		return size;
+	}
+
+	@Override
+	public final Collection<Object> keys() {
+		final List<Object> keys = new ArrayList<Object>(size);
+		for (int i = isSet.nextSetBit(0); i >= 0; i = isSet.nextSetBit(i + 1))
+			keys.add(index.getKey(i));
+		return keys;
+	}
+
+	@Override
+	public final boolean hasEquations() {
+		return equations != null && !equations.isEmpty();
+	}
+
+	@Override
+	public final void addValuesTo(final Collection<Object> values) {
+		for (int i = isSet.nextSetBit(0); i >= 0; i = isSet.nextSetBit(i + 1))
+			values.add(getAt(i));
+	}
+
+
+	static final class DoubleColumnData extends PrimitiveColumnData {
+		private double[] values = new double[0];
+
+		DoubleColumnData(final RowOrdinalIndex index) {
+			super(index);
+		}
+
+		@Override
+		void ensureCapacity(final int capacity) {
+			if (capacity > values.length)
+				values = Arrays.copyOf(values, grow(values.length, capacity));
+		}
+
+		@Override
+		Object getAt(final int ordinal) {
+			return Double.valueOf(values[ordinal]);
+		}
+
+		double getDouble(final int ordinal) {
+			return values[ordinal];
+		}
+
+		@Override
+		void setAt(final int ordinal, final Object value) {
+			values[ordinal] = ((Double)value).doubleValue();
+		}
+	}
+
+
+	static final class IntegerColumnData extends PrimitiveColumnData {
+		private int[] values = new int[0];
+
+		IntegerColumnData(final RowOrdinalIndex index) {
+			super(index);
+		}
+
+		@Override
+		void ensureCapacity(final int capacity) {
+			if (capacity > values.length)
+				values = Arrays.copyOf(values, grow(values.length, capacity));
+		}
+
+		@Override
+		Object getAt(final int ordinal) {
+			return Integer.valueOf(values[ordinal]);
+		}
+
+		int getInt(final int ordinal) {
+			return values[ordinal];
+		}
+
+		@Override
+		void setAt(final int ordinal, final Object value) {
+			values[ordinal] = ((Integer)value).intValue();
+		}
+	}
+
+
+	static final class LongColumnData extends PrimitiveColumnData {
+		private long[] values = new long[0];
+
+		LongColumnData(final RowOrdinalIndex index) {
+			super(index);
+		}
+
+		@Override
+		void ensureCapacity(final int capacity) {
+			if (capacity > values.length)
+				values = Arrays.copyOf(values, grow(values.length, capacity));
+		}
+
+		@Override
+		Object getAt(final int ordinal) {
+			return Long.valueOf(values[ordinal]);
+		}
+
+		long getLong(final int ordinal) {
+			return values[ordinal];
+		}
+
+		@Override
+		void setAt(final int ordinal, final Object value) {
+			values[ordinal] = ((Long)value).longValue();
+		}
+	}
+
+
+	static final class BooleanColumnData extends PrimitiveColumnData {
+		private final BitSet values = new BitSet();
+
+		BooleanColumnData(final RowOrdinalIndex index) {
+			super(index);
+		}
+
+		@Override
+		void ensureCapacity(final int capacity) {
+			// BitSet grows by itself.
+		}
+
+		@Override
+		Object getAt(final int ordinal) {
+			return Boolean.valueOf(values.get(ordinal));
+		}
+
+		boolean getBoolean(final int ordinal) {
+			return values.get(ordinal);
+		}
+
+		@Override
+		void setAt(final int ordinal, final Object value) {
+			values.set(ordinal, ((Boolean)value).booleanValue());
+		}
+	}
+}
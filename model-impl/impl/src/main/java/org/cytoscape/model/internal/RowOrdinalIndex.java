@@ -0,0 +1,108 @@
+package org.cytoscape.model.internal;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * Maps the primary keys of a {@link CyTableImpl} to dense row ordinals, which are
+ * used by the primitive column stores as array indices.  Ordinals of deleted rows
+ * are recycled so that the column arrays do not keep growing.
+ */
+final class RowOrdinalIndex {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private final Map<Object, Integer> ordinals;
+	private Object[] keys;
+	private int[] freeOrdinals;
+	private int freeCount;
+	private int nextOrdinal;
+
+	RowOrdinalIndex(final int initialSize) {
+		final int capacity = Math.max(INITIAL_CAPACITY, initialSize);
+		ordinals = new HashMap<Object, Integer>(capacity);
+		keys = new Object[capacity];
+		freeOrdinals = new int[INITIAL_CAPACITY];
+		freeCount = 0;
+		nextOrdinal = 0;
+	}
+
+	/**
+	 * @return the ordinal assigned to "key" or -1 if "key" has none
+	 */
+	int getOrdinal(final Object key) {
+		final Integer ordinal = ordinals.get(key);
+		return ordinal == null ? -1 : ordinal.intValue();
+	}
+
+	/**
+	 * @return the ordinal assigned to "key", assigning a new one if necessary
+	 */
+	int getOrCreateOrdinal(final Object key) {
+		final Integer existing = ordinals.get(key);
+		if (existing != null)
+			return existing.intValue();
+
+		final int ordinal;
+		if (freeCount > 0) {
+			ordinal = freeOrdinals[--freeCount];
+		} else {
+			ordinal = nextOrdinal++;
+			if (ordinal == keys.length)
+				keys = Arrays.copyOf(keys, keys.length * 2);
+		}
+
+		keys[ordinal] = key;
+		ordinals.put(key, Integer.valueOf(ordinal));
+		return ordinal;
+	}
+
+	/**
+	 * @return the primary key that "ordinal" is currently assigned to, or null
+	 */
+	Object getKey(final int ordinal) {
+		return keys[ordinal];
+	}
+
+	/**
+	 * Makes the ordinal of "key" available for reuse.  All columns must have already
+	 * dropped their values for "key" when this is called.
+	 */
+	void release(final Object key) {
+		final Integer ordinal = ordinals.remove(key);
+		if (ordinal == null)
+			return;
+
+		keys[ordinal.intValue()] = null;
+		if (freeCount == freeOrdinals.length)
+			freeOrdinals = Arrays.copyOf(freeOrdinals, freeOrdinals.length * 2);
+		freeOrdinals[freeCount++] = ordinal.intValue();
+	}
+}
@@ -0,0 +1,199 @@
+package org.cytoscape.model.internal;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.cytoscape.event.internal.payload.PayloadCollectionFactory;
+import org.cytoscape.model.CyRow;
+import org.cytoscape.model.events.RowSetRecord;
+import org.cytoscape.model.events.RowsSetEvent;
+
+
+/**
+ * The collection the event helper accumulates RowsSetEvent payloads in, which
+ * may number in the millions when many values are set at once.  Setting the
+ * same cell more than once between two flushes only keeps the last change, at
+ * the position of the first one, so listeners see each changed cell once.
+ * <p>
+ * The rows, columns and values are kept in parallel arrays rather than as
+ * RowSetRecords, and the records are only created while iterating, so the
+ * records added by the table become garbage right away.
+ * <p>
+ * This is not thread-safe; the event helper synchronizes additions and only
+ * hands the collection to listeners once nothing is added to it any more.
+ */
+final class RowSetPayloadCollection extends AbstractCollection<RowSetRecord> {
+
+	/**
+	 * Registered as a service so that the event helper creates a
+	 * RowSetPayloadCollection for each RowsSetEvent.
+	 */
+	static final class Factory implements PayloadCollectionFactory<RowSetRecord> {
+		public Class<RowsSetEvent> getEventType() {
+			return RowsSetEvent.class;
+		}
+
+		public Collection<RowSetRecord> createPayloadCollection() {
+			return new RowSetPayloadCollection();
+		}
+	}
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private CyRow[] rows;
+	private String[] columns;
+	private Object[] values;
+	private Object[] rawValues;
+	private int size;
+
+	// Open addressing hash table of change index + 1, keyed by row and column.
+	private int[] cells;
+
+	RowSetPayloadCollection() {
+		rows = new CyRow[INITIAL_CAPACITY];
+		columns = new String[INITIAL_CAPACITY];
+		values = new Object[INITIAL_CAPACITY];
+		rawValues = new Object[INITIAL_CAPACITY];
+		cells = new int[2 * INITIAL_CAPACITY];
+		size = 0;
+	}
+
+	/**
+	 * Adds the change, or replaces an earlier change to the same row and
+	 * column with it.
+	 *
+	 * @return always true.
+	 */
+	@Override
+	public boolean add(final RowSetRecord record) {
+		if ( record == null )
+			throw new NullPointerException("record is null");
+
+		final CyRow row = record.getRow();
+		final String column = record.getColumn();
+
+		final int mask = cells.length - 1;
+		int i = hash(row, column) & mask;
+		int entry;
+		while ( (entry = cells[i]) != 0 ) {
+			final int index = entry - 1;
+			if ( columns[index].equals(column) && rows[index].equals(row) ) {
+				values[index] = record.getValue();
+				rawValues[index] = record.getRawValue();
+				return true;
+			}
+			i = (i + 1) & mask;
+		}
+
+		if ( size == rows.length )
+			grow(2 * size);
+
+		rows[size] = row;
+		columns[size] = column;
+		values[size] = record.getValue();
+		rawValues[size] = record.getRawValue();
+		cells[i] = ++size;
+
+		if ( 2 * size > cells.length )
+			rehash(2 * cells.length);
+
+		return true;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return an iterator that creates a new RowSetRecord for every change.
+	 */
+	@Override
+	public Iterator<RowSetRecord> iterator() {
+		return new Iterator<RowSetRecord>() {
+			private int next = 0;
+
+			public boolean hasNext() {
+				return next < size;
+			}
+
+			public RowSetRecord next() {
+				if ( next >= size )
+					throw new NoSuchElementException();
+
+				final int index = next++;
+				return new RowSetRecord(rows[index], columns[index], values[index], rawValues[index]);
+			}
+
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * @return the number of slots in the hash table, for testing.
+	 */
+	int getHashCapacity() {
+		return cells.length;
+	}
+
+	static int hash(final CyRow row, final String column) {
+		int h = row.hashCode() * 31 + column.hashCode();
+		h ^= (h >>> 20) ^ (h >>> 12);
+		return h ^ (h >>> 7) ^ (h >>> 4);
+	}
+
+	private void grow(final int capacity) {
+		final CyRow[] newRows = new CyRow[capacity];
+		final String[] newColumns = new String[capacity];
+		final Object[] newValues = new Object[capacity];
+		final Object[] newRawValues = new Object[capacity];
+		System.arraycopy(rows, 0, newRows, 0, size);
+		System.arraycopy(columns, 0, newColumns, 0, size);
+		System.arraycopy(values, 0, newValues, 0, size);
+		System.arraycopy(rawValues, 0, newRawValues, 0, size);
+		rows = newRows;
+		columns = newColumns;
+		values = newValues;
+		rawValues = newRawValues;
+	}
+
+	private void rehash(final int capacity) {
+		cells = new int[capacity];
+		final int mask = capacity - 1;
+		for ( int index = 0; index < size; index++ ) {
+			int i = hash(rows[index], columns[index]) & mask;
+			while ( cells[i] != 0 )
+				i = (i + 1) & mask;
+			cells[i] = index + 1;
+		}
+	}
+}
@@ -25,16 +25,18 @@ package org.cytoscape.model.internal;
  */
 
 
+
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.cytoscape.model.CyEdge;
 import org.cytoscape.model.CyNode;
 	
-import cern.colt.map.tobject.OpenLongObjectHashMap;
 
 
 /**
@@ -42,190 +44,263 @@ import cern.colt.map.tobject.OpenLongObjectHashMap;
  * operations not fully represented here are addNode and addEdge.
  * Instead we provide addNodeInternal and addEdgeInternal, which
  * add a provided CyNode/CyEdge object to the network topology. 
+ * <p>
+ * The topology is kept in growable primitive arrays indexed by dense internal
+ * node and edge indices.  Every node has an array of outgoing and an array of
+ * incoming edge indices, so adjacency walks only touch contiguous memory.
+ * Removed nodes and edges leave a tombstone behind, and the arrays are compacted
+ * once tombstones make up more than half of them.
+ * <p>
+ * Topology reads share a read lock and may run concurrently; only adding and
+ * removing nodes and edges takes the write lock.
  */
 class SimpleNetwork {
 	
+	private static final int INITIAL_CAPACITY = 16;
+	private static final int INITIAL_ADJACENCY_CAPACITY = 2;
+	private static final int MIN_COMPACTION_SIZE = 1024;
+	private static final int[] NO_EDGES = new int[0];
+
 	// Unique ID for this
 	private final Long suid;
 
-	// We use OpenLongObjectHashMap here because we really don't want to
-	// constantly convert the int node/edge index to an Interger 
-	// object necessary for a Map<Integer,NodePointer>. That
-	// allocates a bunch of otherwise unused Integer objects
-	// which also takes extra time.
-	private final OpenLongObjectHashMap nodePointers;
-	private final OpenLongObjectHashMap edgePointers;
-
-	private int nodeCount;
-	private int edgeCount;
-	
-	private NodePointer firstNode;
+	// Maps node and edge SUIDs to their internal index.  Using a primitive map
+	// avoids creating a Long and an Integer per entry, and lets getNode(),
+	// getEdge() and the contains methods look SUIDs up without locking.
+	private final SuidIndexMap nodeIndices;
+	private final SuidIndexMap edgeIndices;
+
+	// Per node state, indexed by node index.  A null entry in "nodes" is a tombstone.
+	private CyNode[] nodes;
+	private int[][] outEdges; // Indices of edges whose source is the node, in insertion order.
+	private int[] outSizes;
+	private int[][] inEdges; // Indices of edges whose target is the node, in insertion order.
+	private int[] inSizes;
+	// The number of directed edges whose source is the node.
+	private int[] outDegrees;
+	// The number of directed edges whose target is the node.
+	private int[] inDegrees;
+	// The number of undirected edges which touch the node.
+	private int[] undDegrees;
+	// The number of directed self-edges on the node.
+	private int[] selfEdges;
+	private int nodeSlots; // Used node indices, including tombstones.
+
+	// Per edge state, indexed by edge index.  A null entry in "edges" is a tombstone.
+	private CyEdge[] edges;
+	private int[] edgeSources;
+	private int[] edgeTargets;
+	private boolean[] edgeDirected;
+	private int edgeSlots; // Used edge indices, including tombstones.
+
+	// Written while holding the write lock, read without locking.
+	private volatile int nodeCount;
+	private volatile int edgeCount;
+
+	private final Lock readLock;
+	private final Lock writeLock;
 
 	SimpleNetwork(final long suid) {
 		this.suid = suid; 
 		nodeCount = 0;
 		edgeCount = 0;
-		firstNode = null; 
-		nodePointers = new OpenLongObjectHashMap();
-		edgePointers = new OpenLongObjectHashMap();
+		nodeIndices = new SuidIndexMap();
+		edgeIndices = new SuidIndexMap();
+
+		nodes = new CyNode[INITIAL_CAPACITY];
+		outEdges = new int[INITIAL_CAPACITY][];
+		outSizes = new int[INITIAL_CAPACITY];
+		inEdges = new int[INITIAL_CAPACITY][];
+		inSizes = new int[INITIAL_CAPACITY];
+		outDegrees = new int[INITIAL_CAPACITY];
+		inDegrees = new int[INITIAL_CAPACITY];
+		undDegrees = new int[INITIAL_CAPACITY];
+		selfEdges = new int[INITIAL_CAPACITY];
+		nodeSlots = 0;
+
+		edges = new CyEdge[INITIAL_CAPACITY];
+		edgeSources = new int[INITIAL_CAPACITY];
+		edgeTargets = new int[INITIAL_CAPACITY];
+		edgeDirected = new boolean[INITIAL_CAPACITY];
+		edgeSlots = 0;
+
+		final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+		readLock = lock.readLock();
+		writeLock = lock.writeLock();
 	}
 
 	public Long getSUID() {
 		return suid;
 	}
 
-	public synchronized int getNodeCount() {
+	public int getNodeCount() {
 		return nodeCount; 
 	}
 
-	public synchronized int getEdgeCount() {
+	public int getEdgeCount() {
 		return edgeCount; 
 	}
 
-	public synchronized CyEdge getEdge(final long e) {
-		final EdgePointer ep = (EdgePointer)edgePointers.get(e);
-		if ( ep != null )
-			return ep.cyEdge;
-		else
-			return null;
-	}
+	/**
+	 * Without locking, a lookup may race with a writer, so only an edge with the
+	 * right SUID is returned; otherwise the lookup is repeated with the read lock.
+	 */
+	public CyEdge getEdge(final long e) {
+		final CyEdge[] es = edges;
+		final int unlockedIndex = edgeIndices.get(e);
+		if ( unlockedIndex >= 0 && unlockedIndex < es.length ) {
+			final CyEdge edge = es[unlockedIndex];
+			if ( edge != null && edge.getSUID().longValue() == e )
+				return edge;
+		}
 
-	public synchronized CyNode getNode(final long n) {
-		final NodePointer np = (NodePointer)nodePointers.get(n);
-		if ( np != null )
-			return np.cyNode;
-		else
-			return null;
+		readLock.lock();
+		try {
+			final int index = edgeIndices.get(e);
+			if ( index >= 0 )
+				return edges[index];
+			else
+				return null;
+		} finally {
+			readLock.unlock();
+		}
 	}
 
-	public synchronized List<CyNode> getNodeList() {
-		final List<CyNode> ret = new ArrayList<CyNode>(nodeCount);
-		int numRemaining = nodeCount;
-		NodePointer node = firstNode;
-
-		while (numRemaining > 0) {
-			// possible NPE here if the linked list isn't constructed correctly
-			// this is the correct behavior
-			final CyNode toAdd = node.cyNode;
-			node = node.nextNode;
-			ret.add(toAdd);
-			numRemaining--;
+	/**
+	 * Like getEdge(), looks the node up without locking first.
+	 */
+	public CyNode getNode(final long n) {
+		final CyNode[] ns = nodes;
+		final int unlockedIndex = nodeIndices.get(n);
+		if ( unlockedIndex >= 0 && unlockedIndex < ns.length ) {
+			final CyNode node = ns[unlockedIndex];
+			if ( node != null && node.getSUID().longValue() == n )
+				return node;
 		}
 
-		return ret;
+		readLock.lock();
+		try {
+			final int index = nodeIndices.get(n);
+			if ( index >= 0 )
+				return nodes[index];
+			else
+				return null;
+		} finally {
+			readLock.unlock();
+		}
 	}
 
-	public synchronized List<CyEdge> getEdgeList() {
-		final List<CyEdge> ret = new ArrayList<CyEdge>(edgeCount);
-		EdgePointer edge = null;
-
-		int numRemaining = edgeCount;
-		NodePointer node = firstNode;
-		while (numRemaining > 0) {
-			final CyEdge retEdge;
-
-			if (edge != null) {
-				retEdge = edge.cyEdge;
-			} else {
-				for (edge = node.firstOutEdge; 
-				     edge == null; 
-				     node = node.nextNode, edge = node.firstOutEdge);
+	public List<CyNode> getNodeList() {
+		readLock.lock();
+		try {
+			final List<CyNode> ret = new ArrayList<CyNode>(nodeCount);
 
-				node = node.nextNode;
-				retEdge = edge.cyEdge;
+			// Most recently added nodes come first.
+			for (int n = nodeSlots - 1; n >= 0; n--) {
+				if (nodes[n] != null)
+					ret.add(nodes[n]);
 			}
 
-			edge = edge.nextOutEdge;
-			numRemaining--;
-
-			ret.add(retEdge);
+			return ret;
+		} finally {
+			readLock.unlock();
 		}
-
-		return ret;
 	}
 
-	public synchronized List<CyNode> getNeighborList(final CyNode n, final CyEdge.Type e) {
-		if (!containsNode(n)) 
-			return Collections.emptyList(); 
+	public List<CyEdge> getEdgeList() {
+		readLock.lock();
+		try {
+			final List<CyEdge> ret = new ArrayList<CyEdge>(edgeCount);
 
-		final NodePointer np = getNodePointer(n);
-		final List<CyNode> ret = new ArrayList<CyNode>(countEdges(np, e));
-		final Iterator<EdgePointer> it = edgesAdjacent(np, e);
-		while (it.hasNext()) {
-			final EdgePointer edge = it.next();
-			final long neighborIndex = np.index ^ edge.source.index ^ edge.target.index;
-			ret.add(getNode(neighborIndex));
-		}
+			// Edges are grouped by source node, in the same order as getNodeList().
+			for (int n = nodeSlots - 1; n >= 0; n--) {
+				final int[] out = outEdges[n];
+				for (int i = outSizes[n] - 1; i >= 0; i--)
+					ret.add(edges[out[i]]);
+			}
 
-		return ret;
+			return ret;
+		} finally {
+			readLock.unlock();
+		}
 	}
 
-	public synchronized List<CyEdge> getAdjacentEdgeList(final CyNode n, final CyEdge.Type e) {
-		if (!containsNode(n)) 
-			return Collections.emptyList(); 
-
-		final NodePointer np = getNodePointer(n);
-		final List<CyEdge> ret = new ArrayList<CyEdge>(countEdges(np, e));
-		final Iterator<EdgePointer> it = edgesAdjacent(np, e);
+	public List<CyNode> getNeighborList(final CyNode n, final CyEdge.Type e) {
+		readLock.lock();
+		try {
+			final int node = getNodeIndex(n);
+			if (node < 0) 
+				return Collections.emptyList(); 
+
+			final int[] adjacent = edgesAdjacent(node, e);
+			final List<CyNode> ret = new ArrayList<CyNode>(adjacent.length);
+			for (final int edge : adjacent) {
+				final int neighbor = node ^ edgeSources[edge] ^ edgeTargets[edge];
+				ret.add(nodes[neighbor]);
+			}
 
-		while (it.hasNext()) {
-			ret.add(it.next().cyEdge);
+			return ret;
+		} finally {
+			readLock.unlock();
 		}
-
-		return ret;
 	}
 
-	public synchronized Iterable<CyEdge> getAdjacentEdgeIterable(final CyNode n, final CyEdge.Type e) {
-		if (!containsNode(n)) 
-			return Collections.emptyList();
+	public List<CyEdge> getAdjacentEdgeList(final CyNode n, final CyEdge.Type e) {
+		readLock.lock();
+		try {
+			final int node = getNodeIndex(n);
+			if (node < 0) 
+				return Collections.emptyList(); 
 
-		final NodePointer np = getNodePointer(n);
-		return new IterableEdgeIterator( edgesAdjacent(np, e) ); 
+			return toEdgeList(edgesAdjacent(node, e));
+		} finally {
+			readLock.unlock();
+		}
 	}
 
-
-	private class IterableEdgeIterator implements Iterator<CyEdge>, Iterable<CyEdge> {
-		private final Iterator<EdgePointer> epIterator;
-		IterableEdgeIterator(final Iterator<EdgePointer> epIterator) { this.epIterator = epIterator; }
-		public CyEdge next() { return epIterator.next().cyEdge; }
-		public boolean hasNext() { return epIterator.hasNext(); }
-		public void remove() { epIterator.remove(); }
-		public Iterator<CyEdge> iterator() { return this; }
+	public Iterable<CyEdge> getAdjacentEdgeIterable(final CyNode n, final CyEdge.Type e) {
+		return getAdjacentEdgeList(n, e);
 	}
 
-	public synchronized List<CyEdge> getConnectingEdgeList(final CyNode src, final CyNode trg, final CyEdge.Type e) {
-		if (!containsNode(src)) 
-			return Collections.emptyList(); 
+	public List<CyEdge> getConnectingEdgeList(final CyNode src, final CyNode trg, final CyEdge.Type e) {
+		readLock.lock();
+		try {
+			final int srcIndex = getNodeIndex(src);
+			if (srcIndex < 0) 
+				return Collections.emptyList(); 
 
-		if (!containsNode(trg)) 
-			return Collections.emptyList(); 
+			final int trgIndex = getNodeIndex(trg);
+			if (trgIndex < 0) 
+				return Collections.emptyList(); 
 
-		final NodePointer srcP = getNodePointer(src);
-		final NodePointer trgP = getNodePointer(trg);
-
-		final List<CyEdge> ret = new ArrayList<CyEdge>(Math.min(countEdges(srcP, e), 
-		                                                        countEdges(trgP, e)));
-		final Iterator<EdgePointer> it = edgesConnecting(srcP, trgP, e);
-
-		while (it.hasNext())
-			ret.add(it.next().cyEdge);
-
-		return ret;
+			return toEdgeList(edgesConnecting(srcIndex, trgIndex, e, false));
+		} finally {
+			readLock.unlock();
+		}
 	}
 
 	/**
-	 * IMPORTANT: this is not protected by synchronized 
-	 * because caller always uses lock.
+	 * Callers that need to check and add atomically still synchronize on
+	 * this network; the write lock only keeps readers out while the
+	 * topology is being modified.
 	 */
 	CyNode addNodeInternal(final CyNode node) {
-		// node already exists in this network
-		if (containsNode(node))
-			return node;
-
-		final NodePointer n = new NodePointer(node);
-		nodePointers.put(node.getSUID(), n);
-		nodeCount++;
-		firstNode = n.insert(firstNode);
+		writeLock.lock();
+		try {
+			// node already exists in this network
+			if (containsNode(node))
+				return node;
+
+			if (nodeSlots == nodes.length)
+				growNodeArrays(nodes.length * 2);
+
+			final int index = nodeSlots++;
+			nodes[index] = node;
+			nodeIndices.put(node.getSUID(), index);
+			nodeCount++;
+		} finally {
+			writeLock.unlock();
+		}
 
 		return node;
 	}
@@ -235,7 +310,8 @@ class SimpleNetwork {
 			return false;
 
 		boolean madeChanges = false;
-		synchronized (this) {
+		writeLock.lock();
+		try {
 			for ( CyNode n : nodes ) {
 				if (!containsNode(n)) 
 					continue;
@@ -243,13 +319,20 @@ class SimpleNetwork {
 				// remove adjacent edges from network
 				removeEdgesInternal(getAdjacentEdgeList(n, CyEdge.Type.ANY));
 	
-				final NodePointer node = (NodePointer)nodePointers.get(n.getSUID());
-				nodePointers.removeKey(n.getSUID());
-				firstNode = node.remove(firstNode);
+				final int node = getNodeIndex(n);
+				nodeIndices.remove(n.getSUID());
+				this.nodes[node] = null;
+				outEdges[node] = null;
+				inEdges[node] = null;
 	
 				nodeCount--;
 				madeChanges = true;
 			}
+
+			if (madeChanges)
+				compactIfSparse();
+		} finally {
+			writeLock.unlock();
 		}
 
 		return madeChanges;
@@ -257,9 +340,8 @@ class SimpleNetwork {
 
 	protected CyEdge addEdgeInternal(final CyNode s, final CyNode t, final boolean directed, final CyEdge edge) {
 
-		final EdgePointer e;
-
-		synchronized (this) {
+		writeLock.lock();
+		try {
 			// here we check with possible sub node, not just root node
 			if (!containsNode(s))
 				throw new IllegalArgumentException("source node is not a member of this network");
@@ -272,14 +354,41 @@ class SimpleNetwork {
 			if ( containsEdge(edge) )
 				return edge;
 
-			final NodePointer source = getNodePointer(s);
-			final NodePointer target = getNodePointer(t);
+			final int source = getNodeIndex(s);
+			final int target = getNodeIndex(t);
 
-			e = new EdgePointer(source, target, directed, edge); 
+			if (edgeSlots == edges.length)
+				growEdgeArrays(edges.length * 2);
 
-			edgePointers.put(edge.getSUID(),e);
+			final int index = edgeSlots++;
+			edges[index] = edge;
+			edgeSources[index] = source;
+			edgeTargets[index] = target;
+			edgeDirected[index] = directed;
+			edgeIndices.put(edge.getSUID(), index);
+
+			appendOutEdge(source, index);
+			appendInEdge(target, index);
+
+			if (directed) {
+				outDegrees[source]++;
+				inDegrees[target]++;
+			} else {
+				undDegrees[source]++;
+				undDegrees[target]++;
+			}
+
+			// Self-edge
+			if (source == target) {
+				if (directed)
+					selfEdges[source]++;
+				else
+					undDegrees[source]--;
+			}
 
 			edgeCount++;
+		} finally {
+			writeLock.unlock();
 		}
 
 		return edge; 
@@ -290,19 +399,46 @@ class SimpleNetwork {
 			return false;
 
 		boolean madeChanges = false;
-		synchronized (this) {
+		writeLock.lock();
+		try {
 			for (CyEdge edge : edges) {
 				if (!containsEdge(edge))
 					continue;
 	
-				final EdgePointer e = (EdgePointer)edgePointers.get(edge.getSUID());
-				edgePointers.removeKey(edge.getSUID());
-	
-				e.remove();
+				final int index = edgeIndices.get(edge.getSUID());
+				edgeIndices.remove(edge.getSUID());
+
+				final int source = edgeSources[index];
+				final int target = edgeTargets[index];
+				removeFromAdjacency(outEdges[source], outSizes, source, index);
+				removeFromAdjacency(inEdges[target], inSizes, target, index);
+
+				if (edgeDirected[index]) {
+					outDegrees[source]--;
+					inDegrees[target]--;
+				} else {
+					undDegrees[source]--;
+					undDegrees[target]--;
+				}
+
+				// Self-edge.
+				if (source == target) {
+					if (edgeDirected[index])
+						selfEdges[source]--;
+					else
+						undDegrees[source]++;
+				}
+
+				this.edges[index] = null;
 	
 				edgeCount--;
 				madeChanges = true;
 			}
+
+			if (madeChanges)
+				compactIfSparse();
+		} finally {
+			writeLock.unlock();
 		}
 
 		return madeChanges;
@@ -312,266 +448,315 @@ class SimpleNetwork {
 		if (node == null)
 			return false;
 
-		final NodePointer thisNode; 
-
-		synchronized (this) {
-			thisNode = (NodePointer)nodePointers.get(node.getSUID());
-		}
+		final CyNode thisNode = getNode(node.getSUID()); 
 
 		if ( thisNode == null )
 			return false;	
 
-		return thisNode.cyNode.equals(node);
+		return thisNode.equals(node);
 	}
 
 	public boolean containsEdge(final CyEdge edge) {
 		if (edge == null)
 			return false;
 
-		final EdgePointer thisEdge; 
-
-		synchronized (this) {
-			thisEdge = (EdgePointer)edgePointers.get(edge.getSUID());
-		}
+		final CyEdge thisEdge = getEdge(edge.getSUID()); 
 
 		if ( thisEdge == null )
 			return false;
 
-		return thisEdge.cyEdge.equals(edge);
+		return thisEdge.equals(edge);
 	}
 
-	public synchronized boolean containsEdge(final CyNode n1, final CyNode n2) {
-		//System.out.println("private containsEdge");
-		if (!containsNode(n1)) {
-			//System.out.println("private containsEdge doesn't contain node1 " + inId);
-			return false;
-		}
-
-		if (!containsNode(n2)) {
-			//System.out.println("private containsEdge doesn't contain node2 " + inId);
-			return false;
-		}
+	public boolean containsEdge(final CyNode n1, final CyNode n2) {
+		readLock.lock();
+		try {
+			final int node1 = getNodeIndex(n1);
+			if (node1 < 0)
+				return false;
 
-		final Iterator<EdgePointer> it = edgesConnecting(getNodePointer(n1), getNodePointer(n2), CyEdge.Type.ANY);
+			final int node2 = getNodeIndex(n2);
+			if (node2 < 0)
+				return false;
 
-		return it.hasNext();
+			return edgesConnecting(node1, node2, CyEdge.Type.ANY, true).length > 0;
+		} finally {
+			readLock.unlock();
+		}
 	}
 
-	private Iterator<EdgePointer> edgesAdjacent(final NodePointer n, final CyEdge.Type edgeType) {
-		assert(n!=null);
-
-		final EdgePointer[] edgeLists;
-
+	/**
+	 * @return the indices of all edges of "edgeType" adjacent to "node"; outgoing edges
+	 *         come first, each group ordered from the most recently added edge
+	 */
+	private int[] edgesAdjacent(final int node, final CyEdge.Type edgeType) {
 		final boolean incoming = assessIncoming(edgeType);
 		final boolean outgoing = assessOutgoing(edgeType);
 		final boolean undirected = assessUndirected(edgeType);
 
-		if (undirected || (outgoing && incoming)) 
-			edgeLists = new EdgePointer[] { n.firstOutEdge, n.firstInEdge };
-		else if (outgoing) // Cannot also be incoming.
-			edgeLists = new EdgePointer[] { n.firstOutEdge, null };
-		else if (incoming) // Cannot also be outgoing.
-			edgeLists = new EdgePointer[] { null, n.firstInEdge };
-		else // All boolean input parameters are false - can never get here!
-			edgeLists = new EdgePointer[] { null, null };
-
-		final int inEdgeCount = countEdges(n, edgeType);
-		//System.out.println("edgesAdjacent edgeCount: " + inEdgeCount);
-
-		return new Iterator<EdgePointer>() {
-				private int numRemaining = inEdgeCount;
-				private int edgeListIndex = -1;
-				private EdgePointer edge;
-
-				public boolean hasNext() {
-					return numRemaining > 0;
-				}
+		final int[] ret = new int[countEdges(node, edgeType)];
+		if (ret.length == 0)
+			return ret;
+		int count = 0;
+
+		// look at outgoing edges
+		if (outgoing || undirected) {
+			final int[] out = outEdges[node];
+			for (int i = outSizes[node] - 1; i >= 0; i--) {
+				final int edge = out[i];
+				final boolean directed = edgeDirected[edge];
+				if ((outgoing && directed) || (undirected && !directed))
+					ret[count++] = edge;
+			}
+		}
 
-				public void remove() {
-					throw new UnsupportedOperationException();
-				}
+		// look at incoming edges
+		if (incoming || undirected) {
+			final int[] in = inEdges[node];
+			for (int i = inSizes[node] - 1; i >= 0; i--) {
+				final int edge = in[i];
+				final boolean directed = edgeDirected[edge];
 
-				public EdgePointer next() {
-					// get the first non-null edgePointer
-					while (edge == null)
-						edge = edgeLists[++edgeListIndex];
-
-					long returnIndex = -1;
-
-					// look at outgoing edges
-					if (edgeListIndex == 0) {
-						// go to the next edge if the current edge is NOT either
-						// directed when we want outgoing or undirected when we
-						// want undirected
-						while ((edge != null) && 
-						       !((outgoing && edge.directed) || (undirected && !edge.directed))) {
-							edge = edge.nextOutEdge;
-
-							// we've hit the last edge in the list
-							// so increment edgeListIndex so we go to 
-							// incoming, set edge, and break
-							if (edge == null) {
-								edge = edgeLists[++edgeListIndex];
-								break;
-							}
-						}
-					
-						// if we have a non-null outgoing edge set the 
-						// edge and return values
-						// since edgeListIndex is still for outgoing we'll
-						// just directly to the return
-						if ((edge != null) && (edgeListIndex == 0)) {
-							returnIndex = edge.index;
-							edge = edge.nextOutEdge;
-						}
-					}
-	
-					// look at incoming edges
-					if (edgeListIndex == 1) {
-						
-						// Important NOTE!!!
-						// Possible null pointer exception here if numRemaining, 
-						// i.e. edgeCount is wrong. However, this is probably the
-						// correct behavior since it means the linked lists are
-						// messed up and there isn't a graceful way to deal.
-
-
-						// go to the next edge if the edge is a self edge AND 
-						// either directed when we're looking for outgoing or
-						// undirected when we're looking for undirected 
-						// OR 
-						// go to the next edge if the current edge is NOT either
-						// directed when we want incoming or undirected when we
-						// want undirected
-						while (((edge.source.index == edge.target.index)
-						       && ((outgoing && edge.directed) || (undirected && !edge.directed)))
-						       || !((incoming && edge.directed) || (undirected && !edge.directed))) {
-							edge = edge.nextInEdge;
-						}
-
-						returnIndex = edge.index;
-						edge = edge.nextInEdge;
-					}
-
-					numRemaining--;
-					return (EdgePointer)edgePointers.get(returnIndex);
-				}
-			};
-	}
+				// self-edges that have already been picked up as outgoing edges
+				if (edgeSources[edge] == node && ((outgoing && directed) || (undirected && !directed)))
+					continue;
 
-	private Iterator<EdgePointer> edgesConnecting(final NodePointer node0, final NodePointer node1,
-	                                              final CyEdge.Type et) {
-		assert(node0!=null);
-		assert(node1!=null);
+				if ((incoming && directed) || (undirected && !directed))
+					ret[count++] = edge;
+			}
+		}
+
+		return ret;
+	}
 
-		final Iterator<EdgePointer> theAdj;
-		final long nodeZero;
-		final long nodeOne;
+	/**
+	 * @return the indices of the edges of type "et" between "node0" and "node1"
+	 */
+	private int[] edgesConnecting(final int node0, final int node1, final CyEdge.Type et,
+	                              final boolean firstOnly) {
+		final int[] theAdj;
+		final int nodeZero;
+		final int nodeOne;
 
-		// choose the smaller iterator
+		// choose the smaller adjacency
 		if (countEdges(node0, et) <= countEdges(node1, et)) {
-			//System.out.println("edgesConnecting fewer edges node0: " + node0.index);
 			theAdj = edgesAdjacent(node0, et);
-			nodeZero = node0.index;
-			nodeOne = node1.index;
+			nodeZero = node0;
+			nodeOne = node1;
 		} else {
-			//System.out.println("edgesConnecting fewer edges node1: " + node1.index);
 			theAdj = edgesAdjacent(node1, et);
-			nodeZero = node1.index;
-			nodeOne = node0.index;
+			nodeZero = node1;
+			nodeOne = node0;
 		}
 
-		return new Iterator<EdgePointer>() {
-				private long nextIndex = -1;
+		int count = 0;
+		for (final int edge : theAdj) {
+			if (nodeOne == (nodeZero ^ edgeSources[edge] ^ edgeTargets[edge])) {
+				theAdj[count++] = edge;
+				if (firstOnly)
+					break;
+			}
+		}
 
-				private void ensureComputeNext() {
-					if (nextIndex != -1) {
-						return;
-					}
+		return count == 0 ? NO_EDGES : Arrays.copyOf(theAdj, count);
+	}
 
-					while (theAdj.hasNext()) {
-						final EdgePointer e = theAdj.next();
+	private boolean assessUndirected(final CyEdge.Type e) {
+		return ((e == CyEdge.Type.UNDIRECTED) || (e == CyEdge.Type.ANY));
+	}
 
-						if (nodeOne == (nodeZero ^ e.source.index ^ e.target.index)) {
-							nextIndex = e.index;
+	private boolean assessIncoming(final CyEdge.Type e) {
+		return ((e == CyEdge.Type.DIRECTED) || (e == CyEdge.Type.ANY) || (e == CyEdge.Type.INCOMING));
+	}
 
-							return;
-						}
-					}
+	private boolean assessOutgoing(final CyEdge.Type e) {
+		return ((e == CyEdge.Type.DIRECTED) || (e == CyEdge.Type.ANY) || (e == CyEdge.Type.OUTGOING));
+	}
 
-					nextIndex = -2;
-				}
+	private int countEdges(final int node, final CyEdge.Type edgeType) {
+		final boolean undirected = assessUndirected(edgeType);
+		final boolean incoming = assessIncoming(edgeType);
+		final boolean outgoing = assessOutgoing(edgeType);
 
-				public void remove() {
-					throw new UnsupportedOperationException();
-				}
+		int tentativeEdgeCount = 0;
 
-				public boolean hasNext() {
-					ensureComputeNext();
+		if (outgoing)
+			tentativeEdgeCount += outDegrees[node];
 
-					return (nextIndex >= 0);
-				}
+		if (incoming)
+			tentativeEdgeCount += inDegrees[node];
 
-				public EdgePointer next() {
-					ensureComputeNext();
+		if (undirected)
+			tentativeEdgeCount += undDegrees[node];
 
-					final long returnIndex = nextIndex;
-					nextIndex = -1;
+		if (outgoing && incoming)
+			tentativeEdgeCount -= selfEdges[node];
 
-					return (EdgePointer)edgePointers.get(returnIndex);
-				}
-			};
+		return tentativeEdgeCount;
 	}
 
-	private boolean assessUndirected(final CyEdge.Type e) {
-		return ((e == CyEdge.Type.UNDIRECTED) || (e == CyEdge.Type.ANY));
+	/**
+	 * @return the internal index of "node" or -1 if it is not part of this network
+	 */
+	private int getNodeIndex(final CyNode node) {
+		if (node == null)
+			return -1;
+		final int index = nodeIndices.get(node.getSUID());
+		if (index < 0 || !nodes[index].equals(node))
+			return -1;
+		return index;
 	}
 
-	private boolean assessIncoming(final CyEdge.Type e) {
-		return ((e == CyEdge.Type.DIRECTED) || (e == CyEdge.Type.ANY) || (e == CyEdge.Type.INCOMING));
+	private List<CyEdge> toEdgeList(final int[] edgeIndices) {
+		final List<CyEdge> ret = new ArrayList<CyEdge>(edgeIndices.length);
+		for (final int edge : edgeIndices)
+			ret.add(edges[edge]);
+		return ret;
 	}
 
-	private boolean assessOutgoing(final CyEdge.Type e) {
-		return ((e == CyEdge.Type.DIRECTED) || (e == CyEdge.Type.ANY) || (e == CyEdge.Type.OUTGOING));
+	private void appendOutEdge(final int node, final int edge) {
+		int[] out = outEdges[node];
+		if (out == null)
+			out = outEdges[node] = new int[INITIAL_ADJACENCY_CAPACITY];
+		else if (outSizes[node] == out.length)
+			out = outEdges[node] = Arrays.copyOf(out, out.length + (out.length >> 1) + 1);
+		out[outSizes[node]++] = edge;
 	}
 
-	private int countEdges(final NodePointer n, final CyEdge.Type edgeType) {
-		assert(n!=null);
-		final boolean undirected = assessUndirected(edgeType);
-		final boolean incoming = assessIncoming(edgeType);
-		final boolean outgoing = assessOutgoing(edgeType);
+	private void appendInEdge(final int node, final int edge) {
+		int[] in = inEdges[node];
+		if (in == null)
+			in = inEdges[node] = new int[INITIAL_ADJACENCY_CAPACITY];
+		else if (inSizes[node] == in.length)
+			in = inEdges[node] = Arrays.copyOf(in, in.length + (in.length >> 1) + 1);
+		in[inSizes[node]++] = edge;
+	}
+
+	/**
+	 * Removes "edge" from the adjacency array of "node", keeping the order of the remaining edges.
+	 */
+	private static void removeFromAdjacency(final int[] adjacency, final int[] sizes, final int node,
+	                                        final int edge) {
+		final int size = sizes[node];
+		for (int i = size - 1; i >= 0; i--) {
+			if (adjacency[i] == edge) {
+				System.arraycopy(adjacency, i + 1, adjacency, i, size - i - 1);
+				sizes[node] = size - 1;
+				return;
+			}
+		}
+	}
 
-		//System.out.println("countEdges un: " + undirected + " in: " + incoming + " out: " + outgoing);
+	private void growNodeArrays(final int capacity) {
+		nodes = Arrays.copyOf(nodes, capacity);
+		outEdges = Arrays.copyOf(outEdges, capacity);
+		outSizes = Arrays.copyOf(outSizes, capacity);
+		inEdges = Arrays.copyOf(inEdges, capacity);
+		inSizes = Arrays.copyOf(inSizes, capacity);
+		outDegrees = Arrays.copyOf(outDegrees, capacity);
+		inDegrees = Arrays.copyOf(inDegrees, capacity);
+		undDegrees = Arrays.copyOf(undDegrees, capacity);
+		selfEdges = Arrays.copyOf(selfEdges, capacity);
+	}
 
-		int tentativeEdgeCount = 0;
+	private void growEdgeArrays(final int capacity) {
+		edges = Arrays.copyOf(edges, capacity);
+		edgeSources = Arrays.copyOf(edgeSources, capacity);
+		edgeTargets = Arrays.copyOf(edgeTargets, capacity);
+		edgeDirected = Arrays.copyOf(edgeDirected, capacity);
+	}
 
-		if (outgoing) { 
-			//System.out.println("  countEdges outgoing: " + n.outDegree);
-			tentativeEdgeCount += n.outDegree;
+	/**
+	 * Squeezes out the tombstones left by removed nodes and edges once they make up
+	 * more than half of the used indices.  The relative order of the remaining nodes
+	 * and edges is preserved.
+	 */
+	private void compactIfSparse() {
+		if (edgeSlots >= MIN_COMPACTION_SIZE && edgeCount < edgeSlots / 2)
+			compactEdges();
+		if (nodeSlots >= MIN_COMPACTION_SIZE && nodeCount < nodeSlots / 2)
+			compactNodes();
+	}
+
+	private void compactEdges() {
+		final int[] newIndices = new int[edgeSlots];
+		int next = 0;
+		for (int e = 0; e < edgeSlots; e++) {
+			if (edges[e] == null) {
+				newIndices[e] = -1;
+				continue;
+			}
+
+			newIndices[e] = next;
+			edges[next] = edges[e];
+			edgeSources[next] = edgeSources[e];
+			edgeTargets[next] = edgeTargets[e];
+			edgeDirected[next] = edgeDirected[e];
+			edgeIndices.put(edges[next].getSUID(), next);
+			next++;
+		}
+		Arrays.fill(edges, next, edgeSlots, null);
+		edgeSlots = next;
+
+		for (int n = 0; n < nodeSlots; n++) {
+			remap(outEdges[n], outSizes[n], newIndices);
+			remap(inEdges[n], inSizes[n], newIndices);
 		}
 
-		if (incoming) { 
-			//System.out.println("  countEdges incoming: " + n.inDegree);
-			tentativeEdgeCount += n.inDegree;
+		if (edges.length > Math.max(INITIAL_CAPACITY, 2 * edgeSlots))
+			growEdgeArrays(Math.max(INITIAL_CAPACITY, edgeSlots + (edgeSlots >> 1)));
+	}
+
+	private void compactNodes() {
+		final int[] newIndices = new int[nodeSlots];
+		int next = 0;
+		for (int n = 0; n < nodeSlots; n++) {
+			if (nodes[n] == null) {
+				newIndices[n] = -1;
+				continue;
+			}
+
+			newIndices[n] = next;
+			nodes[next] = nodes[n];
+			outEdges[next] = outEdges[n];
+			outSizes[next] = outSizes[n];
+			inEdges[next] = inEdges[n];
+			inSizes[next] = inSizes[n];
+			outDegrees[next] = outDegrees[n];
+			inDegrees[next] = inDegrees[n];
+			undDegrees[next] = undDegrees[n];
+			selfEdges[next] = selfEdges[n];
+			nodeIndices.put(nodes[next].getSUID(), next);
+			next++;
 		}
 
-		if (undirected) {
-			//System.out.println("  countEdges undirected: " + n.undDegree);
-			tentativeEdgeCount += n.undDegree;
+		for (int n = next; n < nodeSlots; n++) {
+			nodes[n] = null;
+			outEdges[n] = null;
+			outSizes[n] = 0;
+			inEdges[n] = null;
+			inSizes[n] = 0;
+			outDegrees[n] = 0;
+			inDegrees[n] = 0;
+			undDegrees[n] = 0;
+			selfEdges[n] = 0;
 		}
+		nodeSlots = next;
 
-		if (outgoing && incoming) {
-			//System.out.println("  countEdges out+in MINUS: " + n.selfEdges);
-			tentativeEdgeCount -= n.selfEdges;
+		for (int e = 0; e < edgeSlots; e++) {
+			if (edges[e] == null)
+				continue;
+			edgeSources[e] = newIndices[edgeSources[e]];
+			edgeTargets[e] = newIndices[edgeTargets[e]];
 		}
 
-		//System.out.println("  countEdges final: " + tentativeEdgeCount);
-		return tentativeEdgeCount;
+		if (nodes.length > Math.max(INITIAL_CAPACITY, 2 * nodeSlots))
+			growNodeArrays(Math.max(INITIAL_CAPACITY, nodeSlots + (nodeSlots >> 1)));
 	}
 
-	private NodePointer getNodePointer(final CyNode node) {
-		assert(node != null);
-		return (NodePointer)nodePointers.get(node.getSUID());
+	private static void remap(final int[] indices, final int size, final int[] newIndices) {
+		for (int i = 0; i < size; i++)
+			indices[i] = newIndices[indices[i]];
 	}
 
 	
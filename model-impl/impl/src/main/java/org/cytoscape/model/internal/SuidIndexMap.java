@@ -0,0 +1,167 @@
+package org.cytoscape.model.internal;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+/**
+ * Maps the SUIDs of the nodes or edges of a network to their internal indices, by open
+ * addressing over a single array of SUID and index pairs.  Modifications must be serialized
+ * by the caller, but {@link #get(long)} may run concurrently with them without locking:
+ * <ul>
+ *   <li>a slot that is not FREE never becomes FREE again in the same array, and a table is
+ *       rebuilt before three quarters of its slots are used, so a probe always ends;</li>
+ *   <li>a rebuilt table is only published, through a volatile field, once it is filled.</li>
+ * </ul>
+ * A lookup that races with a modification may see the entry as it was before or after it,
+ * or even a SUID whose index has not been written yet, so callers must check the result.
+ */
+final class SuidIndexMap {
+	private static final long FREE = -1L;
+	private static final long REMOVED = -2L;
+	private static final int MIN_CAPACITY = 16;
+
+	private volatile long[] table;
+
+	// Slots that are not FREE, including REMOVED ones.
+	private int usedSlots;
+	private int size;
+
+	SuidIndexMap() {
+		table = newTable(MIN_CAPACITY);
+	}
+
+	/**
+	 * @return the index of "suid" or -1 if there is none
+	 */
+	int get(final long suid) {
+		if (suid < 0)
+			return -1;
+
+		final long[] t = table;
+		final int mask = (t.length >> 1) - 1;
+
+		for (int i = hash(suid) & mask; ; i = (i + 1) & mask) {
+			final long key = t[2 * i];
+			if (key == suid)
+				return (int) t[(2 * i) + 1];
+			if (key == FREE)
+				return -1;
+		}
+	}
+
+	void put(final long suid, final int index) {
+		if (suid < 0)
+			throw new IllegalArgumentException("SUID must not be negative: " + suid);
+
+		if (((usedSlots + 1) * 4) > ((table.length >> 1) * 3))
+			rebuild();
+
+		final long[] t = table;
+		final int mask = (t.length >> 1) - 1;
+		int slot = -1;
+
+		for (int i = hash(suid) & mask; ; i = (i + 1) & mask) {
+			final long key = t[2 * i];
+			if (key == suid) {
+				t[(2 * i) + 1] = index;
+				return;
+			}
+			if ((key == REMOVED) && (slot < 0))
+				slot = i;
+			if (key == FREE) {
+				if (slot < 0) {
+					slot = i;
+					usedSlots++;
+				}
+				break;
+			}
+		}
+
+		// The index is written first, so that a lookup is less likely to see the SUID without it.
+		t[(2 * slot) + 1] = index;
+		t[2 * slot] = suid;
+		size++;
+	}
+
+	void remove(final long suid) {
+		if (suid < 0)
+			return;
+
+		final long[] t = table;
+		final int mask = (t.length >> 1) - 1;
+
+		for (int i = hash(suid) & mask; ; i = (i + 1) & mask) {
+			final long key = t[2 * i];
+			if (key == FREE)
+				return;
+			if (key == suid) {
+				t[2 * i] = REMOVED;
+				size--;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Copies the entries into a table that is at most half full, dropping the REMOVED slots.
+	 */
+	private void rebuild() {
+		int capacity = MIN_CAPACITY;
+		while (capacity < ((size + 1) * 2))
+			capacity <<= 1;
+
+		final long[] old = table;
+		final long[] t = newTable(capacity);
+		final int mask = capacity - 1;
+
+		for (int j = 0; j < old.length; j += 2) {
+			final long key = old[j];
+			if (key < 0)
+				continue;
+
+			int i = hash(key) & mask;
+			while (t[2 * i] != FREE)
+				i = (i + 1) & mask;
+			t[2 * i] = key;
+			t[(2 * i) + 1] = old[j + 1];
+		}
+
+		usedSlots = size;
+		table = t;
+	}
+
+	private static long[] newTable(final int capacity) {
+		final long[] t = new long[2 * capacity];
+		for (int i = 0; i < t.length; i += 2)
+			t[i] = FREE;
+		return t;
+	}
+
+	private static int hash(final long suid) {
+		final int h = ((int) (suid ^ (suid >>> 32))) * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
@@ -0,0 +1,52 @@
+package org.cytoscape.model.internal.bulk;
+
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Sets a column in many rows of a table at once.  The tables of this bundle implement this
+ * interface so that other bundles of Cytoscape, which change a column of many rows at a time,
+ * lock a table only once rather than once per row.  The effect is the same as calling
+ * {@link org.cytoscape.model.CyRow#set(String, Object)} for every row, including the creation
+ * of missing rows and the RowsSetEvent payloads.
+ */
+public interface BulkValueSetter {
+
+	/**
+	 * Sets "columnName" to "value" in every row identified by "primaryKeys".  A null "value"
+	 * unsets the column.
+	 */
+	void setValues(Collection<?> primaryKeys, String columnName, Object value);
+
+	/**
+	 * Sets "columnName" in every row whose primary key is contained in "keyToValueMap" to the
+	 * associated value.
+	 */
+	void setValues(String columnName, Map<?, ?> keyToValueMap);
+}
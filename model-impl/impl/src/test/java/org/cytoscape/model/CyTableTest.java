@@ -25,7 +25,10 @@ package org.cytoscape.model;
  */
 
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -37,6 +40,9 @@ import org.cytoscape.equations.internal.EquationCompilerImpl;
 import org.cytoscape.equations.internal.EquationParserImpl;
 import org.cytoscape.equations.internal.StringList;
 import org.cytoscape.equations.internal.interpreter.InterpreterImpl;
+import org.cytoscape.event.CyEvent;
+import org.cytoscape.event.CyEventHelper;
+import org.cytoscape.event.CyPayloadEvent;
 import org.cytoscape.event.DummyCyEventHelper;
 import org.cytoscape.model.CyIdentifiable;
 import org.cytoscape.model.internal.CyNetworkManagerImpl;
@@ -245,4 +251,156 @@ public class CyTableTest extends AbstractCyTableTest {
 		assertEquals("foo", table2.getRow(1L).get("virtualtest", String.class));		
 		assertEquals("foo", table2.getColumn("virtualtest").getDefaultValue());
 	}
+
+	@Test
+	public void testBulkSetValues() {
+		table.createColumn("selected", Boolean.class, false);
+		final CyTableImpl tableImpl = (CyTableImpl) table;
+		tableImpl.setValues(Arrays.asList(1L, 2L, 3L), "selected", true);
+		assertTrue(eventHelper.getLastPayload() instanceof RowSetRecord);
+
+		assertEquals(Boolean.TRUE, table.getRow(2L).get("selected", Boolean.class));
+		assertEquals(3, table.countMatchingRows("selected", true));
+
+		tableImpl.setValues(Arrays.asList(1L, 2L), "selected", null);
+		assertFalse(table.getRow(1L).isSet("selected"));
+		assertEquals(1, table.countMatchingRows("selected", true));
+	}
+
+	@Test
+	public void testBulkSetValuesFromMap() {
+		table.createColumn("weight", Double.class, false);
+		final Map<Long, Double> weights = new HashMap<Long, Double>();
+		weights.put(1L, 0.5);
+		weights.put(7L, 2.5);
+		((CyTableImpl) table).setValues("weight", weights);
+
+		assertEquals(0.5, table.getRow(1L).get("weight", Double.class), 0.0);
+		assertEquals(2.5, table.getRow(7L).get("weight", Double.class), 0.0);
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testBulkSetValuesWithWrongType() {
+		table.createColumn("weight", Double.class, false);
+		((CyTableImpl) table).setValues(Arrays.asList(1L), "weight", "heavy");
+	}
+
+	@Test
+	public void testBulkSetValuesWithOneWrongValueChangesNothing() {
+		table.createColumn("weight", Double.class, false);
+		final Map<Long, Object> weights = new LinkedHashMap<Long, Object>();
+		weights.put(1L, 0.5);
+		weights.put(8L, 1.5);
+		weights.put(9L, "heavy");
+
+		try {
+			((CyTableImpl) table).setValues("weight", weights);
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+
+		assertFalse(table.getRow(1L).isSet("weight"));
+		assertFalse(table.rowExists(8L));
+		assertNull(eventHelper.getLastPayload());
+	}
+
+	@Test
+	public void testBulkSetValuesCreatesRows() {
+		table.createColumn("weight", Double.class, false);
+		((CyTableImpl) table).setValues(Arrays.asList(5L, 6L), "weight", 1.0);
+
+		assertTrue(table.rowExists(5L));
+		assertEquals(1.0, table.getRow(6L).get("weight", Double.class), 0.0);
+		assertEquals(2, table.getMatchingRows("weight", 1.0).size());
+		assertTrue(eventHelper.getLastPayload() instanceof RowSetRecord);
+	}
+
+	@Test
+	public void testBulkSetValuesAddsPayloadsWithTableUnlocked() {
+		final List<Boolean> unlocked = new ArrayList<Boolean>();
+		final CyEventHelper helper = new CyEventHelper() {
+			public <E extends CyEvent<?>> void fireEvent(final E event) { }
+
+			public <S, P, E extends CyPayloadEvent<S, P>> void addEventPayload(S source, P payload,
+			                                                                   Class<E> eventType) {
+				unlocked.add(isReadableFromAnotherThread((CyTable) source));
+			}
+
+			public void flushPayloadEvents() { }
+			public void silenceEventSource(Object eventSource) { }
+			public void unsilenceEventSource(Object eventSource) { }
+		};
+		final CyTableImpl tableImpl = new CyTableImpl("bart", CyIdentifiable.SUID, Long.class, false, true,
+		                                              SavePolicy.SESSION_FILE, helper, new InterpreterImpl(), 1000);
+		tableImpl.createColumn("weight", Double.class, false);
+
+		compiler.compile("=6/3", new HashMap<String, Class<?>>());
+		final Map<Long, Object> weights = new HashMap<Long, Object>();
+		weights.put(1L, 0.5);
+		weights.put(2L, compiler.getEquation());
+		tableImpl.setValues("weight", weights);
+
+		assertEquals(2.0, tableImpl.getRow(2L).get("weight", Double.class), 0.00001);
+		assertEquals(2, unlocked.size());
+		assertFalse(unlocked.contains(false));
+	}
+
+	private static boolean isReadableFromAnotherThread(final CyTable table) {
+		final Thread reader = new Thread() {
+			@Override
+			public void run() {
+				table.countMatchingRows(CyIdentifiable.SUID, 1L);
+			}
+		};
+		reader.start();
+
+		try {
+			reader.join(1000L);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		return !reader.isAlive();
+	}
+
+	@Test
+	public void testMatchingRowsAfterUpdates() {
+		table.createColumn("rank", Integer.class, false);
+		table.getRow(1L).set("rank", 1);
+		table.getRow(2L).set("rank", 1);
+
+		// The first search builds the index, later writes must keep it up to date.
+		assertEquals(2, table.countMatchingRows("rank", 1));
+		table.getRow(2L).set("rank", 2);
+		table.getRow(3L).set("rank", 2);
+		table.getRow(1L).set("rank", null);
+		assertEquals(0, table.countMatchingRows("rank", 1));
+		assertEquals(2, table.getMatchingRows("rank", 2).size());
+
+		table.deleteRows(Arrays.asList(3L));
+		assertEquals(1, table.countMatchingRows("rank", 2));
+	}
+
+	@Test
+	public void testUnboxedGetters() {
+		table.createColumn("weight", Double.class, false);
+		table.createColumn("count", Integer.class, false, 7);
+		table.createColumn("big", Long.class, false);
+		table.createColumn("flag", Boolean.class, false);
+		final CyTableImpl tableImpl = (CyTableImpl) table;
+		table.getRow(1L).set("weight", 2.5);
+		table.getRow(1L).set("big", 5L);
+		table.getRow(1L).set("flag", true);
+
+		assertEquals(2.5, tableImpl.getDouble(1L, "weight", -1.0), 0.0);
+		assertEquals(-1.0, tableImpl.getDouble(2L, "weight", -1.0), 0.0);
+		assertEquals(7, tableImpl.getInt(1L, "count", 0));
+		assertEquals(5L, tableImpl.getLong(1L, "big", 0L));
+		assertTrue(tableImpl.getBoolean(1L, "flag", false));
+		assertFalse(table.rowExists(2L));
+
+		compiler.compile("=6/3", new HashMap<String, Class<?>>());
+		table.getRow(1L).set("weight", compiler.getEquation());
+		assertEquals(2.0, tableImpl.getDouble(1L, "weight", -1.0), 0.0);
+	}
 }
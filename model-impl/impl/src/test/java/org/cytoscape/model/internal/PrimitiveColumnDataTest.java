@@ -0,0 +1,164 @@
+package org.cytoscape.model.internal;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+
+import org.cytoscape.equations.Equation;
+import org.cytoscape.equations.EquationCompiler;
+import org.cytoscape.equations.internal.EquationCompilerImpl;
+import org.cytoscape.equations.internal.EquationParserImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class PrimitiveColumnDataTest {
+
+	private RowOrdinalIndex index;
+
+	@Before
+	public void setUp() {
+		index = new RowOrdinalIndex(4);
+	}
+
+	@Test
+	public void testCreateOnlyForPrimitiveTypes() {
+		assertNotNull(PrimitiveColumnData.create(Double.class, index));
+		assertNotNull(PrimitiveColumnData.create(Integer.class, index));
+		assertNotNull(PrimitiveColumnData.create(Long.class, index));
+		assertNotNull(PrimitiveColumnData.create(Boolean.class, index));
+		assertNull(PrimitiveColumnData.create(String.class, index));
+	}
+
+	@Test
+	public void testPutGetRemove() {
+		final ColumnData data = PrimitiveColumnData.create(Double.class, index);
+		assertNull(data.put(1L, 1.5));
+		assertEquals(1.5, data.put(1L, 2.5));
+		assertEquals(2.5, data.get(1L));
+		assertNull(data.get(2L));
+		assertEquals(1, data.size());
+
+		assertEquals(2.5, data.remove(1L));
+		assertNull(data.get(1L));
+		assertNull(data.remove(1L));
+		assertEquals(0, data.size());
+	}
+
+	@Test
+	public void testColumnsShareOrdinals() {
+		final ColumnData ints = PrimitiveColumnData.create(Integer.class, index);
+		final ColumnData bools = PrimitiveColumnData.create(Boolean.class, index);
+		for (long key = 0; key < 100; key++) {
+			ints.put(key, (int) key);
+			bools.put(key, key % 2 == 0);
+		}
+
+		assertEquals(42, ints.get(42L));
+		assertEquals(Boolean.FALSE, bools.get(43L));
+		assertEquals(42, index.getOrdinal(42L));
+	}
+
+	@Test
+	public void testReleasedOrdinalsAreReused() {
+		final ColumnData longs = PrimitiveColumnData.create(Long.class, index);
+		longs.put("a", 1L);
+		longs.put("b", 2L);
+
+		longs.remove("a");
+		index.release("a");
+		longs.put("c", 3L);
+
+		assertEquals(0, index.getOrdinal("c"));
+		assertNull(longs.get("a"));
+		assertEquals(3L, longs.get("c"));
+		assertEquals(2, longs.size());
+	}
+
+	@Test
+	public void testValuesAreScannedInOrdinalOrder() {
+		final ColumnData data = PrimitiveColumnData.create(Integer.class, index);
+		data.put(3L, 30);
+		data.put(1L, 10);
+		data.put(2L, 20);
+		data.remove(1L);
+
+		final List<Object> values = new ArrayList<Object>();
+		data.addValuesTo(values);
+		assertEquals(2, values.size());
+		assertEquals(30, values.get(0));
+		assertEquals(20, values.get(1));
+
+		final Collection<Object> keys = data.keys();
+		assertTrue(keys.contains(3L));
+		assertTrue(keys.contains(2L));
+		assertFalse(keys.contains(1L));
+	}
+
+	@Test
+	public void testEquationsAreKeptAside() {
+		final ColumnData data = PrimitiveColumnData.create(Double.class, index);
+		final EquationCompiler compiler = new EquationCompilerImpl(new EquationParserImpl());
+		compiler.compile("=6/3", new HashMap<String, Class<?>>());
+		final Equation equation = compiler.getEquation();
+		data.put(1L, 1.0);
+		assertFalse(data.hasEquations());
+
+		assertEquals(1.0, data.put(1L, equation));
+		assertTrue(data.hasEquations());
+		assertSame(equation, data.get(1L));
+		assertEquals(1, data.size());
+
+		assertSame(equation, data.put(1L, 2.0));
+		assertFalse(data.hasEquations());
+		assertEquals(2.0, data.get(1L));
+	}
+
+	@Test
+	public void testUnboxedGetters() {
+		final PrimitiveColumnData.DoubleColumnData doubles =
+			(PrimitiveColumnData.DoubleColumnData) PrimitiveColumnData.create(Double.class, index);
+		final PrimitiveColumnData.BooleanColumnData bools =
+			(PrimitiveColumnData.BooleanColumnData) PrimitiveColumnData.create(Boolean.class, index);
+		doubles.put(1L, 1.5);
+		bools.put(2L, true);
+
+		assertEquals(1.5, doubles.getDouble(doubles.getValueOrdinal(1L)), 0.0);
+		assertTrue(bools.getBoolean(bools.getValueOrdinal(2L)));
+		assertEquals(-1, doubles.getValueOrdinal(2L));
+		assertEquals(-1, doubles.getValueOrdinal(3L));
+
+		final EquationCompiler compiler = new EquationCompilerImpl(new EquationParserImpl());
+		compiler.compile("=6/3", new HashMap<String, Class<?>>());
+		doubles.put(1L, compiler.getEquation());
+		assertEquals(-1, doubles.getValueOrdinal(1L));
+	}
+}
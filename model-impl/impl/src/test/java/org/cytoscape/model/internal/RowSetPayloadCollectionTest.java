@@ -0,0 +1,173 @@
+package org.cytoscape.model.internal;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+import org.cytoscape.model.CyRow;
+import org.cytoscape.model.events.RowSetRecord;
+import org.cytoscape.model.events.RowsSetEvent;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class RowSetPayloadCollectionTest {
+
+	private RowSetPayloadCollection records;
+	private CyRow row;
+
+	@Before
+	public void setUp() {
+		records = new RowSetPayloadCollection();
+		row = mock(CyRow.class);
+	}
+
+	@Test
+	public void testKeepsOriginalRecordsInOrder() {
+		final RowSetRecord a = new RowSetRecord(row, "a", 1, 1);
+		final RowSetRecord b = new RowSetRecord(row, "b", 2, 2);
+		final RowSetRecord c = new RowSetRecord(mock(CyRow.class), "a", 3, 3);
+		records.add(a);
+		records.add(b);
+		records.add(c);
+
+		assertEquals(3, records.size());
+		final Iterator<RowSetRecord> iter = records.iterator();
+		assertRecord(a, iter.next());
+		assertRecord(b, iter.next());
+		assertRecord(c, iter.next());
+		assertFalse(iter.hasNext());
+	}
+
+	@Test
+	public void testRepeatedCellsAreCoalesced() {
+		final RowSetRecord first = new RowSetRecord(row, "a", 1, 1);
+		final RowSetRecord other = new RowSetRecord(row, "b", 2, 2);
+		final RowSetRecord last = new RowSetRecord(row, "a", 3, 3);
+		records.add(first);
+		records.add(other);
+		records.add(new RowSetRecord(row, "a", 2, 2));
+		records.add(last);
+
+		// The last record takes the position of the first one.
+		assertEquals(2, records.size());
+		final Iterator<RowSetRecord> iter = records.iterator();
+		assertRecord(last, iter.next());
+		assertRecord(other, iter.next());
+	}
+
+	@Test
+	public void testCollidingKeys() {
+		// These column names all have the same String hash code.
+		final String[] columns = { "AaAa", "BBBB", "AaBB", "BBAa" };
+		for (int i = 1; i < columns.length; i++)
+			assertEquals(RowSetPayloadCollection.hash(row, columns[0]), RowSetPayloadCollection.hash(row, columns[i]));
+
+		final List<RowSetRecord> expected = new ArrayList<RowSetRecord>();
+		for (final String column : columns) {
+			final RowSetRecord record = new RowSetRecord(row, column, column, column);
+			records.add(record);
+			expected.add(record);
+		}
+
+		// Replace records found further along the probe sequence.
+		final RowSetRecord bbaa = new RowSetRecord(row, "BBAa", 0, 0);
+		final RowSetRecord aabb = new RowSetRecord(row, "AaBB", 0, 0);
+		records.add(bbaa);
+		records.add(aabb);
+		expected.set(3, bbaa);
+		expected.set(2, aabb);
+
+		assertRecords(expected, records);
+	}
+
+	@Test
+	public void testGrowth() {
+		final int rowCount = 1000;
+		final String[] columns = { "a", "b", "c" };
+		final CyRow[] rows = new CyRow[rowCount];
+		for (int i = 0; i < rowCount; i++)
+			rows[i] = mock(CyRow.class);
+
+		for (final CyRow r : rows)
+			for (final String column : columns)
+				records.add(new RowSetRecord(r, column, 1, 1));
+
+		assertEquals(rowCount * columns.length, records.size());
+		assertTrue(records.getHashCapacity() >= 2 * records.size());
+
+		// Every cell is still found after the table has grown.
+		final List<RowSetRecord> expected = new ArrayList<RowSetRecord>();
+		for (final CyRow r : rows) {
+			for (final String column : columns) {
+				final RowSetRecord record = new RowSetRecord(r, column, 2, 2);
+				records.add(record);
+				expected.add(record);
+			}
+		}
+
+		assertEquals(rowCount * columns.length, records.size());
+		assertRecords(expected, records);
+	}
+
+	@Test(expected=NullPointerException.class)
+	public void testNullRecord() {
+		records.add(null);
+	}
+
+	@Test
+	public void testFactoryCreatesEmptyCollections() {
+		final RowSetPayloadCollection.Factory factory = new RowSetPayloadCollection.Factory();
+		final Collection<RowSetRecord> first = factory.createPayloadCollection();
+		final Collection<RowSetRecord> second = factory.createPayloadCollection();
+
+		assertEquals(RowsSetEvent.class, factory.getEventType());
+		assertTrue(first.isEmpty());
+		assertNotSame(first, second);
+	}
+
+	private static void assertRecords(final List<RowSetRecord> expected, final Collection<RowSetRecord> actual) {
+		assertEquals(expected.size(), actual.size());
+		final Iterator<RowSetRecord> iter = actual.iterator();
+		for (final RowSetRecord record : expected)
+			assertRecord(record, iter.next());
+		assertFalse(iter.hasNext());
+	}
+
+	// The collection only keeps the fields, so its records are new instances.
+	private static void assertRecord(final RowSetRecord expected, final RowSetRecord actual) {
+		assertSame(expected.getRow(), actual.getRow());
+		assertEquals(expected.getColumn(), actual.getColumn());
+		assertEquals(expected.getValue(), actual.getValue());
+		assertEquals(expected.getRawValue(), actual.getRawValue());
+	}
+}
@@ -0,0 +1,341 @@
+package org.cytoscape.model.internal;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNode;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class SimpleNetworkTest {
+
+	private SimpleNetwork net;
+	private long nextSUID;
+
+	@Before
+	public void setUp() {
+		net = new SimpleNetwork(1L);
+		nextSUID = 100L;
+	}
+
+	@Test
+	public void testDirectedAndUndirectedAdjacency() {
+		final CyNode a = addNode();
+		final CyNode b = addNode();
+		final CyNode c = addNode();
+		final CyEdge ab = addEdge(a, b, true);
+		final CyEdge bc = addEdge(b, c, true);
+		final CyEdge ac = addEdge(a, c, false);
+
+		assertEquals(Arrays.asList(ab), net.getAdjacentEdgeList(a, CyEdge.Type.OUTGOING));
+		assertTrue(net.getAdjacentEdgeList(a, CyEdge.Type.INCOMING).isEmpty());
+		assertEquals(Arrays.asList(ac), net.getAdjacentEdgeList(a, CyEdge.Type.UNDIRECTED));
+		assertEquals(Arrays.asList(ab), net.getAdjacentEdgeList(b, CyEdge.Type.INCOMING));
+		assertSameElements(Arrays.asList(ab, bc), net.getAdjacentEdgeList(b, CyEdge.Type.DIRECTED));
+		assertSameElements(Arrays.asList(bc, ac), net.getAdjacentEdgeList(c, CyEdge.Type.ANY));
+		assertSameElements(Arrays.asList(b, c), net.getNeighborList(a, CyEdge.Type.ANY));
+
+		assertEquals(Arrays.asList(ab), net.getConnectingEdgeList(a, b, CyEdge.Type.ANY));
+		assertEquals(Arrays.asList(ab), net.getConnectingEdgeList(b, a, CyEdge.Type.ANY));
+		assertTrue(net.getConnectingEdgeList(a, b, CyEdge.Type.UNDIRECTED).isEmpty());
+		assertTrue(net.containsEdge(c, a));
+		assertFalse(net.containsEdge(a, a));
+	}
+
+	@Test
+	public void testAdjacencyOrder() {
+		final CyNode a = addNode();
+		final CyNode b = addNode();
+		final CyNode c = addNode();
+		final CyEdge ab = addEdge(a, b, true);
+		final CyEdge ac = addEdge(a, c, true);
+		final CyEdge ca = addEdge(c, a, true);
+		final CyEdge ba = addEdge(b, a, true);
+
+		// Outgoing edges come first, each group starting with the most recently added edge.
+		assertEquals(Arrays.asList(ac, ab, ba, ca), net.getAdjacentEdgeList(a, CyEdge.Type.ANY));
+
+		// Edges are grouped by source node, in the order of getNodeList().
+		assertEquals(Arrays.asList(c, b, a), net.getNodeList());
+		assertEquals(Arrays.asList(ca, ba, ac, ab), net.getEdgeList());
+
+		// Removing an edge keeps the order of the others.
+		net.removeEdgesInternal(Arrays.asList(ab));
+		assertEquals(Arrays.asList(ac, ba, ca), net.getAdjacentEdgeList(a, CyEdge.Type.ANY));
+		net.addEdgeInternal(a, b, true, ab);
+		assertEquals(Arrays.asList(ab, ac, ba, ca), net.getAdjacentEdgeList(a, CyEdge.Type.ANY));
+	}
+
+	@Test
+	public void testSelfLoops() {
+		final CyNode a = addNode();
+		final CyNode b = addNode();
+		final CyEdge directed = addEdge(a, a, true);
+		final CyEdge undirected = addEdge(a, a, false);
+		final CyEdge ab = addEdge(a, b, true);
+
+		assertEquals(Arrays.asList(directed), net.getAdjacentEdgeList(a, CyEdge.Type.INCOMING));
+		assertEquals(Arrays.asList(ab, directed), net.getAdjacentEdgeList(a, CyEdge.Type.OUTGOING));
+		assertEquals(Arrays.asList(ab, directed), net.getAdjacentEdgeList(a, CyEdge.Type.DIRECTED));
+		assertEquals(Arrays.asList(undirected), net.getAdjacentEdgeList(a, CyEdge.Type.UNDIRECTED));
+		assertEquals(Arrays.asList(ab, undirected, directed), net.getAdjacentEdgeList(a, CyEdge.Type.ANY));
+		assertEquals(Arrays.asList(b, a, a), net.getNeighborList(a, CyEdge.Type.ANY));
+		assertEquals(2, net.getConnectingEdgeList(a, a, CyEdge.Type.ANY).size());
+		assertTrue(net.containsEdge(a, a));
+
+		net.removeEdgesInternal(Arrays.asList(directed));
+		assertEquals(Arrays.asList(ab, undirected), net.getAdjacentEdgeList(a, CyEdge.Type.ANY));
+		assertTrue(net.getAdjacentEdgeList(a, CyEdge.Type.INCOMING).isEmpty());
+
+		net.removeNodesInternal(Arrays.asList(a));
+		assertEquals(0, net.getEdgeCount());
+		assertFalse(net.containsEdge(undirected));
+		assertTrue(net.getAdjacentEdgeList(b, CyEdge.Type.ANY).isEmpty());
+	}
+
+	@Test
+	public void testRemoveNodeRemovesAdjacentEdges() {
+		final CyNode a = addNode();
+		final CyNode b = addNode();
+		final CyNode c = addNode();
+		final CyEdge ab = addEdge(a, b, true);
+		final CyEdge bc = addEdge(b, c, false);
+
+		assertTrue(net.removeNodesInternal(Arrays.asList(a)));
+		assertFalse(net.removeNodesInternal(Arrays.asList(a)));
+		assertFalse(net.containsNode(a));
+		assertNull(net.getNode(a.getSUID()));
+		assertFalse(net.containsEdge(ab));
+		assertNull(net.getEdge(ab.getSUID()));
+		assertEquals(Arrays.asList(bc), net.getAdjacentEdgeList(b, CyEdge.Type.ANY));
+		assertEquals(2, net.getNodeCount());
+		assertEquals(1, net.getEdgeCount());
+
+		try {
+			net.addEdgeInternal(a, b, true, newEdge(a, b, true));
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	@Test
+	public void testTopologyIsRebuiltAfterRemovals() {
+		final Random random = new Random(7L);
+		final List<CyNode> nodes = new ArrayList<CyNode>();
+		final List<CyEdge> edges = new ArrayList<CyEdge>();
+
+		for (int i = 0; i < 2000; i++)
+			nodes.add(addNode());
+		addRandomEdges(random, nodes, edges, 5000);
+		assertMatchesModel(nodes, edges);
+
+		// Remove enough edges and nodes for the arrays to be compacted.
+		Collections.shuffle(edges, random);
+		final List<CyEdge> removedEdges = new ArrayList<CyEdge>(edges.subList(0, 3500));
+		edges.removeAll(removedEdges);
+		assertTrue(net.removeEdgesInternal(removedEdges));
+		assertMatchesModel(nodes, edges);
+
+		Collections.shuffle(nodes, random);
+		final List<CyNode> removedNodes = new ArrayList<CyNode>(nodes.subList(0, 1200));
+		nodes.removeAll(removedNodes);
+		assertTrue(net.removeNodesInternal(removedNodes));
+		for (final CyNode node : removedNodes) {
+			for (int i = edges.size() - 1; i >= 0; i--) {
+				final CyEdge edge = edges.get(i);
+				if (edge.getSource() == node || edge.getTarget() == node)
+					edges.remove(i);
+			}
+		}
+		assertMatchesModel(nodes, edges);
+
+		for (int i = 0; i < 500; i++)
+			nodes.add(addNode());
+		addRandomEdges(random, nodes, edges, 2000);
+		assertMatchesModel(nodes, edges);
+	}
+
+	@Test
+	public void testConcurrentReadsDuringWrites() throws Exception {
+		final Random random = new Random(11L);
+		final List<CyNode> nodes = new ArrayList<CyNode>();
+		final List<CyEdge> edges = new ArrayList<CyEdge>();
+		for (int i = 0; i < 50; i++)
+			nodes.add(addNode());
+
+		final CyNode[] readerNodes = nodes.toArray(new CyNode[nodes.size()]);
+		final AtomicBoolean done = new AtomicBoolean();
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		final AtomicInteger reads = new AtomicInteger();
+		final Thread[] readers = new Thread[4];
+
+		for (int t = 0; t < readers.length; t++) {
+			final Random readerRandom = new Random(t);
+			readers[t] = new Thread() {
+				public void run() {
+					try {
+						while (!done.get()) {
+							final CyNode node = readerNodes[readerRandom.nextInt(readerNodes.length)];
+							for (final CyEdge edge : net.getAdjacentEdgeList(node, CyEdge.Type.ANY)) {
+								if (edge == null || (edge.getSource() != node && edge.getTarget() != node))
+									throw new AssertionError("inconsistent adjacency of " + node);
+							}
+							for (final CyNode neighbor : net.getNeighborList(node, CyEdge.Type.DIRECTED)) {
+								if (neighbor == null)
+									throw new AssertionError("missing neighbor of " + node);
+							}
+							for (final CyEdge edge : net.getEdgeList()) {
+								if (edge == null)
+									throw new AssertionError("missing edge");
+							}
+							reads.incrementAndGet();
+						}
+					} catch (Throwable e) {
+						failure.set(e);
+					}
+				}
+			};
+			readers[t].start();
+		}
+
+		// Enough adds and removes for the edge and node arrays to be compacted several times.
+		for (int i = 0; i < 20000 && failure.get() == null; i++) {
+			final int op = random.nextInt(10);
+			if (op < 5 || edges.size() < 100) {
+				addRandomEdges(random, nodes, edges, 1);
+			} else if (op < 9) {
+				final CyEdge edge = edges.remove(random.nextInt(edges.size()));
+				net.removeEdgesInternal(Collections.singletonList(edge));
+			} else {
+				final CyNode node = nodes.get(random.nextInt(nodes.size()));
+				net.removeNodesInternal(Collections.singletonList(node));
+				for (int j = edges.size() - 1; j >= 0; j--) {
+					final CyEdge edge = edges.get(j);
+					if (edge.getSource() == node || edge.getTarget() == node)
+						edges.remove(j);
+				}
+				net.addNodeInternal(node);
+			}
+		}
+
+		done.set(true);
+		for (final Thread reader : readers)
+			reader.join();
+
+		if (failure.get() != null)
+			throw new AssertionError(failure.get());
+		assertTrue(reads.get() > 0);
+		assertMatchesModel(nodes, edges);
+	}
+
+	private CyNode addNode() {
+		final long suid = nextSUID++;
+		return net.addNodeInternal(new CyNodeImpl(suid, suid, null));
+	}
+
+	private CyEdge newEdge(final CyNode source, final CyNode target, final boolean directed) {
+		final long suid = nextSUID++;
+		return new CyEdgeImpl(suid, source, target, directed, suid);
+	}
+
+	private CyEdge addEdge(final CyNode source, final CyNode target, final boolean directed) {
+		return net.addEdgeInternal(source, target, directed, newEdge(source, target, directed));
+	}
+
+	private void addRandomEdges(final Random random, final List<CyNode> nodes, final List<CyEdge> edges,
+	                            final int count) {
+		for (int i = 0; i < count; i++) {
+			final CyNode source = nodes.get(random.nextInt(nodes.size()));
+			// Every 20th edge is a self-loop.
+			final CyNode target = i % 20 == 0 ? source : nodes.get(random.nextInt(nodes.size()));
+			edges.add(addEdge(source, target, random.nextBoolean()));
+		}
+	}
+
+	/**
+	 * Checks every query of the network against a brute force scan of "edges".
+	 */
+	private void assertMatchesModel(final List<CyNode> nodes, final List<CyEdge> edges) {
+		assertEquals(nodes.size(), net.getNodeCount());
+		assertEquals(edges.size(), net.getEdgeCount());
+		assertSameElements(nodes, net.getNodeList());
+		assertSameElements(edges, net.getEdgeList());
+
+		for (final CyEdge edge : edges)
+			assertSame(edge, net.getEdge(edge.getSUID()));
+
+		for (final CyNode node : nodes) {
+			assertSame(node, net.getNode(node.getSUID()));
+
+			for (final CyEdge.Type type : CyEdge.Type.values()) {
+				final List<CyEdge> expected = new ArrayList<CyEdge>();
+				for (final CyEdge edge : edges) {
+					if (isAdjacent(edge, node, type))
+						expected.add(edge);
+				}
+
+				final List<CyEdge> adjacent = net.getAdjacentEdgeList(node, type);
+				assertSameElements(expected, adjacent);
+				assertEquals(adjacent.size(), net.getNeighborList(node, type).size());
+			}
+		}
+	}
+
+	private static boolean isAdjacent(final CyEdge edge, final CyNode node, final CyEdge.Type type) {
+		final boolean source = edge.getSource() == node;
+		final boolean target = edge.getTarget() == node;
+		switch (type) {
+		case UNDIRECTED:
+			return !edge.isDirected() && (source || target);
+		case DIRECTED:
+			return edge.isDirected() && (source || target);
+		case OUTGOING:
+			return edge.isDirected() && source;
+		case INCOMING:
+			return edge.isDirected() && target;
+		default:
+			return source || target;
+		}
+	}
+
+	private static void assertSameElements(final List<?> expected, final List<?> actual) {
+		assertEquals(expected.size(), actual.size());
+		assertEquals(new HashSet<Object>(expected), new HashSet<Object>(actual));
+	}
+}
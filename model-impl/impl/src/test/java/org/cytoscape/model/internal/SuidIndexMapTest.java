@@ -0,0 +1,121 @@
+package org.cytoscape.model.internal;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class SuidIndexMapTest {
+
+	private SuidIndexMap map;
+
+	@Before
+	public void setUp() {
+		map = new SuidIndexMap();
+	}
+
+	@Test
+	public void testPutGetRemove() {
+		assertEquals(-1, map.get(42L));
+		map.put(42L, 0);
+		map.put(Long.MAX_VALUE, 7);
+		assertEquals(0, map.get(42L));
+		assertEquals(7, map.get(Long.MAX_VALUE));
+
+		map.put(42L, 3);
+		assertEquals(3, map.get(42L));
+
+		map.remove(42L);
+		assertEquals(-1, map.get(42L));
+		assertEquals(7, map.get(Long.MAX_VALUE));
+	}
+
+	@Test
+	public void testNegativeSuidsAreNeverFound() {
+		assertEquals(-1, map.get(-1L));
+		assertEquals(-1, map.get(-2L));
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testPutNegativeSuid() {
+		map.put(-5L, 1);
+	}
+
+	@Test
+	public void testMatchesHashMapUnderChurn() {
+		final Map<Long, Integer> expected = new HashMap<Long, Integer>();
+		final Random random = new Random(17L);
+
+		for (int i = 0; i < 200000; i++) {
+			final long suid = random.nextInt(5000);
+			if (random.nextBoolean()) {
+				map.put(suid, i);
+				expected.put(suid, i);
+			} else {
+				map.remove(suid);
+				expected.remove(suid);
+			}
+
+			final long probe = random.nextInt(6000);
+			final Integer index = expected.get(probe);
+			assertEquals(index == null ? -1 : index.intValue(), map.get(probe));
+		}
+	}
+
+	@Test(timeout=30000)
+	public void testConcurrentReadersSeeEveryStableEntry() throws Exception {
+		// Entries below 1000 are never touched again, while a writer churns through the rest.
+		for (int suid = 0; suid < 1000; suid++)
+			map.put(suid, suid);
+
+		final Thread writer = new Thread() {
+			@Override
+			public void run() {
+				for (int round = 0; round < 200; round++) {
+					for (int suid = 1000; suid < 5000; suid++)
+						map.put(suid, suid);
+					for (int suid = 1000; suid < 5000; suid++)
+						map.remove(suid);
+				}
+			}
+		};
+		writer.start();
+
+		while (writer.isAlive()) {
+			for (int suid = 0; suid < 1000; suid++)
+				assertEquals(suid, map.get(suid));
+		}
+		writer.join();
+	}
+}
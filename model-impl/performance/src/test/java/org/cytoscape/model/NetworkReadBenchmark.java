@@ -0,0 +1,155 @@
+package org.cytoscape.model;
+
+/*
+ * #%L
+ * Cytoscape Model Impl Performance (model-impl-performance)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+
+/**
+ * Measures the throughput of concurrent topology reads on a single network.
+ * Readers no longer serialize on the network: the counts, getNode() and
+ * containsNode() do not lock at all, and the list methods share a read lock.
+ * So the aggregate throughput should grow with the number of threads.  Run
+ * {@link #main(String[])} to execute the benchmarks with 1, 2, 4 and 8 threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class NetworkReadBenchmark {
+
+	private static final int NODE_COUNT = 50000;
+	private static final int EDGE_COUNT = 100000;
+
+	private CyNetwork network;
+	private CyNode[] nodes;
+	private long[] nodeSUIDs;
+
+	@Setup
+	public void setup() {
+		network = new NetworkTestSupport().getNetwork();
+
+		final List<CyNode> nodeList = new ArrayList<CyNode>(NODE_COUNT);
+		for (int i = 0; i < NODE_COUNT; i++)
+			nodeList.add(network.addNode());
+
+		boolean isDirected = true;
+		final Random rand = new Random(1234L);
+		for (int i = 0; i < EDGE_COUNT; i++) {
+			final CyNode source = nodeList.get(rand.nextInt(NODE_COUNT));
+			final CyNode target = nodeList.get(rand.nextInt(NODE_COUNT));
+			network.addEdge(source, target, isDirected);
+			isDirected = !isDirected;
+		}
+
+		nodes = nodeList.toArray(new CyNode[NODE_COUNT]);
+		nodeSUIDs = new long[NODE_COUNT];
+		for (int i = 0; i < NODE_COUNT; i++)
+			nodeSUIDs[i] = nodes[i].getSUID();
+	}
+
+	/**
+	 * Each benchmark thread walks the nodes from its own random position so
+	 * that threads don't touch the same nodes in lock step.
+	 */
+	@State(Scope.Thread)
+	public static class Cursor {
+		private int next;
+
+		@Setup
+		public void setup() {
+			next = new Random().nextInt(NODE_COUNT);
+		}
+
+		int nextIndex() {
+			final int index = next;
+			next = (next + 1) % NODE_COUNT;
+			return index;
+		}
+	}
+
+	@Benchmark
+	public int getNodeCount() {
+		return network.getNodeCount();
+	}
+
+	@Benchmark
+	public CyNode getNode(final Cursor cursor) {
+		return network.getNode(nodeSUIDs[cursor.nextIndex()]);
+	}
+
+	@Benchmark
+	public boolean containsNode(final Cursor cursor) {
+		return network.containsNode(nodes[cursor.nextIndex()]);
+	}
+
+	@Benchmark
+	public List<CyNode> getNeighborList(final Cursor cursor) {
+		return network.getNeighborList(nodes[cursor.nextIndex()], CyEdge.Type.ANY);
+	}
+
+	@Benchmark
+	public List<CyEdge> getAdjacentEdgeList(final Cursor cursor) {
+		return network.getAdjacentEdgeList(nodes[cursor.nextIndex()], CyEdge.Type.ANY);
+	}
+
+	@Benchmark
+	public List<CyEdge> getConnectingEdgeList(final Cursor cursor) {
+		final CyNode source = nodes[cursor.nextIndex()];
+		final CyNode target = nodes[cursor.nextIndex()];
+		return network.getConnectingEdgeList(source, target, CyEdge.Type.ANY);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		for (final int threads : new int[] { 1, 2, 4, 8 }) {
+			final Options options = new OptionsBuilder()
+				.include(NetworkReadBenchmark.class.getSimpleName())
+				.threads(threads)
+				.build();
+			new Runner(options).run();
+		}
+	}
+}
@@ -25,8 +25,14 @@ package org.cytoscape.internal.select;
  */
 
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.swing.SwingUtilities;
 
@@ -38,7 +44,6 @@ import org.cytoscape.model.CyIdentifiable;
 import org.cytoscape.model.CyNetwork;
 import org.cytoscape.model.CyNode;
 import org.cytoscape.model.CyRow;
-import org.cytoscape.model.VirtualColumnInfo;
 import org.cytoscape.model.events.RowSetRecord;
 import org.cytoscape.model.events.RowsSetEvent;
 import org.cytoscape.model.events.RowsSetListener;
@@ -48,6 +53,7 @@ import org.cytoscape.view.model.View;
 import org.cytoscape.view.model.VisualProperty;
 import org.cytoscape.view.vizmap.VisualMappingFunction;
 import org.cytoscape.view.vizmap.VisualMappingManager;
+import org.cytoscape.view.vizmap.VisualPropertyDependency;
 import org.cytoscape.view.vizmap.VisualStyle;
 
 /**
@@ -62,8 +68,6 @@ public class RowsSetViewUpdater implements RowsSetListener {
 	private final NetworkViewManager viewManager;
 	private final RowViewTracker tracker;
 
-	private VisualMappingFunction<?, ?> targetFunction;
-
 	public RowsSetViewUpdater(final CyApplicationManager am, final CyNetworkViewManager vm,
 			final VisualMappingManager vmm, final RowViewTracker tracker, final NetworkViewManager viewManager) {
 		this.am = am;
@@ -91,7 +95,6 @@ public class RowsSetViewUpdater implements RowsSetListener {
 	}
 
 	private final void updateView(final RowsSetEvent e) {
-		boolean refreshView = false;
 		boolean refreshOtherViews = false;
 		
 		final CyNetwork network = am.getCurrentNetwork();
@@ -107,49 +110,57 @@ public class RowsSetViewUpdater implements RowsSetListener {
 			networkView = views.iterator().next();
 
 		final VisualStyle vs = vmm.getVisualStyle(networkView);
+		final Map<String, List<VisualMappingFunction<?, ?>>> mappingsByColumn = getMappingsByColumn(vs);
+
+		if (mappingsByColumn.isEmpty())
+			return;
+
 		Map<CyRow, View<?>> rowViewMap = tracker.getRowViewMap(networkView);
 		
+		// Collect the views to update for each mapping first, so that a row set
+		// many times in the same event is only mapped once.
+		final Map<VisualMappingFunction<?, ?>, Map<View<?>, CyRow>> updates =
+				new LinkedHashMap<VisualMappingFunction<?, ?>, Map<View<?>, CyRow>>();
+
 		for (final RowSetRecord record : e.getPayloadCollection()) {
 			final CyRow row = record.getRow();
 			final String columnName = record.getColumn();
+			final List<VisualMappingFunction<?, ?>> mappings = mappingsByColumn.get(columnName.toLowerCase());
+
+			if (mappings == null)
+				continue;
+
 			final CyColumn column = row.getTable().getColumn(columnName);
 			
 			if (column == null)
 				continue;
 			
-			final VirtualColumnInfo virtualColInfo = column.getVirtualColumnInfo();
-			final boolean virtual = virtualColInfo.isVirtual();
 			final View<?> v = rowViewMap.get(row);
 
-			if (v == null)
+			if (v == null || !isInNetwork(network, v.getModel()))
 				continue;
 
-			VisualProperty<?> vp = null;
-
-			if (v.getModel() instanceof CyNode) {
-				final CyNode node = (CyNode) v.getModel();
-				if (network.containsNode(node))
-					vp = getVPfromVS(vs, columnName);
-			} else if (v.getModel() instanceof CyEdge) {
-				final CyEdge edge = (CyEdge) v.getModel();
-				if (network.containsEdge(edge))
-					vp = getVPfromVS(vs, columnName);
-			} else {
-				// FIXME: NETWORK?
-			}
+			for (final VisualMappingFunction<?, ?> mapping : mappings) {
+				if (!mapping.getVisualProperty().getTargetDataType().isInstance(v.getModel()))
+					continue;
+
+				Map<View<?>, CyRow> mappedViews = updates.get(mapping);
+
+				if (mappedViews == null) {
+					mappedViews = new LinkedHashMap<View<?>, CyRow>();
+					updates.put(mapping, mappedViews);
+				}
+
+				mappedViews.put(v, row);
 
-			if (vp != null) {
-				targetFunction.apply(record.getRow(), (View<? extends CyIdentifiable>) v);
-				refreshView = true;
-				
 				// If virtual, it may be used in other networks.
-				if(virtual)
+				if (column.getVirtualColumnInfo().isVirtual())
 					refreshOtherViews = true;
 			}
 		}
 
-		if (refreshView) {
-			vs.apply(networkView);
+		if (!updates.isEmpty()) {
+			applyMappings(vs, updates);
 			networkView.updateView();
 			
 			if (refreshOtherViews) {
@@ -168,19 +179,82 @@ public class RowsSetViewUpdater implements RowsSetListener {
 		}
 	}
 
-	// Check if the columnName is the name of mapping attribute in visualStyle,
-	// If yes, return the VisualProperty associated with this columnName
-	private VisualProperty<?> getVPfromVS(VisualStyle vs, String columnName) {
-		VisualProperty<?> vp = null;
-		final Collection<VisualMappingFunction<?, ?>> vmfs = vs.getAllVisualMappingFunctions();
-
-		for (final VisualMappingFunction<?, ?> f : vmfs) {
-			if (f.getMappingColumnName().equalsIgnoreCase(columnName)) {
-				vp = f.getVisualProperty();
-				targetFunction = f;
-				break;
+	/**
+	 * Sets the values of the given mappings on their views, one visual property
+	 * at a time, instead of applying the whole style to the network view.
+	 * Properties that depend on an enabled {@link VisualPropertyDependency} take
+	 * the value of the parent property's mapping, as in a full apply.
+	 */
+	private void applyMappings(final VisualStyle vs,
+			final Map<VisualMappingFunction<?, ?>, Map<View<?>, CyRow>> updates) {
+		final Map<VisualProperty<?>, Set<VisualProperty<?>>> dependents =
+				new HashMap<VisualProperty<?>, Set<VisualProperty<?>>>();
+		final Set<VisualProperty<?>> overridden = new HashSet<VisualProperty<?>>();
+
+		for (final VisualPropertyDependency<?> dep : vs.getAllVisualPropertyDependencies()) {
+			if (dep.isDependencyEnabled()) {
+				final Set<VisualProperty<?>> vpSet = new HashSet<VisualProperty<?>>(dep.getVisualProperties());
+				vpSet.remove(dep.getParentVisualProperty());
+				dependents.put(dep.getParentVisualProperty(), vpSet);
+				overridden.addAll(vpSet);
+			}
+		}
+
+		for (final Map.Entry<VisualMappingFunction<?, ?>, Map<View<?>, CyRow>> entry : updates.entrySet()) {
+			final VisualMappingFunction<?, ?> mapping = entry.getKey();
+			final VisualProperty<?> vp = mapping.getVisualProperty();
+
+			if (overridden.contains(vp) && !dependents.containsKey(vp))
+				continue; // The parent property's mapping sets this one
+
+			final Set<VisualProperty<?>> children = dependents.get(vp);
+
+			for (final Map.Entry<View<?>, CyRow> viewRow : entry.getValue().entrySet()) {
+				final View<?> v = viewRow.getKey();
+				final Object value = mapping.getMappedValue(viewRow.getValue());
+
+				if (value == null)
+					continue;
+
+				v.setVisualProperty(vp, value);
+
+				if (children != null) {
+					for (final VisualProperty<?> child : children) {
+						if (child.getTargetDataType().isInstance(v.getModel()))
+							v.setVisualProperty(child, value);
+					}
+				}
+			}
+		}
+	}
+
+	private static boolean isInNetwork(final CyNetwork network, final CyIdentifiable model) {
+		if (model instanceof CyNode)
+			return network.containsNode((CyNode) model);
+		else if (model instanceof CyEdge)
+			return network.containsEdge((CyEdge) model);
+		else
+			return false; // FIXME: NETWORK?
+	}
+
+	// Index the mappings of the visual style by the (case insensitive) name of
+	// the column they read, since more than one mapping may use the same column.
+	private static Map<String, List<VisualMappingFunction<?, ?>>> getMappingsByColumn(final VisualStyle vs) {
+		final Map<String, List<VisualMappingFunction<?, ?>>> mappingsByColumn =
+				new HashMap<String, List<VisualMappingFunction<?, ?>>>();
+
+		for (final VisualMappingFunction<?, ?> f : vs.getAllVisualMappingFunctions()) {
+			final String key = f.getMappingColumnName().toLowerCase();
+			List<VisualMappingFunction<?, ?>> mappings = mappingsByColumn.get(key);
+
+			if (mappings == null) {
+				mappings = new ArrayList<VisualMappingFunction<?, ?>>(1);
+				mappingsByColumn.put(key, mappings);
 			}
+
+			mappings.add(f);
 		}
-		return vp;
+
+		return mappingsByColumn;
 	}
 }
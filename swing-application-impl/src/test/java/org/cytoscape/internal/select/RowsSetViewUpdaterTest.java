@@ -0,0 +1,226 @@
+package org.cytoscape.internal.select;
+
+/*
+ * #%L
+ * Cytoscape Swing Application Impl (swing-application-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import static org.cytoscape.view.presentation.property.BasicVisualLexicon.*;
+import static org.mockito.Mockito.*;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.swing.SwingUtilities;
+
+import org.cytoscape.application.CyApplicationManager;
+import org.cytoscape.internal.view.NetworkViewManager;
+import org.cytoscape.model.CyColumn;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.CyRow;
+import org.cytoscape.model.CyTable;
+import org.cytoscape.model.VirtualColumnInfo;
+import org.cytoscape.model.events.RowSetRecord;
+import org.cytoscape.model.events.RowsSetEvent;
+import org.cytoscape.view.model.CyNetworkView;
+import org.cytoscape.view.model.CyNetworkViewManager;
+import org.cytoscape.view.model.View;
+import org.cytoscape.view.model.VisualProperty;
+import org.cytoscape.view.presentation.property.BasicVisualLexicon;
+import org.cytoscape.view.presentation.property.NullVisualProperty;
+import org.cytoscape.view.vizmap.VisualMappingFunction;
+import org.cytoscape.view.vizmap.VisualMappingManager;
+import org.cytoscape.view.vizmap.VisualPropertyDependency;
+import org.cytoscape.view.vizmap.VisualStyle;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RowsSetViewUpdaterTest {
+
+	private CyTable table;
+	private CyNetworkView networkView;
+	private CyNetworkView otherView;
+	private CyNetworkView otherStyleView;
+	private VisualStyle style;
+	private NetworkViewManager viewManager;
+	private VirtualColumnInfo virtualInfo;
+	private RowsSetViewUpdater updater;
+
+	private final List<VisualMappingFunction<?, ?>> mappings = new ArrayList<VisualMappingFunction<?, ?>>();
+	private final Set<VisualPropertyDependency<?>> dependencies = new HashSet<VisualPropertyDependency<?>>();
+	private final Map<CyRow, View<?>> rowViewMap = new HashMap<CyRow, View<?>>();
+	private final List<CyRow> rows = new ArrayList<CyRow>();
+	private final List<View<CyNode>> views = new ArrayList<View<CyNode>>();
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setUp() throws Exception {
+		final CyNetwork network = mock(CyNetwork.class);
+		when(network.containsNode(any(CyNode.class))).thenReturn(true);
+
+		table = mock(CyTable.class);
+		virtualInfo = mock(VirtualColumnInfo.class);
+
+		for (final String name : new String[] { "score", "name" }) {
+			final CyColumn column = mock(CyColumn.class);
+			when(column.getVirtualColumnInfo()).thenReturn(virtualInfo);
+			when(table.getColumn(name)).thenReturn(column);
+		}
+
+		for (int i = 0; i < 3; i++) {
+			final CyRow row = mock(CyRow.class);
+			when(row.getTable()).thenReturn(table);
+			final View<CyNode> view = mock(View.class);
+			when(view.getModel()).thenReturn(mock(CyNode.class));
+			rows.add(row);
+			views.add(view);
+			rowViewMap.put(row, view);
+		}
+
+		networkView = mock(CyNetworkView.class);
+		otherView = mock(CyNetworkView.class);
+		otherStyleView = mock(CyNetworkView.class);
+		style = mock(VisualStyle.class);
+		doReturn(mappings).when(style).getAllVisualMappingFunctions();
+		doReturn(dependencies).when(style).getAllVisualPropertyDependencies();
+
+		final CyApplicationManager appManager = mock(CyApplicationManager.class);
+		when(appManager.getCurrentNetwork()).thenReturn(network);
+
+		final CyNetworkViewManager networkViewManager = mock(CyNetworkViewManager.class);
+		when(networkViewManager.getNetworkViews(network)).thenReturn(Collections.singleton(networkView));
+		when(networkViewManager.getNetworkViewSet()).thenReturn(
+				new HashSet<CyNetworkView>(Arrays.asList(networkView, otherView, otherStyleView)));
+
+		final VisualMappingManager vmm = mock(VisualMappingManager.class);
+		when(vmm.getVisualStyle(networkView)).thenReturn(style);
+		when(vmm.getVisualStyle(otherView)).thenReturn(style);
+		when(vmm.getVisualStyle(otherStyleView)).thenReturn(mock(VisualStyle.class));
+
+		final RowViewTracker tracker = mock(RowViewTracker.class);
+		when(tracker.getRowViewMap(networkView)).thenReturn(rowViewMap);
+
+		viewManager = mock(NetworkViewManager.class);
+		updater = new RowsSetViewUpdater(appManager, networkViewManager, vmm, tracker, viewManager);
+	}
+
+	@Test
+	public void testOnlyMappedViewsChange() throws Exception {
+		addMapping(NODE_FILL_COLOR, "Score", rows.get(0), Color.RED);
+
+		setRows(new RowSetRecord(rows.get(0), "score", 1.0, 1.0),
+		        new RowSetRecord(rows.get(1), "name", "b", "b"));
+
+		verify(views.get(0)).setVisualProperty(NODE_FILL_COLOR, Color.RED);
+		verify(views.get(1), never()).setVisualProperty(any(VisualProperty.class), anyObject());
+		verify(views.get(2), never()).setVisualProperty(any(VisualProperty.class), anyObject());
+		verify(style, never()).apply(any(CyNetworkView.class));
+		verify(style, never()).apply(any(CyRow.class), any(View.class));
+		verify(networkView).updateView();
+	}
+
+	@Test
+	public void testDependentPropertyTakesParentValue() throws Exception {
+		final Set<VisualProperty<Double>> nodeSizeProperties = new HashSet<VisualProperty<Double>>();
+		nodeSizeProperties.add(NODE_WIDTH);
+		nodeSizeProperties.add(NODE_HEIGHT);
+		final VisualPropertyDependency<Double> dependency = new VisualPropertyDependency<Double>(
+				"nodeSizeLocked", "Lock node width and height", nodeSizeProperties,
+				new BasicVisualLexicon(new NullVisualProperty("2D_ROOT", "2D Root Visual Property")));
+		dependency.setDependency(true);
+		dependencies.add(dependency);
+
+		addMapping(NODE_WIDTH, "score", rows.get(0), 10.0);
+		addMapping(NODE_SIZE, "score", rows.get(0), 40.0);
+
+		setRows(new RowSetRecord(rows.get(0), "score", 1.0, 1.0));
+
+		final View<CyNode> view = views.get(0);
+		verify(view).setVisualProperty(NODE_SIZE, 40.0);
+		verify(view).setVisualProperty(NODE_WIDTH, 40.0);
+		verify(view).setVisualProperty(NODE_HEIGHT, 40.0);
+		verify(view, never()).setVisualProperty(NODE_WIDTH, 10.0);
+	}
+
+	@Test
+	public void testMappingsOfOneColumnAllApply() throws Exception {
+		addMapping(NODE_FILL_COLOR, "score", rows.get(0), Color.RED);
+		addMapping(NODE_BORDER_WIDTH, "score", rows.get(0), 3.0);
+
+		setRows(new RowSetRecord(rows.get(0), "score", 1.0, 1.0));
+
+		verify(views.get(0)).setVisualProperty(NODE_FILL_COLOR, Color.RED);
+		verify(views.get(0)).setVisualProperty(NODE_BORDER_WIDTH, 3.0);
+	}
+
+	@Test
+	public void testVirtualColumnRefreshesOtherViews() throws Exception {
+		addMapping(NODE_FILL_COLOR, "score", rows.get(0), Color.RED);
+		when(virtualInfo.isVirtual()).thenReturn(true);
+
+		setRows(new RowSetRecord(rows.get(0), "score", 1.0, 1.0));
+
+		verify(viewManager).setUpdateFlag(otherView);
+		verify(viewManager, never()).setUpdateFlag(networkView);
+		verify(viewManager, never()).setUpdateFlag(otherStyleView);
+	}
+
+	@Test
+	public void testColumnThatIsNotVirtualLeavesOtherViews() throws Exception {
+		addMapping(NODE_FILL_COLOR, "score", rows.get(0), Color.RED);
+		when(virtualInfo.isVirtual()).thenReturn(false);
+
+		setRows(new RowSetRecord(rows.get(0), "score", 1.0, 1.0));
+
+		verify(viewManager, never()).setUpdateFlag(any(CyNetworkView.class));
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private void addMapping(final VisualProperty<?> vp, final String columnName, final CyRow row,
+			final Object value) {
+		final VisualMappingFunction mapping = mock(VisualMappingFunction.class);
+		when(mapping.getVisualProperty()).thenReturn(vp);
+		when(mapping.getMappingColumnName()).thenReturn(columnName);
+		when(mapping.getMappedValue(row)).thenReturn(value);
+		mappings.add(mapping);
+	}
+
+	/*
+	 * Sets the rows and waits for the views to be updated on the EDT.
+	 */
+	private void setRows(final RowSetRecord... records) throws Exception {
+		updater.handleEvent(new RowsSetEvent(table, Arrays.asList(records)));
+		SwingUtilities.invokeAndWait(new Runnable() {
+			public void run() {
+			}
+		});
+	}
+}